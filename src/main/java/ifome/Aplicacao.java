@@ -30,6 +30,12 @@ public class Aplicacao extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // grava o que ficou agendado antes de fechar a janela
+        RepositorioRestaurantes.getInstance().aguardarSalvamentos();
+    }
+
     //metodo antigo pode funcionar mas é bom remover
     public static void main(String[] args) {
    
@@ -29,7 +29,8 @@ public class AplicacaoConsole {
             System.err.println("Erro crítico na aplicação: " + e.getMessage());
             e.printStackTrace();
         } finally {
-            repositorio.salvarDados();
+            // grava o que ainda estava agendado antes de sair
+            repositorio.aguardarSalvamentos();
             InputManager.fechar();
         }
     }
@@ -542,7 +543,7 @@ public class AplicacaoConsole {
 
             Pedido pedido = carrinho.gerarPedido();
             pedido.setFormaPagamento(pag);
-            pedido.atualizarStatus("Pendente");
+            pedido.atualizarStatus(StatusPedido.PENDENTE);
             
             pedido.processarPagamento();
 
@@ -550,7 +551,7 @@ public class AplicacaoConsole {
             rest.aceitarPedido(pedido);
             
             cliente.adicionarPedido(pedido);
-            repositorio.adicionarPedido(pedido);
+            repositorio.registrarNovoPedido(pedido);
 
             System.out.println("\n==================================================");
             System.out.println("       PEDIDO REALIZADO COM SUCESSO!");
@@ -619,7 +620,7 @@ public class AplicacaoConsole {
 
         java.util.List<Pedido> pedidosEntregues = new java.util.ArrayList<>();
         for (Pedido p : pedidos) {
-            if (p.getStatus().equals("Entregue")) {
+            if (p.getStatusPedido() == StatusPedido.ENTREGUE) {
                 pedidosEntregues.add(p);
             }
         }
@@ -673,7 +674,7 @@ public class AplicacaoConsole {
             System.out.println("Comentário: " + coment);
         }
         
-        repositorio.salvarDados();
+        repositorio.agendarSalvamento(ConjuntoDados.AVALIACOES, ConjuntoDados.AVALIACOES_PEDIDOS);
         InputManager.pausar("");
     }
     
@@ -696,7 +697,7 @@ public class AplicacaoConsole {
         
         java.util.List<Pedido> pedidosPendentes = new java.util.ArrayList<>();
         for (Pedido p : restaurante.getFilaPedidos()) {
-            if (p.getStatus().equals("Pendente")) {
+            if (p.getStatusPedido() == StatusPedido.PENDENTE) {
                 pedidosPendentes.add(p);
             }
         }
@@ -738,9 +739,13 @@ public class AplicacaoConsole {
 
         try {
             if (acao == 1) {
-                
-                pedidoSelecionado.atualizarStatus("Confirmado");
-                repositorio.salvarDados();
+                // muda e grava no diario juntos; outra sessao pode ter mexido no pedido antes
+                if (!repositorio.alterarStatusPedido(pedidoSelecionado, StatusPedido.CONFIRMADO)) {
+                    System.out.println("\n❌ Pedido #" + pedidoSelecionado.getNumeroPedido() +
+                                       " não pode mais ser aceito (" + pedidoSelecionado.getStatus() + ").");
+                    InputManager.pausar("");
+                    return;
+                }
                 
                 System.out.println("\n✅ Pedido #" + pedidoSelecionado.getNumeroPedido() + " ACEITO!");
                 System.out.println("O cliente foi notificado.");
@@ -748,8 +753,13 @@ public class AplicacaoConsole {
             } else if (acao == 2) {
                
                 String motivo = InputManager.lerTexto("Motivo da recusa (opcional)");
-                restaurante.recusarPedido(pedidoSelecionado);
-                repositorio.salvarDados();
+                if (!repositorio.alterarStatusPedido(pedidoSelecionado, StatusPedido.CANCELADO)) {
+                    System.out.println("\n❌ Pedido #" + pedidoSelecionado.getNumeroPedido() +
+                                       " não pode mais ser recusado (" + pedidoSelecionado.getStatus() + ").");
+                    InputManager.pausar("");
+                    return;
+                }
+                restaurante.removerDaFila(pedidoSelecionado);
                 
                 System.out.println("\n❌ Pedido #" + pedidoSelecionado.getNumeroPedido() + " RECUSADO!");
                 if (motivo != null && !motivo.isEmpty()) {
@@ -760,8 +770,6 @@ public class AplicacaoConsole {
                 System.out.println("\nOpção inválida!");
             }
             
-        } catch (RestauranteFechadoException e) {
-            System.out.println("\n❌ ERRO: " + e.getMessage());
         } catch (Exception e) {
             System.out.println("\n❌ ERRO: " + e.getMessage());
         }
@@ -819,7 +827,7 @@ public class AplicacaoConsole {
         if (uf == null || uf.isEmpty()) return;
 
         Endereco novo = new Endereco(cep, rua, num, bairro, cidade, uf);
-        cliente.adicionarEndereco(novo);
+        repositorio.adicionarEnderecoCliente(cliente, novo);
         System.out.println("\nAdicionado!");
         InputManager.pausar("");
     }
@@ -858,6 +866,7 @@ public class AplicacaoConsole {
         }
 
         restaurante.adicionarProdutoCardapio(prod);
+        repositorio.agendarSalvamento(ConjuntoDados.CARDAPIOS);
         System.out.println("\nProduto adicionado!");
         InputManager.pausar("");
     }
@@ -878,6 +887,7 @@ public class AplicacaoConsole {
 
         Produto p = restaurante.getCardapio().get(idx - 1);
         restaurante.removerProdutoCardapio(p);
+        repositorio.agendarSalvamento(ConjuntoDados.CARDAPIOS);
         System.out.println("\nRemovido!");
         InputManager.pausar("");
     }
@@ -923,27 +933,35 @@ public class AplicacaoConsole {
         Integer op = InputManager.lerInteiro("\nNovo status");
         if (op == null) return;
 
-        String stat;
+        StatusPedido stat;
         switch (op) {
-            case 1: stat = "Confirmado"; break;
-            case 2: stat = "Preparando"; break;
-            case 3: stat = "Pronto"; break;
-            case 4: stat = "Em Entrega"; break;
-            case 5: stat = "Entregue"; break;
-            case 6: stat = "Cancelado"; break;
+            case 1: stat = StatusPedido.CONFIRMADO; break;
+            case 2: stat = StatusPedido.PREPARANDO; break;
+            case 3: stat = StatusPedido.PRONTO; break;
+            case 4: stat = StatusPedido.EM_ENTREGA; break;
+            case 5: stat = StatusPedido.ENTREGUE; break;
+            case 6: stat = StatusPedido.CANCELADO; break;
             default: 
                 System.out.println("\nOpção inválida!");
                 InputManager.pausar("");
                 return;
         }
 
-        restaurante.atualizarStatusPedido(ped, stat);
-        repositorio.salvarDados();
+        // muda e grava no diario juntos; a tabela de transicoes pode recusar
+        if (!repositorio.alterarStatusPedido(ped, stat)) {
+            System.out.println("\n❌ Não é possível mudar o pedido #" + ped.getNumeroPedido() +
+                               " de " + ped.getStatus() + " para " + stat.getTexto() + ".");
+            InputManager.pausar("");
+            return;
+        }
+        if (stat == StatusPedido.CANCELADO) {
+            restaurante.removerDaFila(ped);
+        }
         
         System.out.println("\n==================================================");
         System.out.println("       Status atualizado com sucesso!");
         System.out.println("==================================================");
-        System.out.println("Pedido #" + ped.getNumeroPedido() + " → " + stat);
+        System.out.println("Pedido #" + ped.getNumeroPedido() + " → " + stat.getTexto());
         InputManager.pausar("");
     }
 
@@ -2,6 +2,7 @@ package ifome.controller;
 
 import java.io.IOException;
 import ifome.model.*;
+import ifome.util.ConjuntoDados;
 import ifome.util.RepositorioRestaurantes;
 import ifome.util.SessaoUsuario;
 import javafx.event.ActionEvent;
@@ -157,7 +158,7 @@ public class AdicionarProdutoController {
 
             // add no cardapio
             restaurante.adicionarProdutoCardapio(novoProduto);
-            RepositorioRestaurantes.getInstance().salvarDados();
+            RepositorioRestaurantes.getInstance().agendarSalvamento(ConjuntoDados.CARDAPIOS);
 
             // mostra a mensagem
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
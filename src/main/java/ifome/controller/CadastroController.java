@@ -96,7 +96,7 @@ public class CadastroController {
         try {
             Cliente novoCliente = new Cliente(email, senha, nome, telefone);
             repo.adicionarCliente(novoCliente);
-            repo.salvarDados();
+            repo.agendarSalvamento();
 
             SessaoUsuario.getInstance().setClienteLogado(novoCliente);
 
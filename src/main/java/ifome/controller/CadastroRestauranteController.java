@@ -83,7 +83,7 @@ public class CadastroRestauranteController {
             Restaurante novoRestaurante = new Restaurante(email, senha, nome, cnpj);
             novoRestaurante.abrirRestaurante();
             repo.adicionarRestaurante(novoRestaurante);
-            repo.salvarDados();
+            repo.agendarSalvamento();
 
         
             SessaoUsuario.getInstance().setRestauranteLogado(novoRestaurante);
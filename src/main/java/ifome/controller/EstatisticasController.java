@@ -1,16 +1,27 @@
 package ifome.controller;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import ifome.model.ItemPedido;
 import ifome.model.Pedido;
 import ifome.model.Restaurante;
+import ifome.model.StatusPedido;
+import ifome.util.AssinaturaPedidos;
+import ifome.util.EventoPedido;
+import ifome.util.OpcoesAssinatura;
+import ifome.util.PoliticaTransbordo;
 import ifome.util.RepositorioRestaurantes;
 import ifome.util.SessaoUsuario;
+import ifome.util.TipoEventoPedido;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -36,33 +47,93 @@ public class EstatisticasController {
     @FXML private VBox containerProdutosMaisVendidos;
 
     private Restaurante restaurante;
+    // pedidos que entram na conta, pelo numero; os eventos mexem aqui sem reler o disco
+    private final Map<Integer, Pedido> contabilizados = new LinkedHashMap<>();
+    private AssinaturaPedidos assinatura;
+    private long descartesVistos;
+
+    // status que entram no faturamento
+    private static final Set<StatusPedido> STATUS_CONTABILIZADOS = EnumSet.of(
+        StatusPedido.ENTREGUE, StatusPedido.CONFIRMADO, StatusPedido.PREPARANDO,
+        StatusPedido.PRONTO, StatusPedido.EM_ENTREGA);
 
     @FXML
     public void initialize() {
         restaurante = SessaoUsuario.getInstance().getRestauranteLogado();
         carregarEstatisticas();
+        assinarEventos();
+        SaidaDaTela.aoSair(lblTotalPedidos, this::cancelarAssinatura);
+    }
+
+    /**
+     * carga inicial uma vez so (inclui os frios, lidos do disco); depois cada lote de
+     * eventos so poe ou tira o pedido da conta e refaz os numeros
+     */
+    private void assinarEventos() {
+        assinatura = RepositorioRestaurantes.getInstance().getBarramentoPedidos().assinar(
+            lote -> Platform.runLater(() -> aplicarEventos(lote)),
+            new OpcoesAssinatura().nome("estatisticas").doRestaurante(restaurante)
+                .tipos(TipoEventoPedido.CONFIRMADO, TipoEventoPedido.PREPARANDO, TipoEventoPedido.PRONTO,
+                       TipoEventoPedido.EM_ENTREGA, TipoEventoPedido.ENTREGUE, TipoEventoPedido.CANCELADO,
+                       TipoEventoPedido.AVALIADO)
+                .capacidade(256).politica(PoliticaTransbordo.DESCARTAR_ANTIGOS).janela(500));
+    }
+
+    private void cancelarAssinatura() {
+        if (assinatura != null) {
+            assinatura.cancelar();
+            assinatura = null;
+        }
+    }
+
+    private void aplicarEventos(List<EventoPedido> lote) {
+        if (assinatura == null || !assinatura.isAtiva()) {
+            return;
+        }
+        if (assinatura.getDescartados() != descartesVistos) {
+            // perdeu eventos: a conta incremental nao fecha mais, volta pra carga completa
+            descartesVistos = assinatura.getDescartados();
+            carregarEstatisticas();
+            return;
+        }
+        for (EventoPedido evento : lote) {
+            Pedido pedido = evento.getPedido();
+            if (STATUS_CONTABILIZADOS.contains(pedido.getStatusPedido())) {
+                contabilizados.put(pedido.getNumeroPedido(), pedido);
+            } else {
+                contabilizados.remove(pedido.getNumeroPedido());
+            }
+        }
+        exibirEstatisticas();
     }
 
     private void carregarEstatisticas() {
       
-        List<Pedido> todosPedidos = RepositorioRestaurantes.getInstance().getTodosPedidos();
-        
-        List<Pedido> pedidosDoRestaurante = todosPedidos.stream()
-            .filter(p -> p.getRestaurante() != null && 
-                        p.getRestaurante().getEmail().equals(restaurante.getEmail()))
-            .collect(Collectors.toList());
-
-        List<Pedido> pedidosFinalizados = pedidosDoRestaurante.stream()
-            .filter(p -> p.getStatus().equals("Entregue") || 
-                        p.getStatus().equals("Confirmado") ||
-                        p.getStatus().equals("Preparando") ||
-                        p.getStatus().equals("Pronto") ||
-                        p.getStatus().equals("Em Entrega"))
-            .collect(Collectors.toList());
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        // so os grupos de status que contam, deste restaurante, pelo indice do repositorio
+        List<Pedido> pedidosFinalizados = new ArrayList<>(repo.buscarPedidosDoRestaurante(
+            restaurante, STATUS_CONTABILIZADOS, Long.MIN_VALUE, Long.MAX_VALUE));
+        // os antigos ja finalizados estao so no disco; entram na conta lidos sob demanda
+        List<Pedido> pedidosFrios = repo.carregarPedidosFrios(restaurante);
+        for (Pedido p : pedidosFrios) {
+            if (STATUS_CONTABILIZADOS.contains(p.getStatusPedido())) {
+                pedidosFinalizados.add(p);
+            }
+        }
+        int totalDoRestaurante = repo.getQuantidadePedidosDoRestaurante(restaurante) + pedidosFrios.size();
 
-        System.out.println(">>> Estatísticas - Total de pedidos do restaurante: " + pedidosDoRestaurante.size());
+        System.out.println(">>> Estatísticas - Total de pedidos do restaurante: " + totalDoRestaurante);
         System.out.println(">>> Estatísticas - Pedidos finalizados: " + pedidosFinalizados.size());
 
+        contabilizados.clear();
+        for (Pedido p : pedidosFinalizados) {
+            contabilizados.put(p.getNumeroPedido(), p);
+        }
+        exibirEstatisticas();
+    }
+
+    private void exibirEstatisticas() {
+        List<Pedido> pedidosFinalizados = new ArrayList<>(contabilizados.values());
         int totalPedidos = pedidosFinalizados.size();
         lblTotalPedidos.setText(String.valueOf(totalPedidos));
 
@@ -170,6 +241,7 @@ public class EstatisticasController {
 
     @FXML
     private void voltar(ActionEvent event) throws IOException {
+        cancelarAssinatura();
         mudarTela(event, "/ifome/MenuRestaurante.fxml");
     }
 
@@ -8,8 +8,13 @@ import java.util.Optional;
 import ifome.model.ItemPedido;
 import ifome.model.Pedido;
 import ifome.model.Restaurante;
+import ifome.model.StatusPedido;
+import ifome.util.AssinaturaPedidos;
+import ifome.util.OpcoesAssinatura;
+import ifome.util.PoliticaTransbordo;
 import ifome.util.RepositorioRestaurantes;
 import ifome.util.SessaoUsuario;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -35,6 +40,7 @@ public class GerenciarPedidosController {
     @FXML private VBox containerPedidos;
     private Restaurante restaurante;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+    private AssinaturaPedidos assinatura;
 
     @FXML
     public void initialize() {
@@ -44,19 +50,40 @@ public class GerenciarPedidosController {
         System.out.println(">>> Email: " + restaurante.getEmail());
         
         carregarPedidos();
+        assinarEventos();
+        SaidaDaTela.aoSair(containerPedidos, this::cancelarAssinatura);
+    }
+
+    /**
+     * pedidos novos dos clientes e mudancas feitas aqui ou em outra sessao chegam pelo
+     * barramento; o lote inteiro vira um recarregamento so (a lista vem do indice)
+     */
+    private void assinarEventos() {
+        assinatura = RepositorioRestaurantes.getInstance().getBarramentoPedidos().assinar(
+            lote -> Platform.runLater(() -> {
+                if (assinatura != null && assinatura.isAtiva()) {
+                    carregarPedidos();
+                }
+            }),
+            new OpcoesAssinatura().nome("gerenciar-pedidos").doRestaurante(restaurante)
+                .capacidade(64).politica(PoliticaTransbordo.DESCARTAR_ANTIGOS).janela(150));
+    }
+
+    private void cancelarAssinatura() {
+        if (assinatura != null) {
+            assinatura.cancelar();
+            assinatura = null;
+        }
     }
 
     private void carregarPedidos() {
         containerPedidos.getChildren().clear();
 
-        List<Pedido> todosPedidos = RepositorioRestaurantes.getInstance().getTodosPedidos();
-        
-        List<Pedido> pedidosDoRestaurante = todosPedidos.stream()
-            .filter(p -> p.getRestaurante() != null && 
-                        p.getRestaurante().getEmail().equals(restaurante.getEmail()))
-            .toList();
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        // so os deste restaurante, pelo indice do repositorio
+        List<Pedido> pedidosDoRestaurante = repo.buscarPedidosDoRestaurante(restaurante);
 
-        System.out.println(">>> Total de pedidos no sistema: " + todosPedidos.size());
+        System.out.println(">>> Total de pedidos no sistema: " + repo.getTodosPedidos().size());
         System.out.println(">>> Pedidos deste restaurante: " + pedidosDoRestaurante.size());
 
         if (pedidosDoRestaurante.isEmpty()) {
@@ -107,7 +134,7 @@ public class GerenciarPedidosController {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        String corStatus = getCorStatus(pedido.getStatus());
+        String corStatus = getCorStatus(pedido.getStatusPedido());
         Label lblStatus = new Label("● " + pedido.getStatus());
         lblStatus.setStyle("-fx-text-fill: " + corStatus + "; -fx-font-size: 14px; -fx-font-weight: bold;");
 
@@ -164,10 +191,10 @@ public class GerenciarPedidosController {
         botoesBox.setAlignment(Pos.CENTER_RIGHT);
         botoesBox.setPadding(new Insets(10, 0, 0, 0));
 
-        String status = pedido.getStatus();
+        StatusPedido status = pedido.getStatusPedido();
 
         // botoes
-        if (status.equals("Pendente")) {
+        if (status == StatusPedido.PENDENTE) {
             Button btnRecusar = new Button("✖ Recusar");
             btnRecusar.setStyle(
                 "-fx-background-color: #e74c3c; " +
@@ -194,7 +221,7 @@ public class GerenciarPedidosController {
             botoesBox.getChildren().addAll(btnRecusar, btnAceitar);
 
         // botoes
-        } else if (!status.equals("Entregue") && !status.equals("Cancelado")) {
+        } else if (!status.isFinalizado()) {
             Button btnAtualizar = new Button("⚙ Atualizar Status");
             btnAtualizar.setStyle(
                 "-fx-background-color: #3498db; " +
@@ -232,14 +259,13 @@ public class GerenciarPedidosController {
         
         if (resultado.isPresent() && resultado.get() == ButtonType.OK) {
             try {
-                // cancela
-                pedido.atualizarStatus("Cancelado");
-                
-               
-                restaurante.getFilaPedidos().remove(pedido);
-                
-                // salva
-                RepositorioRestaurantes.getInstance().salvarDados();
+                // cancela e salva juntos
+                if (!RepositorioRestaurantes.getInstance().alterarStatusPedido(pedido, StatusPedido.CANCELADO)) {
+                    mostrarAlerta("Erro", "O pedido #" + pedido.getNumeroPedido() + " não pode mais ser recusado (" +
+                                  pedido.getStatus() + ").");
+                    return;
+                }
+                restaurante.removerDaFila(pedido);
 
                 System.out.println(">>> Pedido #" + pedido.getNumeroPedido() + " RECUSADO e CANCELADO");
 
@@ -248,8 +274,6 @@ public class GerenciarPedidosController {
                 sucesso.setHeaderText("❌ Pedido #" + pedido.getNumeroPedido() + " recusado");
                 sucesso.setContentText("O pedido foi cancelado e o cliente será notificado.");
                 sucesso.showAndWait();
-
-                carregarPedidos();
                 
             } catch (Exception e) {
                 System.err.println("❌ Erro ao recusar pedido:");
@@ -282,8 +306,12 @@ public class GerenciarPedidosController {
         
         if (resultado.isPresent() && resultado.get() == ButtonType.OK) {
             try {
-                pedido.processarPagamento();
-                RepositorioRestaurantes.getInstance().salvarDados();
+                // cobra e confirma juntos; outra sessao pode ter cancelado antes
+                if (!RepositorioRestaurantes.getInstance().confirmarPagamentoPedido(pedido)) {
+                    mostrarAlerta("Erro", "O pedido #" + pedido.getNumeroPedido() + " não pode mais ser aceito (" +
+                                  pedido.getStatus() + ").");
+                    return;
+                }
 
                 Alert sucesso = new Alert(Alert.AlertType.INFORMATION);
                 sucesso.setTitle("Pedido Aceito");
@@ -293,8 +321,6 @@ public class GerenciarPedidosController {
                     "O cliente foi notificado."
                 );
                 sucesso.showAndWait();
-
-                carregarPedidos();
                 
             } catch (ifome.exceptions.PagamentoRecusadoException e) {
                 Alert erro = new Alert(Alert.AlertType.ERROR);
@@ -305,10 +331,9 @@ public class GerenciarPedidosController {
                 
                 // cancela  o pedido
                 try {
-                    pedido.atualizarStatus("Cancelado");
-                    restaurante.getFilaPedidos().remove(pedido);
-                    RepositorioRestaurantes.getInstance().salvarDados();
-                    carregarPedidos();
+                    if (RepositorioRestaurantes.getInstance().alterarStatusPedido(pedido, StatusPedido.CANCELADO)) {
+                        restaurante.removerDaFila(pedido);
+                    }
                 } catch (Exception ex) {
                     ex.printStackTrace();
                 }
@@ -332,7 +357,7 @@ public class GerenciarPedidosController {
         Label lblInstrucao = new Label("Selecione o novo status:");
         lblInstrucao.setStyle("-fx-font-weight: bold;");
 
-        String[] statusDisponiveis = getProximosStatus(pedido.getStatus());
+        String[] statusDisponiveis = getProximosStatus(pedido.getStatusPedido());
         
         VBox opcoesBox = new VBox(10);
         
@@ -341,7 +366,7 @@ public class GerenciarPedidosController {
             btnStatus.setMaxWidth(Double.MAX_VALUE);
             
             
-            if (novoStatus.equals("Cancelado")) {
+            if (StatusPedido.CANCELADO.getTexto().equals(novoStatus)) {
                 btnStatus.setStyle(
                     "-fx-background-color: #e74c3c; " +
                     "-fx-text-fill: white; " +
@@ -382,61 +407,61 @@ public class GerenciarPedidosController {
         
         if (resultado.isPresent()) {
             String novoStatus = resultado.get();
+            StatusPedido novo = StatusPedido.deTexto(novoStatus);
             
-            // se cancela, remove da fila
-            if (novoStatus.equals("Cancelado")) {
-                pedido.atualizarStatus("Cancelado");
-                restaurante.getFilaPedidos().remove(pedido);
+            // muda e salva juntos; se cancela, remove da fila
+            if (!RepositorioRestaurantes.getInstance().alterarStatusPedido(pedido, novo)) {
+                // outra tela pode ter mudado o pedido enquanto o dialogo estava aberto
+                mostrarAlerta("Erro", "Não foi possível mudar o pedido #" + pedido.getNumeroPedido() +
+                              " de " + pedido.getStatus() + " para " + novoStatus + ".");
+                return;
+            }
+            if (novo == StatusPedido.CANCELADO) {
+                restaurante.removerDaFila(pedido);
                 System.out.println(">>> Pedido #" + pedido.getNumeroPedido() + " CANCELADO e removido da fila");
-            } else {
-                pedido.atualizarStatus(novoStatus);
             }
-            
-            RepositorioRestaurantes.getInstance().salvarDados();
 
             Alert sucesso = new Alert(Alert.AlertType.INFORMATION);
             sucesso.setTitle("Status Atualizado");
             sucesso.setHeaderText("✅ Pedido #" + pedido.getNumeroPedido());
             sucesso.setContentText("Novo status: " + novoStatus);
             sucesso.showAndWait();
-
-            carregarPedidos();
+            // a lista e refeita pelo evento da mudanca
         }
     }
 
     /**
-     * corrige o problema do cancelamento errado
+     * as opcoes saem da mesma tabela que o pedido usa pra validar, entao a tela nunca
+     * oferece uma transicao que seria recusada (ex: cancelar um pedido pronto).
+     * pendente e aceito ou recusado pelos botoes do proprio cartao
      */
-    private String[] getProximosStatus(String statusAtual) {
-        switch (statusAtual) {
-            case "Confirmado":
-                return new String[]{"Preparando", "Cancelado"};
-            case "Preparando":
-                return new String[]{"Pronto", "Cancelado"};
-            case "Pronto":
-                return new String[]{"Em Entrega", "Cancelado"};
-            case "Em Entrega":
-                return new String[]{"Entregue", "Cancelado"};
-            default:
-                return new String[]{};
+    private String[] getProximosStatus(StatusPedido statusAtual) {
+        if (statusAtual == StatusPedido.PENDENTE) {
+            return new String[]{};
+        }
+        List<StatusPedido> proximos = statusAtual.getProximos();
+        String[] textos = new String[proximos.size()];
+        for (int i = 0; i < textos.length; i++) {
+            textos[i] = proximos.get(i).getTexto();
         }
+        return textos;
     }
 
-    private String getCorStatus(String status) {
+    private String getCorStatus(StatusPedido status) {
         switch (status) {
-            case "Pendente":
+            case PENDENTE:
                 return "#f39c12";
-            case "Confirmado":
+            case CONFIRMADO:
                 return "#3498db";
-            case "Preparando":
+            case PREPARANDO:
                 return "#e67e22";
-            case "Pronto":
+            case PRONTO:
                 return "#9b59b6";
-            case "Em Entrega":
+            case EM_ENTREGA:
                 return "#1abc9c";
-            case "Entregue":
+            case ENTREGUE:
                 return "#4cd137";
-            case "Cancelado":
+            case CANCELADO:
                 return "#e74c3c";
             default:
                 return "#95a5a6";
@@ -445,6 +470,7 @@ public class GerenciarPedidosController {
 
     @FXML
     private void voltar(ActionEvent event) throws IOException {
+        cancelarAssinatura();
         mudarTela(event, "/ifome/MenuRestaurante.fxml");
     }
 
@@ -1,22 +1,32 @@
 package ifome.controller;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import ifome.model.Cliente;
 import ifome.model.Restaurante;
+import ifome.util.ProdutoEncontrado;
 import ifome.util.RepositorioRestaurantes;
 import ifome.util.SessaoUsuario;
+import ifome.util.Sugestao;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
@@ -30,17 +40,84 @@ import javafx.stage.Stage;
  */
 public class ListaRestaurantesController {
 
+    private static final int SUGESTOES_EXIBIDAS = 6;
+
     @FXML
     private VBox containerRestaurantes;
 
+    @FXML
+    private TextField campoBusca;
+
+    private final ContextMenu menuSugestoes = new ContextMenu();
+
     @FXML
     public void initialize() {
-        carregarLista();
+        carregarLista(restaurantesQueEntregam());
+        campoBusca.textProperty().addListener((obs, anterior, texto) -> atualizarBusca(texto));
+    }
+
+    // sem busca: so quem entrega no endereco do cliente (todos, se ele nao tem endereco)
+    private List<Restaurante> restaurantesQueEntregam() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = SessaoUsuario.getInstance().getClienteLogado();
+        if (cliente == null || cliente.getEnderecoMaisRecente() == null) {
+            return repo.getTodosRestaurantes();
+        }
+        return repo.buscarRestaurantesQueEntregam(cliente.getEnderecoMaisRecente());
+    }
+
+    // resultado de busca passa pelo mesmo raio de entrega da lista sem busca, na ordem da busca
+    private List<Restaurante> soQueEntregam(List<Restaurante> encontrados) {
+        Set<Restaurante> entregam = new HashSet<>(restaurantesQueEntregam());
+        List<Restaurante> filtrados = new ArrayList<>();
+        for (Restaurante r : encontrados) {
+            if (entregam.contains(r)) {
+                filtrados.add(r);
+            }
+        }
+        return filtrados;
     }
 
-    private void carregarLista() {
-        List<Restaurante> lista = RepositorioRestaurantes.getInstance().getTodosRestaurantes();
+    // a cada tecla: lista filtrada pelo indice de busca e sugestoes do autocompletar
+    private void atualizarBusca(String texto) {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        if (texto == null || texto.isBlank()) {
+            menuSugestoes.hide();
+            carregarLista(restaurantesQueEntregam());
+            return;
+        }
+        carregarLista(soQueEntregam(repo.buscarPorNome(texto)));
+
+        menuSugestoes.getItems().clear();
+        for (Sugestao sugestao : repo.sugerir(texto, SUGESTOES_EXIBIDAS)) {
+            MenuItem item = new MenuItem((sugestao.isRestaurante() ? "🏪 " : "🍽️ ") + sugestao.getTexto());
+            item.setOnAction(e -> escolherSugestao(sugestao));
+            menuSugestoes.getItems().add(item);
+        }
+        if (menuSugestoes.getItems().isEmpty()) {
+            menuSugestoes.hide();
+        } else if (!menuSugestoes.isShowing()) {
+            menuSugestoes.show(campoBusca, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    // restaurante abre direto; prato mostra os restaurantes que tem ele no cardapio
+    private void escolherSugestao(Sugestao sugestao) {
+        if (sugestao.isRestaurante()) {
+            abrirRestaurante(sugestao.getRestaurante());
+            return;
+        }
+        List<Restaurante> servem = new ArrayList<>();
+        for (ProdutoEncontrado encontrado : RepositorioRestaurantes.getInstance().buscarProdutos(sugestao.getTexto(), 100)) {
+            if (encontrado.getProduto().getNome().equalsIgnoreCase(sugestao.getTexto())
+                    && !servem.contains(encontrado.getRestaurante())) {
+                servem.add(encontrado.getRestaurante());
+            }
+        }
+        carregarLista(soQueEntregam(servem));
+    }
 
+    private void carregarLista(List<Restaurante> lista) {
         containerRestaurantes.getChildren().clear();
 
         if (lista.isEmpty()) {
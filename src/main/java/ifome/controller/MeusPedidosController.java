@@ -2,15 +2,25 @@ package ifome.controller;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import ifome.model.Avaliacao;
 import ifome.model.Cliente;
 import ifome.model.ItemPedido;
 import ifome.model.Pedido;
+import ifome.model.StatusPedido;
+import ifome.util.AssinaturaPedidos;
+import ifome.util.EventoPedido;
+import ifome.util.OpcoesAssinatura;
+import ifome.util.PoliticaTransbordo;
 import ifome.util.RepositorioRestaurantes;
 import ifome.util.SessaoUsuario;
+import ifome.util.TipoEventoPedido;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -39,19 +49,80 @@ public class MeusPedidosController {
     @FXML private VBox containerPedidos;
     private Cliente cliente;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+    // pedidos antigos ficam no disco; vem de tantos em tantos quando o cliente pede
+    private static final int PEDIDOS_ANTIGOS_POR_VEZ = 10;
+    private int pedidosAntigosExibidos;
+    private Button btnPedidosAntigos;
+    // cards dos pedidos em memoria, pelo numero: um evento troca so o card do pedido
+    private final Map<Integer, VBox> cardsPorPedido = new HashMap<>();
+    private AssinaturaPedidos assinatura;
+    private long descartesVistos;
 
     @FXML
     public void initialize() {
         cliente = SessaoUsuario.getInstance().getClienteLogado();
         carregarPedidos();
+        assinarEventos();
+        SaidaDaTela.aoSair(containerPedidos, this::cancelarAssinatura);
+    }
+
+    /**
+     * o restaurante muda a etapa na tela dele e o card daqui acompanha, sem refazer a tela.
+     * a fila e pequena e descarta os antigos: o card e refeito com o pedido como esta agora
+     */
+    private void assinarEventos() {
+        assinatura = RepositorioRestaurantes.getInstance().getBarramentoPedidos().assinar(
+            lote -> Platform.runLater(() -> aplicarEventos(lote)),
+            new OpcoesAssinatura().nome("meus-pedidos").doCliente(cliente)
+                .capacidade(64).politica(PoliticaTransbordo.DESCARTAR_ANTIGOS).janela(150));
+    }
+
+    private void aplicarEventos(List<EventoPedido> lote) {
+        if (assinatura == null || !assinatura.isAtiva()) {
+            return; // saiu da tela com o lote a caminho
+        }
+        // pedido novo ou evento perdido na fila: so refazendo a lista
+        boolean refazer = assinatura.getDescartados() != descartesVistos;
+        descartesVistos = assinatura.getDescartados();
+        Map<Integer, Pedido> alterados = new LinkedHashMap<>();
+        for (EventoPedido evento : lote) {
+            if (evento.getTipo() == TipoEventoPedido.CRIADO) {
+                refazer = true;
+            }
+            alterados.put(evento.getNumeroPedido(), evento.getPedido());
+        }
+        if (refazer) {
+            carregarPedidos();
+            return;
+        }
+        for (Pedido pedido : alterados.values()) {
+            VBox cardAntigo = cardsPorPedido.get(pedido.getNumeroPedido());
+            int posicao = cardAntigo == null ? -1 : containerPedidos.getChildren().indexOf(cardAntigo);
+            if (posicao < 0) {
+                continue;
+            }
+            VBox cardNovo = criarCardPedido(pedido, true);
+            containerPedidos.getChildren().set(posicao, cardNovo);
+            cardsPorPedido.put(pedido.getNumeroPedido(), cardNovo);
+        }
+    }
+
+    private void cancelarAssinatura() {
+        if (assinatura != null) {
+            assinatura.cancelar();
+            assinatura = null;
+        }
     }
 
     private void carregarPedidos() {
         containerPedidos.getChildren().clear();
+        cardsPorPedido.clear();
+        pedidosAntigosExibidos = 0;
 
         List<Pedido> pedidos = cliente.getHistoricoPedidos();
+        int quantidadeAntigos = RepositorioRestaurantes.getInstance().getQuantidadePedidosFrios(cliente);
 
-        if (pedidos.isEmpty()) {
+        if (pedidos.isEmpty() && quantidadeAntigos == 0) {
             VBox emptyBox = new VBox(20);
             emptyBox.setAlignment(Pos.CENTER);
             emptyBox.setPadding(new Insets(50));
@@ -69,13 +140,53 @@ public class MeusPedidosController {
         }
 
         for (Pedido pedido : pedidos) {
-            VBox cardPedido = criarCardPedido(pedido);
+            VBox cardPedido = criarCardPedido(pedido, true);
             containerPedidos.getChildren().add(cardPedido);
+            cardsPorPedido.put(pedido.getNumeroPedido(), cardPedido);
         }
+
+        if (quantidadeAntigos > 0) {
+            btnPedidosAntigos = new Button();
+            btnPedidosAntigos.setMaxWidth(Double.MAX_VALUE);
+            btnPedidosAntigos.setStyle(
+                "-fx-background-color: white; " +
+                "-fx-text-fill: #ea1d2c; " +
+                "-fx-border-color: #ea1d2c; " +
+                "-fx-border-radius: 8; " +
+                "-fx-background-radius: 8; " +
+                "-fx-cursor: hand; " +
+                "-fx-padding: 8 15;"
+            );
+            btnPedidosAntigos.setOnAction(e -> carregarPedidosAntigos());
+            atualizarBotaoPedidosAntigos(quantidadeAntigos);
+            containerPedidos.getChildren().add(btnPedidosAntigos);
+        }
+    }
+
+    // mais uma pagina do segmento frio, do mais recente pro mais antigo
+    private void carregarPedidosAntigos() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        List<Pedido> antigos = repo.carregarPedidosFrios(cliente, pedidosAntigosExibidos, PEDIDOS_ANTIGOS_POR_VEZ);
+        int posicaoBotao = containerPedidos.getChildren().indexOf(btnPedidosAntigos);
+        for (Pedido pedido : antigos) {
+            containerPedidos.getChildren().add(posicaoBotao++, criarCardPedido(pedido, false));
+        }
+        pedidosAntigosExibidos += PEDIDOS_ANTIGOS_POR_VEZ;
+        atualizarBotaoPedidosAntigos(repo.getQuantidadePedidosFrios(cliente));
+    }
+
+    private void atualizarBotaoPedidosAntigos(int quantidadeAntigos) {
+        int restantes = quantidadeAntigos - pedidosAntigosExibidos;
+        if (restantes <= 0) {
+            containerPedidos.getChildren().remove(btnPedidosAntigos);
+            return;
+        }
+        btnPedidosAntigos.setText("📂 Ver pedidos antigos (" + restantes + ")");
     }
 
     
-    private VBox criarCardPedido(Pedido pedido) {
+    // pedidos antigos vem do disco so pra consulta, sem o botao de avaliar
+    private VBox criarCardPedido(Pedido pedido, boolean permiteAvaliar) {
         VBox card = new VBox(12);
         card.setPadding(new Insets(15));
         card.setStyle(
@@ -106,7 +217,7 @@ public class MeusPedidosController {
         lblData.setStyle("-fx-text-fill: #666; -fx-font-size: 13px;");
 
         // status com cor
-        String corStatus = getCorStatus(pedido.getStatus());
+        String corStatus = getCorStatus(pedido.getStatusPedido());
         Label lblStatus = new Label("● " + pedido.getStatus());
         lblStatus.setStyle("-fx-text-fill: " + corStatus + "; -fx-font-size: 14px; -fx-font-weight: bold;");
 
@@ -214,7 +325,7 @@ public class MeusPedidosController {
             
             card.getChildren().addAll(header, lblData, lblStatus, boxItens, footerBox, boxAvaliacao);
             
-        } else if (pedido.getStatus().equals("Entregue")) {
+        } else if (permiteAvaliar && pedido.getStatusPedido() == StatusPedido.ENTREGUE) {
             
             Button btnAvaliar = new Button("⭐ Avaliar");
             btnAvaliar.setStyle(
@@ -304,35 +415,33 @@ public class MeusPedidosController {
             // avaliar pedido
             cliente.avaliarPedido(pedido, nota, comentario);
 
-            // avaliar restaurante
-            pedido.getRestaurante().avaliar(nota, comentario);
-
-            // salvar
-            RepositorioRestaurantes.getInstance().salvarDados();
+            // salvar avaliacao do pedido e avaliar restaurante (o repositorio grava no diario)
+            RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+            repo.registrarAvaliacaoPedido(pedido);
+            repo.avaliarRestaurante(pedido.getRestaurante(), nota, comentario);
 
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Avaliação Enviada");
             alert.setHeaderText("Obrigado pela sua avaliação!");
             alert.setContentText("Sua opinião é muito importante para nós. 🌟");
             alert.showAndWait();
-
-            carregarPedidos();
+            // o card com a avaliacao chega pelo evento do pedido avaliado
         }
     }
 
-    private String getCorStatus(String status) {
+    private String getCorStatus(StatusPedido status) {
         switch (status) {
-            case "Entregue":
+            case ENTREGUE:
                 return "#4cd137";
-            case "Cancelado":
+            case CANCELADO:
                 return "#e74c3c";
-            case "Em Entrega":
+            case EM_ENTREGA:
                 return "#3498db";
-            case "Pronto":
-            case "Preparando":
+            case PRONTO:
+            case PREPARANDO:
                 return "#f39c12";
-            case "Confirmado":
-            case "Pendente":
+            case CONFIRMADO:
+            case PENDENTE:
                 return "#95a5a6";
             default:
                 return "#666";
@@ -341,6 +450,7 @@ public class MeusPedidosController {
 
     @FXML
     private void voltar(ActionEvent event) throws IOException {
+        cancelarAssinatura();
         mudarTela(event, "/ifome/MenuCliente.fxml");
     }
 
@@ -2,6 +2,7 @@ package ifome.controller;
 
 import java.io.IOException;
 import java.util.Optional;
+import ifome.exceptions.EnderecoForaRaioException;
 import ifome.model.*;
 import ifome.util.RepositorioRestaurantes;
 import ifome.util.SessaoUsuario;
@@ -62,6 +63,12 @@ public class PagamentoController {
         }
 
         try {
+            // endereco no raio de entrega (cliente sem endereco cadastrado nao e conferido)
+            Endereco entrega = cliente.getEnderecoMaisRecente();
+            if (entrega != null && carrinho.getRestaurante() != null) {
+                RepositorioRestaurantes.getInstance().verificarEntrega(carrinho.getRestaurante(), entrega);
+            }
+
             FormaPagamento pagamento = null;
 
             if (rbPix.isSelected()) {
@@ -85,19 +92,20 @@ public class PagamentoController {
             pedido.setFormaPagamento(pagamento);
             
     
-            pedido.atualizarStatus("Pendente");
+            pedido.atualizarStatus(StatusPedido.PENDENTE);
+
+            RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
 
             // cupom
             if (carrinho.getCupomAplicado() != null) {
                 cliente.registrarUsoCupom(carrinho.getCupomAplicado().getCodigo());
+                repo.registrarCupomUsado(cliente, carrinho.getCupomAplicado().getCodigo());
                 System.out.println(">>> Cupom registrado como usado: " + carrinho.getCupomAplicado().getCodigo());
             }
 
         
             Restaurante restaurante = carrinho.getRestaurante();
-            if (!restaurante.getFilaPedidos().contains(pedido)) {
-                restaurante.getFilaPedidos().add(pedido);
-            }
+            restaurante.adicionarNaFila(pedido);
 
             // add ni histórico do cliente
             if (!cliente.getHistoricoPedidos().contains(pedido)) {
@@ -105,14 +113,10 @@ public class PagamentoController {
             }
             
    
-            RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
-            if (!repo.getTodosPedidos().contains(pedido)) {
-                repo.adicionarPedido(pedido);
+            // save (so o pedido novo vai para o diario)
+            if (!repo.contemPedido(pedido)) {
+                repo.registrarNovoPedido(pedido);
             }
-           
-
-            // save
-            repo.salvarDados();
 
             // limpa o carrinho depois de salvar
             carrinho.limparCarrinho();
@@ -135,6 +139,8 @@ public class PagamentoController {
 
             mudarTela(event, "/ifome/MenuCliente.fxml");
 
+        } catch (EnderecoForaRaioException e) {
+            mostrarAlerta("Fora da área de entrega", e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             mostrarAlerta("Erro", "Erro ao processar pedido: " + e.getMessage());
@@ -206,7 +212,7 @@ public class PagamentoController {
         btnDel.setStyle("-fx-background-color: transparent; -fx-text-fill: red; -fx-cursor: hand;");
         btnDel.setOnAction(e -> {
             cliente.removerCartao(cartao);
-            RepositorioRestaurantes.getInstance().salvarDados();
+            RepositorioRestaurantes.getInstance().registrarRemocaoCartao(cliente, cartao);
             ((VBox) hbox.getParent()).getChildren().remove(hbox);
         });
 
@@ -258,7 +264,7 @@ public class PagamentoController {
                     String apelido = txtApelido.getText().isEmpty() ? "Meu Cartão" : txtApelido.getText();
                     CartaoSalvo salvo = new CartaoSalvo(num, tit, cvv, val, apelido);
                     cliente.adicionarCartao(salvo);
-                    RepositorioRestaurantes.getInstance().salvarDados();
+                    RepositorioRestaurantes.getInstance().registrarCartao(cliente, salvo);
                 }
                 return new CartaoCredito(num, tit, cvv, val);
             }
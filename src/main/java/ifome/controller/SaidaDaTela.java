@@ -0,0 +1,52 @@
+package ifome.controller;
+
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.stage.Window;
+
+/**
+ * avisa quando a tela de um no sai de vista por qualquer caminho: a cena foi trocada
+ * na janela (mudarTela faz stage.setScene), a janela foi fechada ou o no saiu da cena.
+ * as telas que assinam o barramento cancelam a assinatura aqui, nao so no voltar
+ */
+final class SaidaDaTela {
+
+    private SaidaDaTela() {
+    }
+
+    // chamar no initialize, antes do no ter cena; a acao pode rodar mais de uma vez
+    static void aoSair(Node no, Runnable acao) {
+        ChangeListener<Boolean> aoEsconder = (obs, antes, mostrando) -> {
+            if (!mostrando) {
+                acao.run();
+            }
+        };
+        ChangeListener<Window> aoTrocarJanela = (obs, antiga, janela) -> {
+            if (antiga != null) {
+                antiga.showingProperty().removeListener(aoEsconder);
+            }
+            if (janela == null) {
+                acao.run(); // a cena saiu da janela: outra tela entrou no lugar
+            } else {
+                janela.showingProperty().addListener(aoEsconder);
+            }
+        };
+        no.sceneProperty().addListener((obs, antiga, cena) -> {
+            if (antiga != null) {
+                antiga.windowProperty().removeListener(aoTrocarJanela);
+                Window janela = antiga.getWindow();
+                if (janela != null) {
+                    janela.showingProperty().removeListener(aoEsconder);
+                }
+            }
+            if (cena == null) {
+                acao.run();
+                return;
+            }
+            cena.windowProperty().addListener(aoTrocarJanela);
+            if (cena.getWindow() != null) {
+                aoTrocarJanela.changed(cena.windowProperty(), null, cena.getWindow());
+            }
+        });
+    }
+}
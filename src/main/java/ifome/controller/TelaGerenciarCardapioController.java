@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Optional;
 
 import ifome.model.*;
+import ifome.util.ConjuntoDados;
 import ifome.util.RepositorioRestaurantes;
 import ifome.util.SessaoUsuario;
 import javafx.event.ActionEvent;
@@ -175,8 +176,8 @@ public class TelaGerenciarCardapioController {
         );
         btnStatus.setOnAction(e -> {
             try {
-                p.setDisponibilidade(!p.isDisponivel());
-                RepositorioRestaurantes.getInstance().salvarDados();
+                restaurante.alterarDisponibilidadeProduto(p, !p.isDisponivel());
+                RepositorioRestaurantes.getInstance().agendarSalvamento(ConjuntoDados.CARDAPIOS);
                 carregarCardapio();
             } catch (Exception ex) {
                 System.err.println("❌ Erro ao alterar disponibilidade:");
@@ -206,7 +207,7 @@ public class TelaGerenciarCardapioController {
                 Optional<ButtonType> result = confirmacao.showAndWait();
                 if (result.isPresent() && result.get() == ButtonType.OK) {
                     restaurante.removerProdutoCardapio(p);
-                    RepositorioRestaurantes.getInstance().salvarDados();
+                    RepositorioRestaurantes.getInstance().agendarSalvamento(ConjuntoDados.CARDAPIOS);
                     carregarCardapio();
                 }
             } catch (Exception ex) {
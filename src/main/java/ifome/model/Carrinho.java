@@ -136,7 +136,7 @@ public class Carrinho implements Calculavel {
         double valorFinal = pedido.calcularPrecoTotal();
         pedido.setValorTotal(valorFinal);
        
-        pedido.atualizarStatus("Pendente");
+        pedido.atualizarStatus(StatusPedido.PENDENTE);
 
         System.out.println(">>> Pedido gerado: #" + pedido.getNumeroPedido() + 
                           " | Valor: R$" + String.format("%.2f", valorFinal));
@@ -1,5 +1,6 @@
 package ifome.model;
 
+import ifome.util.ListaVersionada;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,7 +10,7 @@ public class Cliente extends Usuario {
     private String nome;
     private String telefone;
     private List<Endereco> enderecos;
-    private List<Pedido> historicoPedidos;
+    private final ListaVersionada<Pedido> historicoPedidos;
     private List<CartaoSalvo> cartoesSalvos;
     private List<String> cuponsUsados;
     private Carrinho carrinho;
@@ -26,7 +27,7 @@ public class Cliente extends Usuario {
         this.nome = validarNome(nome);
         this.telefone = validarTelefone(telefone);
         this.enderecos = new ArrayList<>();
-        this.historicoPedidos = new ArrayList<>();
+        this.historicoPedidos = new ListaVersionada<>();
         this.cartoesSalvos = new ArrayList<>();
         this.cuponsUsados = new ArrayList<>();
         this.carrinho = new Carrinho();
@@ -180,7 +181,7 @@ public class Cliente extends Usuario {
     }
 
     public void avaliarPedido(Pedido pedido, int nota, String comentario) {
-        if (pedido == null || !historicoPedidos.contains(pedido) || !pedido.getStatus().equals("Entregue")) {
+        if (pedido == null || !historicoPedidos.contains(pedido) || pedido.getStatusPedido() != StatusPedido.ENTREGUE) {
             return;
         }
         pedido.avaliar(nota, comentario);
@@ -212,7 +213,7 @@ public class Cliente extends Usuario {
     public String getNome() { return nome; }
     public String getTelefone() { return telefone; }
     public List<Endereco> getEnderecos() { return new ArrayList<>(enderecos); }
-    public List<Pedido> getHistoricoPedidos() { return new ArrayList<>(historicoPedidos); }
+    public List<Pedido> getHistoricoPedidos() { return historicoPedidos.visao(); }
     public int getQuantidadeEnderecos() { return enderecos.size(); }
     public int getQuantidadePedidos() { return historicoPedidos.size(); }
     
@@ -0,0 +1,23 @@
+package ifome.model;
+
+// avisado quando o cardapio, o nome, a abertura ou a area de entrega de um restaurante muda; usado pelos indices
+public interface OuvinteCardapio {
+    void produtoAdicionado(Restaurante restaurante, Produto produto);
+
+    void produtoRemovido(Restaurante restaurante, Produto produto);
+
+    // descricao ou outro campo de um produto que ja estava no cardapio
+    default void produtoAtualizado(Restaurante restaurante, Produto produto) {
+    }
+
+    default void nomeAlterado(Restaurante restaurante) {
+    }
+
+    // abriu ou fechou
+    default void aberturaAlterada(Restaurante restaurante) {
+    }
+
+    // endereco ou raio de entrega
+    default void localizacaoAlterada(Restaurante restaurante) {
+    }
+}
@@ -0,0 +1,14 @@
+package ifome.model;
+
+// avisado quando um pedido do restaurante muda de etapa (depois da mudanca, ja valida)
+public interface OuvinteStatusPedido {
+    void statusAlterado(Pedido pedido, StatusPedido anterior, StatusPedido novo);
+
+    // pagamento aprovado, antes da confirmacao que vem junto
+    default void pagamentoAprovado(Pedido pedido) {
+    }
+
+    // o cliente avaliou o pedido
+    default void pedidoAvaliado(Pedido pedido) {
+    }
+}
@@ -1,8 +1,9 @@
 package ifome.model;
 
+import ifome.util.ListaVersionada;
 import java.util.Date;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.text.SimpleDateFormat;
 
 /**
@@ -10,26 +11,27 @@ import java.text.SimpleDateFormat;
  */
 public class Pedido implements Rastreavel, Calculavel, Avaliavel {
 
-    private static int contador = 1000;
+    // pedidos sao criados por varias sessoes ao mesmo tempo: o numero sai de um contador atomico
+    private static final AtomicInteger contador = new AtomicInteger(1000);
     private int numeroPedido;
     private Date dataHora;
-    private String status;
+    private volatile StatusPedido status;
     private double valorTotal;
     private double desconto;
 
-    private List<ItemPedido> itens;
-    private List<Avaliacao> avaliacoes;
+    private ListaVersionada<ItemPedido> itens;
+    private final ListaVersionada<Avaliacao> avaliacoes;
     private FormaPagamento formaPagamento;
     private Cupom cupomAplicado;
     private Cliente cliente;
     private Restaurante restaurante;
 
     public Pedido() {
-        this.numeroPedido = contador++;
-        this.itens = new ArrayList<>();
-        this.avaliacoes = new ArrayList<>();
+        this.numeroPedido = contador.getAndIncrement();
+        this.itens = new ListaVersionada<>();
+        this.avaliacoes = new ListaVersionada<>();
         this.dataHora = new Date();
-        this.status = "Pendente";
+        this.status = StatusPedido.PENDENTE;
         this.valorTotal = 0;
         this.desconto = 0;
         this.formaPagamento = null;
@@ -42,78 +44,60 @@ public class Pedido implements Rastreavel, Calculavel, Avaliavel {
     p dido
      */
     public static void inicializarContador(int maiorIdExistente) {
-        if (maiorIdExistente >= contador) {
-            contador = maiorIdExistente + 1;
-            System.out.println(">>> Contador de pedidos inicializado em: " + contador);
+        int anterior = contador.getAndAccumulate(maiorIdExistente + 1, Math::max);
+        if (maiorIdExistente >= anterior) {
+            System.out.println(">>> Contador de pedidos inicializado em: " + (maiorIdExistente + 1));
         }
     }
 
   
+    // status pelo texto gravado nos arquivos; texto desconhecido e IllegalArgumentException
     public Pedido(int numeroPedido, Date dataHora, String status, double valorTotal) {
         this.numeroPedido = numeroPedido;
         this.dataHora = dataHora;
-        this.status = status;
+        this.status = StatusPedido.deTexto(status);
+        if (this.status == null) {
+            throw new IllegalArgumentException("Status de pedido desconhecido: " + status);
+        }
         this.valorTotal = valorTotal;
-        this.itens = new ArrayList<>();
-        this.avaliacoes = new ArrayList<>();
+        this.itens = new ListaVersionada<>();
+        this.avaliacoes = new ListaVersionada<>();
         this.desconto = 0;
         this.formaPagamento = null;
         this.cupomAplicado = null;
        
-        if (numeroPedido >= contador) {
-            contador = numeroPedido + 1;
-        }
+        contador.accumulateAndGet(numeroPedido + 1, Math::max);
     }
 
 
+    // o texto da etapa ("Em Entrega"), igual ao gravado nos arquivos
     @Override
     public String getStatus() {
-        return this.status;
+        return this.status.getTexto();
     }
 
-    public void atualizarStatus(String novoStatus) {
-        String[] statusValidos = {
-            "Pendente", "Confirmado", "Preparando", "Pronto", "Em Entrega", "Entregue", "Cancelado"
-        };
-
-        boolean statusValido = false;
-        for (String s : statusValidos) {
-            if (s.equals(novoStatus)) {
-                statusValido = true;
-                break;
-            }
-        }
-
-        if (!statusValido) {
-            System.out.println("❌ Status inválido: " + novoStatus);
-            return;
-        }
+    public StatusPedido getStatusPedido() {
+        return this.status;
+    }
 
-        if (!ehTransicaoValida(this.status, novoStatus)) {
-            System.out.println("❌ Transição inválida de " + this.status + " para " + novoStatus);
-            return;
+    /**
+     * muda de etapa se a transicao for permitida (StatusPedido.podeIrPara) e avisa os
+     * ouvintes do restaurante. synchronized: duas sessoes mexendo no mesmo pedido nao
+     * pulam a validacao, e os avisos de um pedido saem na ordem das mudancas
+     */
+    public synchronized boolean atualizarStatus(StatusPedido novoStatus) {
+        StatusPedido statusAnterior = this.status;
+        if (!statusAnterior.podeIrPara(novoStatus)) {
+            System.out.println("❌ Transição inválida de " + statusAnterior + " para " + novoStatus);
+            return false;
         }
 
-        String statusAnterior = this.status;
         this.status = novoStatus;
         System.out.println("✅ Pedido #" + numeroPedido + ": " + statusAnterior + " → " + novoStatus);
-    }
-
-    private boolean ehTransicaoValida(String statusAtual, String novoStatus) {
-        if (statusAtual.equals("Pendente")) {
-            return novoStatus.equals("Confirmado") || novoStatus.equals("Cancelado");
-        } else if (statusAtual.equals("Confirmado")) {
-            return novoStatus.equals("Preparando") || novoStatus.equals("Cancelado");
-        } else if (statusAtual.equals("Preparando")) {
-            return novoStatus.equals("Pronto") || novoStatus.equals("Cancelado");
-        } else if (statusAtual.equals("Pronto")) {
-            return novoStatus.equals("Em Entrega");
-        } else if (statusAtual.equals("Em Entrega")) {
-            return novoStatus.equals("Entregue") || novoStatus.equals("Cancelado");
-        } else if (statusAtual.equals("Entregue")) {
-            return false;
+        if (restaurante != null) {
+            restaurante.statusPedidoAlterado(this, statusAnterior, novoStatus);
         }
-        return false;
+        return true;
     }
 
  
@@ -139,7 +123,11 @@ public class Pedido implements Rastreavel, Calculavel, Avaliavel {
     @Override
     public boolean avaliar(int nota) {
         Avaliacao avaliacao = new Avaliacao(nota);
-        return avaliacoes.add(avaliacao);
+        boolean adicionado = avaliacoes.add(avaliacao);
+        if (adicionado) {
+            avisarAvaliacao();
+        }
+        return adicionado;
     }
 
     public boolean avaliar(int nota, String comentario) {
@@ -147,10 +135,22 @@ public class Pedido implements Rastreavel, Calculavel, Avaliavel {
         boolean adicionado = avaliacoes.add(avaliacao);
         if (adicionado) {
             System.out.println("✅ Avaliação registrada para pedido #" + numeroPedido);
+            avisarAvaliacao();
         }
         return adicionado;
     }
 
+    // avaliacao ja gravada (carga, pedido frio): volta pro pedido sem avisar ninguem
+    public void restaurarAvaliacao(int nota, String comentario) {
+        avaliacoes.add(new Avaliacao(nota, comentario));
+    }
+
+    private void avisarAvaliacao() {
+        if (restaurante != null) {
+            restaurante.pedidoAvaliado(this);
+        }
+    }
+
   
 
     public void adicionarItem(ItemPedido item) {
@@ -275,8 +275,12 @@ public class Pedido implements Rastreavel, Calculavel, Avaliavel {
             );
         }
 
-        this.atualizarStatus("Confirmado");
-        return true;
+        // pago sai antes do confirmado, na ordem em que aconteceram
+        if (restaurante != null) {
+            restaurante.pagamentoPedidoAprovado(this);
+        }
+        // false se o pedido saiu do pendente enquanto era cobrado
+        return this.atualizarStatus(StatusPedido.CONFIRMADO);
     }
 
 
@@ -310,11 +314,11 @@ public class Pedido implements Rastreavel, Calculavel, Avaliavel {
     }
 
     public List<ItemPedido> getItens() {
-        return new ArrayList<>(itens);
+        return itens.visao();
     }
 
     public List<Avaliacao> getAvaliacoes() {
-        return new ArrayList<>(avaliacoes);
+        return avaliacoes.visao();
     }
 
     public Cliente getCliente() {
@@ -334,7 +338,7 @@ public class Pedido implements Rastreavel, Calculavel, Avaliavel {
     }
 
     public void setItens(List<ItemPedido> itens) {
-        this.itens = itens != null ? itens : new ArrayList<>();
+        this.itens = itens != null ? new ListaVersionada<>(itens) : new ListaVersionada<>();
     }
     
     public void setDataHora(Date dataHora) {
@@ -1,7 +1,12 @@
 package ifome.model;
 
-import java.util.ArrayList;
+import ifome.util.FilaPedidos;
+import ifome.util.ListaVersionada;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 //restaurante do ifome
 public class Restaurante extends Usuario implements Avaliavel {
@@ -9,16 +14,25 @@ public class Restaurante extends Usuario implements Avaliavel {
     private String nomeRestaurante;
     private String cnpj;
     private Endereco endereco;
+    private double raioEntregaKm;
     private String horarioFuncionamento;
-    private List<Produto> cardapio;
-    private List<Pedido> filaPedidos;
-    private List<Avaliacao> avaliacoes;
+    // os getters devolvem a foto imutavel (ListaVersionada.visao), sem copia por chamada
+    private final ListaVersionada<Produto> cardapio;
+    // fila da cozinha: concorrente, sem trava, pertinencia pelo numero do pedido
+    private final FilaPedidos filaPedidos;
+    private final ListaVersionada<Avaliacao> avaliacoes;
+    // nome em minusculas -> primeiro produto do cardapio com esse nome (buscarProduto)
+    private final Map<String, Produto> produtosPorNome;
+    private final List<OuvinteCardapio> ouvintesCardapio;
+    private final List<OuvinteStatusPedido> ouvintesPedidos;
     private boolean aberto;
     
     // limite de novo
     private static final int MAX_NOME_RESTAURANTE = 100;
     private static final int MIN_NOME_RESTAURANTE = 3;
     private static final int CNPJ_LENGTH = 14;
+    public static final double RAIO_ENTREGA_PADRAO_KM = 5.0;
+    public static final double RAIO_ENTREGA_MAXIMO_KM = 50.0;
 
     public Restaurante(String email, String senha, String nomeRestaurante, String cnpj) {
         super();
@@ -26,10 +40,14 @@ public class Restaurante extends Usuario implements Avaliavel {
         this.senha = senha;
         this.nomeRestaurante = validarNomeRestaurante(nomeRestaurante);
         this.cnpj = validarCNPJ(cnpj);
-        this.cardapio = new ArrayList<>();
-        this.filaPedidos = new ArrayList<>();
-        this.avaliacoes = new ArrayList<>();
+        this.cardapio = new ListaVersionada<>();
+        this.filaPedidos = new FilaPedidos();
+        this.avaliacoes = new ListaVersionada<>();
+        this.produtosPorNome = new HashMap<>();
+        this.ouvintesCardapio = new CopyOnWriteArrayList<>();
+        this.ouvintesPedidos = new CopyOnWriteArrayList<>();
         this.aberto = true; 
+        this.raioEntregaKm = RAIO_ENTREGA_PADRAO_KM;
         this.horarioFuncionamento = "Não informado";
     }
 
@@ -77,11 +95,17 @@ public class Restaurante extends Usuario implements Avaliavel {
 
     public void abrirRestaurante() {
         this.aberto = true;
+        for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+            ouvinte.aberturaAlterada(this);
+        }
         System.out.println("🟢 " + nomeRestaurante + " ABERTO!");
     }
 
     public void fecharRestaurante() {
         this.aberto = false;
+        for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+            ouvinte.aberturaAlterada(this);
+        }
         System.out.println("🔴 " + nomeRestaurante + " FECHADO!");
     }
 
@@ -99,12 +123,22 @@ public class Restaurante extends Usuario implements Avaliavel {
             return;
         }
         cardapio.add(produto);
+        synchronized (produtosPorNome) {
+            produtosPorNome.putIfAbsent(chaveNome(produto.getNome()), produto);
+        }
+        for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+            ouvinte.produtoAdicionado(this, produto);
+        }
         System.out.println("✅ Produto adicionado: " + produto.getNome() + 
                          " - R$" + String.format("%.2f", produto.getPreco()));
     }
 
     public void removerProdutoCardapio(Produto produto) {
         if (cardapio.remove(produto)) {
+            reindexarNome(produto.getNome());
+            for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+                ouvinte.produtoRemovido(this, produto);
+            }
             System.out.println("✅ Produto removido: " + produto.getNome());
         } else {
             System.out.println("❌ Produto não encontrado no cardápio.");
@@ -122,6 +156,9 @@ public class Restaurante extends Usuario implements Avaliavel {
                 p.setPreco(produto.getPreco());
                 p.setDescricao(produto.getDescricao());
                 p.setDisponibilidade(produto.isDisponivel());
+                for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+                    ouvinte.produtoAtualizado(this, p);
+                }
                 System.out.println("✅ Produto atualizado: " + produto.getNome());
                 return;
             }
@@ -129,13 +166,83 @@ public class Restaurante extends Usuario implements Avaliavel {
         System.out.println("❌ Produto não encontrado no cardápio.");
     }
 
+    // pausa/ativa a venda de um produto do cardapio avisando os indices
+    public void alterarDisponibilidadeProduto(Produto produto, boolean disponivel) {
+        if (produto == null || !cardapio.contains(produto)) {
+            System.out.println("❌ Produto não encontrado no cardápio.");
+            return;
+        }
+        produto.setDisponibilidade(disponivel);
+        for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+            ouvinte.produtoAtualizado(this, produto);
+        }
+    }
+
     public Produto buscarProduto(String nome) {
-        for (Produto p : cardapio) {
-            if (p.getNome().equalsIgnoreCase(nome)) {
-                return p;
+        if (nome == null) {
+            return null;
+        }
+        synchronized (produtosPorNome) {
+            return produtosPorNome.get(chaveNome(nome));
+        }
+    }
+
+    private static String chaveNome(String nome) {
+        return nome == null ? "" : nome.toLowerCase(Locale.ROOT);
+    }
+
+    // o removido podia ser o que respondia pelo nome; passa pro proximo do cardapio com o mesmo
+    private void reindexarNome(String nome) {
+        String chave = chaveNome(nome);
+        synchronized (produtosPorNome) {
+            produtosPorNome.remove(chave);
+            for (Produto p : cardapio) {
+                if (chaveNome(p.getNome()).equals(chave)) {
+                    produtosPorNome.put(chave, p);
+                    break;
+                }
             }
         }
-        return null;
+    }
+
+    public void adicionarOuvinteCardapio(OuvinteCardapio ouvinte) {
+        if (ouvinte != null && !ouvintesCardapio.contains(ouvinte)) {
+            ouvintesCardapio.add(ouvinte);
+        }
+    }
+
+    public void removerOuvinteCardapio(OuvinteCardapio ouvinte) {
+        ouvintesCardapio.remove(ouvinte);
+    }
+
+    // mudancas de etapa dos pedidos deste restaurante
+    public void adicionarOuvinteStatusPedido(OuvinteStatusPedido ouvinte) {
+        if (ouvinte != null && !ouvintesPedidos.contains(ouvinte)) {
+            ouvintesPedidos.add(ouvinte);
+        }
+    }
+
+    public void removerOuvinteStatusPedido(OuvinteStatusPedido ouvinte) {
+        ouvintesPedidos.remove(ouvinte);
+    }
+
+    // chamado pelo Pedido depois de mudar de etapa
+    void statusPedidoAlterado(Pedido pedido, StatusPedido anterior, StatusPedido novo) {
+        for (OuvinteStatusPedido ouvinte : ouvintesPedidos) {
+            ouvinte.statusAlterado(pedido, anterior, novo);
+        }
+    }
+
+    void pagamentoPedidoAprovado(Pedido pedido) {
+        for (OuvinteStatusPedido ouvinte : ouvintesPedidos) {
+            ouvinte.pagamentoAprovado(pedido);
+        }
+    }
+
+    void pedidoAvaliado(Pedido pedido) {
+        for (OuvinteStatusPedido ouvinte : ouvintesPedidos) {
+            ouvinte.pedidoAvaliado(pedido);
+        }
     }
 
     public void aceitarPedido(Pedido pedido) 
@@ -151,13 +258,13 @@ public class Restaurante extends Usuario implements Avaliavel {
             );
         }
 
-        if (filaPedidos.contains(pedido)) {
+        // conferir e entrar e uma operacao so: duas sessoes aceitando o mesmo pedido nao duplicam
+        if (!filaPedidos.adicionar(pedido)) {
             System.out.println("ℹ️  Pedido #" + pedido.getNumeroPedido() + " já está na fila.");
             return;
         }
 
-        filaPedidos.add(pedido);
-        pedido.atualizarStatus("Confirmado");
+        pedido.atualizarStatus(StatusPedido.CONFIRMADO);
         System.out.println("✅ Pedido #" + pedido.getNumeroPedido() + " aceito e adicionado à fila!");
     }
 
@@ -168,42 +275,48 @@ public class Restaurante extends Usuario implements Avaliavel {
             return;
         }
 
-        if (filaPedidos.remove(pedido)) {
-            pedido.atualizarStatus("Cancelado");
+        if (filaPedidos.remover(pedido)) {
+            pedido.atualizarStatus(StatusPedido.CANCELADO);
             System.out.println("❌ Pedido #" + pedido.getNumeroPedido() + " recusado!");
         } else {
             System.out.println("❌ Pedido não encontrado na fila.");
         }
     }
 
-    public void atualizarStatusPedido(Pedido pedido, String novoStatus) {
-        if (pedido == null) {
-            System.out.println("❌ Pedido inválido.");
-            return;
-        }
+    // foto imutavel da fila; pra mexer nela use adicionarNaFila/removerDaFila
+    public List<Pedido> getFilaPedidos() {
+        return filaPedidos.visao();
+    }
 
-        if (!filaPedidos.contains(pedido)) {
-            System.out.println("❌ Pedido não está na fila deste restaurante.");
-            return;
-        }
+    // entra na fila sem mudar o status (pedido recem pago fica Pendente)
+    public boolean adicionarNaFila(Pedido pedido) {
+        return filaPedidos.adicionar(pedido);
+    }
 
-        pedido.atualizarStatus(novoStatus);
+    public boolean removerDaFila(Pedido pedido) {
+        return filaPedidos.remover(pedido);
     }
 
-    public List<Pedido> getFilaPedidos() {
-        return new ArrayList<>(filaPedidos);
+    public boolean estaNaFila(int numeroPedido) {
+        return filaPedidos.contemNumero(numeroPedido);
     }
 
     public int getTamanhofila() {
-        return filaPedidos.size();
+        return filaPedidos.tamanho();
     }
 
+    // o mais antigo da fila, sem tirar
     public Pedido getPrimeirosPedido() {
-        if (filaPedidos.isEmpty()) {
+        Pedido primeiro = filaPedidos.primeiro();
+        if (primeiro == null) {
             System.out.println("ℹ️  Nenhum pedido na fila.");
-            return null;
         }
-        return filaPedidos.get(0);
+        return primeiro;
+    }
+
+    // tira o mais antigo da fila (cozinha pegando o proximo); dois terminais nunca pegam o mesmo
+    public Pedido retirarPrimeiroPedido() {
+        return filaPedidos.retirarPrimeiro();
     }
 
     @Override
@@ -227,7 +340,7 @@ public class Restaurante extends Usuario implements Avaliavel {
     }
 
     public List<Avaliacao> getAvaliacoes() {
-        return new ArrayList<>(avaliacoes);
+        return avaliacoes.visao();
     }
 
     public String getNomeRestaurante() {
@@ -242,12 +355,16 @@ public class Restaurante extends Usuario implements Avaliavel {
         return endereco;
     }
 
+    public double getRaioEntregaKm() {
+        return raioEntregaKm;
+    }
+
     public String getHorarioFuncionamento() {
         return horarioFuncionamento;
     }
 
     public List<Produto> getCardapio() {
-        return new ArrayList<>(cardapio);
+        return cardapio.visao();
     }
 
     public int getQuantidadeProdutos() {
@@ -260,13 +377,31 @@ public class Restaurante extends Usuario implements Avaliavel {
 
     public void setNomeRestaurante(String nome) {
         this.nomeRestaurante = validarNomeRestaurante(nome);
+        for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+            ouvinte.nomeAlterado(this);
+        }
     }
 
     public void setEndereco(Endereco endereco) {
         this.endereco = endereco;
+        for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+            ouvinte.localizacaoAlterada(this);
+        }
         System.out.println("✅ Endereço do restaurante atualizado.");
     }
 
+    public void setRaioEntregaKm(double raioKm) {
+        if (!(raioKm > 0) || raioKm > RAIO_ENTREGA_MAXIMO_KM) {
+            throw new IllegalArgumentException(
+                "Raio de entrega inválido. Deve ficar entre 0 e " + RAIO_ENTREGA_MAXIMO_KM + " km"
+            );
+        }
+        this.raioEntregaKm = raioKm;
+        for (OuvinteCardapio ouvinte : ouvintesCardapio) {
+            ouvinte.localizacaoAlterada(this);
+        }
+    }
+
     public void setHorarioFuncionamento(String horario) {
         this.horarioFuncionamento = horario != null ? horario : "Não informado";
         System.out.println("✅ Horário de funcionamento atualizado para: " + horario);
@@ -282,7 +417,7 @@ public class Restaurante extends Usuario implements Avaliavel {
         sb.append("🕐 Horário: ").append(horarioFuncionamento).append("\n");
         sb.append("📊 Status: ").append(aberto ? "🟢 ABERTO" : "🔴 FECHADO").append("\n");
         sb.append("📋 Produtos: ").append(cardapio.size()).append("\n");
-        sb.append("📦 Pedidos na fila: ").append(filaPedidos.size()).append("\n");
+        sb.append("📦 Pedidos na fila: ").append(filaPedidos.tamanho()).append("\n");
         sb.append("⭐ Avaliação: ").append(String.format("%.1f/5.0", calcularMediaAvaliacoes()))
           .append(" (").append(avaliacoes.size()).append(" avaliações)\n");
         return sb.toString();
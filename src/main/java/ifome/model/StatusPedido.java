@@ -0,0 +1,88 @@
+package ifome.model;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * etapas do pedido. o texto de cada uma e o que vai pros arquivos (pedidos.txt,
+ * diario, segmentos), entao os dados gravados antes continuam valendo.
+ * as transicoes ficam numa matriz montada uma vez: conferir se uma mudanca e
+ * permitida e olhar uma posicao, sem montar lista nem comparar texto
+ */
+public enum StatusPedido {
+    PENDENTE("Pendente"),
+    CONFIRMADO("Confirmado"),
+    PREPARANDO("Preparando"),
+    PRONTO("Pronto"),
+    EM_ENTREGA("Em Entrega"),
+    ENTREGUE("Entregue"),
+    CANCELADO("Cancelado");
+
+    private static final StatusPedido[] TODOS = values();
+    // [de][para], pelos ordinais
+    private static final boolean[][] TRANSICOES = new boolean[TODOS.length][TODOS.length];
+    private static final Map<String, StatusPedido> POR_TEXTO = new HashMap<>();
+
+    static {
+        permitir(PENDENTE, CONFIRMADO, CANCELADO);
+        permitir(CONFIRMADO, PREPARANDO, CANCELADO);
+        permitir(PREPARANDO, PRONTO, CANCELADO);
+        permitir(PRONTO, EM_ENTREGA);
+        permitir(EM_ENTREGA, ENTREGUE, CANCELADO);
+        for (StatusPedido s : TODOS) {
+            POR_TEXTO.put(s.texto, s);
+            Set<StatusPedido> proximos = EnumSet.noneOf(StatusPedido.class);
+            for (StatusPedido para : TODOS) {
+                if (TRANSICOES[s.ordinal()][para.ordinal()]) {
+                    proximos.add(para);
+                }
+            }
+            s.proximos = List.copyOf(proximos);
+        }
+    }
+
+    private final String texto;
+    private List<StatusPedido> proximos;
+
+    StatusPedido(String texto) {
+        this.texto = texto;
+    }
+
+    private static void permitir(StatusPedido de, StatusPedido... para) {
+        for (StatusPedido p : para) {
+            TRANSICOES[de.ordinal()][p.ordinal()] = true;
+        }
+    }
+
+    // como aparece na tela e nos arquivos
+    public String getTexto() {
+        return texto;
+    }
+
+    public boolean podeIrPara(StatusPedido novo) {
+        return novo != null && TRANSICOES[ordinal()][novo.ordinal()];
+    }
+
+    // para onde o pedido pode ir daqui, na ordem das etapas
+    public List<StatusPedido> getProximos() {
+        return proximos;
+    }
+
+    // entregue ou cancelado: nao muda mais
+    public boolean isFinalizado() {
+        return this == ENTREGUE || this == CANCELADO;
+    }
+
+    // null se o texto nao for de nenhuma etapa
+    public static StatusPedido deTexto(String texto) {
+        return texto == null ? null : POR_TEXTO.get(texto);
+    }
+
+    @Override
+    public String toString() {
+        return texto;
+    }
+}
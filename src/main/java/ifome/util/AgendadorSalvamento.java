@@ -0,0 +1,130 @@
+package ifome.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * salvamento assincrono do repositorio.
+ * os controllers pedem pra salvar e voltam na hora; os pedidos que chegam dentro
+ * da janela viram um salvamento so, feito numa thread de I/O propria (nunca na
+ * thread do JavaFX). na saida do app chama flush() pra garantir que tudo foi gravado
+ */
+public class AgendadorSalvamento {
+
+    private static final long JANELA_PADRAO_MS = 200;
+    private static final long ESPERA_FLUSH_SEGUNDOS = 30;
+
+    private final RepositorioRestaurantes repositorio;
+    private final long janelaMs;
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> pendente;
+    private int solicitacoes;
+    private volatile int salvamentosRealizados;
+
+    public AgendadorSalvamento(RepositorioRestaurantes repositorio, long janelaMs) {
+        this.repositorio = repositorio;
+        this.janelaMs = janelaMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ifome-io");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // janela vinda de -Difome.salvamento.janelaMs
+    public static AgendadorSalvamento comConfiguracaoPadrao(RepositorioRestaurantes repositorio) {
+        return new AgendadorSalvamento(repositorio,
+            Long.getLong("ifome.salvamento.janelaMs", JANELA_PADRAO_MS));
+    }
+
+    /**
+     * marca os conjuntos e agenda um salvamento pro fim da janela.
+     * se ja tem um agendado, ele leva junto o que foi marcado agora
+     */
+    public void solicitarSalvamento(ConjuntoDados... conjuntos) {
+        // marca fora da trava do agendador: o repositorio chama isto segurando a dele
+        repositorio.marcarAlterado(conjuntos);
+        synchronized (this) {
+            solicitacoes++;
+            if (executor.isShutdown()) {
+                return;
+            }
+            if (pendente == null || pendente.isDone()) {
+                pendente = executor.schedule(this::executar, janelaMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * grava agora o que estiver pendente e espera terminar.
+     * roda na thread de I/O, entao fica na fila atras de um salvamento em andamento
+     */
+    public void flush() {
+        Future<?> agora;
+        synchronized (this) {
+            if (pendente != null) {
+                pendente.cancel(false);
+                pendente = null;
+            }
+            if (executor.isShutdown()) {
+                repositorio.salvarDados();
+                return;
+            }
+            agora = executor.submit(this::executar);
+        }
+        try {
+            agora.get(ESPERA_FLUSH_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Erro ao aguardar salvamento: " + e.getMessage());
+        }
+    }
+
+    // flush final e para a thread de I/O
+    public void encerrar() {
+        flush();
+        synchronized (this) {
+            executor.shutdown();
+        }
+        try {
+            executor.awaitTermination(ESPERA_FLUSH_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // para sem gravar o que estava pendente (usado ao descartar o repositorio)
+    public synchronized void cancelar() {
+        if (pendente != null) {
+            pendente.cancel(false);
+            pendente = null;
+        }
+        executor.shutdown();
+    }
+
+    private void executar() {
+        synchronized (this) {
+            pendente = null; // o que for pedido a partir daqui agenda outro salvamento
+        }
+        try {
+            repositorio.salvarDados();
+            salvamentosRealizados++;
+        } catch (RuntimeException e) {
+            System.err.println("Erro no salvamento agendado: " + e.getMessage());
+        }
+    }
+
+    public synchronized int getSolicitacoes() {
+        return solicitacoes;
+    }
+
+    public int getSalvamentosRealizados() {
+        return salvamentosRealizados;
+    }
+}
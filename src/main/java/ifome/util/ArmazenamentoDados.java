@@ -0,0 +1,76 @@
+package ifome.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * onde o repositorio guarda os conjuntos de dados. o repositorio so conhece
+ * registros (Registros na carga, GravadorRegistros no snapshot); arquivo, formato
+ * e transacao ficam com o backend. o diario continua sendo um arquivo no
+ * diretorio de dados em qualquer backend, e o lsn do ultimo snapshot fica
+ * junto com os dados pra os dois andarem sempre juntos.
+ *
+ * -Difome.armazenamento=texto (padrao, arquivos .txt com pedidos por mes ou em pedidos.bin)
+ * ou sql (banco embutido em arquivo, ver ArmazenamentoSql)
+ */
+public interface ArmazenamentoDados {
+
+    String getNome();
+
+    /**
+     * registros do conjunto na ordem em que foram gravados. conjunto que ainda
+     * nao existe vira registros vazios. pode ser chamado em paralelo pra
+     * conjuntos diferentes
+     */
+    Registros abrir(ConjuntoDados conjunto) throws IOException;
+
+    // conjuntos grandes que o backend consegue dividir pra serem lidos em paralelo
+    default boolean lerEmPartes(ConjuntoDados conjunto) {
+        return false;
+    }
+
+    // pedacos na ordem dos registros; so chamado quando lerEmPartes(conjunto)
+    default List<Registros> abrirEmPartes(ConjuntoDados conjunto, int partes) throws IOException {
+        return Collections.singletonList(abrir(conjunto));
+    }
+
+    /**
+     * comeca a gravacao de um snapshot. os conjuntos pedidos ao snapshot sao
+     * regravados inteiros; os outros continuam como estao. nada fica visivel
+     * antes do confirmar
+     */
+    SnapshotArmazenamento iniciarSnapshot() throws IOException;
+
+    // lsn do diario ate o qual o ultimo snapshot confirmado vai (0 se nunca houve)
+    long lerLsnSnapshot();
+
+    // tamanho aproximado do conjunto guardado, pras estatisticas de salvamento
+    long tamanho(ConjuntoDados conjunto);
+
+    // conjuntos que o backend guarda juntos e precisam ser regravados juntos
+    default Set<ConjuntoDados> gravadosJuntos(ConjuntoDados conjunto) {
+        return EnumSet.of(conjunto);
+    }
+
+    // conjuntos que devem ir pro proximo snapshot logo depois da carga (ex: troca de formato)
+    default Set<ConjuntoDados> conjuntosParaRegravar() {
+        return EnumSet.noneOf(ConjuntoDados.class);
+    }
+
+    void fechar();
+
+    static ArmazenamentoDados comConfiguracaoPadrao(File diretorio) {
+        String tipo = System.getProperty("ifome.armazenamento", "texto");
+        if ("sql".equalsIgnoreCase(tipo)) {
+            return ArmazenamentoSql.comConfiguracaoPadrao(diretorio);
+        }
+        if (!"texto".equalsIgnoreCase(tipo)) {
+            System.err.println("Armazenamento desconhecido: " + tipo + ". Usando texto.");
+        }
+        return ArmazenamentoTexto.comConfiguracaoPadrao(diretorio);
+    }
+}
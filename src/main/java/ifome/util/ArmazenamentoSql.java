@@ -0,0 +1,372 @@
+package ifome.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * backend em banco SQL embutido (H2 em arquivo, no diretorio de dados).
+ * cada conjunto e uma tabela com as colunas na ordem dos campos do arquivo de texto
+ * mais uma coluna seq, que guarda a ordem de gravacao (a carga depende dela, ex:
+ * restaurante repetido, primeiro cadastrado vence). datas ficam em BIGINT (epoch millis).
+ * o banco so e lido inteiro na carga (buscas continuam nos indices em memoria do
+ * repositorio), entao as tabelas nao tem indice alem da chave seq.
+ *
+ * um snapshot e uma transacao: cada tabela alterada e esvaziada e regravada
+ * com insert preparado em lotes, e o lsn do corte e atualizado no mesmo commit.
+ *
+ * -Difome.armazenamento=sql; -Difome.sql.url troca o banco (padrao
+ * jdbc:h2:file:<dados>/ifome). o driver precisa estar no classpath de execucao
+ */
+public class ArmazenamentoSql implements ArmazenamentoDados {
+
+    private static final int TAMANHO_LOTE = 1000;
+    private static final String TABELA_SNAPSHOT = "snapshot_diario";
+
+    enum Tipo {
+        TEXTO("VARCHAR", Types.VARCHAR),
+        INTEIRO("BIGINT", Types.BIGINT),
+        DECIMAL("DOUBLE PRECISION", Types.DOUBLE),
+        BOOLEANO("BOOLEAN", Types.BOOLEAN);
+
+        final String sql;
+        final int codigo;
+
+        Tipo(String sql, int codigo) {
+            this.sql = sql;
+            this.codigo = codigo;
+        }
+    }
+
+    static class Tabela {
+        final String nome;
+        final String[] colunas;
+        final Tipo[] tipos;
+
+        Tabela(String nome, Object... colunasETipos) {
+            this.nome = nome;
+            this.colunas = new String[colunasETipos.length / 2];
+            this.tipos = new Tipo[colunas.length];
+            for (int i = 0; i < colunas.length; i++) {
+                colunas[i] = (String) colunasETipos[2 * i];
+                tipos[i] = (Tipo) colunasETipos[2 * i + 1];
+            }
+        }
+
+        String listaColunas() {
+            return String.join(", ", colunas);
+        }
+    }
+
+    private static final Map<ConjuntoDados, Tabela> TABELAS = new EnumMap<>(ConjuntoDados.class);
+
+    private static void definir(ConjuntoDados conjunto, String nome, Object... colunas) {
+        TABELAS.put(conjunto, new Tabela(nome, colunas));
+    }
+
+    static {
+        Tipo T = Tipo.TEXTO, I = Tipo.INTEIRO, D = Tipo.DECIMAL, B = Tipo.BOOLEANO;
+        definir(ConjuntoDados.RESTAURANTES, "restaurantes",
+            "email", T, "senha", T, "nome", T, "cnpj", T);
+        definir(ConjuntoDados.CLIENTES, "clientes",
+            "email", T, "senha", T, "nome", T, "telefone", T);
+        // extra: vegetariano da comida, volume da bebida ou temperatura da sobremesa;
+        // vegano so na comida
+        definir(ConjuntoDados.CARDAPIOS, "cardapios",
+            "email_restaurante", T, "categoria", T, "nome", T, "descricao", T,
+            "preco", D, "disponivel", B, "extra", T, "vegano", B);
+        definir(ConjuntoDados.ENDERECOS, "enderecos",
+            "email_cliente", T, "cep", T, "rua", T, "numero", T, "bairro", T, "cidade", T, "estado", T);
+        definir(ConjuntoDados.PEDIDOS, "pedidos",
+            "numero", I, "data_hora", I, "email_cliente", T, "email_restaurante", T,
+            "status", T, "valor_total", D);
+        definir(ConjuntoDados.ITENS_PEDIDO, "itens_pedido",
+            "numero_pedido", I, "email_restaurante", T, "produto", T, "quantidade", I,
+            "preco_unitario", D, "observacoes", T);
+        definir(ConjuntoDados.CUPONS, "cupons",
+            "codigo", T, "valor_desconto", D, "percentual", B);
+        definir(ConjuntoDados.CARTOES, "cartoes",
+            "email_cliente", T, "numero", T, "titular", T, "cvv", T, "validade", T, "apelido", T);
+        definir(ConjuntoDados.AVALIACOES, "avaliacoes",
+            "email_restaurante", T, "nota", I, "comentario", T);
+        definir(ConjuntoDados.AVALIACOES_PEDIDOS, "avaliacoes_pedidos",
+            "numero_pedido", I, "nota", I, "comentario", T);
+        definir(ConjuntoDados.CUPONS_USADOS, "cupons_usados",
+            "email_cliente", T, "codigo", T);
+        definir(ConjuntoDados.ENDERECOS_RESTAURANTES, "enderecos_restaurantes",
+            "email_restaurante", T, "cep", T, "rua", T, "numero", T, "bairro", T, "cidade", T, "estado", T,
+            "raio_entrega_km", D);
+    }
+
+    private final String url;
+    private final Connection conexao;
+
+    public ArmazenamentoSql(String url) throws SQLException {
+        this.url = url;
+        this.conexao = DriverManager.getConnection(url, "sa", "");
+        criarEsquema();
+    }
+
+    public static ArmazenamentoSql comConfiguracaoPadrao(File diretorio) {
+        diretorio.mkdirs();
+        String url = System.getProperty("ifome.sql.url",
+            "jdbc:h2:file:" + new File(diretorio, "ifome").getAbsolutePath());
+        try {
+            return new ArmazenamentoSql(url);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível abrir o banco " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getNome() {
+        return "sql (" + url + ")";
+    }
+
+    static Tabela tabela(ConjuntoDados conjunto) {
+        return TABELAS.get(conjunto);
+    }
+
+    private void criarEsquema() throws SQLException {
+        try (Statement st = conexao.createStatement()) {
+            for (Tabela tabela : TABELAS.values()) {
+                StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS ")
+                    .append(tabela.nome).append(" (seq BIGINT PRIMARY KEY");
+                for (int i = 0; i < tabela.colunas.length; i++) {
+                    sql.append(", ").append(tabela.colunas[i]).append(' ').append(tabela.tipos[i].sql);
+                }
+                st.execute(sql.append(')').toString());
+                // banco criado antes de uma coluna nova existir: ela entra vazia no fim
+                for (int i = 0; i < tabela.colunas.length; i++) {
+                    st.execute("ALTER TABLE " + tabela.nome + " ADD COLUMN IF NOT EXISTS " +
+                               tabela.colunas[i] + ' ' + tabela.tipos[i].sql);
+                }
+            }
+            st.execute("CREATE TABLE IF NOT EXISTS " + TABELA_SNAPSHOT +
+                       " (id INT PRIMARY KEY, lsn BIGINT NOT NULL)");
+        }
+    }
+
+    @Override
+    public Registros abrir(ConjuntoDados conjunto) throws IOException {
+        Tabela tabela = tabela(conjunto);
+        try {
+            Statement st = conexao.createStatement();
+            st.setFetchSize(TAMANHO_LOTE);
+            ResultSet rs = st.executeQuery("SELECT " + tabela.listaColunas() + " FROM " + tabela.nome + " ORDER BY seq");
+            return new RegistrosSql(tabela, st, rs);
+        } catch (SQLException e) {
+            throw new IOException("Erro ao ler " + tabela.nome + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public SnapshotArmazenamento iniciarSnapshot() throws IOException {
+        try {
+            return new SnapshotSql();
+        } catch (SQLException e) {
+            throw new IOException("Erro ao iniciar transação: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long lerLsnSnapshot() {
+        try (Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery("SELECT lsn FROM " + TABELA_SNAPSHOT + " WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Erro ao ler lsn do snapshot: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // o banco nao expoe o tamanho por tabela; as estatisticas de bytes ficam zeradas
+    @Override
+    public long tamanho(ConjuntoDados conjunto) {
+        return 0;
+    }
+
+    @Override
+    public void fechar() {
+        try {
+            conexao.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar o banco: " + e.getMessage());
+        }
+    }
+
+    private class SnapshotSql implements SnapshotArmazenamento {
+        private final List<GravadorSql> gravadores = new ArrayList<>();
+
+        SnapshotSql() throws SQLException {
+            conexao.setAutoCommit(false);
+        }
+
+        @Override
+        public GravadorRegistros gravador(ConjuntoDados conjunto) throws IOException {
+            Tabela tabela = tabela(conjunto);
+            try {
+                try (Statement st = conexao.createStatement()) {
+                    st.executeUpdate("DELETE FROM " + tabela.nome);
+                }
+                StringBuilder sql = new StringBuilder("INSERT INTO ").append(tabela.nome)
+                    .append(" (seq, ").append(tabela.listaColunas()).append(") VALUES (?");
+                for (int i = 0; i < tabela.colunas.length; i++) {
+                    sql.append(", ?");
+                }
+                GravadorSql gravador = new GravadorSql(tabela, conexao.prepareStatement(sql.append(')').toString()));
+                gravadores.add(gravador);
+                return gravador;
+            } catch (SQLException e) {
+                throw new IOException("Erro ao gravar " + tabela.nome + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void confirmar(long lsn) throws IOException {
+            try {
+                for (GravadorSql gravador : gravadores) {
+                    gravador.enviarLote();
+                }
+                try (PreparedStatement ps = conexao.prepareStatement(
+                        "UPDATE " + TABELA_SNAPSHOT + " SET lsn = ? WHERE id = 1")) {
+                    ps.setLong(1, lsn);
+                    if (ps.executeUpdate() == 0) {
+                        try (PreparedStatement insert = conexao.prepareStatement(
+                                "INSERT INTO " + TABELA_SNAPSHOT + " (id, lsn) VALUES (1, ?)")) {
+                            insert.setLong(1, lsn);
+                            insert.executeUpdate();
+                        }
+                    }
+                }
+                conexao.commit();
+            } catch (SQLException e) {
+                descartar();
+                throw new IOException("Erro ao confirmar snapshot: " + e.getMessage(), e);
+            } finally {
+                encerrar();
+            }
+        }
+
+        @Override
+        public void descartar() {
+            try {
+                conexao.rollback();
+            } catch (SQLException e) {
+                System.err.println("Erro ao desfazer snapshot: " + e.getMessage());
+            } finally {
+                encerrar();
+            }
+        }
+
+        private void encerrar() {
+            for (GravadorSql gravador : gravadores) {
+                gravador.fechar();
+            }
+            gravadores.clear();
+            try {
+                conexao.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Erro ao encerrar transação: " + e.getMessage());
+            }
+        }
+    }
+
+    // uma linha por registro; os valores ficam guardados ate o fimRegistro e vao em lotes
+    private static class GravadorSql implements GravadorRegistros {
+        private final Tabela tabela;
+        private final PreparedStatement insert;
+        private final Object[] valores;
+        private int campo;
+        private long seq;
+        private int noLote;
+
+        GravadorSql(Tabela tabela, PreparedStatement insert) {
+            this.tabela = tabela;
+            this.insert = insert;
+            this.valores = new Object[tabela.colunas.length];
+        }
+
+        private GravadorSql valor(Object valor) {
+            if (campo >= valores.length) {
+                throw new IllegalStateException("Campos demais para a tabela " + tabela.nome);
+            }
+            valores[campo++] = valor;
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros texto(String valor) {
+            return valor(valor);
+        }
+
+        @Override
+        public GravadorRegistros inteiro(long valor) {
+            return valor(valor);
+        }
+
+        @Override
+        public GravadorRegistros decimal(double valor) {
+            return valor(valor);
+        }
+
+        @Override
+        public GravadorRegistros booleano(boolean valor) {
+            return valor(valor);
+        }
+
+        @Override
+        public GravadorRegistros dataHora(long valor) {
+            return valor(valor);
+        }
+
+        @Override
+        public void fimRegistro() throws IOException {
+            try {
+                insert.setLong(1, ++seq);
+                for (int i = 0; i < valores.length; i++) {
+                    Object valor = i < campo ? valores[i] : null;
+                    if (valor == null) {
+                        insert.setNull(i + 2, tabela.tipos[i].codigo);
+                    } else if (tabela.tipos[i] == Tipo.TEXTO) {
+                        insert.setString(i + 2, String.valueOf(valor)); // ex: volume da bebida no extra
+                    } else {
+                        insert.setObject(i + 2, valor);
+                    }
+                }
+                insert.addBatch();
+                if (++noLote == TAMANHO_LOTE) {
+                    enviarLote();
+                }
+            } catch (SQLException e) {
+                throw new IOException("Erro ao gravar " + tabela.nome + ": " + e.getMessage(), e);
+            }
+            campo = 0;
+        }
+
+        void enviarLote() throws SQLException {
+            if (noLote > 0) {
+                insert.executeBatch();
+                noLote = 0;
+            }
+        }
+
+        void fechar() {
+            try {
+                insert.close();
+            } catch (SQLException e) {
+                // statement de uma transacao que ja terminou
+            }
+        }
+    }
+}
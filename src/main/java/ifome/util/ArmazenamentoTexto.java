@@ -0,0 +1,353 @@
+package ifome.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * backend padrao: um arquivo "campo;campo" por conjunto no diretorio de dados
+ * (ConjuntoDados.getArquivo) e o lsn do snapshot no snapshot.meta.
+ * pedidos e itens_pedido ficam por mes em pedidos/ (SegmentosMensais); com
+ * -Difome.pedidos.formato=texto nos dois .txt de sempre e com binario no pedidos.bin.
+ * a partir de ifome.carga.mapeadaBytes os .txt de pedidos sao mapeados e lidos em pedacos.
+ * o snapshot grava tudo em temporarios (EscritaAtomica) e so troca os arquivos
+ * reais no confirmar; o meta vai depois, so marca o corte quando os dados ja estao no disco
+ */
+public class ArmazenamentoTexto implements ArmazenamentoDados {
+
+    // onde ficam pedidos e itens_pedido
+    public enum FormatoPedidos { MENSAL, TEXTO, BINARIO }
+
+    static final String ARQUIVO_PEDIDOS_BINARIO = "pedidos.bin";
+    private static final String ARQUIVO_SNAPSHOT_META = "snapshot.meta";
+    // pedidos/itens a partir desse tamanho sao lidos mapeados, em pedacos paralelos
+    private static final long LIMITE_CARGA_MAPEADA_PADRAO = 64L * 1024 * 1024;
+
+    private final File diretorio;
+    private final FormatoPedidos formato;
+    private final long limiteCargaMapeada;
+    private final SegmentosMensais segmentos;
+
+    public ArmazenamentoTexto(File diretorio, FormatoPedidos formato, long limiteCargaMapeada) {
+        this.diretorio = diretorio;
+        this.formato = formato;
+        this.limiteCargaMapeada = limiteCargaMapeada;
+        this.segmentos = new SegmentosMensais(diretorio);
+        this.diretorio.mkdirs();
+    }
+
+    // -Difome.pedidos.formato=mensal|texto|binario, -Difome.carga.mapeadaBytes (padrao 64 MB; 0 = sempre)
+    public static ArmazenamentoTexto comConfiguracaoPadrao(File diretorio) {
+        String nome = System.getProperty("ifome.pedidos.formato", "mensal");
+        FormatoPedidos formato = FormatoPedidos.MENSAL;
+        try {
+            formato = FormatoPedidos.valueOf(nome.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Formato de pedidos desconhecido: " + nome + ". Usando mensal.");
+        }
+        return new ArmazenamentoTexto(diretorio, formato,
+            Long.getLong("ifome.carga.mapeadaBytes", LIMITE_CARGA_MAPEADA_PADRAO));
+    }
+
+    @Override
+    public String getNome() {
+        switch (formato) {
+            case BINARIO: return "texto (pedidos.bin)";
+            case MENSAL: return "texto (pedidos por mês)";
+            default: return "texto";
+        }
+    }
+
+    private File arquivo(String nome) {
+        return new File(diretorio, nome);
+    }
+
+    private File arquivo(ConjuntoDados conjunto) {
+        return arquivo(conjunto.getArquivo());
+    }
+
+    private static boolean dePedidos(ConjuntoDados conjunto) {
+        return conjunto == ConjuntoDados.PEDIDOS || conjunto == ConjuntoDados.ITENS_PEDIDO;
+    }
+
+    /**
+     * de onde os pedidos sao lidos: do formato configurado se ele ja foi gravado,
+     * senao do que estiver no disco (troca de formato; o proximo snapshot converte)
+     */
+    private FormatoPedidos origemPedidos() {
+        if (existe(formato)) {
+            return formato;
+        }
+        for (FormatoPedidos outro : FormatoPedidos.values()) {
+            if (existe(outro)) {
+                return outro;
+            }
+        }
+        return formato;
+    }
+
+    private boolean existe(FormatoPedidos formatoPedidos) {
+        switch (formatoPedidos) {
+            case MENSAL: return segmentos.existe();
+            case BINARIO: return arquivo(ARQUIVO_PEDIDOS_BINARIO).isFile();
+            default: return arquivo(ConjuntoDados.PEDIDOS).isFile();
+        }
+    }
+
+    /**
+     * o arquivo e lido inteiro e decodificado de uma vez; os campos nao sao separados
+     * aqui, o loader converte direto do buffer. arquivo que nao existe vira leitor vazio
+     */
+    @Override
+    public Registros abrir(ConjuntoDados conjunto) throws IOException {
+        FormatoPedidos origem = dePedidos(conjunto) ? origemPedidos() : FormatoPedidos.TEXTO;
+        if (origem == FormatoPedidos.MENSAL) {
+            return segmentos.abrir(conjunto);
+        }
+        if (origem == FormatoPedidos.BINARIO) {
+            LeitorPedidosBinario leitor = LeitorPedidosBinario.abrir(arquivo(ARQUIVO_PEDIDOS_BINARIO));
+            return conjunto == ConjuntoDados.PEDIDOS
+                ? RegistrosPedidosBinario.pedidos(leitor)
+                : RegistrosPedidosBinario.itens(leitor);
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(arquivo(conjunto).toPath());
+            CharBuffer conteudo = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes));
+            return new LeitorRegistros(conteudo.array(), conteudo.limit());
+        } catch (NoSuchFileException e) {
+            System.out.println(">>> Arquivo " + conjunto.getArquivo() + " não encontrado. Será criado ao salvar.");
+            return LeitorRegistros.deTexto("");
+        }
+    }
+
+    /**
+     * pedidos e itens_pedido sao os arquivos que crescem com o historico. a partir do
+     * limite eles sao mapeados em vez de lidos pro heap, e cada pedaco do arquivo
+     * e quebrado em campos numa thread
+     */
+    @Override
+    public boolean lerEmPartes(ConjuntoDados conjunto) {
+        if (!dePedidos(conjunto)) {
+            return false;
+        }
+        switch (origemPedidos()) {
+            case MENSAL:
+                return segmentos.tamanho(conjunto) >= limiteCargaMapeada;
+            case TEXTO:
+                File arquivo = arquivo(conjunto);
+                return arquivo.isFile() && arquivo.length() >= limiteCargaMapeada;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public List<Registros> abrirEmPartes(ConjuntoDados conjunto, int partes) throws IOException {
+        if (origemPedidos() == FormatoPedidos.MENSAL) {
+            return segmentos.abrirEmPartes(conjunto, partes);
+        }
+        return new ArrayList<>(ArquivoMapeado.mapear(arquivo(conjunto), partes));
+    }
+
+    @Override
+    public SnapshotArmazenamento iniciarSnapshot() {
+        return new SnapshotTexto();
+    }
+
+    // snapshot.meta guarda ate qual lsn do diario o snapshot ja contem
+    @Override
+    public long lerLsnSnapshot() {
+        File meta = arquivo(ARQUIVO_SNAPSHOT_META);
+        if (!meta.exists()) {
+            return 0;
+        }
+        Properties props = new Properties();
+        try (InputStream is = new FileInputStream(meta)) {
+            props.load(is);
+            return Long.parseLong(props.getProperty("lsn", "0"));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Erro ao ler snapshot.meta: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // no formato binario pedidos e itens ocupam um arquivo so, contado em PEDIDOS
+    @Override
+    public long tamanho(ConjuntoDados conjunto) {
+        if (!dePedidos(conjunto)) {
+            return arquivo(conjunto).length();
+        }
+        switch (formato) {
+            case MENSAL:
+                return segmentos.tamanho(conjunto);
+            case BINARIO:
+                return conjunto == ConjuntoDados.PEDIDOS ? arquivo(ARQUIVO_PEDIDOS_BINARIO).length() : 0;
+            default:
+                return arquivo(conjunto).length();
+        }
+    }
+
+    // pedidos.bin e os segmentos mensais precisam dos pedidos pra saber onde vai cada item
+    @Override
+    public Set<ConjuntoDados> gravadosJuntos(ConjuntoDados conjunto) {
+        if (formato != FormatoPedidos.TEXTO && dePedidos(conjunto)) {
+            return EnumSet.of(ConjuntoDados.PEDIDOS, ConjuntoDados.ITENS_PEDIDO);
+        }
+        return EnumSet.of(conjunto);
+    }
+
+    // primeira carga depois de trocar o formato: o proximo salvamento ja grava no novo
+    @Override
+    public Set<ConjuntoDados> conjuntosParaRegravar() {
+        if (origemPedidos() != formato) {
+            return EnumSet.of(ConjuntoDados.PEDIDOS, ConjuntoDados.ITENS_PEDIDO);
+        }
+        return EnumSet.noneOf(ConjuntoDados.class);
+    }
+
+    // segmentos gravados/intactos no ultimo snapshot (formato mensal)
+    public int getUltimosSegmentosRegravados() {
+        return segmentos.getUltimosRegravados();
+    }
+
+    public int getUltimosSegmentosIntactos() {
+        return segmentos.getUltimosIntactos();
+    }
+
+    @Override
+    public void fechar() {
+        // nada fica aberto entre um snapshot e outro
+    }
+
+    private class SnapshotTexto implements SnapshotArmazenamento {
+        // tudo vai pra temporarios; os arquivos reais so sao trocados se o lote inteiro deu certo
+        private final EscritaAtomica lote = EscritaAtomica.comConfiguracaoPadrao();
+        private final List<Writer> abertos = new ArrayList<>();
+        private ColetorPedidosBinario binario;
+        private SegmentosMensais.Coletor mensal;
+        private final Set<ConjuntoDados> pedidosGravados = EnumSet.noneOf(ConjuntoDados.class);
+
+        @Override
+        public GravadorRegistros gravador(ConjuntoDados conjunto) throws IOException {
+            if (dePedidos(conjunto)) {
+                pedidosGravados.add(conjunto);
+            }
+            if (formato == FormatoPedidos.MENSAL && dePedidos(conjunto)) {
+                if (mensal == null) {
+                    mensal = segmentos.novoColetor();
+                }
+                return conjunto == ConjuntoDados.PEDIDOS ? mensal.pedidos() : mensal.itens();
+            }
+            if (formato == FormatoPedidos.BINARIO && dePedidos(conjunto)) {
+                // pedidos e itens vivem no mesmo pedidos.bin
+                if (binario == null) {
+                    binario = new ColetorPedidosBinario();
+                }
+                return conjunto == ConjuntoDados.PEDIDOS ? binario.pedidos() : binario.itens();
+            }
+            Writer escritor = new BufferedWriter(
+                new OutputStreamWriter(lote.criarTemporario(arquivo(conjunto)), StandardCharsets.UTF_8));
+            abertos.add(escritor);
+            return new GravadorTexto(escritor);
+        }
+
+        @Override
+        public void confirmar(long lsn) throws IOException {
+            try {
+                fecharAbertos();
+                if (binario != null) {
+                    GravadorPedidosBinario gravador = binario.montar();
+                    try (OutputStream os = lote.criarTemporario(arquivo(ARQUIVO_PEDIDOS_BINARIO))) {
+                        gravador.gravar(os);
+                    }
+                }
+                if (mensal != null) {
+                    segmentos.preparar(mensal, lote);
+                }
+            } catch (IOException e) {
+                lote.descartar();
+                throw e;
+            }
+            lote.confirmar();
+            gravarLsn(lsn);
+            if (pedidosGravados.size() == 2) {
+                removerOutrosFormatos();
+            }
+        }
+
+        /**
+         * os pedidos ja estao no formato configurado; o que sobrou dos outros sai,
+         * senao uma troca de volta leria pedidos velhos. so depois do meta, quando o
+         * snapshot novo ja vale
+         */
+        private void removerOutrosFormatos() {
+            try {
+                if (formato == FormatoPedidos.MENSAL) {
+                    segmentos.concluir();
+                } else {
+                    segmentos.apagar();
+                }
+                if (formato != FormatoPedidos.BINARIO) {
+                    Files.deleteIfExists(arquivo(ARQUIVO_PEDIDOS_BINARIO).toPath());
+                }
+                if (formato != FormatoPedidos.TEXTO) {
+                    Files.deleteIfExists(arquivo(ConjuntoDados.PEDIDOS).toPath());
+                    Files.deleteIfExists(arquivo(ConjuntoDados.ITENS_PEDIDO).toPath());
+                }
+            } catch (IOException e) {
+                // o snapshot ja vale; sobra arquivo velho que o proximo salvamento tenta apagar de novo
+                System.err.println("Erro ao remover pedidos do formato anterior: " + e.getMessage());
+            }
+        }
+
+        private void fecharAbertos() throws IOException {
+            IOException erro = null;
+            for (Writer escritor : abertos) {
+                try {
+                    escritor.close();
+                } catch (IOException e) {
+                    erro = e;
+                }
+            }
+            abertos.clear();
+            if (erro != null) {
+                throw erro;
+            }
+        }
+
+        @Override
+        public void descartar() {
+            try {
+                fecharAbertos();
+            } catch (IOException e) {
+                // os temporarios vao ser apagados de qualquer jeito
+            }
+            lote.descartar();
+        }
+
+        private void gravarLsn(long lsn) throws IOException {
+            EscritaAtomica escrita = EscritaAtomica.comConfiguracaoPadrao();
+            Properties props = new Properties();
+            props.setProperty("lsn", String.valueOf(lsn));
+            try (OutputStream os = escrita.criarTemporario(arquivo(ARQUIVO_SNAPSHOT_META))) {
+                props.store(os, "iFome snapshot");
+            }
+            escrita.confirmar();
+        }
+    }
+}
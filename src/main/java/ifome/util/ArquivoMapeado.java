@@ -0,0 +1,73 @@
+package ifome.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * mapeia um arquivo de registros (FileChannel.map) e divide em pedacos que terminam
+ * sempre numa quebra de linha, pra cada pedaco ser lido por uma thread.
+ * os bytes sao lidos direto da page cache, sem copiar pro heap nem decodificar
+ * o arquivo inteiro. um mapeamento tem no maximo 2 GB, entao arquivos maiores
+ * sempre viram varios pedacos
+ */
+public final class ArquivoMapeado {
+
+    static final long MAX_PEDACO = 1L << 30;
+
+    private ArquivoMapeado() {
+    }
+
+    /**
+     * divide o arquivo em ate 'partes' leitores (mais, se precisar pra respeitar o
+     * limite de um mapeamento). a ordem da lista e a ordem do arquivo.
+     * o mapeamento continua valido depois que o canal e fechado
+     */
+    public static List<LeitorRegistros> mapear(File arquivo, int partes) throws IOException {
+        List<LeitorRegistros> leitores = new ArrayList<>();
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            if (tamanho == 0) {
+                return leitores;
+            }
+            int quantidade = (int) Math.max(Math.max(1, partes), (tamanho + MAX_PEDACO - 1) / MAX_PEDACO);
+            long alvo = (tamanho + quantidade - 1) / quantidade;
+
+            long inicio = 0;
+            while (inicio < tamanho) {
+                long fim = inicio + alvo >= tamanho ? tamanho : fimDaLinha(canal, inicio + alvo, tamanho);
+                if (fim - inicio > Integer.MAX_VALUE) {
+                    throw new IOException("Linha grande demais em " + arquivo.getName() + " perto do byte " + inicio);
+                }
+                MappedByteBuffer pedaco = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+                leitores.add(new LeitorRegistros(pedaco));
+                inicio = fim;
+            }
+        }
+        return leitores;
+    }
+
+    // posicao logo depois do primeiro '\n' a partir de 'posicao' (ou o fim do arquivo)
+    private static long fimDaLinha(FileChannel canal, long posicao, long tamanho) throws IOException {
+        ByteBuffer bloco = ByteBuffer.allocate(8192);
+        while (posicao < tamanho) {
+            bloco.clear();
+            int lidos = canal.read(bloco, posicao);
+            if (lidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < lidos; i++) {
+                if (bloco.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+}
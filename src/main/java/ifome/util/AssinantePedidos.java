@@ -0,0 +1,13 @@
+package ifome.util;
+
+import java.util.List;
+
+/**
+ * recebe os eventos do barramento em lotes, na ordem em que foram publicados,
+ * numa thread de entrega (nunca na de quem publicou). telas do JavaFX passam
+ * o lote pra Platform.runLater
+ */
+@FunctionalInterface
+public interface AssinantePedidos {
+    void receber(List<EventoPedido> lote);
+}
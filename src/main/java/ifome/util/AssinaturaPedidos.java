@@ -0,0 +1,155 @@
+package ifome.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * um assinante do barramento com a sua fila limitada.
+ * quem publica so poe na fila (ou aplica a politica de transbordo); a entrega roda
+ * nas threads do barramento, uma por vez por assinatura, entao o assinante recebe
+ * os lotes em ordem e nunca dois ao mesmo tempo. um assinante lento enche a propria
+ * fila e perde eventos dele, sem segurar quem publica nem os outros assinantes
+ */
+public final class AssinaturaPedidos {
+
+    private final AssinantePedidos assinante;
+    private final String nome;
+    // copiados das opcoes: mexer nelas depois de assinar nao muda a assinatura
+    private final Predicate<EventoPedido> criterio;
+    private final PoliticaTransbordo politica;
+    private final int tamanhoLote;
+    private final long janelaMs;
+    private final long esperaMaximaMs;
+    private final ArrayBlockingQueue<EventoPedido> fila;
+    private final ScheduledExecutorService entregador;
+    private final BarramentoPedidos barramento;
+    // true entre agendar a entrega e ela terminar; segura uma entrega por vez
+    private final AtomicBoolean agendada = new AtomicBoolean();
+    private volatile boolean ativa = true;
+    private final AtomicLong recebidos = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong entregues = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+
+    AssinaturaPedidos(BarramentoPedidos barramento, AssinantePedidos assinante, OpcoesAssinatura opcoes,
+                      ScheduledExecutorService entregador) {
+        this.barramento = barramento;
+        this.assinante = assinante;
+        this.nome = opcoes.getNome();
+        this.criterio = opcoes.criterio();
+        this.politica = opcoes.getPolitica();
+        this.tamanhoLote = opcoes.getTamanhoLote();
+        this.janelaMs = opcoes.getJanelaMs();
+        this.esperaMaximaMs = opcoes.getEsperaMaximaMs();
+        this.fila = new ArrayBlockingQueue<>(opcoes.getCapacidade());
+        this.entregador = entregador;
+    }
+
+    // chamado por quem publicou, na thread dele
+    void publicar(EventoPedido evento) {
+        if (!ativa || !criterio.test(evento)) {
+            return;
+        }
+        recebidos.incrementAndGet();
+        if (!enfileirar(evento)) {
+            descartados.incrementAndGet();
+        }
+        agendarEntrega();
+    }
+
+    private boolean enfileirar(EventoPedido evento) {
+        switch (politica) {
+            case DESCARTAR_ANTIGOS:
+                while (!fila.offer(evento)) {
+                    if (fila.poll() != null) {
+                        descartados.incrementAndGet();
+                    }
+                }
+                return true;
+            case ESPERAR:
+                try {
+                    return fila.offer(evento, esperaMaximaMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            default:
+                return fila.offer(evento);
+        }
+    }
+
+    private void agendarEntrega() {
+        if (!agendada.compareAndSet(false, true)) {
+            return; // ja tem uma entrega a caminho; ela leva este evento junto
+        }
+        try {
+            entregador.schedule(this::entregar, janelaMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            agendada.set(false); // barramento encerrado
+        }
+    }
+
+    private void entregar() {
+        try {
+            List<EventoPedido> lote = new ArrayList<>(Math.min(tamanhoLote, fila.size()));
+            while (ativa && fila.drainTo(lote, tamanhoLote) > 0) {
+                try {
+                    assinante.receber(Collections.unmodifiableList(lote));
+                } catch (RuntimeException e) {
+                    System.err.println("Erro no assinante " + nome + ": " + e.getMessage());
+                }
+                entregues.addAndGet(lote.size());
+                lotes.incrementAndGet();
+                // o assinante pode ter guardado o lote; o proximo e outra lista
+                lote = new ArrayList<>(Math.min(tamanhoLote, fila.size()));
+            }
+        } finally {
+            agendada.set(false);
+            // o que chegou entre o ultimo drainTo e soltar a flag nao achou quem entregasse
+            if (ativa && !fila.isEmpty()) {
+                agendarEntrega();
+            }
+        }
+    }
+
+    // para de receber; o que estava na fila e descartado
+    public void cancelar() {
+        if (ativa) {
+            ativa = false;
+            fila.clear();
+            barramento.remover(this);
+        }
+    }
+
+    public boolean isAtiva() {
+        return ativa;
+    }
+
+    // fila vazia e nenhuma entrega em andamento
+    boolean estaOciosa() {
+        return fila.isEmpty() && !agendada.get();
+    }
+
+    public String getNome() { return nome; }
+    // eventos que passaram no filtro
+    public long getRecebidos() { return recebidos.get(); }
+    // perdidos pela politica de transbordo (os novos recusados ou os antigos empurrados pra fora)
+    public long getDescartados() { return descartados.get(); }
+    public long getEntregues() { return entregues.get(); }
+    public long getLotes() { return lotes.get(); }
+    public int getPendentes() { return fila.size(); }
+
+    @Override
+    public String toString() {
+        return String.format("Assinatura %s | Recebidos: %d | Entregues: %d em %d lotes | Descartados: %d | Na fila: %d",
+            nome, getRecebidos(), getEntregues(), getLotes(), getDescartados(), getPendentes());
+    }
+}
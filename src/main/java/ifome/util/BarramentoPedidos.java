@@ -0,0 +1,137 @@
+package ifome.util;
+
+import ifome.model.Pedido;
+import ifome.model.StatusPedido;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * barramento dos eventos do ciclo de vida dos pedidos (criado, pago, cada etapa, avaliado).
+ * telas, estatisticas e a persistencia assinam em vez de reler tudo: o repositorio
+ * publica quando um pedido entra e ouve os restaurantes pras mudancas de etapa,
+ * pagamento e avaliacao.
+ *
+ * publicar nao espera ninguem (a nao ser assinatura com PoliticaTransbordo.ESPERAR):
+ * cada assinatura tem a sua fila limitada e recebe em lotes nas threads de entrega
+ * do barramento. os eventos de um pedido saem na ordem em que aconteceram, porque
+ * o pedido avisa as mudancas dele uma de cada vez
+ */
+public class BarramentoPedidos {
+
+    private static final int THREADS_PADRAO = 2;
+    private static final long ESPERA_ENCERRAR_MS = 5_000;
+
+    private final List<AssinaturaPedidos> assinaturas = new CopyOnWriteArrayList<>();
+    private final ScheduledThreadPoolExecutor entregador;
+    private final AtomicLong sequencia = new AtomicLong();
+    private volatile boolean encerrado;
+
+    public BarramentoPedidos(int threads) {
+        AtomicInteger contador = new AtomicInteger();
+        this.entregador = new ScheduledThreadPoolExecutor(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "ifome-eventos-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // threads de entrega vindas de -Difome.eventos.threads
+    public static BarramentoPedidos comConfiguracaoPadrao() {
+        return new BarramentoPedidos(Integer.getInteger("ifome.eventos.threads", THREADS_PADRAO));
+    }
+
+    public AssinaturaPedidos assinar(AssinantePedidos assinante, OpcoesAssinatura opcoes) {
+        if (assinante == null) {
+            throw new IllegalArgumentException("Assinante não pode ser nulo");
+        }
+        AssinaturaPedidos assinatura = new AssinaturaPedidos(this, assinante,
+            opcoes != null ? opcoes : new OpcoesAssinatura(), entregador);
+        if (encerrado) {
+            assinatura.cancelar();
+            return assinatura;
+        }
+        assinaturas.add(assinatura);
+        return assinatura;
+    }
+
+    // todos os eventos de todos os pedidos, com as opcoes padrao
+    public AssinaturaPedidos assinar(AssinantePedidos assinante) {
+        return assinar(assinante, null);
+    }
+
+    void remover(AssinaturaPedidos assinatura) {
+        assinaturas.remove(assinatura);
+    }
+
+    // evento fora das mudancas de etapa (criado, pago, avaliado): vai com a etapa atual do pedido
+    public void publicar(TipoEventoPedido tipo, Pedido pedido) {
+        if (pedido != null) {
+            publicar(tipo, pedido, null, pedido.getStatusPedido());
+        }
+    }
+
+    public void publicar(TipoEventoPedido tipo, Pedido pedido, StatusPedido anterior, StatusPedido status) {
+        if (tipo == null || pedido == null || encerrado || assinaturas.isEmpty()) {
+            return;
+        }
+        EventoPedido evento = new EventoPedido(sequencia.incrementAndGet(), tipo, pedido, anterior, status,
+                                               System.currentTimeMillis());
+        for (AssinaturaPedidos assinatura : assinaturas) {
+            assinatura.publicar(evento);
+        }
+    }
+
+    /**
+     * espera as filas esvaziarem e as entregas em andamento terminarem.
+     * false se o tempo acabou antes. nao impede que publiquem mais enquanto espera
+     */
+    public boolean aguardarEntregas(long timeoutMs) {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            boolean ociosas = true;
+            for (AssinaturaPedidos assinatura : assinaturas) {
+                if (!assinatura.estaOciosa()) {
+                    ociosas = false;
+                    break;
+                }
+            }
+            if (ociosas) {
+                return true;
+            }
+            if (System.nanoTime() - limite >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    // entrega o que ja estava nas filas e para as threads; publicar depois disso nao faz nada
+    public void encerrar() {
+        if (!aguardarEntregas(ESPERA_ENCERRAR_MS)) {
+            System.err.println("Barramento de pedidos encerrado com eventos não entregues.");
+        }
+        encerrado = true;
+        for (AssinaturaPedidos assinatura : assinaturas) {
+            assinatura.cancelar();
+        }
+        entregador.shutdown();
+    }
+
+    public boolean isEncerrado() {
+        return encerrado;
+    }
+
+    public List<AssinaturaPedidos> getAssinaturas() {
+        return List.copyOf(assinaturas);
+    }
+
+    // eventos que sairam com alguem assinando
+    public long getPublicados() {
+        return sequencia.get();
+    }
+}
@@ -0,0 +1,272 @@
+package ifome.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * arquivo so de acrescimo com pedidos selados em blocos comprimidos (deflate).
+ * cada bloco junta varios pedidos ate ~tamanhoBloco bytes de texto e comeca com o
+ * proprio indice (numero e tamanhos de cada pedido), entao um pedido sai lendo e
+ * descomprimindo so o bloco dele, nunca o arquivo todo
+ *
+ * cabecalho: int magico "IFAC", short versao
+ * bloco (big-endian): int quantidade, quantidade x (int numero, int tamanho da linha
+ * do pedido, int tamanho das linhas dos itens), int tamanho original, int tamanho
+ * comprimido, int crc32 do original, bytes comprimidos. o original e, pedido a pedido,
+ * a linha do pedido seguida das linhas dos itens (mesmo formato dos .txt)
+ */
+final class BlocosCompactados {
+
+    private static final int MAGICO = 0x49464143; // "IFAC"
+    private static final short VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 4 + 2;
+
+    // pedido a selar: linhas prontas, como estao nos .txt
+    static final class Registro {
+        final int numero;
+        final byte[] pedido;
+        final byte[] itens;
+
+        Registro(int numero, byte[] pedido, byte[] itens) {
+            this.numero = numero;
+            this.pedido = pedido;
+            this.itens = itens;
+        }
+    }
+
+    // bloco lido e descomprimido
+    static final class Bloco {
+        private final int[] numeros;
+        private final int[] inicios; // do pedido dentro do original; os itens vem logo depois
+        private final int[] tamanhosPedido;
+        private final int[] tamanhosItens;
+        private final byte[] original;
+
+        private Bloco(int[] numeros, int[] tamanhosPedido, int[] tamanhosItens, byte[] original) {
+            this.numeros = numeros;
+            this.tamanhosPedido = tamanhosPedido;
+            this.tamanhosItens = tamanhosItens;
+            this.original = original;
+            this.inicios = new int[numeros.length];
+            int posicao = 0;
+            for (int i = 0; i < numeros.length; i++) {
+                inicios[i] = posicao;
+                posicao += tamanhosPedido[i] + tamanhosItens[i];
+            }
+        }
+
+        private int indice(int numero) {
+            for (int i = 0; i < numeros.length; i++) {
+                if (numeros[i] == numero) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // null se o numero nao esta no bloco
+        ByteBuffer pedido(int numero) {
+            int i = indice(numero);
+            return i < 0 ? null : ByteBuffer.wrap(original, inicios[i], tamanhosPedido[i]).slice();
+        }
+
+        ByteBuffer itens(int numero) {
+            int i = indice(numero);
+            return i < 0 ? null : ByteBuffer.wrap(original, inicios[i] + tamanhosPedido[i], tamanhosItens[i]).slice();
+        }
+    }
+
+    private final File arquivo;
+    private final boolean fsync;
+    private final int tamanhoBloco;
+
+    BlocosCompactados(File arquivo, boolean fsync, int tamanhoBloco) {
+        this.arquivo = arquivo;
+        this.fsync = fsync;
+        this.tamanhoBloco = Math.max(1, tamanhoBloco);
+    }
+
+    File getArquivo() {
+        return arquivo;
+    }
+
+    /**
+     * grava os registros em blocos no fim do arquivo (que precisa terminar em "fim")
+     * e devolve a posicao do bloco de cada registro, na mesma ordem. o fsync e feito
+     * antes de voltar, quem chama so depois aponta o indice pra ca
+     */
+    long[] anexar(List<Registro> registros, long fim) throws IOException {
+        long[] posicoes = new long[registros.size()];
+        try (FileOutputStream out = new FileOutputStream(arquivo, fim > 0)) {
+            if (fim > 0) {
+                out.getChannel().truncate(fim);
+            }
+            DataOutputStream dados = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            long posicao = fim;
+            if (fim == 0) {
+                dados.writeInt(MAGICO);
+                dados.writeShort(VERSAO);
+                posicao = TAMANHO_CABECALHO;
+            }
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            try {
+                int inicio = 0;
+                while (inicio < registros.size()) {
+                    int fimBloco = inicio;
+                    int bytes = 0;
+                    do {
+                        Registro r = registros.get(fimBloco++);
+                        bytes += r.pedido.length + r.itens.length;
+                    } while (fimBloco < registros.size() && bytes < tamanhoBloco);
+
+                    int tamanho = gravarBloco(dados, deflater, registros.subList(inicio, fimBloco), bytes);
+                    for (int i = inicio; i < fimBloco; i++) {
+                        posicoes[i] = posicao;
+                    }
+                    posicao += tamanho;
+                    inicio = fimBloco;
+                }
+            } finally {
+                deflater.end();
+            }
+            dados.flush();
+            if (fsync) {
+                out.getFD().sync();
+            }
+        }
+        return posicoes;
+    }
+
+    // devolve quantos bytes o bloco ocupou no arquivo
+    private static int gravarBloco(DataOutputStream dados, Deflater deflater, List<Registro> bloco,
+                                   int tamanhoOriginal) throws IOException {
+        byte[] original = new byte[tamanhoOriginal];
+        int posicao = 0;
+        for (Registro r : bloco) {
+            System.arraycopy(r.pedido, 0, original, posicao, r.pedido.length);
+            posicao += r.pedido.length;
+            System.arraycopy(r.itens, 0, original, posicao, r.itens.length);
+            posicao += r.itens.length;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(original);
+
+        deflater.reset();
+        deflater.setInput(original);
+        deflater.finish();
+        byte[] comprimido = new byte[Math.max(64, tamanhoOriginal + tamanhoOriginal / 8 + 64)];
+        int tamanhoComprimido = 0;
+        while (!deflater.finished()) {
+            if (tamanhoComprimido == comprimido.length) {
+                comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+            }
+            tamanhoComprimido += deflater.deflate(comprimido, tamanhoComprimido, comprimido.length - tamanhoComprimido);
+        }
+
+        dados.writeInt(bloco.size());
+        for (Registro r : bloco) {
+            dados.writeInt(r.numero);
+            dados.writeInt(r.pedido.length);
+            dados.writeInt(r.itens.length);
+        }
+        dados.writeInt(tamanhoOriginal);
+        dados.writeInt(tamanhoComprimido);
+        dados.writeInt((int) crc.getValue());
+        dados.write(comprimido, 0, tamanhoComprimido);
+        return 4 + bloco.size() * 12 + 12 + tamanhoComprimido;
+    }
+
+    // confere o cabecalho do arquivo (se existir)
+    void validar() throws IOException {
+        if (!arquivo.isFile() || arquivo.length() == 0) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo.toPath())) {
+            ByteBuffer cabecalho = ler(canal, 0, TAMANHO_CABECALHO);
+            if (cabecalho.getInt() != MAGICO) {
+                throw new IOException(arquivo.getName() + " não é um arquivo de pedidos selados");
+            }
+            short versao = cabecalho.getShort();
+            if (versao != VERSAO) {
+                throw new IOException("Versão " + versao + " do " + arquivo.getName() + " não suportada");
+            }
+        }
+    }
+
+    // onde termina o bloco que comeca em "posicao" (sem descomprimir)
+    long fimDoBloco(FileChannel canal, long posicao) throws IOException {
+        int quantidade = ler(canal, posicao, 4).getInt();
+        long depoisDoIndice = posicao + 4 + (long) quantidade * 12;
+        ByteBuffer tamanhos = ler(canal, depoisDoIndice, 12);
+        tamanhos.getInt();
+        return depoisDoIndice + 12 + tamanhos.getInt();
+    }
+
+    // le e descomprime o bloco que comeca em "posicao", conferindo o crc
+    Bloco lerBloco(FileChannel canal, long posicao) throws IOException {
+        int quantidade = ler(canal, posicao, 4).getInt();
+        ByteBuffer cabecalho = ler(canal, posicao + 4, quantidade * 12 + 12);
+        int[] numeros = new int[quantidade];
+        int[] tamanhosPedido = new int[quantidade];
+        int[] tamanhosItens = new int[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            numeros[i] = cabecalho.getInt();
+            tamanhosPedido[i] = cabecalho.getInt();
+            tamanhosItens[i] = cabecalho.getInt();
+        }
+        int tamanhoOriginal = cabecalho.getInt();
+        int tamanhoComprimido = cabecalho.getInt();
+        int crcEsperado = cabecalho.getInt();
+        ByteBuffer comprimido = ler(canal, posicao + 4 + quantidade * 12L + 12, tamanhoComprimido);
+
+        byte[] original = new byte[tamanhoOriginal];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido.array(), 0, tamanhoComprimido);
+            int lidos = 0;
+            while (lidos < tamanhoOriginal && !inflater.finished()) {
+                int n = inflater.inflate(original, lidos, tamanhoOriginal - lidos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                lidos += n;
+            }
+            if (lidos != tamanhoOriginal) {
+                throw new IOException("Bloco de pedidos selados truncado em " + posicao);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco de pedidos selados corrompido em " + posicao, e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(original);
+        if ((int) crc.getValue() != crcEsperado) {
+            throw new IOException("CRC inválido no bloco de pedidos selados em " + posicao);
+        }
+        return new Bloco(numeros, tamanhosPedido, tamanhosItens, original);
+    }
+
+    private static ByteBuffer ler(FileChannel canal, long posicao, int tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new EOFException("Arquivo de pedidos selados truncado");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
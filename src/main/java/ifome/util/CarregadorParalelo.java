@@ -0,0 +1,175 @@
+package ifome.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * carga do repositorio em etapas.
+ * primeiro todos os arquivos sao lidos ao mesmo tempo (so o texto, sem objetos
+ * do modelo). depois o grafo e montado em
+ * etapas que respeitam as dependencias (restaurante antes do cardapio, pedido antes
+ * dos itens...); tarefas da mesma etapa que nao mexem nos mesmos objetos rodam juntas.
+ * o tempo de cada etapa fica registrado pra aparecer no log de inicializacao
+ */
+public class CarregadorParalelo {
+
+    private final ExecutorService executor;
+    private final int threads;
+    private final Map<String, Long> temposEtapas;
+    private final Map<ConjuntoDados, Long> temposLeitura;
+
+    public CarregadorParalelo() {
+        this(Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public CarregadorParalelo(int threads) {
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ifome-carga");
+            t.setDaemon(true);
+            return t;
+        });
+        this.temposEtapas = new LinkedHashMap<>();
+        this.temposLeitura = Collections.synchronizedMap(new EnumMap<>(ConjuntoDados.class));
+    }
+
+    /**
+     * etapa de leitura: cada conjunto e aberto numa thread (no backend de texto o
+     * arquivo e lido inteiro e decodificado de uma vez). os campos nao sao separados
+     * aqui: cada conjunto devolve um Registros e o loader converte os campos direto
+     * do buffer. erro de leitura vira registros vazios, igual a arquivo que nao existe
+     */
+    public Map<ConjuntoDados, Registros> lerConjuntos(ArmazenamentoDados armazenamento) {
+        return lerConjuntos(armazenamento, EnumSet.noneOf(ConjuntoDados.class));
+    }
+
+    // os conjuntos em 'ignorar' ficam fora do mapa (ex: os que vao ser lidos em partes)
+    public Map<ConjuntoDados, Registros> lerConjuntos(ArmazenamentoDados armazenamento,
+                                                     Set<ConjuntoDados> ignorar) {
+        long inicio = System.nanoTime();
+        Map<ConjuntoDados, Future<Registros>> leituras = new EnumMap<>(ConjuntoDados.class);
+        for (ConjuntoDados conjunto : ConjuntoDados.values()) {
+            if (ignorar.contains(conjunto)) {
+                continue;
+            }
+            leituras.put(conjunto, executor.submit(() -> lerConjunto(armazenamento, conjunto)));
+        }
+
+        Map<ConjuntoDados, Registros> lidos = new EnumMap<>(ConjuntoDados.class);
+        for (Map.Entry<ConjuntoDados, Future<Registros>> leitura : leituras.entrySet()) {
+            lidos.put(leitura.getKey(), aguardar(leitura.getValue()));
+        }
+        temposEtapas.put("leitura", System.nanoTime() - inicio);
+        return lidos;
+    }
+
+    private Registros lerConjunto(ArmazenamentoDados armazenamento, ConjuntoDados conjunto) {
+        long inicio = System.nanoTime();
+        Registros registros = LeitorRegistros.deTexto("");
+        try {
+            registros = armazenamento.abrir(conjunto);
+        } catch (IOException e) {
+            System.err.println("Erro ao carregar " + conjunto.getArquivo() + ": " + e.getMessage());
+        }
+        temposLeitura.put(conjunto, System.nanoTime() - inicio);
+        return registros;
+    }
+
+    /**
+     * etapa em que cada pedaco de um conjunto lido em partes e processado numa thread.
+     * os resultados voltam na ordem dos pedacos, que e a ordem do arquivo
+     */
+    public <T> List<T> processarPartes(String nome, List<Registros> partes,
+                                       Function<Registros, T> tarefa) {
+        long inicio = System.nanoTime();
+        List<T> resultados = new ArrayList<>();
+        if (partes.size() == 1) {
+            resultados.add(tarefa.apply(partes.get(0)));
+        } else {
+            List<Future<T>> futuros = new ArrayList<>();
+            for (Registros parte : partes) {
+                futuros.add(executor.submit(() -> tarefa.apply(parte)));
+            }
+            for (Future<T> futuro : futuros) {
+                resultados.add(aguardar(futuro));
+            }
+        }
+        temposEtapas.put(nome, System.nanoTime() - inicio);
+        return resultados;
+    }
+
+    /**
+     * roda as tarefas de uma etapa em paralelo e so volta quando todas terminaram.
+     * tarefas da mesma etapa nao podem mexer nos mesmos objetos
+     */
+    public void executarEtapa(String nome, Runnable... tarefas) {
+        long inicio = System.nanoTime();
+        if (tarefas.length == 1) {
+            tarefas[0].run();
+        } else {
+            List<Future<?>> futuros = new ArrayList<>();
+            for (Runnable tarefa : tarefas) {
+                futuros.add(executor.submit(tarefa));
+            }
+            for (Future<?> futuro : futuros) {
+                aguardar(futuro);
+            }
+        }
+        temposEtapas.put(nome, System.nanoTime() - inicio);
+    }
+
+    // erro numa tarefa sobe pra quem chamou, igual a carga sequencial
+    private static <T> T aguardar(Future<T> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Carga interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    // nome da etapa -> nanos, na ordem em que rodaram
+    public Map<String, Long> getTemposEtapas() {
+        return Collections.unmodifiableMap(temposEtapas);
+    }
+
+    public Map<ConjuntoDados, Long> getTemposLeitura() {
+        return Collections.unmodifiableMap(new EnumMap<>(temposLeitura));
+    }
+
+    public String resumo() {
+        StringBuilder sb = new StringBuilder();
+        long total = 0;
+        for (Map.Entry<String, Long> etapa : temposEtapas.entrySet()) {
+            sb.append(String.format("    %-45s %8.1f ms%n", etapa.getKey(), etapa.getValue() / 1e6));
+            total += etapa.getValue();
+        }
+        sb.append(String.format("    %-45s %8.1f ms", "total", total / 1e6));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package ifome.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * recebe os registros de pedidos e de itens do snapshot (nessa ordem ou nao)
+ * e monta o pedidos.bin no fim. o binario precisa dos itens logo depois do
+ * pedido, entao os dois conjuntos ficam em memoria ate montar()
+ */
+final class ColetorPedidosBinario {
+
+    private final List<Object[]> pedidos = new ArrayList<>();
+    private final Map<Long, List<Object[]>> itensPorPedido = new HashMap<>();
+    private boolean recebeuPedidos;
+    private boolean recebeuItens;
+
+    // numero;data;emailCliente;emailRestaurante;status;valor
+    GravadorRegistros pedidos() {
+        recebeuPedidos = true;
+        return new Campos(pedidos::add);
+    }
+
+    // numero;emailRestaurante;produto;quantidade;precoUnitario;observacoes
+    GravadorRegistros itens() {
+        recebeuItens = true;
+        return new Campos(campos ->
+            itensPorPedido.computeIfAbsent((Long) campos[0], n -> new ArrayList<>()).add(campos));
+    }
+
+    // itens sem pedido sao descartados, como na carga
+    GravadorPedidosBinario montar() throws IOException {
+        if (!recebeuPedidos || !recebeuItens) {
+            throw new IOException("Pedidos e itens precisam ser gravados juntos no pedidos.bin");
+        }
+        GravadorPedidosBinario gravador = new GravadorPedidosBinario();
+        try {
+            for (Object[] p : pedidos) {
+                gravador.adicionarPedido(((Long) p[0]).intValue(), (Long) p[1] / 1000,
+                    (String) p[2], (String) p[3], (String) p[4], (Double) p[5]);
+                List<Object[]> itens = itensPorPedido.remove(p[0]);
+                if (itens != null) {
+                    for (Object[] item : itens) {
+                        gravador.adicionarItem((String) item[2], ((Long) item[3]).intValue(),
+                            (Double) item[4], (String) item[5]);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | ClassCastException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Registro inválido para o pedidos.bin: " + e.getMessage(), e);
+        }
+        return gravador;
+    }
+
+    // guarda os campos de cada registro como vieram (String, Long, Double, Boolean)
+    private static class Campos implements GravadorRegistros {
+        private final Consumer<Object[]> destino;
+        private final List<Object> atual = new ArrayList<>(6);
+
+        Campos(Consumer<Object[]> destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public GravadorRegistros texto(String valor) {
+            atual.add(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros inteiro(long valor) {
+            atual.add(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros decimal(double valor) {
+            atual.add(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros booleano(boolean valor) {
+            atual.add(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros dataHora(long valor) {
+            atual.add(valor);
+            return this;
+        }
+
+        @Override
+        public void fimRegistro() {
+            destino.accept(atual.toArray());
+            atual.clear();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ifome.util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compactacao periodica do diario em segundo plano.
+ * quando o diario passa de um limite (bytes, registros ou tempo desde o ultimo
+ * snapshot) grava um snapshot novo e descarta o que ele ja cobre. assim o tempo
+ * de inicializacao fica limitado, nao importa ha quanto tempo o app esta aberto.
+ * roda numa thread propria, nunca na thread do JavaFX
+ */
+public class CompactadorDiario {
+
+    private static final long LIMITE_BYTES_PADRAO = 4L * 1024 * 1024;
+    private static final int LIMITE_REGISTROS_PADRAO = 10000;
+    private static final long LIMITE_SEGUNDOS_PADRAO = 10 * 60;
+    private static final long INTERVALO_VERIFICACAO_MS = 5000;
+
+    private final RepositorioRestaurantes repositorio;
+    private final long limiteBytes;
+    private final int limiteRegistros;
+    private final long limiteTempoMs;
+    private ScheduledExecutorService executor;
+    private volatile int compactacoesRealizadas;
+
+    public CompactadorDiario(RepositorioRestaurantes repositorio, long limiteBytes,
+                             int limiteRegistros, long limiteTempoMs) {
+        this.repositorio = repositorio;
+        this.limiteBytes = limiteBytes;
+        this.limiteRegistros = limiteRegistros;
+        this.limiteTempoMs = limiteTempoMs;
+        this.compactacoesRealizadas = 0;
+    }
+
+    /**
+     * limites vindos das propriedades do sistema:
+     * -Difome.compactacao.bytes, -Difome.compactacao.registros, -Difome.compactacao.segundos
+     */
+    public static CompactadorDiario comConfiguracaoPadrao(RepositorioRestaurantes repositorio) {
+        long bytes = Long.getLong("ifome.compactacao.bytes", LIMITE_BYTES_PADRAO);
+        int registros = Integer.getInteger("ifome.compactacao.registros", LIMITE_REGISTROS_PADRAO);
+        long segundos = Long.getLong("ifome.compactacao.segundos", LIMITE_SEGUNDOS_PADRAO);
+        return new CompactadorDiario(repositorio, bytes, registros, segundos * 1000);
+    }
+
+    public synchronized void iniciar() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ifome-compactacao");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::verificar,
+            INTERVALO_VERIFICACAO_MS, INTERVALO_VERIFICACAO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void encerrar() {
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    public boolean precisaCompactar() {
+        int registros = repositorio.getQuantidadeRegistrosDiario();
+        if (registros == 0) {
+            return false;
+        }
+        if (repositorio.getTamanhoDiario() >= limiteBytes || registros >= limiteRegistros) {
+            return true;
+        }
+        return System.currentTimeMillis() - repositorio.getInstanteUltimoSnapshot() >= limiteTempoMs;
+    }
+
+    // chamado pelo executor; uma excecao aqui cancelaria as proximas execucoes
+    private void verificar() {
+        try {
+            if (precisaCompactar()) {
+                System.out.println(">>> Compactando diário (" + repositorio.getQuantidadeRegistrosDiario() +
+                                 " registros, " + repositorio.getTamanhoDiario() + " bytes)");
+                repositorio.salvarDados();
+                compactacoesRealizadas++;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro na compactação do diário: " + e.getMessage());
+        }
+    }
+
+    public int getCompactacoesRealizadas() {
+        return compactacoesRealizadas;
+    }
+}
@@ -0,0 +1,27 @@
+package ifome.util;
+
+// cada conjunto de dados do repositorio e o arquivo em que ele e gravado
+public enum ConjuntoDados {
+    RESTAURANTES("restaurantes.txt"),
+    CLIENTES("clientes.txt"),
+    CARDAPIOS("cardapios.txt"),
+    ENDERECOS("enderecos.txt"),
+    PEDIDOS("pedidos.txt"),
+    ITENS_PEDIDO("itens_pedido.txt"),
+    CUPONS("cupons.txt"),
+    CARTOES("cartoes.txt"),
+    AVALIACOES("avaliacoes.txt"),
+    AVALIACOES_PEDIDOS("avaliacoes_pedidos.txt"),
+    CUPONS_USADOS("cupons_usados.txt"),
+    ENDERECOS_RESTAURANTES("enderecos_restaurantes.txt");
+
+    private final String arquivo;
+
+    ConjuntoDados(String arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    public String getArquivo() {
+        return arquivo;
+    }
+}
@@ -0,0 +1,104 @@
+package ifome.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * converte pedidos.txt + itens_pedido.txt de um diretorio de dados pro pedidos.bin,
+ * direto arquivo pra arquivo (nao carrega o repositorio nem os outros conjuntos).
+ * os arquivos de texto nao sao apagados; pra usar o binario rode o app com
+ * -Difome.pedidos.formato=binario. o repositorio nesse modo tambem converte sozinho
+ * no primeiro salvamento, isso aqui e pra bases grandes ou pra conferir o ganho antes
+ *
+ * uso: java ifome.util.ConversorPedidosBinario [diretorio de dados]
+ */
+public class ConversorPedidosBinario {
+
+    private static class Item {
+        final String produto;
+        final int quantidade;
+        final double preco;
+        final String observacao;
+
+        Item(String produto, int quantidade, double preco, String observacao) {
+            this.produto = produto;
+            this.quantidade = quantidade;
+            this.preco = preco;
+            this.observacao = observacao;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        File diretorio = new File(args.length > 0 ? args[0] : System.getProperty("ifome.dados", "data"));
+        File pedidos = new File(diretorio, ConjuntoDados.PEDIDOS.getArquivo());
+        File itens = new File(diretorio, ConjuntoDados.ITENS_PEDIDO.getArquivo());
+        File destino = new File(diretorio, "pedidos.bin");
+
+        long inicio = System.nanoTime();
+        GravadorPedidosBinario gravador = converter(pedidos, itens);
+        EscritaAtomica escrita = EscritaAtomica.comConfiguracaoPadrao();
+        try (OutputStream os = escrita.criarTemporario(destino)) {
+            gravador.gravar(os);
+        }
+        escrita.confirmar();
+
+        long tamanhoTexto = pedidos.length() + itens.length();
+        System.out.println(">>> " + gravador.getQuantidadePedidos() + " pedidos e " +
+                           gravador.getQuantidadeItens() + " itens convertidos em " +
+                           (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        System.out.printf(">>> texto: %d bytes, binario: %d bytes (%.1fx menor)%n",
+                          tamanhoTexto, destino.length(), (double) tamanhoTexto / Math.max(1, destino.length()));
+    }
+
+    /**
+     * le os dois arquivos de texto e monta o binario em memoria.
+     * itens sem pedido no pedidos.txt sao descartados, como na carga
+     */
+    public static GravadorPedidosBinario converter(File pedidos, File itens) throws IOException {
+        Map<Integer, List<Item>> itensPorPedido = new HashMap<>();
+        if (itens.isFile()) {
+            LeitorRegistros leitor = new LeitorRegistros(mapear(itens));
+            while (leitor.proximoRegistro()) {
+                if (leitor.quantidadeCampos() < 6) {
+                    continue;
+                }
+                itensPorPedido.computeIfAbsent(leitor.inteiro(0), n -> new ArrayList<>())
+                    .add(new Item(leitor.texto(2), leitor.inteiro(3), leitor.decimal(4), leitor.texto(5)));
+            }
+        }
+
+        GravadorPedidosBinario gravador = new GravadorPedidosBinario();
+        if (pedidos.isFile()) {
+            LeitorRegistros leitor = new LeitorRegistros(mapear(pedidos));
+            while (leitor.proximoRegistro()) {
+                if (leitor.quantidadeCampos() < 6) {
+                    continue;
+                }
+                int numero = leitor.inteiro(0);
+                gravador.adicionarPedido(numero, leitor.dataHora(1) / 1000, leitor.texto(2), leitor.texto(3),
+                                         leitor.texto(4), leitor.decimal(5));
+                List<Item> doPedido = itensPorPedido.remove(numero);
+                if (doPedido != null) {
+                    for (Item item : doPedido) {
+                        gravador.adicionarItem(item.produto, item.quantidade, item.preco, item.observacao);
+                    }
+                }
+            }
+        }
+        return gravador;
+    }
+
+    private static ByteBuffer mapear(File arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+    }
+}
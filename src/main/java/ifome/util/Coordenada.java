@@ -0,0 +1,58 @@
+package ifome.util;
+
+import java.util.Locale;
+
+/**
+ * ponto em graus decimais (latitude, longitude), como sai da TabelaCeps.
+ * a distancia e a aproximacao plana (equiretangular), que ate algumas dezenas
+ * de km erra bem menos que a propria resolucao de um CEP
+ */
+public final class Coordenada {
+
+    static final double KM_POR_GRAU = 6371.0088 * Math.PI / 180;
+
+    private final double latitude;
+    private final double longitude;
+
+    public Coordenada(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordenada inválida: " + latitude + ", " + longitude);
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double distanciaKm(Coordenada outra) {
+        double y = (outra.latitude - latitude) * KM_POR_GRAU;
+        double x = (outra.longitude - longitude) * KM_POR_GRAU
+                   * Math.cos(Math.toRadians((latitude + outra.latitude) / 2));
+        return Math.sqrt(x * x + y * y);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Coordenada)) {
+            return false;
+        }
+        Coordenada outra = (Coordenada) o;
+        return latitude == outra.latitude && longitude == outra.longitude;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(latitude) * 31 + Double.hashCode(longitude);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%.6f, %.6f", latitude, longitude);
+    }
+}
@@ -0,0 +1,299 @@
+package ifome.util;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * diario de alteracoes (write-ahead log) do repositorio.
+ * cada mutacao vira uma linha "lsn;TIPO;dados" anexada ao fim do arquivo,
+ * entao o custo de gravar depende do tamanho da mudanca e nao do tamanho da base.
+ * o snapshot (data/*.txt) + os registros com lsn maior que o do snapshot = estado atual
+ */
+public class DiarioAlteracoes {
+
+    private final File arquivo;
+    // -Difome.fsync=false desliga o fsync por registro, igual a EscritaAtomica
+    private final boolean sincronizar;
+    private FileOutputStream saida;
+    // uma compactacao por vez; anexar usa o monitor do proprio diario
+    private final Object travaDescarte = new Object();
+    private long tamanhoBytes;
+    private int quantidadeRegistros;
+    private long ultimoLsn;
+
+    public DiarioAlteracoes(File arquivo) {
+        this.arquivo = arquivo;
+        this.sincronizar = Boolean.parseBoolean(System.getProperty("ifome.fsync", "true"));
+        this.tamanhoBytes = arquivo.length();
+        this.quantidadeRegistros = 0;
+        this.ultimoLsn = 0;
+    }
+
+    // registro lido do diario
+    public static class Registro {
+        private final long lsn;
+        private final String tipo;
+        private final String dados;
+
+        public Registro(long lsn, String tipo, String dados) {
+            this.lsn = lsn;
+            this.tipo = tipo;
+            this.dados = dados;
+        }
+
+        public long getLsn() { return lsn; }
+        public String getTipo() { return tipo; }
+        public String getDados() { return dados; }
+
+        String formatar() {
+            return lsn + ";" + tipo + ";" + dados + "\n";
+        }
+    }
+
+    /**
+     * anexa um registro e devolve o lsn dele. so volta depois do fsync, entao
+     * o registro sobrevive a uma queda de energia logo em seguida
+     */
+    public synchronized long anexar(String tipo, String dados) throws IOException {
+        if (saida == null) {
+            cortarLinhaIncompleta();
+            saida = new FileOutputStream(arquivo, true);
+        }
+        Registro registro = new Registro(ultimoLsn + 1, tipo, dados);
+        byte[] linha = registro.formatar().getBytes(StandardCharsets.UTF_8);
+        try {
+            saida.write(linha);
+            if (sincronizar) {
+                saida.getFD().sync();
+            }
+        } catch (IOException e) {
+            // pode ter ficado meia linha no fim; a proxima abertura corta antes de anexar
+            fechar();
+            throw e;
+        }
+        ultimoLsn = registro.getLsn();
+        tamanhoBytes += linha.length;
+        quantidadeRegistros++;
+        return ultimoLsn;
+    }
+
+    /**
+     * corta a meia linha que uma gravacao interrompida deixou no fim do arquivo.
+     * sem isso o proximo registro seria anexado colado nela e se perderia junto
+     */
+    private void cortarLinhaIncompleta() throws IOException {
+        if (!arquivo.exists()) {
+            tamanhoBytes = 0;
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "rw")) {
+            long tamanho = raf.length();
+            long fim = tamanho;
+            // '\n' nunca aparece no meio de um caractere em UTF-8
+            while (fim > 0) {
+                raf.seek(fim - 1);
+                if (raf.read() == '\n') {
+                    break;
+                }
+                fim--;
+            }
+            if (fim < tamanho) {
+                System.err.println("Diário com linha incompleta no fim, " + (tamanho - fim) + " bytes descartados.");
+                raf.setLength(fim);
+                if (sincronizar) {
+                    raf.getFD().sync();
+                }
+            }
+            tamanhoBytes = fim;
+        }
+    }
+
+    /**
+     * le os registros na ordem em que foram gravados.
+     * uma ultima linha sem '\n' e de uma gravacao interrompida: sai do arquivo e fica de fora
+     */
+    public synchronized List<Registro> lerRegistros() throws IOException {
+        List<Registro> registros = new ArrayList<>();
+        if (!arquivo.exists()) {
+            return registros;
+        }
+        if (saida == null) {
+            cortarLinhaIncompleta();
+        }
+
+        String conteudo = new String(Files.readAllBytes(arquivo.toPath()), StandardCharsets.UTF_8);
+        int inicio = 0;
+        int fim;
+        while ((fim = conteudo.indexOf('\n', inicio)) >= 0) {
+            Registro registro = interpretar(conteudo.substring(inicio, fim));
+            inicio = fim + 1;
+            if (registro != null) {
+                registros.add(registro);
+                ultimoLsn = Math.max(ultimoLsn, registro.getLsn());
+            }
+        }
+        quantidadeRegistros = registros.size();
+        return registros;
+    }
+
+    private Registro interpretar(String linha) {
+        int primeiro = linha.indexOf(';');
+        int segundo = primeiro < 0 ? -1 : linha.indexOf(';', primeiro + 1);
+        if (segundo < 0) {
+            return null;
+        }
+        try {
+            long lsn = Long.parseLong(linha.substring(0, primeiro));
+            return new Registro(lsn, linha.substring(primeiro + 1, segundo), linha.substring(segundo + 1));
+        } catch (NumberFormatException e) {
+            System.err.println("Linha inválida no diário ignorada: " + linha);
+            return null;
+        }
+    }
+
+    /**
+     * remove do diario tudo que ja esta no snapshot (lsn <= lsnCorte).
+     * a parte ja gravada e lida e copiada pro temporario sem segurar o diario, entao
+     * anexar nao espera a compactacao; so o que foi anexado nesse meio tempo e copiado
+     * com o diario travado, antes da troca dos arquivos
+     */
+    public void descartarAte(long lsnCorte) throws IOException {
+        synchronized (travaDescarte) {
+            long limite;
+            synchronized (this) {
+                if (saida == null) {
+                    cortarLinhaIncompleta();
+                }
+                limite = arquivo.length();
+            }
+
+            File temporario = new File(arquivo.getPath() + ".tmp");
+            boolean trocado = false;
+            try {
+                int restantes;
+                try (FileOutputStream tmp = new FileOutputStream(temporario)) {
+                    restantes = copiarPosterioresAoCorte(limite, lsnCorte, tmp);
+                }
+
+                synchronized (this) {
+                    fechar();
+                    cortarLinhaIncompleta();
+                    byte[] cauda = lerTrecho(limite, arquivo.length());
+                    try (FileOutputStream tmp = new FileOutputStream(temporario, true)) {
+                        tmp.write(cauda);
+                        if (sincronizar) {
+                            tmp.getFD().sync();
+                        }
+                    }
+                    for (byte b : cauda) {
+                        if (b == '\n') {
+                            restantes++;
+                        }
+                    }
+                    Files.move(temporario.toPath(), arquivo.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    trocado = true;
+                    if (sincronizar) {
+                        sincronizarDiretorio();
+                    }
+                    tamanhoBytes = arquivo.length();
+                    quantidadeRegistros = restantes;
+                }
+            } finally {
+                if (!trocado) {
+                    temporario.delete();
+                }
+            }
+        }
+    }
+
+    // copia os registros de [0, limite) com lsn > lsnCorte e devolve quantos foram
+    private int copiarPosterioresAoCorte(long limite, long lsnCorte, OutputStream destino) throws IOException {
+        byte[] conteudo = lerTrecho(0, limite);
+        // os lsns crescem no arquivo: do primeiro depois do corte em diante fica tudo
+        int inicio = 0;
+        int fim;
+        while (inicio < conteudo.length && (fim = indiceQuebra(conteudo, inicio)) >= 0) {
+            Registro registro = interpretar(new String(conteudo, inicio, fim - inicio, StandardCharsets.UTF_8));
+            if (registro != null && registro.getLsn() > lsnCorte) {
+                break;
+            }
+            inicio = fim + 1;
+        }
+        destino.write(conteudo, inicio, conteudo.length - inicio);
+        int copiados = 0;
+        while (inicio < conteudo.length && (fim = indiceQuebra(conteudo, inicio)) >= 0) {
+            copiados++;
+            inicio = fim + 1;
+        }
+        return copiados;
+    }
+
+    private static int indiceQuebra(byte[] conteudo, int inicio) {
+        for (int i = inicio; i < conteudo.length; i++) {
+            if (conteudo[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] lerTrecho(long de, long ate) throws IOException {
+        byte[] trecho = new byte[(int) Math.max(0, ate - de)];
+        if (trecho.length == 0) {
+            return trecho;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) {
+            raf.seek(de);
+            raf.readFully(trecho);
+        }
+        return trecho;
+    }
+
+    private void sincronizarDiretorio() {
+        // o rename so e duravel depois do fsync do diretorio; no windows isso nao existe
+        File diretorio = arquivo.getAbsoluteFile().getParentFile();
+        try (FileChannel canal = FileChannel.open(diretorio.toPath(), StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // sem suporte no sistema de arquivos, o rename ja foi feito
+        }
+    }
+
+    // o proximo lsn nunca pode repetir um que o snapshot ja cobre
+    public synchronized void garantirLsnMinimo(long lsn) {
+        if (lsn > ultimoLsn) {
+            ultimoLsn = lsn;
+        }
+    }
+
+    public synchronized void fechar() throws IOException {
+        if (saida != null) {
+            FileOutputStream aberta = saida;
+            saida = null;
+            aberta.close();
+        }
+    }
+
+    public synchronized long getTamanhoBytes() {
+        return tamanhoBytes;
+    }
+
+    public synchronized int getQuantidadeRegistros() {
+        return quantidadeRegistros;
+    }
+
+    public synchronized long getUltimoLsn() {
+        return ultimoLsn;
+    }
+
+    public File getArquivo() {
+        return arquivo;
+    }
+}
@@ -0,0 +1,123 @@
+package ifome.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * gravacao atomica de um lote de arquivos (um ciclo de salvamento).
+ * cada arquivo e escrito num ".tmp" ao lado do original; o original so e trocado
+ * em confirmar(), com rename atomico, depois que todos os temporarios foram pro disco.
+ * uma queda no meio deixa o arquivo antigo inteiro, nunca um arquivo truncado.
+ * os fsyncs do lote sao feitos juntos no fim (group commit) e o diretorio
+ * recebe um fsync so, em vez de um por arquivo
+ */
+public class EscritaAtomica {
+
+    private static final String SUFIXO_TEMPORARIO = ".tmp";
+
+    private final boolean sincronizar;
+    private final List<File[]> pendentes; // {temporario, destino}
+
+    public EscritaAtomica(boolean sincronizar) {
+        this.sincronizar = sincronizar;
+        this.pendentes = new ArrayList<>();
+    }
+
+    // -Difome.fsync=false desliga os fsyncs (atomicidade continua, durabilidade nao)
+    public static EscritaAtomica comConfiguracaoPadrao() {
+        return new EscritaAtomica(Boolean.parseBoolean(System.getProperty("ifome.fsync", "true")));
+    }
+
+    // abre o temporario do destino; quem chama escreve e fecha
+    public FileOutputStream criarTemporario(File destino) throws IOException {
+        File temporario = new File(destino.getPath() + SUFIXO_TEMPORARIO);
+        FileOutputStream fos = new FileOutputStream(temporario);
+        synchronized (pendentes) {
+            pendentes.add(new File[] { temporario, destino });
+        }
+        return fos;
+    }
+
+    /**
+     * fsync de todos os temporarios (em paralelo, o sistema de arquivos junta os
+     * commits), depois os renames e um fsync por diretorio no fim
+     */
+    public void confirmar() throws IOException {
+        List<File[]> lote;
+        synchronized (pendentes) {
+            lote = new ArrayList<>(pendentes);
+            pendentes.clear();
+        }
+        if (lote.isEmpty()) return;
+
+        if (sincronizar) {
+            try {
+                lote.parallelStream().forEach(par -> sincronizarArquivo(par[0]));
+            } catch (UncheckedIOException e) {
+                descartar(lote);
+                throw e.getCause();
+            }
+        }
+
+        List<File> diretorios = new ArrayList<>();
+        for (File[] par : lote) {
+            Files.move(par[0].toPath(), par[1].toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            File diretorio = par[1].getAbsoluteFile().getParentFile();
+            if (!diretorios.contains(diretorio)) {
+                diretorios.add(diretorio);
+            }
+        }
+
+        if (sincronizar) {
+            for (File diretorio : diretorios) {
+                sincronizarDiretorio(diretorio);
+            }
+        }
+    }
+
+    // apaga os temporarios sem tocar nos originais (um arquivo do lote falhou)
+    public void descartar() {
+        synchronized (pendentes) {
+            descartar(pendentes);
+            pendentes.clear();
+        }
+    }
+
+    private void descartar(List<File[]> lote) {
+        for (File[] par : lote) {
+            par[0].delete();
+        }
+    }
+
+    private static void sincronizarArquivo(File arquivo) {
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.WRITE)) {
+            canal.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sincronizarDiretorio(File diretorio) {
+        // o rename so e duravel depois do fsync do diretorio; no windows isso nao existe
+        try (FileChannel canal = FileChannel.open(diretorio.toPath(), StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // sem suporte no sistema de arquivos, os renames ja foram feitos
+        }
+    }
+
+    public int getQuantidadePendentes() {
+        synchronized (pendentes) {
+            return pendentes.size();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ifome.util;
+
+/**
+ * foto da divisao dos pedidos: quantos estao em memoria (quentes), quantos estao so
+ * no segmento frio (e desses quantos ja estao selados em blocos comprimidos), quanto
+ * o segmento ocupa e quantas vezes ele foi lido sob demanda
+ */
+public class EstatisticasPedidos {
+
+    private final int pedidosQuentes;
+    private final int pedidosFrios;
+    private final int pedidosSelados;
+    private final long bytesFrios;
+    private final int esfriadosNaCarga;
+    private final long leiturasFrias;
+    private final long pedidosFriosLidos;
+
+    EstatisticasPedidos(int pedidosQuentes, int pedidosFrios, int pedidosSelados, long bytesFrios,
+                        int esfriadosNaCarga, long leiturasFrias, long pedidosFriosLidos) {
+        this.pedidosQuentes = pedidosQuentes;
+        this.pedidosFrios = pedidosFrios;
+        this.pedidosSelados = pedidosSelados;
+        this.bytesFrios = bytesFrios;
+        this.esfriadosNaCarga = esfriadosNaCarga;
+        this.leiturasFrias = leiturasFrias;
+        this.pedidosFriosLidos = pedidosFriosLidos;
+    }
+
+    public int getPedidosQuentes() { return pedidosQuentes; }
+    public int getPedidosFrios() { return pedidosFrios; }
+    public int getPedidosSelados() { return pedidosSelados; }
+    public long getBytesFrios() { return bytesFrios; }
+    // movidos pro segmento na ultima carga
+    public int getEsfriadosNaCarga() { return esfriadosNaCarga; }
+    public long getLeiturasFrias() { return leiturasFrias; }
+    public long getPedidosFriosLidos() { return pedidosFriosLidos; }
+
+    @Override
+    public String toString() {
+        return String.format("Pedidos em memória: %d | No segmento frio: %d (%d selados, %d bytes) | " +
+                             "Esfriados na carga: %d | Leituras sob demanda: %d (%d pedidos)",
+            pedidosQuentes, pedidosFrios, pedidosSelados, bytesFrios, esfriadosNaCarga, leiturasFrias,
+            pedidosFriosLidos);
+    }
+}
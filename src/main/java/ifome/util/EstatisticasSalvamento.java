@@ -0,0 +1,46 @@
+package ifome.util;
+
+/**
+ * numeros dos salvamentos incrementais: quantos arquivos foram reescritos,
+ * quantos ficaram como estavam e quantos bytes deixaram de ser gravados
+ */
+public class EstatisticasSalvamento {
+
+    private int salvamentos;
+    private int arquivosGravados;
+    private int arquivosIgnorados;
+    private long bytesGravados;
+    private long bytesEvitados;
+
+    // do ultimo salvamento
+    private int ultimosArquivosGravados;
+    private long ultimosBytesGravados;
+    private long ultimosBytesEvitados;
+
+    synchronized void registrarSalvamento(int gravados, int ignorados, long bytesGravados, long bytesEvitados) {
+        this.salvamentos++;
+        this.arquivosGravados += gravados;
+        this.arquivosIgnorados += ignorados;
+        this.bytesGravados += bytesGravados;
+        this.bytesEvitados += bytesEvitados;
+        this.ultimosArquivosGravados = gravados;
+        this.ultimosBytesGravados = bytesGravados;
+        this.ultimosBytesEvitados = bytesEvitados;
+    }
+
+    public synchronized int getSalvamentos() { return salvamentos; }
+    public synchronized int getArquivosGravados() { return arquivosGravados; }
+    public synchronized int getArquivosIgnorados() { return arquivosIgnorados; }
+    public synchronized long getBytesGravados() { return bytesGravados; }
+    public synchronized long getBytesEvitados() { return bytesEvitados; }
+    public synchronized int getUltimosArquivosGravados() { return ultimosArquivosGravados; }
+    public synchronized long getUltimosBytesGravados() { return ultimosBytesGravados; }
+    public synchronized long getUltimosBytesEvitados() { return ultimosBytesEvitados; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Salvamentos: %d | Arquivos gravados: %d | Ignorados: %d | " +
+                             "Bytes gravados: %d | Bytes evitados: %d",
+            salvamentos, arquivosGravados, arquivosIgnorados, bytesGravados, bytesEvitados);
+    }
+}
@@ -0,0 +1,44 @@
+package ifome.util;
+
+import ifome.model.Pedido;
+import ifome.model.StatusPedido;
+
+/**
+ * um acontecimento do ciclo de vida de um pedido, como saiu no barramento.
+ * a etapa fica gravada no evento: quando o assinante recebe, o pedido ja pode
+ * ter andado mais
+ */
+public final class EventoPedido {
+
+    private final long sequencia;
+    private final TipoEventoPedido tipo;
+    private final Pedido pedido;
+    private final StatusPedido statusAnterior;
+    private final StatusPedido status;
+    private final long instante;
+
+    EventoPedido(long sequencia, TipoEventoPedido tipo, Pedido pedido, StatusPedido statusAnterior,
+                 StatusPedido status, long instante) {
+        this.sequencia = sequencia;
+        this.tipo = tipo;
+        this.pedido = pedido;
+        this.statusAnterior = statusAnterior;
+        this.status = status;
+        this.instante = instante;
+    }
+
+    // ordem de publicacao no barramento; cresce sempre
+    public long getSequencia() { return sequencia; }
+    public TipoEventoPedido getTipo() { return tipo; }
+    public Pedido getPedido() { return pedido; }
+    public int getNumeroPedido() { return pedido.getNumeroPedido(); }
+    // so nas mudancas de etapa; null nos outros
+    public StatusPedido getStatusAnterior() { return statusAnterior; }
+    public StatusPedido getStatus() { return status; }
+    public long getInstante() { return instante; }
+
+    @Override
+    public String toString() {
+        return "Evento #" + sequencia + " " + tipo + " - Pedido #" + pedido.getNumeroPedido() + " (" + status + ")";
+    }
+}
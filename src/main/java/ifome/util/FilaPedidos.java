@@ -0,0 +1,201 @@
+package ifome.util;
+
+import ifome.model.Pedido;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * fila da cozinha de um restaurante, sem trava: a ordem de chegada fica numa
+ * ConcurrentLinkedQueue e a pertinencia num mapa concorrente por numero do pedido,
+ * entao "ja esta na fila?" e O(1) e o terminal do restaurante e as sessoes dos
+ * clientes mexem na fila ao mesmo tempo sem esperar uns pelos outros.
+ *
+ * remover (cancelamento) so tira do mapa; a entrada fica na fila como morta e sai
+ * quando chega na frente, ou numa limpeza quando as mortas passam das vivas.
+ * uma entrada e viva enquanto o mapa aponta pra ela, entao o mesmo pedido pode
+ * sair e voltar sem ressuscitar a entrada antiga
+ */
+public final class FilaPedidos implements Iterable<Pedido> {
+
+    private final ConcurrentLinkedQueue<Entrada> ordem = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<Integer, Entrada> porNumero = new ConcurrentHashMap<>();
+    private final AtomicInteger mortas = new AtomicInteger(); // entradas removidas que ainda estao na fila
+    // sobe a cada mudanca; a foto guarda a versao de onde saiu
+    private final AtomicLong versao = new AtomicLong();
+    private volatile Foto foto = new Foto(0, Collections.emptyList());
+
+    /**
+     * poe no fim da fila; false se ja tem um pedido com esse numero.
+     * a conferencia e a insercao sao uma operacao so (putIfAbsent)
+     */
+    public boolean adicionar(Pedido pedido) {
+        if (pedido == null) {
+            return false;
+        }
+        Entrada entrada = new Entrada(pedido);
+        if (porNumero.putIfAbsent(pedido.getNumeroPedido(), entrada) != null) {
+            return false;
+        }
+        ordem.offer(entrada);
+        versao.incrementAndGet();
+        return true;
+    }
+
+    // tira o pedido de onde estiver; false se ele nao estava na fila
+    public boolean remover(Pedido pedido) {
+        if (pedido == null) {
+            return false;
+        }
+        Entrada entrada = porNumero.get(pedido.getNumeroPedido());
+        if (entrada == null || entrada.pedido != pedido || !porNumero.remove(pedido.getNumeroPedido(), entrada)) {
+            return false;
+        }
+        versao.incrementAndGet();
+        if (mortas.incrementAndGet() > porNumero.size() + 16) {
+            limparMortas();
+        }
+        return true;
+    }
+
+    public boolean contem(Pedido pedido) {
+        if (pedido == null) {
+            return false;
+        }
+        Entrada entrada = porNumero.get(pedido.getNumeroPedido());
+        return entrada != null && entrada.pedido == pedido;
+    }
+
+    public boolean contemNumero(int numeroPedido) {
+        return porNumero.containsKey(numeroPedido);
+    }
+
+    public Pedido buscarPorNumero(int numeroPedido) {
+        Entrada entrada = porNumero.get(numeroPedido);
+        return entrada == null ? null : entrada.pedido;
+    }
+
+    // o mais antigo da fila, sem tirar; null se vazia
+    public Pedido primeiro() {
+        Entrada entrada;
+        while ((entrada = ordem.peek()) != null) {
+            if (viva(entrada)) {
+                return entrada.pedido;
+            }
+            descartarMorta(entrada);
+        }
+        return null;
+    }
+
+    /**
+     * tira e devolve o mais antigo (a cozinha pegando o proximo); null se vazia.
+     * dois terminais chamando juntos nunca recebem o mesmo pedido
+     */
+    public Pedido retirarPrimeiro() {
+        Entrada entrada;
+        while ((entrada = ordem.poll()) != null) {
+            if (porNumero.remove(entrada.pedido.getNumeroPedido(), entrada)) {
+                versao.incrementAndGet();
+                return entrada.pedido;
+            }
+            contarDescartada(entrada); // ja estava morta
+        }
+        return null;
+    }
+
+    public int tamanho() {
+        return porNumero.size();
+    }
+
+    public boolean estaVazia() {
+        return porNumero.isEmpty();
+    }
+
+    /**
+     * foto imutavel na ordem de chegada. so e refeita depois de uma mudanca; se a
+     * fila mudar enquanto a foto e montada, ela sai com a versao antiga e a proxima
+     * leitura monta de novo
+     */
+    public List<Pedido> visao() {
+        long atual = versao.get();
+        Foto f = foto;
+        if (f.versao == atual) {
+            return f.pedidos;
+        }
+        List<Pedido> pedidos = new ArrayList<>(porNumero.size());
+        for (Entrada entrada : ordem) {
+            if (viva(entrada)) {
+                pedidos.add(entrada.pedido);
+            }
+        }
+        pedidos = pedidos.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(pedidos);
+        foto = new Foto(atual, pedidos);
+        return pedidos;
+    }
+
+    @Override
+    public Iterator<Pedido> iterator() {
+        return visao().iterator();
+    }
+
+    public void limpar() {
+        porNumero.clear();
+        ordem.clear();
+        mortas.set(0);
+        versao.incrementAndGet();
+    }
+
+    private boolean viva(Entrada entrada) {
+        return porNumero.get(entrada.pedido.getNumeroPedido()) == entrada;
+    }
+
+    private void descartarMorta(Entrada entrada) {
+        if (ordem.remove(entrada)) {
+            contarDescartada(entrada);
+        }
+    }
+
+    /**
+     * uma passada so, descontando so as que esta passada tirou: as que entrarem
+     * mortas durante a limpeza continuam contadas. o predicado dizer true nao garante
+     * que a remocao venceu (um poll pode levar a mesma entrada), por isso cada entrada
+     * e descontada uma vez so, por quem marcar primeiro
+     */
+    private void limparMortas() {
+        ordem.removeIf(entrada -> !viva(entrada) && contarDescartada(entrada));
+    }
+
+    private boolean contarDescartada(Entrada entrada) {
+        if (entrada.descartada.compareAndSet(false, true)) {
+            mortas.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private static final class Entrada {
+        final Pedido pedido;
+        // ja descontada de mortas
+        final AtomicBoolean descartada = new AtomicBoolean();
+
+        Entrada(Pedido pedido) {
+            this.pedido = pedido;
+        }
+    }
+
+    private static final class Foto {
+        final long versao;
+        final List<Pedido> pedidos;
+
+        Foto(long versao, List<Pedido> pedidos) {
+            this.versao = versao;
+            this.pedidos = pedidos;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ifome.util;
+
+import ifome.model.Comida;
+import ifome.model.Produto;
+import ifome.model.Restaurante;
+import ifome.model.Sobremesa;
+
+/**
+ * filtro da busca de pratos em todos os cardapios, montado em cadeia:
+ * new FiltroPratos().texto("pizza").precoAte(50).abertos().vegetarianos()
+ */
+public class FiltroPratos {
+
+    private String texto = "";
+    private double precoMinimo = 0;
+    private double precoMaximo = Double.MAX_VALUE;
+    private boolean somenteDisponiveis;
+    private boolean somenteAbertos;
+    private boolean somenteVegetarianos;
+    private boolean somenteVeganos;
+    private String temperatura;
+
+    public FiltroPratos texto(String texto) {
+        this.texto = texto != null ? texto : "";
+        return this;
+    }
+
+    public FiltroPratos precoDesde(double preco) {
+        this.precoMinimo = preco;
+        return this;
+    }
+
+    public FiltroPratos precoAte(double preco) {
+        this.precoMaximo = preco;
+        return this;
+    }
+
+    public FiltroPratos disponiveis() {
+        this.somenteDisponiveis = true;
+        return this;
+    }
+
+    public FiltroPratos abertos() {
+        this.somenteAbertos = true;
+        return this;
+    }
+
+    public FiltroPratos vegetarianos() {
+        this.somenteVegetarianos = true;
+        return this;
+    }
+
+    public FiltroPratos veganos() {
+        this.somenteVeganos = true;
+        return this;
+    }
+
+    // "Gelada", "Quente" ou "Ambiente" (so sobremesas)
+    public FiltroPratos temperatura(String temperatura) {
+        this.temperatura = temperatura;
+        return this;
+    }
+
+    public String getTexto() { return texto; }
+    public double getPrecoMinimo() { return precoMinimo; }
+    public double getPrecoMaximo() { return precoMaximo; }
+    public boolean isSomenteDisponiveis() { return somenteDisponiveis; }
+    public boolean isSomenteAbertos() { return somenteAbertos; }
+    public boolean isSomenteVegetarianos() { return somenteVegetarianos; }
+    public boolean isSomenteVeganos() { return somenteVeganos; }
+    public String getTemperatura() { return temperatura; }
+
+    // conferencia final contra o objeto (os bitsets so cortam os candidatos)
+    boolean aceita(Restaurante restaurante, Produto produto) {
+        if (produto.getPreco() < precoMinimo || produto.getPreco() > precoMaximo) {
+            return false;
+        }
+        if (somenteDisponiveis && !produto.isDisponivel()) {
+            return false;
+        }
+        if (somenteAbertos && !restaurante.estaAberto()) {
+            return false;
+        }
+        if ((somenteVegetarianos || somenteVeganos) && !(produto instanceof Comida)) {
+            return false;
+        }
+        if (somenteVegetarianos && !((Comida) produto).ehVegetariano()) {
+            return false;
+        }
+        if (somenteVeganos && !((Comida) produto).ehVegano()) {
+            return false;
+        }
+        return temperatura == null
+            || (produto instanceof Sobremesa && temperatura.equals(((Sobremesa) produto).getTemperatura()));
+    }
+}
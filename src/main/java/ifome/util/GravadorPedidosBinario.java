@@ -0,0 +1,139 @@
+package ifome.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * monta um pedidos.bin (layout descrito no LeitorPedidosBinario).
+ * os registros sao acumulados em memoria porque os dicionarios e as quantidades
+ * do cabecalho so ficam prontos no fim; gravar() escreve tudo de uma vez.
+ * cada item vai pro ultimo pedido adicionado
+ */
+public class GravadorPedidosBinario {
+
+    private final Dicionario emails = new Dicionario();
+    private final Dicionario produtos = new Dicionario();
+    private final Dicionario status = new Dicionario();
+    private final Dicionario observacoes = new Dicionario();
+
+    private final ByteArrayOutputStream bytesPedidos = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream bytesItens = new ByteArrayOutputStream();
+    private final DataOutputStream pedidos = new DataOutputStream(bytesPedidos);
+    private final DataOutputStream itens = new DataOutputStream(bytesItens);
+    private int quantidadePedidos;
+    private int quantidadeItens;
+    // itens do pedido atual: o contador fica no fim do registro e e preenchido depois
+    private int itensDoPedidoAtual;
+    private boolean pedidoAberto;
+
+    // texto -> indice, na ordem em que apareceu
+    private static class Dicionario {
+        final Map<String, Integer> indices = new HashMap<>();
+        final List<String> entradas = new ArrayList<>();
+
+        int indice(String texto) {
+            String chave = texto != null ? texto : "";
+            Integer indice = indices.get(chave);
+            if (indice == null) {
+                indice = entradas.size();
+                indices.put(chave, indice);
+                entradas.add(chave);
+            }
+            return indice;
+        }
+    }
+
+    public void adicionarPedido(int numero, long epochSegundos, String emailCliente, String emailRestaurante,
+                                String statusPedido, double valorTotal) {
+        if (epochSegundos < 0 || epochSegundos > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Data fora do intervalo do formato binário: " + epochSegundos);
+        }
+        int indiceStatus = status.indice(statusPedido);
+        if (indiceStatus > 0xff) {
+            throw new IllegalArgumentException("Mais de 256 status diferentes");
+        }
+        fecharPedidoAtual();
+        try {
+            pedidos.writeInt(numero);
+            pedidos.writeInt((int) epochSegundos);
+            pedidos.writeInt(emails.indice(emailCliente));
+            pedidos.writeInt(emails.indice(emailRestaurante));
+            pedidos.writeByte(indiceStatus);
+            pedidos.writeDouble(valorTotal);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // ByteArrayOutputStream nao lanca
+        }
+        quantidadePedidos++;
+        itensDoPedidoAtual = 0;
+        pedidoAberto = true;
+    }
+
+    public void adicionarItem(String produto, int quantidade, double precoUnitario, String observacao) {
+        if (!pedidoAberto) {
+            throw new IllegalStateException("Item sem pedido");
+        }
+        try {
+            itens.writeInt(produtos.indice(produto));
+            itens.writeInt(quantidade);
+            itens.writeDouble(precoUnitario);
+            itens.writeInt(observacoes.indice(observacao));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        quantidadeItens++;
+        itensDoPedidoAtual++;
+    }
+
+    private void fecharPedidoAtual() {
+        if (pedidoAberto) {
+            try {
+                pedidos.writeInt(itensDoPedidoAtual);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pedidoAberto = false;
+        }
+    }
+
+    public int getQuantidadePedidos() {
+        return quantidadePedidos;
+    }
+
+    public int getQuantidadeItens() {
+        return quantidadeItens;
+    }
+
+    // escreve cabecalho, dicionarios e registros. depois disso pode adicionar mais pedidos, mas nao itens no ultimo
+    public void gravar(OutputStream destino) throws IOException {
+        fecharPedidoAtual();
+        DataOutputStream out = new DataOutputStream(new java.io.BufferedOutputStream(destino, 64 * 1024));
+        out.writeInt(LeitorPedidosBinario.MAGICO);
+        out.writeShort(LeitorPedidosBinario.VERSAO);
+        out.writeInt(quantidadePedidos);
+        out.writeInt(quantidadeItens);
+        gravarDicionario(out, emails);
+        gravarDicionario(out, produtos);
+        gravarDicionario(out, status);
+        gravarDicionario(out, observacoes);
+        bytesPedidos.writeTo(out);
+        bytesItens.writeTo(out);
+        out.flush();
+    }
+
+    private static void gravarDicionario(DataOutputStream out, Dicionario dicionario) throws IOException {
+        out.writeInt(dicionario.entradas.size());
+        for (String entrada : dicionario.entradas) {
+            byte[] bytes = entrada.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
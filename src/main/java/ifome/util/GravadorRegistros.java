@@ -0,0 +1,24 @@
+package ifome.util;
+
+import java.io.IOException;
+
+/**
+ * destino dos registros de um conjunto no salvamento. os campos sao passados na
+ * mesma ordem em que o Registros devolve na leitura, e fimRegistro() fecha cada um.
+ * cada backend decide o formato (texto com ';', pedidos.bin, linha de tabela)
+ */
+public interface GravadorRegistros {
+
+    GravadorRegistros texto(String valor);
+
+    GravadorRegistros inteiro(long valor);
+
+    GravadorRegistros decimal(double valor);
+
+    GravadorRegistros booleano(boolean valor);
+
+    // epoch millis
+    GravadorRegistros dataHora(long valor);
+
+    void fimRegistro() throws IOException;
+}
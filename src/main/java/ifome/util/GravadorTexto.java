@@ -0,0 +1,92 @@
+package ifome.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * grava registros no formato "campo;campo;campo" dos arquivos de dados e do diario.
+ * texto passa pelo LeitorRegistros.escapar, decimal usa o Double.toString e data
+ * o "yyyy-MM-dd HH:mm:ss" no fuso local, que e o que o LeitorRegistros sabe ler.
+ * sem Writer o registro fica no buffer e sai por linha() (registros do diario)
+ */
+public class GravadorTexto implements GravadorRegistros {
+
+    // DateTimeFormatter e imutavel: pode ser usado pela thread de I/O e pela tela ao mesmo tempo
+    private static final DateTimeFormatter FORMATO_DATA =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final Writer destino;
+    private final StringBuilder linha = new StringBuilder(128);
+    private int campos;
+
+    public GravadorTexto(Writer destino) {
+        this.destino = destino;
+    }
+
+    public GravadorTexto() {
+        this(null);
+    }
+
+    private void separar() {
+        if (campos++ > 0) {
+            linha.append(';');
+        }
+    }
+
+    @Override
+    public GravadorTexto texto(String valor) {
+        separar();
+        linha.append(LeitorRegistros.escapar(valor));
+        return this;
+    }
+
+    @Override
+    public GravadorTexto inteiro(long valor) {
+        separar();
+        linha.append(valor);
+        return this;
+    }
+
+    @Override
+    public GravadorTexto decimal(double valor) {
+        separar();
+        linha.append(valor);
+        return this;
+    }
+
+    @Override
+    public GravadorTexto booleano(boolean valor) {
+        separar();
+        linha.append(valor);
+        return this;
+    }
+
+    @Override
+    public GravadorTexto dataHora(long valor) {
+        separar();
+        FORMATO_DATA.formatTo(Instant.ofEpochMilli(valor), linha);
+        return this;
+    }
+
+    @Override
+    public void fimRegistro() throws IOException {
+        if (destino == null) {
+            throw new IllegalStateException("Gravador sem destino, use linha()");
+        }
+        linha.append('\n');
+        destino.write(linha.toString());
+        linha.setLength(0);
+        campos = 0;
+    }
+
+    // devolve o registro montado ate aqui (sem quebra de linha) e comeca outro
+    public String linha() {
+        String texto = linha.toString();
+        linha.setLength(0);
+        campos = 0;
+        return texto;
+    }
+}
@@ -0,0 +1,522 @@
+package ifome.util;
+
+import ifome.model.Comida;
+import ifome.model.OuvinteCardapio;
+import ifome.model.Produto;
+import ifome.model.Restaurante;
+import ifome.model.Sobremesa;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * indice invertido de trigramas sobre nome dos restaurantes e nome, categoria e
+ * descricao dos produtos. o texto e normalizado (sem acento, minusculo, so letras e
+ * numeros), entao "acai" acha "Açaí". cada termo da consulta com 3+ letras corta os
+ * candidatos pela menor lista de trigramas; quem sobra e conferido de verdade (o
+ * termo tem que estar no texto) e pontuado: palavra inteira > comeco de palavra >
+ * meio, pesado pelo campo. termos de 1-2 letras conferem todos os documentos.
+ *
+ * os produtos tambem tem facetas em bitsets por id de documento (disponivel,
+ * restaurante aberto, vegetariano, vegano, temperatura da sobremesa e faixa de preco):
+ * buscarPratos cruza os bitsets do filtro (e os candidatos do texto) e so confere o
+ * que sobrou contra o objeto de verdade, que pode ter mudado sem passar pelo restaurante.
+ *
+ * fica sabendo das mudancas de cardapio e de abertura como ouvinte de cada restaurante
+ * incluido. trava propria (synchronized), porque o cardapio muda pela tela sem passar
+ * pelo repositorio
+ */
+final class IndiceBusca implements OuvinteCardapio {
+
+    private static final int TAMANHO_GRAMA = 3;
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    // qualidade do encontro do termo num campo
+    private static final int PALAVRA_INTEIRA = 3;
+    private static final int COMECO_PALAVRA = 2;
+    private static final int MEIO_PALAVRA = 1;
+
+    private static final int[] PESOS_RESTAURANTE = { 3 };
+    private static final int[] PESOS_PRODUTO = { 3, 2, 1 }; // nome, categoria, descricao
+
+    // faixa i = preco < LIMITES_PRECO[i] (e >= o limite anterior); a ultima e o resto
+    private static final double[] LIMITES_PRECO = { 10, 20, 30, 40, 50, 75, 100, 150 };
+
+    // mais relevante primeiro; no empate, mais barato
+    private static final Comparator<ProdutoEncontrado> POR_RELEVANCIA =
+        Comparator.comparingInt(ProdutoEncontrado::getRelevancia).reversed()
+                  .thenComparingDouble(e -> e.getProduto().getPreco());
+
+    private final Colecao restaurantes = new Colecao();
+    private final Colecao produtos = new Colecao();
+    private final Map<Restaurante, Integer> idRestaurante = new IdentityHashMap<>();
+    private final Map<Restaurante, Map<Produto, Integer>> idProdutos = new IdentityHashMap<>();
+
+    // facetas dos produtos, bit = id do documento
+    private final BitSet produtosVivos = new BitSet();
+    private final BitSet disponiveis = new BitSet();
+    private final BitSet deAbertos = new BitSet();
+    private final BitSet vegetarianos = new BitSet();
+    private final BitSet veganos = new BitSet();
+    private final Map<String, BitSet> porTemperatura = new HashMap<>();
+    private final BitSet[] porFaixaPreco = new BitSet[LIMITES_PRECO.length + 1];
+    private final Map<Restaurante, BitSet> produtosPorRestaurante = new IdentityHashMap<>();
+
+    IndiceBusca() {
+        for (int i = 0; i < porFaixaPreco.length; i++) {
+            porFaixaPreco[i] = new BitSet();
+        }
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String semAcento = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(semAcento.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    synchronized void incluirRestaurante(Restaurante r) {
+        if (idRestaurante.containsKey(r)) {
+            return;
+        }
+        idRestaurante.put(r, restaurantes.incluir(new Documento(r, null, normalizar(r.getNomeRestaurante()))));
+        Map<Produto, Integer> ids = new HashMap<>();
+        idProdutos.put(r, ids);
+        produtosPorRestaurante.put(r, new BitSet());
+        for (Produto p : r.getCardapio()) {
+            if (!ids.containsKey(p)) {
+                ids.put(p, incluirProduto(r, p));
+            }
+        }
+        r.adicionarOuvinteCardapio(this);
+    }
+
+    synchronized void limpar() {
+        for (Restaurante r : idRestaurante.keySet()) {
+            r.removerOuvinteCardapio(this);
+        }
+        idRestaurante.clear();
+        idProdutos.clear();
+        restaurantes.limpar();
+        produtos.limpar();
+        produtosPorRestaurante.clear();
+        for (BitSet faceta : facetas()) {
+            faceta.clear();
+        }
+        porTemperatura.clear();
+    }
+
+    @Override
+    public synchronized void produtoAdicionado(Restaurante r, Produto p) {
+        Map<Produto, Integer> ids = idProdutos.get(r);
+        if (ids != null && !ids.containsKey(p)) {
+            ids.put(p, incluirProduto(r, p));
+        }
+    }
+
+    @Override
+    public synchronized void produtoRemovido(Restaurante r, Produto p) {
+        Map<Produto, Integer> ids = idProdutos.get(r);
+        Integer id = ids == null ? null : ids.remove(p);
+        if (id != null) {
+            retirarProduto(id);
+        }
+    }
+
+    @Override
+    public synchronized void produtoAtualizado(Restaurante r, Produto p) {
+        Map<Produto, Integer> ids = idProdutos.get(r);
+        Integer id = ids == null ? null : ids.get(p);
+        if (id != null) {
+            retirarProduto(id);
+            ids.put(p, incluirProduto(r, p));
+        }
+    }
+
+    @Override
+    public synchronized void nomeAlterado(Restaurante r) {
+        Integer id = idRestaurante.get(r);
+        if (id != null) {
+            restaurantes.retirar(id);
+            idRestaurante.put(r, restaurantes.incluir(new Documento(r, null, normalizar(r.getNomeRestaurante()))));
+        }
+    }
+
+    @Override
+    public synchronized void aberturaAlterada(Restaurante r) {
+        BitSet ids = produtosPorRestaurante.get(r);
+        if (ids == null) {
+            return;
+        }
+        if (r.estaAberto()) {
+            deAbertos.or(ids);
+        } else {
+            deAbertos.andNot(ids);
+        }
+    }
+
+    // consulta vazia devolve todos, na ordem de cadastro
+    synchronized List<Restaurante> buscarRestaurantes(String consulta, int limite) {
+        List<Restaurante> resultado = new ArrayList<>();
+        for (Documento d : restaurantes.buscar(termos(consulta), PESOS_RESTAURANTE, limite)) {
+            resultado.add(d.restaurante);
+        }
+        return resultado;
+    }
+
+    synchronized List<ProdutoEncontrado> buscarProdutos(String consulta, int limite) {
+        List<ProdutoEncontrado> resultado = new ArrayList<>();
+        for (Documento d : produtos.buscar(termos(consulta), PESOS_PRODUTO, limite)) {
+            resultado.add(new ProdutoEncontrado(d.restaurante, d.produto, d.pontos));
+        }
+        return resultado;
+    }
+
+    /**
+     * pratos de todos os cardapios que passam no filtro: mais relevantes pro texto
+     * primeiro (sem texto, todos empatam) e, no empate, mais baratos primeiro
+     */
+    synchronized List<ProdutoEncontrado> buscarPratos(FiltroPratos filtro, int limite) {
+        BitSet selecao = (BitSet) produtosVivos.clone();
+        if (filtro.isSomenteDisponiveis()) {
+            selecao.and(disponiveis);
+        }
+        if (filtro.isSomenteAbertos()) {
+            selecao.and(deAbertos);
+        }
+        if (filtro.isSomenteVegetarianos()) {
+            selecao.and(vegetarianos);
+        }
+        if (filtro.isSomenteVeganos()) {
+            selecao.and(veganos);
+        }
+        if (filtro.getTemperatura() != null) {
+            selecao.and(porTemperatura.getOrDefault(filtro.getTemperatura(), new BitSet()));
+        }
+        if (filtro.getPrecoMinimo() > 0 || filtro.getPrecoMaximo() < Double.MAX_VALUE) {
+            BitSet faixas = new BitSet();
+            for (int i = faixaPreco(filtro.getPrecoMinimo()); i <= faixaPreco(filtro.getPrecoMaximo()); i++) {
+                faixas.or(porFaixaPreco[i]);
+            }
+            selecao.and(faixas);
+        }
+        String[] termos = termos(filtro.getTexto());
+        // com texto, os candidatos dele (menos que os bits ligados) testando o bit; sem texto, os bits
+        int[] candidatos = produtos.candidatos(termos);
+        if (candidatos == null) {
+            candidatos = selecao.stream().toArray();
+        }
+
+        // so os "limite" melhores ficam no heap; o pior deles no topo
+        PriorityQueue<ProdutoEncontrado> melhores = new PriorityQueue<>(Math.max(1, limite), POR_RELEVANCIA.reversed());
+        for (int id : candidatos) {
+            Documento d = selecao.get(id) ? produtos.documento(id) : null;
+            // faixa de preco vizinha ou objeto mudado sem aviso (setPreco direto, por exemplo)
+            if (d == null || !filtro.aceita(d.restaurante, d.produto)) {
+                continue;
+            }
+            int pontos = Colecao.pontuacao(d, termos, PESOS_PRODUTO);
+            if ((pontos > 0 || termos.length == 0) && limite > 0) {
+                if (melhores.size() < limite) {
+                    melhores.add(new ProdutoEncontrado(d.restaurante, d.produto, pontos));
+                } else if (pontos > melhores.peek().getRelevancia() || (pontos == melhores.peek().getRelevancia()
+                        && d.produto.getPreco() < melhores.peek().getProduto().getPreco())) {
+                    melhores.poll();
+                    melhores.add(new ProdutoEncontrado(d.restaurante, d.produto, pontos));
+                }
+            }
+        }
+        List<ProdutoEncontrado> encontrados = new ArrayList<>(melhores);
+        encontrados.sort(POR_RELEVANCIA);
+        return encontrados;
+    }
+
+    private int incluirProduto(Restaurante r, Produto p) {
+        int id = produtos.incluir(documentoProduto(r, p));
+        produtosVivos.set(id);
+        produtosPorRestaurante.get(r).set(id);
+        disponiveis.set(id, p.isDisponivel());
+        deAbertos.set(id, r.estaAberto());
+        if (p instanceof Comida) {
+            vegetarianos.set(id, ((Comida) p).ehVegetariano());
+            veganos.set(id, ((Comida) p).ehVegano());
+        }
+        if (p instanceof Sobremesa) {
+            porTemperatura.computeIfAbsent(((Sobremesa) p).getTemperatura(), t -> new BitSet()).set(id);
+        }
+        porFaixaPreco[faixaPreco(p.getPreco())].set(id);
+        return id;
+    }
+
+    private void retirarProduto(int id) {
+        Documento d = produtos.retirar(id);
+        if (d == null) {
+            return;
+        }
+        BitSet doRestaurante = produtosPorRestaurante.get(d.restaurante);
+        if (doRestaurante != null) {
+            doRestaurante.clear(id);
+        }
+        for (BitSet faceta : facetas()) {
+            faceta.clear(id);
+        }
+    }
+
+    private List<BitSet> facetas() {
+        List<BitSet> todas = new ArrayList<>(List.of(produtosVivos, disponiveis, deAbertos, vegetarianos, veganos));
+        todas.addAll(porTemperatura.values());
+        todas.addAll(Arrays.asList(porFaixaPreco));
+        return todas;
+    }
+
+    private static int faixaPreco(double preco) {
+        for (int i = 0; i < LIMITES_PRECO.length; i++) {
+            if (preco < LIMITES_PRECO[i]) {
+                return i;
+            }
+        }
+        return LIMITES_PRECO.length;
+    }
+
+    private static Documento documentoProduto(Restaurante r, Produto p) {
+        return new Documento(r, p, normalizar(p.getNome()), normalizar(p.getCategoria()), normalizar(p.getDescricao()));
+    }
+
+    private static String[] termos(String consulta) {
+        String normalizada = normalizar(consulta);
+        return normalizada.isEmpty() ? new String[0] : normalizada.split(" ");
+    }
+
+    private static final class Documento {
+        final Restaurante restaurante;
+        final Produto produto; // null no documento do restaurante
+        final String[] campos;
+        int pontos; // da ultima busca
+
+        Documento(Restaurante restaurante, Produto produto, String... campos) {
+            this.restaurante = restaurante;
+            this.produto = produto;
+            this.campos = campos;
+        }
+    }
+
+    // documentos de um tipo e as listas de trigramas deles
+    private static final class Colecao {
+        private final List<Documento> documentos = new ArrayList<>(); // id = posicao; null = retirado
+        private final Map<String, Postagens> gramas = new HashMap<>();
+
+        int incluir(Documento d) {
+            int id = documentos.size();
+            documentos.add(d);
+            for (String grama : gramasDe(d.campos)) {
+                gramas.computeIfAbsent(grama, g -> new Postagens()).adicionar(id); // ids so crescem
+            }
+            return id;
+        }
+
+        // devolve o documento retirado (null se ja nao estava)
+        Documento retirar(int id) {
+            Documento d = documentos.set(id, null);
+            if (d == null) {
+                return null;
+            }
+            for (String grama : gramasDe(d.campos)) {
+                Postagens lista = gramas.get(grama);
+                if (lista != null && lista.remover(id) && lista.tamanho == 0) {
+                    gramas.remove(grama);
+                }
+            }
+            return d;
+        }
+
+        Documento documento(int id) {
+            return documentos.get(id);
+        }
+
+        void limpar() {
+            documentos.clear();
+            gramas.clear();
+        }
+
+        List<Documento> buscar(String[] termos, int[] pesos, int limite) {
+            List<Documento> encontrados = new ArrayList<>();
+            int[] candidatos = candidatos(termos);
+            int quantidade = candidatos == null ? documentos.size() : candidatos.length;
+            // os candidatos vem na ordem de inclusao, que e o desempate: com "limite" na pontuacao
+            // maxima ja achados, nenhum dos seguintes passa na frente e da pra parar
+            int pesoMaximo = 0;
+            for (int peso : pesos) {
+                pesoMaximo = Math.max(pesoMaximo, peso);
+            }
+            int pontuacaoMaxima = termos.length * PALAVRA_INTEIRA * pesoMaximo;
+            int naMaxima = 0;
+            for (int i = 0; i < quantidade && naMaxima < limite; i++) {
+                Documento d = documentos.get(candidatos == null ? i : candidatos[i]);
+                if (d == null) {
+                    continue;
+                }
+                int total = pontuacao(d, termos, pesos);
+                if (total > 0 || termos.length == 0) {
+                    d.pontos = total;
+                    encontrados.add(d);
+                    if (total == pontuacaoMaxima) {
+                        naMaxima++;
+                    }
+                }
+            }
+            // estavel: empate fica na ordem de inclusao
+            encontrados.sort((a, b) -> Integer.compare(b.pontos, a.pontos));
+            return encontrados.size() > limite ? new ArrayList<>(encontrados.subList(0, Math.max(0, limite))) : encontrados;
+        }
+
+        // soma dos termos; 0 se algum termo nao esta no documento
+        static int pontuacao(Documento d, String[] termos, int[] pesos) {
+            int total = 0;
+            for (String termo : termos) {
+                int pontos = pontuar(d, termo, pesos);
+                if (pontos == 0) {
+                    return 0;
+                }
+                total += pontos;
+            }
+            return total;
+        }
+
+        /**
+         * ids que podem ter todos os termos; null = sem termo indexavel, confere tudo.
+         * de cada termo entra so a menor lista de trigramas dele: os trigramas de uma
+         * mesma palavra aparecem quase sempre juntos, intersectar todos custa caro e
+         * quase nao corta nada. o que sobrar de falso positivo a conferencia tira
+         */
+        int[] candidatos(String[] termos) {
+            List<Postagens> listas = new ArrayList<>();
+            for (String termo : termos) {
+                Postagens menor = null;
+                for (int i = 0; i + TAMANHO_GRAMA <= termo.length(); i++) {
+                    Postagens lista = gramas.get(termo.substring(i, i + TAMANHO_GRAMA));
+                    if (lista == null) {
+                        return new int[0];
+                    }
+                    if (menor == null || lista.tamanho < menor.tamanho) {
+                        menor = lista;
+                    }
+                }
+                if (menor != null) {
+                    listas.add(menor);
+                }
+            }
+            if (listas.isEmpty()) {
+                return null;
+            }
+            listas.sort((a, b) -> Integer.compare(a.tamanho, b.tamanho));
+            int[] resultado = Arrays.copyOf(listas.get(0).ids, listas.get(0).tamanho);
+            for (int i = 1; i < listas.size() && resultado.length > 0; i++) {
+                resultado = listas.get(i).intersecao(resultado);
+            }
+            return resultado;
+        }
+
+        private static List<String> gramasDe(String[] campos) {
+            List<String> resultado = new ArrayList<>();
+            Set<String> vistos = new HashSet<>();
+            for (String campo : campos) {
+                for (String palavra : campo.split(" ")) {
+                    for (int i = 0; i + TAMANHO_GRAMA <= palavra.length(); i++) {
+                        String grama = palavra.substring(i, i + TAMANHO_GRAMA);
+                        if (vistos.add(grama)) {
+                            resultado.add(grama);
+                        }
+                    }
+                }
+            }
+            return resultado;
+        }
+
+        // melhor encontro do termo entre os campos, vezes o peso do campo; 0 = nao tem
+        private static int pontuar(Documento d, String termo, int[] pesos) {
+            int melhor = 0;
+            for (int c = 0; c < d.campos.length; c++) {
+                String campo = d.campos[c];
+                int qualidade = 0;
+                for (int i = campo.indexOf(termo); i >= 0 && qualidade < PALAVRA_INTEIRA; i = campo.indexOf(termo, i + 1)) {
+                    boolean comeco = i == 0 || campo.charAt(i - 1) == ' ';
+                    int fim = i + termo.length();
+                    boolean finalPalavra = fim == campo.length() || campo.charAt(fim) == ' ';
+                    qualidade = Math.max(qualidade, comeco ? (finalPalavra ? PALAVRA_INTEIRA : COMECO_PALAVRA) : MEIO_PALAVRA);
+                }
+                melhor = Math.max(melhor, qualidade * pesos[c]);
+            }
+            return melhor;
+        }
+    }
+
+    // ids ordenados dos documentos que tem um trigrama
+    private static final class Postagens {
+        int[] ids = new int[4];
+        int tamanho;
+
+        void adicionar(int id) {
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            ids[tamanho++] = id;
+        }
+
+        boolean remover(int id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao < 0) {
+                return false;
+            }
+            System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+            tamanho--;
+            return true;
+        }
+
+        // os de "outros" que tambem estao aqui (outros ordenado)
+        int[] intersecao(int[] outros) {
+            int[] resultado = new int[Math.min(outros.length, tamanho)];
+            int n = 0;
+            if (outros.length * 16 < tamanho) {
+                // poucos candidatos contra uma lista grande: busca binaria em vez de intercalar
+                int de = 0;
+                for (int id : outros) {
+                    int posicao = Arrays.binarySearch(ids, de, tamanho, id);
+                    if (posicao >= 0) {
+                        resultado[n++] = id;
+                        de = posicao + 1;
+                    } else {
+                        de = -posicao - 1;
+                    }
+                }
+                return Arrays.copyOf(resultado, n);
+            }
+            int i = 0;
+            int j = 0;
+            while (i < tamanho && j < outros.length) {
+                if (ids[i] < outros[j]) {
+                    i++;
+                } else if (ids[i] > outros[j]) {
+                    j++;
+                } else {
+                    resultado[n++] = ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(resultado, n);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ifome.util;
+
+import ifome.model.OuvinteCardapio;
+import ifome.model.Produto;
+import ifome.model.Restaurante;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * area de entrega dos restaurantes numa grade de celulas de TAMANHO_CELULA graus.
+ * cada restaurante entra em todas as celulas que o quadrado do raio dele toca, entao
+ * "quem entrega aqui" e olhar uma celula so (a do ponto) e conferir a distancia de
+ * cada candidato, sem trigonometria: o cosseno da latitude de cada restaurante ja
+ * fica calculado na area dele.
+ *
+ * a posicao vem do CEP do endereco do restaurante (TabelaCeps). restaurante sem
+ * endereco ou com CEP fora da tabela fica de fora da grade e nao tem limite de
+ * entrega (e o comportamento de antes, quando ninguem conferia distancia)
+ */
+final class IndiceGeografico implements OuvinteCardapio {
+
+    static final double TAMANHO_CELULA = 0.1; // ~11 km de latitude
+
+    private static final Comparator<Area> POR_DISTANCIA = Comparator.comparingDouble(a -> a.ultimaDistancia2);
+
+    private final TabelaCeps ceps;
+    private final Map<Long, List<Area>> celulas = new HashMap<>();
+    private final Map<Restaurante, Area> areas = new IdentityHashMap<>();
+    private final Set<Restaurante> semLocalizacao = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    IndiceGeografico(TabelaCeps ceps) {
+        this.ceps = ceps;
+    }
+
+    synchronized void incluirRestaurante(Restaurante r) {
+        if (areas.containsKey(r) || semLocalizacao.contains(r)) {
+            return;
+        }
+        posicionar(r);
+        r.adicionarOuvinteCardapio(this);
+    }
+
+    synchronized void limpar() {
+        for (Restaurante r : areas.keySet()) {
+            r.removerOuvinteCardapio(this);
+        }
+        for (Restaurante r : semLocalizacao) {
+            r.removerOuvinteCardapio(this);
+        }
+        celulas.clear();
+        areas.clear();
+        semLocalizacao.clear();
+    }
+
+    @Override
+    public void produtoAdicionado(Restaurante r, Produto p) {
+    }
+
+    @Override
+    public void produtoRemovido(Restaurante r, Produto p) {
+    }
+
+    @Override
+    public synchronized void localizacaoAlterada(Restaurante r) {
+        if (!areas.containsKey(r) && !semLocalizacao.remove(r)) {
+            return;
+        }
+        Area antiga = areas.remove(r);
+        if (antiga != null) {
+            for (long celula : antiga.celulas) {
+                List<Area> lista = celulas.get(celula);
+                lista.remove(antiga);
+                if (lista.isEmpty()) {
+                    celulas.remove(celula);
+                }
+            }
+        }
+        posicionar(r);
+    }
+
+    Coordenada localizar(Restaurante r) {
+        return r.getEndereco() == null ? null : ceps.localizar(r.getEndereco().getCep());
+    }
+
+    synchronized int quantidadeLocalizados() {
+        return areas.size();
+    }
+
+    // restaurantes cujo raio alcanca o ponto, do mais perto pro mais longe
+    synchronized List<Restaurante> entregamEm(Coordenada ponto) {
+        List<Area> candidatos = celulas.get(celula(ponto.getLatitude(), ponto.getLongitude()));
+        if (candidatos == null) {
+            return new ArrayList<>();
+        }
+        double lat = ponto.getLatitude();
+        double lon = ponto.getLongitude();
+        List<Area> alcancam = new ArrayList<>(candidatos.size());
+        for (Area a : candidatos) {
+            double d2 = a.distancia2(lat, lon);
+            if (d2 <= a.raio2) {
+                a.ultimaDistancia2 = d2; // so pra ordenar; a consulta roda com a trava
+                alcancam.add(a);
+            }
+        }
+        alcancam.sort(POR_DISTANCIA);
+        List<Restaurante> resultado = new ArrayList<>(alcancam.size() + semLocalizacao.size());
+        for (Area a : alcancam) {
+            resultado.add(a.restaurante);
+        }
+        return resultado;
+    }
+
+    // restaurantes fora da grade (sem endereco ou CEP desconhecido)
+    synchronized List<Restaurante> semLocalizacao() {
+        return new ArrayList<>(semLocalizacao);
+    }
+
+    /**
+     * true se o ponto esta no raio do restaurante ou se o restaurante nao tem
+     * localizacao; restaurante que nunca passou pelo indice tambem nao tem limite
+     */
+    synchronized boolean entrega(Restaurante r, Coordenada ponto) {
+        Area a = areas.get(r);
+        return a == null || a.alcanca(ponto.getLatitude(), ponto.getLongitude());
+    }
+
+    private void posicionar(Restaurante r) {
+        Coordenada c = localizar(r);
+        if (c == null) {
+            semLocalizacao.add(r);
+            return;
+        }
+        Area area = new Area(r, c.getLatitude(), c.getLongitude(), r.getRaioEntregaKm());
+        double raioLat = area.raioKm / Coordenada.KM_POR_GRAU;
+        double raioLon = area.raioKm / (Coordenada.KM_POR_GRAU * Math.max(area.cosLat, 1e-6));
+        int linhaMin = indice(area.latitude - raioLat);
+        int linhaMax = indice(area.latitude + raioLat);
+        int colunaMin = indice(area.longitude - raioLon);
+        int colunaMax = indice(area.longitude + raioLon);
+        area.celulas = new long[(linhaMax - linhaMin + 1) * (colunaMax - colunaMin + 1)];
+        int k = 0;
+        for (int linha = linhaMin; linha <= linhaMax; linha++) {
+            for (int coluna = colunaMin; coluna <= colunaMax; coluna++) {
+                long chave = chave(linha, coluna);
+                area.celulas[k++] = chave;
+                celulas.computeIfAbsent(chave, x -> new ArrayList<>()).add(area);
+            }
+        }
+        areas.put(r, area);
+    }
+
+    private static int indice(double graus) {
+        return (int) Math.floor(graus / TAMANHO_CELULA);
+    }
+
+    private static long chave(int linha, int coluna) {
+        return ((long) linha << 32) | (coluna & 0xffffffffL);
+    }
+
+    private static long celula(double latitude, double longitude) {
+        return chave(indice(latitude), indice(longitude));
+    }
+
+    private static final class Area {
+        final Restaurante restaurante;
+        final double latitude;
+        final double longitude;
+        final double raioKm;
+        final double cosLat;
+        final double raio2; // raio ao quadrado, em graus de latitude
+        long[] celulas;
+        double ultimaDistancia2;
+
+        Area(Restaurante restaurante, double latitude, double longitude, double raioKm) {
+            this.restaurante = restaurante;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.raioKm = raioKm;
+            this.cosLat = Math.cos(Math.toRadians(latitude));
+            double raioGraus = raioKm / Coordenada.KM_POR_GRAU;
+            this.raio2 = raioGraus * raioGraus;
+        }
+
+        // distancia ao quadrado em graus de latitude (plano tangente no restaurante)
+        double distancia2(double lat, double lon) {
+            double y = lat - latitude;
+            double x = (lon - longitude) * cosLat;
+            return x * x + y * y;
+        }
+
+        boolean alcanca(double lat, double lon) {
+            return distancia2(lat, lon) <= raio2;
+        }
+    }
+}
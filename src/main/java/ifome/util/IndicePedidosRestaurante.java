@@ -0,0 +1,199 @@
+package ifome.util;
+
+import ifome.model.OuvinteStatusPedido;
+import ifome.model.Pedido;
+import ifome.model.StatusPedido;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * pedidos em memoria agrupados por restaurante e, dentro dele, por status; cada
+ * grupo fica ordenado pela data (e numero) do pedido. as telas do restaurante
+ * pegam so os grupos que interessam e cortam o periodo por busca binaria, entao
+ * o custo e o dos pedidos daquele restaurante, nao o da plataforma toda.
+ *
+ * a trava e por restaurante (o objeto Grupos dele, num ConcurrentHashMap): pedidos
+ * e buscas de restaurantes diferentes andam em paralelo.
+ * o indice ouve as mudancas de etapa dos restaurantes do repositorio e move o
+ * pedido de grupo na hora; se um pedido mudou sem avisar (restaurante de fora),
+ * a busca percebe quando passa pelo grupo antigo dele e corrige
+ */
+final class IndicePedidosRestaurante implements OuvinteStatusPedido {
+
+    private static final Comparator<Pedido> POR_DATA =
+        Comparator.comparingLong((Pedido p) -> p.getDataHora().getTime()).thenComparingInt(Pedido::getNumeroPedido);
+
+    // email do restaurante -> grupos dele
+    private final Map<String, Grupos> porRestaurante = new ConcurrentHashMap<>();
+
+    private static final class Grupos {
+        // status -> pedidos por data
+        final Map<StatusPedido, List<Pedido>> porStatus = new EnumMap<>(StatusPedido.class);
+        // grupo em que cada pedido esta agora
+        final Map<Pedido, StatusPedido> statusIndexado = new IdentityHashMap<>();
+    }
+
+    void incluir(Pedido p) {
+        if (p.getRestaurante() == null) {
+            return;
+        }
+        Grupos grupos = grupos(p.getRestaurante().getEmail());
+        synchronized (grupos) {
+            incluir(grupos, p);
+        }
+    }
+
+    // move o pedido pro grupo do status atual
+    void atualizarStatus(Pedido p) {
+        if (p.getRestaurante() == null) {
+            return;
+        }
+        Grupos grupos = grupos(p.getRestaurante().getEmail());
+        synchronized (grupos) {
+            atualizarStatus(grupos, p);
+        }
+    }
+
+    @Override
+    public void statusAlterado(Pedido pedido, StatusPedido anterior, StatusPedido novo) {
+        atualizarStatus(pedido);
+    }
+
+    void limpar() {
+        porRestaurante.clear();
+    }
+
+    int contar(String emailRestaurante) {
+        Grupos grupos = emailRestaurante == null ? null : porRestaurante.get(emailRestaurante);
+        int total = 0;
+        if (grupos != null) {
+            synchronized (grupos) {
+                for (List<Pedido> grupo : grupos.porStatus.values()) {
+                    total += grupo.size();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * pedidos do restaurante com a etapa em "status" (null = qualquer uma) e data
+     * em [inicio, fim), do mais antigo pro mais recente
+     */
+    List<Pedido> buscar(String emailRestaurante, Set<StatusPedido> status, long inicio, long fim) {
+        List<Pedido> resultado = new ArrayList<>();
+        Grupos grupos = emailRestaurante == null ? null : porRestaurante.get(emailRestaurante);
+        if (grupos == null || inicio >= fim) {
+            return resultado;
+        }
+        synchronized (grupos) {
+            List<Pedido> mudaramSemAvisar = new ArrayList<>();
+            Collection<StatusPedido> consultados = status == null ? new ArrayList<>(grupos.porStatus.keySet()) : status;
+            for (StatusPedido s : consultados) {
+                List<Pedido> grupo = grupos.porStatus.get(s);
+                if (grupo == null) {
+                    continue;
+                }
+                for (int i = primeiroAPartirDe(grupo, inicio); i < grupo.size(); i++) {
+                    Pedido p = grupo.get(i);
+                    if (p.getDataHora().getTime() >= fim) {
+                        break;
+                    }
+                    if (s != p.getStatusPedido()) {
+                        mudaramSemAvisar.add(p);
+                        if (status != null && !status.contains(p.getStatusPedido())) {
+                            continue;
+                        }
+                    }
+                    resultado.add(p);
+                }
+            }
+            for (Pedido p : mudaramSemAvisar) {
+                atualizarStatus(grupos, p);
+            }
+            if (consultados.size() > 1) {
+                resultado.sort(POR_DATA);
+            }
+        }
+        return resultado;
+    }
+
+    private Grupos grupos(String emailRestaurante) {
+        return porRestaurante.computeIfAbsent(emailRestaurante == null ? "" : emailRestaurante, e -> new Grupos());
+    }
+
+    private static void incluir(Grupos grupos, Pedido p) {
+        if (grupos.statusIndexado.containsKey(p)) {
+            return;
+        }
+        StatusPedido status = p.getStatusPedido();
+        inserir(grupo(grupos, status), p);
+        grupos.statusIndexado.put(p, status);
+    }
+
+    private static void atualizarStatus(Grupos grupos, Pedido p) {
+        StatusPedido anterior = grupos.statusIndexado.get(p);
+        if (anterior == null) {
+            incluir(grupos, p);
+            return;
+        }
+        StatusPedido atual = p.getStatusPedido();
+        if (anterior == atual) {
+            return;
+        }
+        retirar(grupo(grupos, anterior), p);
+        inserir(grupo(grupos, atual), p);
+        grupos.statusIndexado.put(p, atual);
+    }
+
+    private static List<Pedido> grupo(Grupos grupos, StatusPedido status) {
+        return grupos.porStatus.computeIfAbsent(status, s -> new ArrayList<>());
+    }
+
+    // quase sempre o pedido e o mais novo do grupo e vai pro fim
+    private static void inserir(List<Pedido> grupo, Pedido p) {
+        int n = grupo.size();
+        if (n == 0 || POR_DATA.compare(grupo.get(n - 1), p) <= 0) {
+            grupo.add(p);
+            return;
+        }
+        int posicao = buscaBinaria(grupo, p);
+        grupo.add(posicao < 0 ? -posicao - 1 : posicao, p);
+    }
+
+    private static void retirar(List<Pedido> grupo, Pedido p) {
+        int posicao = buscaBinaria(grupo, p);
+        if (posicao >= 0 && grupo.get(posicao) == p) {
+            grupo.remove(posicao);
+        } else {
+            grupo.remove(p); // data mudou depois de indexar; procura na mao
+        }
+    }
+
+    private static int buscaBinaria(List<Pedido> grupo, Pedido p) {
+        return Collections.binarySearch(grupo, p, POR_DATA);
+    }
+
+    // primeiro indice com data >= inicio
+    private static int primeiroAPartirDe(List<Pedido> grupo, long inicio) {
+        int baixo = 0;
+        int alto = grupo.size();
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (grupo.get(meio).getDataHora().getTime() < inicio) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+}
@@ -0,0 +1,312 @@
+package ifome.util;
+
+import ifome.model.ItemPedido;
+import ifome.model.OuvinteCardapio;
+import ifome.model.Pedido;
+import ifome.model.Produto;
+import ifome.model.Restaurante;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * trie de autocompletar com nomes de restaurantes e de pratos (normalizados como no
+ * IndiceBusca). cada nome entra pela frase inteira e a partir de cada palavra, entao
+ * "marg" sugere "Pizza Margherita". cada no guarda os TOP_K termos mais pedidos da
+ * subarvore, e a sugestao e so descer o prefixo e copiar essa lista.
+ *
+ * mudanca (cardapio, nome, pedido novo) so marca como sujos os nos do caminho dos
+ * termos afetados; o top de um no sujo e refeito na proxima consulta que passar por
+ * ele, juntando os terminais dele com o top (ja certo) de cada filho.
+ *
+ * popularidade: restaurante = pedidos dele; prato = unidades pedidas com aquele nome
+ * em qualquer restaurante (o prato aparece uma vez so, mesmo em varios cardapios)
+ */
+final class IndiceSugestoes implements OuvinteCardapio {
+
+    static final int TOP_K = 10;
+
+    private static final Comparator<Termo> POR_POPULARIDADE = (a, b) -> {
+        int c = Long.compare(b.popularidade, a.popularidade);
+        return c != 0 ? c : a.texto.compareTo(b.texto);
+    };
+
+    private No raiz = new No();
+    private final Map<Restaurante, Termo> restaurantes = new IdentityHashMap<>();
+    // nome normalizado -> prato (enquanto algum cardapio tiver) e unidades pedidas (sempre)
+    private final Map<String, Termo> pratos = new HashMap<>();
+    private final Map<String, Long> unidadesPorPrato = new HashMap<>();
+
+    synchronized void incluirRestaurante(Restaurante r) {
+        if (restaurantes.containsKey(r)) {
+            return;
+        }
+        Termo termo = new Termo(r.getNomeRestaurante(), IndiceBusca.normalizar(r.getNomeRestaurante()), r);
+        restaurantes.put(r, termo);
+        inserir(termo);
+        for (Produto p : r.getCardapio()) {
+            incluirPrato(p);
+        }
+        r.adicionarOuvinteCardapio(this);
+    }
+
+    synchronized void limpar() {
+        for (Restaurante r : restaurantes.keySet()) {
+            r.removerOuvinteCardapio(this);
+        }
+        restaurantes.clear();
+        pratos.clear();
+        unidadesPorPrato.clear();
+        raiz = new No();
+    }
+
+    @Override
+    public synchronized void produtoAdicionado(Restaurante r, Produto p) {
+        if (restaurantes.containsKey(r)) {
+            incluirPrato(p);
+        }
+    }
+
+    @Override
+    public synchronized void produtoRemovido(Restaurante r, Produto p) {
+        if (!restaurantes.containsKey(r)) {
+            return;
+        }
+        Termo termo = pratos.get(IndiceBusca.normalizar(p.getNome()));
+        if (termo != null && --termo.cardapios == 0) {
+            pratos.remove(termo.chave);
+            retirar(termo);
+        }
+    }
+
+    @Override
+    public synchronized void nomeAlterado(Restaurante r) {
+        Termo antigo = restaurantes.get(r);
+        if (antigo == null) {
+            return;
+        }
+        retirar(antigo);
+        Termo termo = new Termo(r.getNomeRestaurante(), IndiceBusca.normalizar(r.getNomeRestaurante()), r);
+        termo.popularidade = antigo.popularidade;
+        restaurantes.put(r, termo);
+        inserir(termo);
+    }
+
+    // pedido novo: +1 pro restaurante e as unidades de cada item pro prato
+    synchronized void registrarPedido(Pedido p) {
+        Termo termo = p.getRestaurante() == null ? null : restaurantes.get(p.getRestaurante());
+        if (termo != null) {
+            alterarPopularidade(termo, termo.popularidade + 1);
+        }
+        for (ItemPedido item : p.getItens()) {
+            if (item.getProduto() != null) {
+                somarUnidades(IndiceBusca.normalizar(item.getProduto().getNome()), item.getQuantidade());
+            }
+        }
+    }
+
+    /**
+     * refaz toda a popularidade a partir dos pedidos (fim da carga, quando os itens ja
+     * estao nos pedidos). "pedidosFrios" da a quantidade de pedidos frios por restaurante
+     */
+    synchronized void recontar(Collection<Pedido> pedidos, Map<Restaurante, Integer> pedidosFrios) {
+        Map<Restaurante, Long> porRestaurante = new IdentityHashMap<>();
+        unidadesPorPrato.clear();
+        for (Pedido p : pedidos) {
+            if (p.getRestaurante() != null) {
+                porRestaurante.merge(p.getRestaurante(), 1L, Long::sum);
+            }
+            for (ItemPedido item : p.getItens()) {
+                if (item.getProduto() != null) {
+                    unidadesPorPrato.merge(IndiceBusca.normalizar(item.getProduto().getNome()),
+                                           (long) item.getQuantidade(), Long::sum);
+                }
+            }
+        }
+        for (Map.Entry<Restaurante, Integer> e : pedidosFrios.entrySet()) {
+            porRestaurante.merge(e.getKey(), (long) e.getValue(), Long::sum);
+        }
+        for (Map.Entry<Restaurante, Termo> e : restaurantes.entrySet()) {
+            alterarPopularidade(e.getValue(), porRestaurante.getOrDefault(e.getKey(), 0L));
+        }
+        for (Termo termo : pratos.values()) {
+            alterarPopularidade(termo, unidadesPorPrato.getOrDefault(termo.chave, 0L));
+        }
+    }
+
+    // ate "limite" (no maximo TOP_K) termos que comecam com o prefixo, mais populares primeiro
+    synchronized List<Sugestao> sugerir(String prefixo, int limite) {
+        List<Sugestao> resultado = new ArrayList<>();
+        String chave = IndiceBusca.normalizar(prefixo);
+        if (chave.isEmpty()) {
+            return resultado;
+        }
+        No no = raiz;
+        for (int i = 0; i < chave.length() && no != null; i++) {
+            no = no.filho(chave.charAt(i));
+        }
+        if (no == null) {
+            return resultado;
+        }
+        Termo[] top = atualizar(no);
+        for (int i = 0; i < top.length && resultado.size() < limite; i++) {
+            resultado.add(new Sugestao(top[i].texto, top[i].restaurante, top[i].popularidade));
+        }
+        return resultado;
+    }
+
+    private void incluirPrato(Produto p) {
+        String chave = IndiceBusca.normalizar(p.getNome());
+        if (chave.isEmpty()) {
+            return;
+        }
+        Termo termo = pratos.get(chave);
+        if (termo == null) {
+            termo = new Termo(p.getNome(), chave, null);
+            termo.popularidade = unidadesPorPrato.getOrDefault(chave, 0L);
+            pratos.put(chave, termo);
+            inserir(termo);
+        }
+        termo.cardapios++;
+    }
+
+    private void somarUnidades(String chave, int quantidade) {
+        long total = unidadesPorPrato.merge(chave, (long) quantidade, Long::sum);
+        Termo termo = pratos.get(chave);
+        if (termo != null) {
+            alterarPopularidade(termo, total);
+        }
+    }
+
+    private void alterarPopularidade(Termo termo, long popularidade) {
+        if (termo.popularidade == popularidade) {
+            return;
+        }
+        termo.popularidade = popularidade;
+        for (int inicio : termo.iniciosDePalavra()) {
+            No no = raiz;
+            no.sujo = true;
+            for (int i = inicio; i < termo.chave.length(); i++) {
+                no = no.filho(termo.chave.charAt(i));
+                no.sujo = true;
+            }
+        }
+    }
+
+    // o termo entra pela frase inteira e por cada palavra dela
+    private void inserir(Termo termo) {
+        for (int inicio : termo.iniciosDePalavra()) {
+            No no = raiz;
+            no.sujo = true;
+            for (int i = inicio; i < termo.chave.length(); i++) {
+                no = no.filhoOuNovo(termo.chave.charAt(i));
+                no.sujo = true;
+            }
+            if (!no.terminais.contains(termo)) {
+                no.terminais.add(termo);
+            }
+        }
+    }
+
+    private void retirar(Termo termo) {
+        for (int inicio : termo.iniciosDePalavra()) {
+            No no = raiz;
+            no.sujo = true;
+            for (int i = inicio; i < termo.chave.length() && no != null; i++) {
+                no = no.filho(termo.chave.charAt(i));
+                if (no != null) {
+                    no.sujo = true;
+                }
+            }
+            if (no != null) {
+                no.terminais.remove(termo);
+            }
+        }
+    }
+
+    // refaz o top do no (e dos filhos sujos) se preciso
+    private static Termo[] atualizar(No no) {
+        if (!no.sujo) {
+            return no.top;
+        }
+        List<Termo> candidatos = new ArrayList<>(no.terminais);
+        Set<Termo> vistos = Collections.newSetFromMap(new IdentityHashMap<>());
+        vistos.addAll(candidatos);
+        for (No filho : no.filhos) {
+            for (Termo t : atualizar(filho)) {
+                if (vistos.add(t)) { // o mesmo termo pode vir por duas palavras
+                    candidatos.add(t);
+                }
+            }
+        }
+        candidatos.sort(POR_POPULARIDADE);
+        no.top = candidatos.subList(0, Math.min(TOP_K, candidatos.size())).toArray(new Termo[0]);
+        no.sujo = false;
+        return no.top;
+    }
+
+    private static final class Termo {
+        final String texto;
+        final String chave;
+        final Restaurante restaurante; // null = prato
+        long popularidade;
+        int cardapios; // prato: em quantos cardapios esta
+
+        Termo(String texto, String chave, Restaurante restaurante) {
+            this.texto = texto;
+            this.chave = chave;
+            this.restaurante = restaurante;
+        }
+
+        int[] iniciosDePalavra() {
+            int[] inicios = new int[chave.length()];
+            int n = 0;
+            for (int i = 0; i < chave.length(); i++) {
+                if (i == 0 || chave.charAt(i - 1) == ' ') {
+                    inicios[n++] = i;
+                }
+            }
+            return Arrays.copyOf(inicios, n);
+        }
+    }
+
+    // filhos em vetores ordenados pelo caractere, sem mapa por no
+    private static final class No {
+        char[] rotulos = new char[0];
+        No[] filhos = new No[0];
+        final List<Termo> terminais = new ArrayList<>(1);
+        Termo[] top = new Termo[0];
+        boolean sujo;
+
+        No filho(char c) {
+            int i = Arrays.binarySearch(rotulos, c);
+            return i < 0 ? null : filhos[i];
+        }
+
+        No filhoOuNovo(char c) {
+            int i = Arrays.binarySearch(rotulos, c);
+            if (i >= 0) {
+                return filhos[i];
+            }
+            int posicao = -i - 1;
+            char[] novosRotulos = new char[rotulos.length + 1];
+            No[] novosFilhos = new No[filhos.length + 1];
+            System.arraycopy(rotulos, 0, novosRotulos, 0, posicao);
+            System.arraycopy(filhos, 0, novosFilhos, 0, posicao);
+            novosRotulos[posicao] = c;
+            novosFilhos[posicao] = new No();
+            System.arraycopy(rotulos, posicao, novosRotulos, posicao + 1, rotulos.length - posicao);
+            System.arraycopy(filhos, posicao, novosFilhos, posicao + 1, filhos.length - posicao);
+            rotulos = novosRotulos;
+            filhos = novosFilhos;
+            return novosFilhos[posicao];
+        }
+    }
+}
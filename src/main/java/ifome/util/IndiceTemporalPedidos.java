@@ -0,0 +1,119 @@
+package ifome.util;
+
+import ifome.model.Pedido;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * pedidos em memoria ordenados por (data, numero) numa skip list. periodo, do mais
+ * antigo ou do mais recente, sai em O(log n + pedidos do periodo), sem passar pela
+ * lista toda. a data entra na chave no momento da inclusao, entao a ordem nao se
+ * perde se alguem mexer no Date do pedido depois.
+ *
+ * as escritas vem do repositorio (com a trava dele); as leituras nao precisam de
+ * trava, a skip list aguenta leitura concorrente e o percurso e fracamente consistente
+ */
+final class IndiceTemporalPedidos {
+
+    static final class Chave implements Comparable<Chave> {
+        final long dataHora;
+        final int numero;
+
+        Chave(long dataHora, int numero) {
+            this.dataHora = dataHora;
+            this.numero = numero;
+        }
+
+        @Override
+        public int compareTo(Chave outra) {
+            int c = Long.compare(dataHora, outra.dataHora);
+            return c != 0 ? c : Integer.compare(numero, outra.numero);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Chave && compareTo((Chave) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(dataHora) * 31 + numero;
+        }
+    }
+
+    private final ConcurrentSkipListMap<Chave, Pedido> porData = new ConcurrentSkipListMap<>();
+
+    void incluir(Pedido p) {
+        if (p.getDataHora() == null) {
+            return;
+        }
+        porData.putIfAbsent(new Chave(p.getDataHora().getTime(), p.getNumeroPedido()), p);
+    }
+
+    void limpar() {
+        porData.clear();
+    }
+
+    int tamanho() {
+        return porData.size();
+    }
+
+    // pedidos com data em [inicio, fim)
+    List<Pedido> buscar(long inicio, long fim, boolean maisRecentesPrimeiro) {
+        NavigableMap<Chave, Pedido> faixa = faixa(inicio, fim);
+        return new ArrayList<>((maisRecentesPrimeiro ? faixa.descendingMap() : faixa).values());
+    }
+
+    /**
+     * ate "tamanho" pedidos de [inicio, fim) depois do cursor (null = do comeco), na
+     * ordem pedida. o cursor e a chave do ultimo pedido entregue, entao pedido novo
+     * chegando no meio do caminho nao faz a proxima pagina repetir nem pular ninguem
+     */
+    PaginaPedidos paginar(long inicio, long fim, boolean maisRecentesPrimeiro, Chave cursor, int tamanho) {
+        if (inicio >= fim || tamanho <= 0) {
+            return new PaginaPedidos(new ArrayList<>(), null);
+        }
+        Chave de = new Chave(inicio, Integer.MIN_VALUE);
+        Chave ate = new Chave(fim, Integer.MIN_VALUE);
+        NavigableMap<Chave, Pedido> faixa = porData.subMap(de, true, ate, false);
+        if (cursor != null) {
+            // cursor fora do periodo: ou a paginacao ainda nao entrou nele (ignora) ou ja saiu
+            if (maisRecentesPrimeiro) {
+                if (cursor.compareTo(de) <= 0) {
+                    return new PaginaPedidos(new ArrayList<>(), null);
+                }
+                if (cursor.compareTo(ate) < 0) {
+                    faixa = faixa.headMap(cursor, false);
+                }
+            } else {
+                if (cursor.compareTo(ate) >= 0) {
+                    return new PaginaPedidos(new ArrayList<>(), null);
+                }
+                if (cursor.compareTo(de) >= 0) {
+                    faixa = faixa.tailMap(cursor, false);
+                }
+            }
+        }
+        List<Pedido> pagina = new ArrayList<>();
+        Chave ultima = null;
+        for (Map.Entry<Chave, Pedido> e : (maisRecentesPrimeiro ? faixa.descendingMap() : faixa).entrySet()) {
+            if (pagina.size() == tamanho) {
+                return new PaginaPedidos(pagina, ultima);
+            }
+            pagina.add(e.getValue());
+            ultima = e.getKey();
+        }
+        return new PaginaPedidos(pagina, null);
+    }
+
+    private NavigableMap<Chave, Pedido> faixa(long inicio, long fim) {
+        if (inicio >= fim) {
+            return new TreeMap<>();
+        }
+        return porData.subMap(new Chave(inicio, Integer.MIN_VALUE), true, new Chave(fim, Integer.MIN_VALUE), false);
+    }
+}
@@ -0,0 +1,171 @@
+package ifome.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * leitor do pedidos.bin (formato gravado pelo GravadorPedidosBinario).
+ *
+ * layout, tudo big-endian:
+ *   cabecalho: int MAGICO, short versao, int quantidade de pedidos, int quantidade de itens
+ *   dicionarios: emails, produtos, status, observacoes; cada um e um int com a
+ *                quantidade seguido de (int tamanho + bytes UTF-8) por entrada
+ *   pedidos: int numero, int segundos desde 1970 (sem sinal), int email do cliente,
+ *            int email do restaurante, byte status, double valor total, int quantidade de itens
+ *   itens: na ordem dos pedidos, int produto, int quantidade, double preco unitario, int observacao
+ *
+ * os campos de texto sao indices nos dicionarios, entao emails e nomes de produto
+ * aparecem uma vez so no arquivo e viram uma String so na memoria.
+ * pedidos e itens sao lidos por cursores separados, sem criar objeto por registro
+ */
+public class LeitorPedidosBinario {
+
+    static final int MAGICO = 0x49465042; // "IFPB"
+    static final short VERSAO = 1;
+    static final int TAMANHO_PEDIDO = 4 + 4 + 4 + 4 + 1 + 8 + 4;
+    static final int TAMANHO_ITEM = 4 + 4 + 8 + 4;
+
+    private final ByteBuffer dados;
+    private final int quantidadePedidos;
+    private final int quantidadeItens;
+    private final String[] emails;
+    private final String[] produtos;
+    private final String[] status;
+    private final String[] observacoes;
+
+    private int pedidoAtual = -1;
+    private int itemAtual = -1;
+    private final int inicioPedidos;
+    private final int inicioItens;
+
+    public LeitorPedidosBinario(ByteBuffer dados) throws IOException {
+        this.dados = dados.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (dados.getInt(0) != MAGICO) {
+                throw new IOException("Arquivo não é um pedidos.bin do iFome");
+            }
+            short versao = dados.getShort(4);
+            if (versao != VERSAO) {
+                throw new IOException("Versão " + versao + " do pedidos.bin não suportada (esperada " + VERSAO + ")");
+            }
+            quantidadePedidos = dados.getInt(6);
+            quantidadeItens = dados.getInt(10);
+            dados.position(14);
+            emails = lerDicionario();
+            produtos = lerDicionario();
+            status = lerDicionario();
+            observacoes = lerDicionario();
+            inicioPedidos = dados.position();
+            long fimPedidos = inicioPedidos + (long) quantidadePedidos * TAMANHO_PEDIDO;
+            if (quantidadePedidos < 0 || quantidadeItens < 0
+                    || fimPedidos + (long) quantidadeItens * TAMANHO_ITEM != dados.limit()) {
+                throw new IOException("pedidos.bin truncado ou corrompido");
+            }
+            inicioItens = (int) fimPedidos;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | java.nio.BufferUnderflowException e) {
+            throw new IOException("pedidos.bin truncado ou corrompido", e);
+        }
+    }
+
+    // mapeia o arquivo inteiro (o mapeamento continua valido depois de fechar o canal)
+    public static LeitorPedidosBinario abrir(File arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.READ)) {
+            return new LeitorPedidosBinario(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    private String[] lerDicionario() {
+        String[] entradas = new String[dados.getInt()];
+        for (int i = 0; i < entradas.length; i++) {
+            byte[] bytes = new byte[dados.getInt()];
+            dados.get(bytes);
+            entradas[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return entradas;
+    }
+
+    public int getQuantidadePedidos() {
+        return quantidadePedidos;
+    }
+
+    public int getQuantidadeItens() {
+        return quantidadeItens;
+    }
+
+    //cursor de pedidos
+
+    public boolean proximoPedido() {
+        if (pedidoAtual + 1 >= quantidadePedidos) {
+            return false;
+        }
+        pedidoAtual++;
+        return true;
+    }
+
+    private int pedido(int deslocamento) {
+        return inicioPedidos + pedidoAtual * TAMANHO_PEDIDO + deslocamento;
+    }
+
+    public int numero() {
+        return dados.getInt(pedido(0));
+    }
+
+    public long epochSegundos() {
+        return Integer.toUnsignedLong(dados.getInt(pedido(4)));
+    }
+
+    public String emailCliente() {
+        return emails[dados.getInt(pedido(8))];
+    }
+
+    public String emailRestaurante() {
+        return emails[dados.getInt(pedido(12))];
+    }
+
+    public String status() {
+        return status[dados.get(pedido(16)) & 0xff];
+    }
+
+    public double valorTotal() {
+        return dados.getDouble(pedido(17));
+    }
+
+    public int quantidadeItensDoPedido() {
+        return dados.getInt(pedido(25));
+    }
+
+    //cursor de itens, na mesma ordem dos pedidos
+
+    public boolean proximoItem() {
+        if (itemAtual + 1 >= quantidadeItens) {
+            return false;
+        }
+        itemAtual++;
+        return true;
+    }
+
+    private int item(int deslocamento) {
+        return inicioItens + itemAtual * TAMANHO_ITEM + deslocamento;
+    }
+
+    public String produto() {
+        return produtos[dados.getInt(item(0))];
+    }
+
+    public int quantidade() {
+        return dados.getInt(item(4));
+    }
+
+    public double precoUnitario() {
+        return dados.getDouble(item(8));
+    }
+
+    public String observacao() {
+        return observacoes[dados.getInt(item(16))];
+    }
+}
@@ -0,0 +1,530 @@
+package ifome.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * leitor dos arquivos "campo;campo;campo" do repositorio, um registro por linha.
+ * os campos nao viram String[]: o leitor guarda so o inicio e o fim de cada campo
+ * dentro do buffer e os acessores convertem direto de la (int, double, data, boolean).
+ * so texto() cria String, e so quando o loader realmente precisa dela.
+ *
+ * ';' dentro de um campo de texto e gravado como "\;" e '\' como "\\" (ver escapar()).
+ * funciona sobre um Reader (le em blocos, sem carregar o arquivo todo), sobre
+ * um char[] ja em memoria ou direto sobre os bytes UTF-8 de um ByteBuffer (ex: um
+ * pedaco de arquivo mapeado). separador, escape, digitos e datas sao ASCII, entao
+ * nos bytes o parse e o mesmo; so texto() precisa decodificar
+ */
+public class LeitorRegistros implements Registros {
+
+    private static final char SEPARADOR = ';';
+    private static final char ESCAPE = '\\';
+    private static final int TAMANHO_BLOCO = 64 * 1024;
+    private static final int MAX_CAMPOS_INICIAL = 16;
+
+    private final Reader origem;
+    private char[] buffer;
+    private final ByteBuffer bytes;  // != null: le dos bytes em vez do buffer de chars
+    private byte[] rascunho;         // texto() sobre bytes com escape
+    private int limite;          // quantos chars validos tem no buffer
+    private int posicao;         // inicio do proximo registro
+    private boolean fimOrigem;
+
+    // campos do registro atual: [inicioCampos[i], fimCampos[i]) dentro do buffer
+    private int[] inicioCampos;
+    private int[] fimCampos;
+    private boolean[] temEscape;
+    private int quantidadeCampos;
+
+    // a conversao de data pro fuso local so e refeita quando muda a hora
+    private final ZoneId fuso;
+    private long horaLocalCache = Long.MIN_VALUE;
+    private long deslocamentoCacheMs;
+
+    public LeitorRegistros(Reader origem) {
+        this(origem, null);
+        this.buffer = new char[TAMANHO_BLOCO];
+    }
+
+    private LeitorRegistros(Reader origem, ByteBuffer bytes) {
+        this.origem = origem;
+        this.bytes = bytes;
+        this.limite = 0;
+        this.posicao = 0;
+        this.fimOrigem = false;
+        this.inicioCampos = new int[MAX_CAMPOS_INICIAL];
+        this.fimCampos = new int[MAX_CAMPOS_INICIAL];
+        this.temEscape = new boolean[MAX_CAMPOS_INICIAL];
+        this.fuso = ZoneId.systemDefault();
+    }
+
+    // le de um conteudo que ja esta em memoria (ex: arquivo lido inteiro na carga paralela)
+    public LeitorRegistros(char[] conteudo, int tamanho) {
+        this(null, null);
+        this.buffer = conteudo;
+        this.limite = tamanho;
+        this.fimOrigem = true;
+    }
+
+    /**
+     * le os bytes UTF-8 de [0, limit) sem copiar nem decodificar o conteudo todo.
+     * usa leitura absoluta: a posicao do buffer nao muda
+     */
+    public LeitorRegistros(ByteBuffer conteudo) {
+        this(null, conteudo);
+        this.limite = conteudo.limit();
+        this.fimOrigem = true;
+    }
+
+    // um registro avulso, ex: os dados de uma linha do diario
+    public static LeitorRegistros deTexto(String texto) {
+        char[] conteudo = texto.toCharArray();
+        return new LeitorRegistros(conteudo, conteudo.length);
+    }
+
+    /**
+     * avanca pro proximo registro. linhas vazias sao puladas; uma ultima linha
+     * sem '\n' ainda conta como registro (igual ao readLine)
+     */
+    public boolean proximoRegistro() {
+        if (bytes != null) {
+            return proximoRegistroBytes();
+        }
+        while (true) {
+            int fimLinha = procurarFimLinha();
+            if (fimLinha < 0) {
+                return false;
+            }
+            int inicio = posicao;
+            posicao = fimLinha + 1;
+            int fim = fimLinha;
+            if (fim > inicio && em(fim - 1) == '\r') {
+                fim--;
+            }
+            if (fim > inicio) {
+                separarCampos(inicio, fim);
+                return true;
+            }
+        }
+    }
+
+    // nos bytes acha o fim da linha e separa os campos numa passada so
+    private boolean proximoRegistroBytes() {
+        while (posicao < limite) {
+            int inicio = posicao;
+            int inicioCampo = inicio;
+            boolean escape = false;
+            quantidadeCampos = 0;
+            int i = inicio;
+            for (; i < limite; i++) {
+                byte b = bytes.get(i);
+                if (b == '\n') {
+                    break;
+                } else if (b == SEPARADOR) {
+                    adicionarCampo(inicioCampo, i, escape);
+                    inicioCampo = i + 1;
+                    escape = false;
+                } else if (b == ESCAPE && i + 1 < limite && bytes.get(i + 1) != '\n') {
+                    escape = true;
+                    i++;
+                }
+            }
+            posicao = i + 1;
+            int fim = i;
+            if (fim > inicioCampo && bytes.get(fim - 1) == '\r') {
+                fim--;
+            }
+            if (fim > inicio) {
+                adicionarCampo(inicioCampo, fim, escape);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // indice do '\n' que termina o registro atual (ou do fim dos dados), lendo mais se precisar
+    private int procurarFimLinha() {
+        int busca = posicao;
+        while (true) {
+            if (bytes != null) {
+                for (int i = busca; i < limite; i++) {
+                    if (bytes.get(i) == '\n') {
+                        return i;
+                    }
+                }
+            } else {
+                for (int i = busca; i < limite; i++) {
+                    if (buffer[i] == '\n') {
+                        return i;
+                    }
+                }
+            }
+            busca = limite;
+            if (fimOrigem) {
+                // ultima linha sem quebra: o fim dos dados faz papel de quebra
+                return posicao < limite ? limite : -1;
+            }
+            busca -= posicao;
+            lerMais();
+        }
+    }
+
+    private void lerMais() {
+        // descarta o que ja foi consumido e, se a linha nao cabe, aumenta o buffer
+        if (posicao > 0) {
+            System.arraycopy(buffer, posicao, buffer, 0, limite - posicao);
+            limite -= posicao;
+            posicao = 0;
+        }
+        garantirEspaco(TAMANHO_BLOCO / 4);
+        try {
+            int lidos = origem.read(buffer, limite, buffer.length - limite);
+            if (lidos < 0) {
+                fimOrigem = true;
+            } else {
+                limite += lidos;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void garantirEspaco(int minimo) {
+        if (buffer.length - limite < minimo) {
+            char[] maior = new char[Math.max(buffer.length * 2, limite + minimo)];
+            System.arraycopy(buffer, 0, maior, 0, limite);
+            buffer = maior;
+        }
+    }
+
+    private void separarCampos(int inicio, int fim) {
+        quantidadeCampos = 0;
+        int inicioCampo = inicio;
+        boolean escape = false;
+        for (int i = inicio; i < fim; i++) {
+            char c = em(i);
+            if (c == ESCAPE && i + 1 < fim) {
+                escape = true;
+                i++; // o proximo char e literal, mesmo que seja ';'
+            } else if (c == SEPARADOR) {
+                adicionarCampo(inicioCampo, i, escape);
+                inicioCampo = i + 1;
+                escape = false;
+            }
+        }
+        adicionarCampo(inicioCampo, fim, escape);
+    }
+
+    private void adicionarCampo(int inicio, int fim, boolean escape) {
+        if (quantidadeCampos == inicioCampos.length) {
+            int novo = inicioCampos.length * 2;
+            inicioCampos = Arrays.copyOf(inicioCampos, novo);
+            fimCampos = Arrays.copyOf(fimCampos, novo);
+            temEscape = Arrays.copyOf(temEscape, novo);
+        }
+        inicioCampos[quantidadeCampos] = inicio;
+        fimCampos[quantidadeCampos] = fim;
+        temEscape[quantidadeCampos] = escape;
+        quantidadeCampos++;
+    }
+
+    //acessores do registro atual
+
+    // inclui campos vazios no fim da linha ("a;b;" tem 3 campos)
+    public int quantidadeCampos() {
+        return quantidadeCampos;
+    }
+
+    public boolean vazio(int campo) {
+        return campo >= quantidadeCampos || fimCampos[campo] == inicioCampos[campo];
+    }
+
+    public String texto(int campo) {
+        verificarCampo(campo);
+        int inicio = inicioCampos[campo];
+        int fim = fimCampos[campo];
+        if (bytes != null) {
+            return textoDosBytes(inicio, fim, temEscape[campo]);
+        }
+        if (!temEscape[campo]) {
+            return new String(buffer, inicio, fim - inicio);
+        }
+        StringBuilder sb = new StringBuilder(fim - inicio);
+        for (int i = inicio; i < fim; i++) {
+            char c = buffer[i];
+            if (c == ESCAPE && i + 1 < fim) {
+                i++;
+                c = buffer[i];
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // escape e sempre ASCII e nunca aparece no meio de um caractere UTF-8 multibyte
+    private String textoDosBytes(int inicio, int fim, boolean escape) {
+        if (rascunho == null || rascunho.length < fim - inicio) {
+            rascunho = new byte[Math.max(64, fim - inicio)];
+        }
+        if (!escape) {
+            bytes.get(inicio, rascunho, 0, fim - inicio);
+            return new String(rascunho, 0, fim - inicio, StandardCharsets.UTF_8);
+        }
+        int n = 0;
+        for (int i = inicio; i < fim; i++) {
+            byte b = bytes.get(i);
+            if (escape && b == ESCAPE && i + 1 < fim) {
+                i++;
+                b = bytes.get(i);
+            }
+            rascunho[n++] = b;
+        }
+        return new String(rascunho, 0, n, StandardCharsets.UTF_8);
+    }
+
+    // compara sem criar String (ex: tipo do produto, status)
+    public boolean textoIgual(int campo, String esperado) {
+        verificarCampo(campo);
+        if (temEscape[campo]) {
+            return texto(campo).equals(esperado);
+        }
+        int inicio = inicioCampos[campo];
+        int tamanho = fimCampos[campo] - inicio;
+        if (tamanho != esperado.length()) {
+            // nos bytes um acento ocupa mais de uma posicao
+            return bytes != null && !ascii(esperado) && texto(campo).equals(esperado);
+        }
+        for (int i = 0; i < tamanho; i++) {
+            char c = esperado.charAt(i);
+            if (bytes != null && c >= 0x80) {
+                return texto(campo).equals(esperado);
+            }
+            if (em(inicio + i) != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean ascii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // caractere na posicao i; nos bytes so faz sentido pra ASCII (separadores, digitos)
+    private char em(int i) {
+        return bytes != null ? (char) (bytes.get(i) & 0xff) : buffer[i];
+    }
+
+    public int inteiro(int campo) {
+        long valor = longo(campo);
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Inteiro fora do intervalo: \"" + texto(campo) + "\"");
+        }
+        return (int) valor;
+    }
+
+    public long longo(int campo) {
+        verificarCampo(campo);
+        int i = inicioCampos[campo];
+        int fim = fimCampos[campo];
+        if (i == fim) {
+            throw new NumberFormatException("Campo " + campo + " vazio");
+        }
+        boolean negativo = em(i) == '-';
+        if (negativo || em(i) == '+') {
+            i++;
+        }
+        if (i == fim) {
+            throw erroNumero(campo);
+        }
+        if (fim - i > 18) {
+            return Long.parseLong(texto(campo)); // pode estourar, a JDK confere
+        }
+        long valor = 0;
+        for (; i < fim; i++) {
+            int d = em(i) - '0';
+            if (d < 0 || d > 9) {
+                throw erroNumero(campo);
+            }
+            valor = valor * 10 + d;
+        }
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * decimal no formato que o Double.toString grava ("45.9", "1.0E7").
+     * o caminho rapido cobre ate 15 digitos sem expoente; o resto cai no parseDouble
+     */
+    public double decimal(int campo) {
+        verificarCampo(campo);
+        int i = inicioCampos[campo];
+        int fim = fimCampos[campo];
+        if (i == fim) {
+            throw new NumberFormatException("Campo " + campo + " vazio");
+        }
+        boolean negativo = em(i) == '-';
+        if (negativo || em(i) == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digitos = 0;
+        int casasDecimais = 0;
+        boolean ponto = false;
+        boolean algumDigito = false;
+        for (; i < fim; i++) {
+            char c = em(i);
+            if (c >= '0' && c <= '9') {
+                algumDigito = true;
+                if (mantissa != 0 || c != '0') {
+                    digitos++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (ponto) {
+                    casasDecimais++;
+                }
+            } else if (c == '.' && !ponto) {
+                ponto = true;
+            } else {
+                // expoente, NaN, Infinity...: raro, deixa com a JDK
+                return Double.parseDouble(texto(campo));
+            }
+        }
+        if (!algumDigito) {
+            throw erroNumero(campo);
+        }
+        if (digitos > 15 || casasDecimais > 22) {
+            return Double.parseDouble(texto(campo));
+        }
+        // mantissa exata (<= 15 digitos) dividida por potencia de 10 exata: mesmo resultado do parseDouble
+        double valor = casasDecimais == 0 ? mantissa : mantissa / POTENCIAS_10[casasDecimais];
+        return negativo ? -valor : valor;
+    }
+
+    private static final double[] POTENCIAS_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // mesma regra do Boolean.parseBoolean: so "true" (sem diferenciar maiusculas) e verdadeiro
+    public boolean booleano(int campo) {
+        verificarCampo(campo);
+        int inicio = inicioCampos[campo];
+        if (fimCampos[campo] - inicio != 4) {
+            return false;
+        }
+        return (em(inicio) | 0x20) == 't' && (em(inicio + 1) | 0x20) == 'r'
+            && (em(inicio + 2) | 0x20) == 'u' && (em(inicio + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * "yyyy-MM-dd HH:mm:ss" no fuso local -> epoch millis, o formato do dateFormat
+     * do repositorio. o deslocamento do fuso fica em cache por hora local
+     */
+    public long dataHora(int campo) {
+        verificarCampo(campo);
+        int i = inicioCampos[campo];
+        if (fimCampos[campo] - i != 19 || em(i + 4) != '-' || em(i + 7) != '-'
+                || em(i + 10) != ' ' || em(i + 13) != ':' || em(i + 16) != ':') {
+            throw new IllegalArgumentException("Data inválida: \"" + texto(campo) + "\"");
+        }
+        int ano = digitos(campo, i, 4);
+        int mes = digitos(campo, i + 5, 2);
+        int dia = digitos(campo, i + 8, 2);
+        int hora = digitos(campo, i + 11, 2);
+        int minuto = digitos(campo, i + 14, 2);
+        int segundo = digitos(campo, i + 17, 2);
+        if (mes < 1 || mes > 12 || dia < 1 || dia > 31 || hora > 23 || minuto > 59 || segundo > 59) {
+            throw new IllegalArgumentException("Data inválida: \"" + texto(campo) + "\"");
+        }
+
+        long horaLocal = diasDesdeEpoch(ano, mes, dia) * 24 + hora;
+        if (horaLocal != horaLocalCache) {
+            LocalDateTime inicioHora = LocalDateTime.of(ano, mes, dia, hora, 0);
+            long utc = inicioHora.atZone(fuso).toInstant().toEpochMilli();
+            deslocamentoCacheMs = horaLocal * 3_600_000L - utc;
+            horaLocalCache = horaLocal;
+        }
+        return horaLocal * 3_600_000L + minuto * 60_000L + segundo * 1000L - deslocamentoCacheMs;
+    }
+
+    private int digitos(int campo, int inicio, int quantidade) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            int d = em(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new IllegalArgumentException("Data inválida: \"" + texto(campo) + "\"");
+            }
+            valor = valor * 10 + d;
+        }
+        return valor;
+    }
+
+    // dias desde 1970-01-01 no calendario gregoriano (algoritmo de Howard Hinnant)
+    private static long diasDesdeEpoch(int ano, int mes, int dia) {
+        long a = mes <= 2 ? ano - 1 : ano;
+        long era = (a >= 0 ? a : a - 399) / 400;
+        long anoDaEra = a - era * 400;
+        long diaDoAno = (153 * (mes + (mes > 2 ? -3 : 9)) + 2) / 5 + dia - 1;
+        long diaDaEra = anoDaEra * 365 + anoDaEra / 4 - anoDaEra / 100 + diaDoAno;
+        return era * 146097 + diaDaEra - 719468;
+    }
+
+    private void verificarCampo(int campo) {
+        if (campo < 0 || campo >= quantidadeCampos) {
+            throw new ArrayIndexOutOfBoundsException("Campo " + campo + " inexistente (registro com " +
+                                                     quantidadeCampos + " campos)");
+        }
+    }
+
+    private NumberFormatException erroNumero(int campo) {
+        return new NumberFormatException("Número inválido: \"" + texto(campo) + "\"");
+    }
+
+    // texto do registro atual, para mensagens de erro
+    public String registroAtual() {
+        if (quantidadeCampos == 0) return "";
+        int inicio = inicioCampos[0];
+        int fim = fimCampos[quantidadeCampos - 1];
+        return bytes != null ? textoDosBytes(inicio, fim, false) : new String(buffer, inicio, fim - inicio);
+    }
+
+    /**
+     * prepara um campo de texto pra gravacao: '\' vira "\\" e ';' vira "\;".
+     * quebras de linha viram espaco, senao partiriam o registro em dois
+     */
+    public static String escapar(String texto) {
+        if (texto == null) {
+            return "null";
+        }
+        boolean precisa = false;
+        for (int i = 0; i < texto.length() && !precisa; i++) {
+            char c = texto.charAt(i);
+            precisa = c == SEPARADOR || c == ESCAPE || c == '\n' || c == '\r';
+        }
+        if (!precisa) {
+            return texto;
+        }
+        StringBuilder sb = new StringBuilder(texto.length() + 8);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == SEPARADOR || c == ESCAPE) {
+                sb.append(ESCAPE);
+            } else if (c == '\n' || c == '\r') {
+                c = ' ';
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package ifome.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * lista com leitura sem copia: visao() devolve uma foto imutavel que so e refeita
+ * depois de uma alteracao, entao leituras repetidas (telas, lacos, estatisticas)
+ * nao alocam nada e quem esta percorrendo a foto nunca ve uma escrita no meio.
+ * a copia acontece uma vez por versao, na primeira leitura depois da escrita.
+ * as escritas sao serializadas na propria lista; a versao sobe a cada uma e
+ * serve pra quem quiser saber se algo mudou desde a ultima vez que olhou
+ */
+public final class ListaVersionada<E> implements Iterable<E> {
+
+    private final ArrayList<E> elementos;
+    private volatile List<E> visao; // null = precisa refazer
+    private volatile long versao;
+
+    public ListaVersionada() {
+        this.elementos = new ArrayList<>();
+    }
+
+    public ListaVersionada(Collection<? extends E> iniciais) {
+        this.elementos = new ArrayList<>(iniciais);
+    }
+
+    // foto imutavel do conteudo atual
+    public List<E> visao() {
+        List<E> atual = visao;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (visao == null) {
+                visao = elementos.isEmpty() ? Collections.emptyList()
+                                            : Collections.unmodifiableList(new ArrayList<>(elementos));
+            }
+            return visao;
+        }
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    private void alterada() {
+        visao = null;
+        versao++;
+    }
+
+    public synchronized boolean add(E elemento) {
+        elementos.add(elemento);
+        alterada();
+        return true;
+    }
+
+    public synchronized void add(int indice, E elemento) {
+        elementos.add(indice, elemento);
+        alterada();
+    }
+
+    public synchronized boolean addAll(Collection<? extends E> novos) {
+        if (novos.isEmpty()) {
+            return false;
+        }
+        elementos.addAll(novos);
+        alterada();
+        return true;
+    }
+
+    public synchronized E set(int indice, E elemento) {
+        E anterior = elementos.set(indice, elemento);
+        alterada();
+        return anterior;
+    }
+
+    public synchronized boolean remove(Object elemento) {
+        if (!elementos.remove(elemento)) {
+            return false;
+        }
+        alterada();
+        return true;
+    }
+
+    public synchronized E remove(int indice) {
+        E removido = elementos.remove(indice);
+        alterada();
+        return removido;
+    }
+
+    public synchronized boolean removeIf(Predicate<? super E> filtro) {
+        if (!elementos.removeIf(filtro)) {
+            return false;
+        }
+        alterada();
+        return true;
+    }
+
+    public synchronized void sort(Comparator<? super E> ordem) {
+        elementos.sort(ordem);
+        alterada();
+    }
+
+    public synchronized void clear() {
+        if (elementos.isEmpty()) {
+            return;
+        }
+        elementos.clear();
+        alterada();
+    }
+
+    public synchronized int size() {
+        return elementos.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return elementos.isEmpty();
+    }
+
+    public synchronized boolean contains(Object elemento) {
+        return elementos.contains(elemento);
+    }
+
+    public synchronized E get(int indice) {
+        return elementos.get(indice);
+    }
+
+    public synchronized int indexOf(Object elemento) {
+        return elementos.indexOf(elemento);
+    }
+
+    // percorre a foto, nao a lista viva
+    @Override
+    public Iterator<E> iterator() {
+        return visao().iterator();
+    }
+}
@@ -0,0 +1,113 @@
+package ifome.util;
+
+import ifome.model.Cliente;
+import ifome.model.Pedido;
+import ifome.model.Restaurante;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * como uma assinatura do barramento recebe os eventos, montado em cadeia:
+ * new OpcoesAssinatura().doCliente(c).capacidade(64).politica(PoliticaTransbordo.DESCARTAR_ANTIGOS).janela(150)
+ */
+public class OpcoesAssinatura {
+
+    private static final int CAPACIDADE_PADRAO = 256;
+    private static final int LOTE_PADRAO = 64;
+    private static final long ESPERA_PADRAO_MS = 50;
+
+    private String nome = "assinante";
+    private Set<TipoEventoPedido> tipos = EnumSet.allOf(TipoEventoPedido.class);
+    private Predicate<Pedido> filtro;
+    private int capacidade = CAPACIDADE_PADRAO;
+    private PoliticaTransbordo politica = PoliticaTransbordo.DESCARTAR_ANTIGOS;
+    private int tamanhoLote = LOTE_PADRAO;
+    private long janelaMs;
+    private long esperaMaximaMs = ESPERA_PADRAO_MS;
+
+    // aparece nas mensagens e no nome da assinatura
+    public OpcoesAssinatura nome(String nome) {
+        this.nome = nome != null ? nome : "assinante";
+        return this;
+    }
+
+    public OpcoesAssinatura tipos(TipoEventoPedido... tipos) {
+        this.tipos = tipos.length == 0 ? EnumSet.noneOf(TipoEventoPedido.class)
+                                       : EnumSet.copyOf(Arrays.asList(tipos));
+        return this;
+    }
+
+    public OpcoesAssinatura tipos(Set<TipoEventoPedido> tipos) {
+        this.tipos = tipos.isEmpty() ? EnumSet.noneOf(TipoEventoPedido.class) : EnumSet.copyOf(tipos);
+        return this;
+    }
+
+    // filtra na publicacao: o que nao passa nem entra na fila do assinante
+    public OpcoesAssinatura filtro(Predicate<Pedido> filtro) {
+        this.filtro = this.filtro == null ? filtro : this.filtro.and(filtro);
+        return this;
+    }
+
+    // pelo email, igual as buscas do repositorio (o objeto pode ser outro depois de recarregar)
+    public OpcoesAssinatura doCliente(Cliente cliente) {
+        String email = cliente.getEmail();
+        return filtro(p -> p.getCliente() != null && Objects.equals(p.getCliente().getEmail(), email));
+    }
+
+    public OpcoesAssinatura doRestaurante(Restaurante restaurante) {
+        String email = restaurante.getEmail();
+        return filtro(p -> p.getRestaurante() != null && Objects.equals(p.getRestaurante().getEmail(), email));
+    }
+
+    // quantos eventos esperam na fila do assinante antes da politica de transbordo entrar
+    public OpcoesAssinatura capacidade(int capacidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("Capacidade da assinatura deve ser positiva: " + capacidade);
+        }
+        this.capacidade = capacidade;
+        return this;
+    }
+
+    public OpcoesAssinatura politica(PoliticaTransbordo politica) {
+        this.politica = Objects.requireNonNull(politica);
+        return this;
+    }
+
+    // no maximo quantos eventos vao num receber
+    public OpcoesAssinatura lote(int tamanhoLote) {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser positivo: " + tamanhoLote);
+        }
+        this.tamanhoLote = tamanhoLote;
+        return this;
+    }
+
+    // espera depois do primeiro evento pra juntar os que chegarem no lote; 0 entrega na hora
+    public OpcoesAssinatura janela(long janelaMs) {
+        this.janelaMs = Math.max(0, janelaMs);
+        return this;
+    }
+
+    // so pra PoliticaTransbordo.ESPERAR
+    public OpcoesAssinatura esperaMaxima(long esperaMs) {
+        this.esperaMaximaMs = Math.max(0, esperaMs);
+        return this;
+    }
+
+    // o que a assinatura aceita, com os tipos e o filtro de agora (tipos(...) troca o conjunto, nao mexe nele)
+    Predicate<EventoPedido> criterio() {
+        Set<TipoEventoPedido> aceitos = tipos;
+        Predicate<Pedido> doPedido = filtro;
+        return evento -> aceitos.contains(evento.getTipo()) && (doPedido == null || doPedido.test(evento.getPedido()));
+    }
+
+    String getNome() { return nome; }
+    int getCapacidade() { return capacidade; }
+    PoliticaTransbordo getPolitica() { return politica; }
+    int getTamanhoLote() { return tamanhoLote; }
+    long getJanelaMs() { return janelaMs; }
+    long getEsperaMaximaMs() { return esperaMaximaMs; }
+}
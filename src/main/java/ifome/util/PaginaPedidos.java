@@ -0,0 +1,42 @@
+package ifome.util;
+
+import ifome.model.Pedido;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * uma pagina da listagem de pedidos por periodo. o cursor e opaco pra quem usa
+ * ("data:numero" do ultimo pedido da pagina): e so devolver ele na proxima chamada.
+ * null quando nao tem mais nada depois desta pagina
+ */
+public class PaginaPedidos {
+
+    private final List<Pedido> pedidos;
+    private final String proximoCursor;
+
+    PaginaPedidos(List<Pedido> pedidos, IndiceTemporalPedidos.Chave ultima) {
+        this.pedidos = Collections.unmodifiableList(pedidos);
+        this.proximoCursor = ultima == null ? null : ultima.dataHora + ":" + ultima.numero;
+    }
+
+    public List<Pedido> getPedidos() { return pedidos; }
+    public String getProximoCursor() { return proximoCursor; }
+    public boolean temProxima() { return proximoCursor != null; }
+
+    // null = primeira pagina
+    static IndiceTemporalPedidos.Chave lerCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        int separador = cursor.indexOf(':');
+        try {
+            if (separador < 0) {
+                throw new NumberFormatException();
+            }
+            return new IndiceTemporalPedidos.Chave(Long.parseLong(cursor.substring(0, separador)),
+                                                   Integer.parseInt(cursor.substring(separador + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package ifome.util;
+
+import ifome.model.ItemPedido;
+import ifome.model.Pedido;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * segmento frio: pedidos finalizados (Entregue/Cancelado) antigos que sairam da memoria.
+ * ficam em dois arquivos so de acrescimo, no mesmo formato de linha dos conjuntos
+ * (pedidos_frios.txt e itens_pedido_frios.txt), e num indice binario (pedidos_frios.idx)
+ * com a posicao de cada pedido e dos itens dele. na memoria fica so o indice, o
+ * repositorio le e monta o Pedido quando alguem pede (historico antigo, estatisticas).
+ *
+ * como o diario, o segmento e um arquivo no diretorio de dados qualquer que seja o
+ * armazenamento. a gravacao e: linhas nos .txt, fsync, entrada no .idx, fsync.
+ * o que estiver depois da ultima entrada completa do .idx e de uma gravacao
+ * interrompida e cortado na abertura
+ *
+ * quando os .txt passam de ifome.pedidos.selarBytes (padrao 1 MB) os pedidos deles
+ * sao selados: vao comprimidos pro pedidos_frios.arq (BlocosCompactados, blocos de
+ * ~ifome.pedidos.blocoBytes, padrao 8 KB), o .idx e regravado apontando pros blocos
+ * e os .txt voltam a zero. pedido finalizado nao muda mais, entao o bloco nunca e regravado
+ *
+ * entrada do .idx (big-endian): int numero, long data (ms), long bloco no .arq (-1 nos .txt),
+ * long posicao do pedido, int tamanho do pedido, long posicao dos itens, int tamanho dos
+ * itens, UTF email do cliente, UTF email do restaurante. a versao 1 nao tinha o bloco
+ * e e convertida na abertura
+ */
+public class PedidosFrios {
+
+    static final String ARQUIVO_PEDIDOS = "pedidos_frios.txt";
+    static final String ARQUIVO_ITENS = "itens_pedido_frios.txt";
+    static final String ARQUIVO_INDICE = "pedidos_frios.idx";
+    static final String ARQUIVO_SELADOS = "pedidos_frios.arq";
+    private static final int MAGICO = 0x49465046; // "IFPF"
+    private static final short VERSAO = 2;
+    private static final int TAMANHO_CABECALHO = 4 + 2;
+    static final long LIMITE_SELAGEM_PADRAO = 1024 * 1024;
+    static final int TAMANHO_BLOCO_PADRAO = 8 * 1024;
+
+    private final File arquivoPedidos;
+    private final File arquivoItens;
+    private final File arquivoIndice;
+    private final boolean fsync;
+    private final BlocosCompactados selados;
+    private final long limiteSelagem;
+    // leitores (ler) x selagem, que troca as posicoes das entradas e zera os .txt
+    private final ReadWriteLock arquivos = new ReentrantReadWriteLock();
+
+    // onde estao as linhas do pedido e dos itens dele: nos .txt ou num bloco do .arq
+    private static class Entrada {
+        final int numero;
+        final long dataHora;
+        long bloco; // -1 enquanto esta nos .txt
+        final long posicaoPedido;
+        final int tamanhoPedido;
+        final long posicaoItens;
+        final int tamanhoItens;
+        final String emailCliente;
+        final String emailRestaurante;
+
+        Entrada(int numero, long dataHora, long bloco, long posicaoPedido, int tamanhoPedido,
+                long posicaoItens, int tamanhoItens, String emailCliente, String emailRestaurante) {
+            this.numero = numero;
+            this.dataHora = dataHora;
+            this.bloco = bloco;
+            this.posicaoPedido = posicaoPedido;
+            this.tamanhoPedido = tamanhoPedido;
+            this.posicaoItens = posicaoItens;
+            this.tamanhoItens = tamanhoItens;
+            this.emailCliente = emailCliente;
+            this.emailRestaurante = emailRestaurante;
+        }
+
+        boolean selada() {
+            return bloco >= 0;
+        }
+    }
+
+    // pedido lido do segmento, nos mesmos campos do pedidos.txt / itens_pedido.txt
+    static class Lido {
+        final int numero;
+        final Registros pedido;
+        final Registros itens;
+
+        Lido(int numero, Registros pedido, Registros itens) {
+            this.numero = numero;
+            this.pedido = pedido;
+            this.itens = itens;
+        }
+    }
+
+    private final Map<Integer, Entrada> porNumero = new HashMap<>();
+    // na ordem de acrescimo, que e a ordem das entradas no .idx
+    private final List<Entrada> entradas = new ArrayList<>();
+    private final Map<String, List<Entrada>> porCliente = new HashMap<>();
+    private final Map<String, List<Entrada>> porRestaurante = new HashMap<>();
+    private long fimPedidos;
+    private long fimItens;
+    private long fimIndice;
+    private long fimSelados;
+    private long ultimoBloco;
+    private int quantidadeSelada;
+    private int maiorNumero;
+
+    public PedidosFrios(File diretorio, boolean fsync) {
+        this(diretorio, fsync, LIMITE_SELAGEM_PADRAO, TAMANHO_BLOCO_PADRAO);
+    }
+
+    public PedidosFrios(File diretorio, boolean fsync, long limiteSelagem, int tamanhoBloco) {
+        this.arquivoPedidos = new File(diretorio, ARQUIVO_PEDIDOS);
+        this.arquivoItens = new File(diretorio, ARQUIVO_ITENS);
+        this.arquivoIndice = new File(diretorio, ARQUIVO_INDICE);
+        this.fsync = fsync;
+        this.selados = new BlocosCompactados(new File(diretorio, ARQUIVO_SELADOS), fsync, tamanhoBloco);
+        this.limiteSelagem = limiteSelagem;
+    }
+
+    // -Difome.pedidos.selarBytes (0 = sela a cada acrescimo), -Difome.pedidos.blocoBytes
+    public static PedidosFrios comConfiguracaoPadrao(File diretorio) {
+        return new PedidosFrios(diretorio, Boolean.parseBoolean(System.getProperty("ifome.fsync", "true")),
+            Long.getLong("ifome.pedidos.selarBytes", LIMITE_SELAGEM_PADRAO),
+            Integer.getInteger("ifome.pedidos.blocoBytes", TAMANHO_BLOCO_PADRAO));
+    }
+
+    /**
+     * le o indice pra memoria e corta o que sobrou de uma gravacao interrompida.
+     * entradas que apontam alem do fim dos .txt (fsync desligado e queda) sao descartadas
+     */
+    public synchronized void abrir() throws IOException {
+        porNumero.clear();
+        entradas.clear();
+        porCliente.clear();
+        porRestaurante.clear();
+        fimPedidos = 0;
+        fimItens = 0;
+        fimIndice = 0;
+        fimSelados = 0;
+        ultimoBloco = -1;
+        quantidadeSelada = 0;
+        maiorNumero = 0;
+        if (!arquivoIndice.isFile() || arquivoIndice.length() < TAMANHO_CABECALHO) {
+            // sem indice os .txt e o .arq nao tem nada referenciado
+            cortar(arquivoPedidos, 0);
+            cortar(arquivoItens, 0);
+            cortar(selados.getArquivo(), 0);
+            cortar(arquivoIndice, 0);
+            return;
+        }
+
+        selados.validar();
+        long tamanhoPedidos = arquivoPedidos.length();
+        long tamanhoItens = arquivoItens.length();
+        long tamanhoSelados = selados.getArquivo().length();
+        int descartadas = 0;
+        short versao;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(arquivoIndice)))) {
+            if (in.readInt() != MAGICO) {
+                throw new IOException(ARQUIVO_INDICE + " não é um índice de pedidos frios");
+            }
+            versao = in.readShort();
+            if (versao != 1 && versao != VERSAO) {
+                throw new IOException("Versão " + versao + " do " + ARQUIVO_INDICE + " não suportada");
+            }
+            fimIndice = TAMANHO_CABECALHO;
+            while (true) {
+                Entrada entrada;
+                try {
+                    entrada = new Entrada(in.readInt(), in.readLong(), versao == 1 ? -1 : in.readLong(),
+                                          in.readLong(), in.readInt(), in.readLong(), in.readInt(),
+                                          in.readUTF(), in.readUTF());
+                } catch (EOFException e) {
+                    break; // fim ou entrada pela metade
+                }
+                boolean gravada = entrada.selada()
+                    ? entrada.bloco < tamanhoSelados
+                    : entrada.posicaoPedido + entrada.tamanhoPedido <= tamanhoPedidos
+                      && entrada.posicaoItens + entrada.tamanhoItens <= tamanhoItens;
+                if (!gravada) {
+                    descartadas++;
+                    break; // daqui pra frente nada foi gravado por inteiro
+                }
+                fimIndice += tamanhoEntrada(entrada);
+                incluir(entrada);
+            }
+        }
+        if (descartadas > 0) {
+            System.err.println(">>> Índice de pedidos frios aponta além dos dados; entradas finais descartadas.");
+        }
+        if (ultimoBloco >= 0) {
+            try (FileChannel canal = FileChannel.open(selados.getArquivo().toPath(), StandardOpenOption.READ)) {
+                fimSelados = selados.fimDoBloco(canal, ultimoBloco);
+            }
+            if (fimSelados > tamanhoSelados) {
+                throw new IOException(ARQUIVO_SELADOS + " truncado");
+            }
+        }
+        cortar(arquivoIndice, fimIndice);
+        cortar(arquivoPedidos, fimPedidos);
+        cortar(arquivoItens, fimItens);
+        cortar(selados.getArquivo(), fimSelados);
+        if (versao != VERSAO) {
+            reescreverIndice();
+        }
+    }
+
+    private static int tamanhoEntrada(Entrada entrada) {
+        return 4 + 8 + 8 + 8 + 4 + 8 + 4 + tamanhoUtf(entrada.emailCliente) + tamanhoUtf(entrada.emailRestaurante);
+    }
+
+    private static int tamanhoUtf(String texto) {
+        // readUTF/writeUTF: short com o tamanho + UTF-8 modificado (so difere no \0 e fora do BMP)
+        int bytes = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            bytes += (c >= 0x0001 && c <= 0x007F) ? 1 : (c <= 0x07FF ? 2 : 3);
+        }
+        return 2 + bytes;
+    }
+
+    private static void cortar(File arquivo, long tamanho) throws IOException {
+        if (arquivo.isFile() && arquivo.length() > tamanho) {
+            try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.WRITE)) {
+                canal.truncate(tamanho);
+            }
+        }
+    }
+
+    private void incluir(Entrada entrada) {
+        porNumero.put(entrada.numero, entrada);
+        entradas.add(entrada);
+        porCliente.computeIfAbsent(entrada.emailCliente, e -> new ArrayList<>()).add(entrada);
+        porRestaurante.computeIfAbsent(entrada.emailRestaurante, e -> new ArrayList<>()).add(entrada);
+        if (entrada.selada()) {
+            ultimoBloco = Math.max(ultimoBloco, entrada.bloco);
+            quantidadeSelada++;
+        } else {
+            fimPedidos = Math.max(fimPedidos, entrada.posicaoPedido + entrada.tamanhoPedido);
+            fimItens = Math.max(fimItens, entrada.posicaoItens + entrada.tamanhoItens);
+        }
+        maiorNumero = Math.max(maiorNumero, entrada.numero);
+    }
+
+    private static void gravarEntrada(DataOutputStream indice, Entrada entrada) throws IOException {
+        indice.writeInt(entrada.numero);
+        indice.writeLong(entrada.dataHora);
+        indice.writeLong(entrada.bloco);
+        indice.writeLong(entrada.posicaoPedido);
+        indice.writeInt(entrada.tamanhoPedido);
+        indice.writeLong(entrada.posicaoItens);
+        indice.writeInt(entrada.tamanhoItens);
+        indice.writeUTF(entrada.emailCliente);
+        indice.writeUTF(entrada.emailRestaurante);
+    }
+
+    // troca o .idx inteiro (temporario + rename) com as entradas como estao agora
+    private void reescreverIndice() throws IOException {
+        EscritaAtomica escrita = new EscritaAtomica(fsync);
+        long tamanho;
+        try (FileOutputStream out = escrita.criarTemporario(arquivoIndice)) {
+            DataOutputStream indice = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            indice.writeInt(MAGICO);
+            indice.writeShort(VERSAO);
+            for (Entrada entrada : entradas) {
+                gravarEntrada(indice, entrada);
+            }
+            indice.flush();
+            tamanho = indice.size();
+        }
+        escrita.confirmar();
+        fimIndice = tamanho;
+    }
+
+    /**
+     * acrescenta os pedidos (com itens) no segmento. os pedidos precisam ter cliente e
+     * restaurante; numeros que ja estao no segmento sao ignorados.
+     * so depois do fsync das linhas a entrada vai pro indice, entao uma queda aqui no
+     * meio deixa o pedido no segmento inteiro ou nao deixa
+     */
+    public synchronized void anexar(List<Pedido> pedidosFrios) throws IOException {
+        List<Pedido> novos = new ArrayList<>();
+        for (Pedido p : pedidosFrios) {
+            if (!porNumero.containsKey(p.getNumeroPedido())) {
+                novos.add(p);
+            }
+        }
+        if (novos.isEmpty()) {
+            return;
+        }
+        // sobra de uma tentativa que falhou nesta mesma execucao
+        cortar(arquivoPedidos, fimPedidos);
+        cortar(arquivoItens, fimItens);
+        cortar(arquivoIndice, fimIndice);
+
+        List<Entrada> novas = new ArrayList<>(novos.size());
+        long posicaoPedido = fimPedidos;
+        long posicaoItens = fimItens;
+        try (FileOutputStream pedidosOut = new FileOutputStream(arquivoPedidos, true);
+             FileOutputStream itensOut = new FileOutputStream(arquivoItens, true)) {
+            OutputStream pedidos = new BufferedOutputStream(pedidosOut, 64 * 1024);
+            OutputStream itens = new BufferedOutputStream(itensOut, 64 * 1024);
+            for (Pedido p : novos) {
+                byte[] linhaPedido = RepositorioRestaurantes.camposPedido(new GravadorTexto(), p)
+                    .linha().concat("\n").getBytes(StandardCharsets.UTF_8);
+                pedidos.write(linhaPedido);
+                int tamanhoItens = 0;
+                for (ItemPedido item : p.getItens()) {
+                    byte[] linhaItem = RepositorioRestaurantes.camposItemPedido(new GravadorTexto(), p, item)
+                        .linha().concat("\n").getBytes(StandardCharsets.UTF_8);
+                    itens.write(linhaItem);
+                    tamanhoItens += linhaItem.length;
+                }
+                novas.add(new Entrada(p.getNumeroPedido(), p.getDataHora().getTime(), -1,
+                                      posicaoPedido, linhaPedido.length, posicaoItens, tamanhoItens,
+                                      p.getCliente().getEmail(), p.getRestaurante().getEmail()));
+                posicaoPedido += linhaPedido.length;
+                posicaoItens += tamanhoItens;
+            }
+            pedidos.flush();
+            itens.flush();
+            if (fsync) {
+                pedidosOut.getFD().sync();
+                itensOut.getFD().sync();
+            }
+        }
+
+        boolean novoIndice = fimIndice == 0;
+        long bytesIndice = 0;
+        try (FileOutputStream indiceOut = new FileOutputStream(arquivoIndice, true)) {
+            DataOutputStream indice = new DataOutputStream(new BufferedOutputStream(indiceOut, 64 * 1024));
+            if (novoIndice) {
+                indice.writeInt(MAGICO);
+                indice.writeShort(VERSAO);
+            }
+            for (Entrada entrada : novas) {
+                gravarEntrada(indice, entrada);
+            }
+            indice.flush();
+            bytesIndice = indice.size();
+            if (fsync) {
+                indiceOut.getFD().sync();
+            }
+        }
+
+        fimIndice += bytesIndice;
+        for (Entrada entrada : novas) {
+            incluir(entrada);
+        }
+    }
+
+    // os .txt ja passaram do limite de selagem
+    public synchronized boolean precisaSelar() {
+        long bytesTexto = fimPedidos + fimItens;
+        return bytesTexto > 0 && bytesTexto >= limiteSelagem;
+    }
+
+    /**
+     * comprime os pedidos que estao nos .txt em blocos no fim do .arq (com fsync),
+     * regrava o .idx apontando pra eles e so entao zera os .txt. se cair antes do
+     * rename do .idx, os blocos novos nao sao referenciados e saem na abertura;
+     * depois dele, os .txt nao sao mais referenciados e tambem saem
+     */
+    public void selar() throws IOException {
+        arquivos.writeLock().lock();
+        try {
+            synchronized (this) {
+                List<Entrada> aSelar = new ArrayList<>();
+                for (Entrada entrada : entradas) {
+                    if (!entrada.selada()) {
+                        aSelar.add(entrada);
+                    }
+                }
+                if (aSelar.isEmpty()) {
+                    return;
+                }
+                List<BlocosCompactados.Registro> registros = new ArrayList<>(aSelar.size());
+                try (FileChannel pedidos = FileChannel.open(arquivoPedidos.toPath(), StandardOpenOption.READ);
+                     FileChannel itens = FileChannel.open(arquivoItens.toPath(), StandardOpenOption.READ)) {
+                    for (Entrada entrada : aSelar) {
+                        registros.add(new BlocosCompactados.Registro(entrada.numero,
+                            lerTrecho(pedidos, entrada.posicaoPedido, entrada.tamanhoPedido).array(),
+                            lerTrecho(itens, entrada.posicaoItens, entrada.tamanhoItens).array()));
+                    }
+                }
+                long[] blocos = selados.anexar(registros, fimSelados);
+
+                long bytesTexto = fimPedidos + fimItens;
+                for (int i = 0; i < aSelar.size(); i++) {
+                    aSelar.get(i).bloco = blocos[i];
+                }
+                try {
+                    reescreverIndice();
+                } catch (IOException e) {
+                    for (Entrada entrada : aSelar) {
+                        entrada.bloco = -1;
+                    }
+                    throw e;
+                }
+                fimSelados = selados.getArquivo().length();
+                ultimoBloco = Math.max(ultimoBloco, blocos[blocos.length - 1]);
+                quantidadeSelada += aSelar.size();
+                fimPedidos = 0;
+                fimItens = 0;
+                cortar(arquivoPedidos, 0);
+                cortar(arquivoItens, 0);
+                System.out.println(">>> " + aSelar.size() + " pedidos frios selados: " + bytesTexto
+                                   + " bytes de texto -> " + fimSelados + " bytes comprimidos no total");
+            }
+        } finally {
+            arquivos.writeLock().unlock();
+        }
+    }
+
+    public synchronized boolean contem(int numero) {
+        return porNumero.containsKey(numero);
+    }
+
+    public synchronized int getQuantidade() {
+        return porNumero.size();
+    }
+
+    public synchronized int getQuantidadeDoCliente(String email) {
+        List<Entrada> entradas = porCliente.get(email);
+        return entradas == null ? 0 : entradas.size();
+    }
+
+    public synchronized int getQuantidadeDoRestaurante(String email) {
+        List<Entrada> entradas = porRestaurante.get(email);
+        return entradas == null ? 0 : entradas.size();
+    }
+
+    // quantos pedidos ja estao nos blocos comprimidos
+    public synchronized int getQuantidadeSelada() {
+        return quantidadeSelada;
+    }
+
+    public synchronized int getMaiorNumero() {
+        return maiorNumero;
+    }
+
+    // bytes no disco (.txt + .arq + indice)
+    public synchronized long getTamanhoBytes() {
+        return fimPedidos + fimItens + fimSelados + fimIndice;
+    }
+
+    // numeros do cliente, do mais recente pro mais antigo, a partir de "inicio"
+    public synchronized List<Integer> numerosDoCliente(String email, int inicio, int quantidade) {
+        List<Entrada> entradas = ordenadasPorData(porCliente.get(email));
+        List<Integer> numeros = new ArrayList<>();
+        for (int i = entradas.size() - 1 - inicio; i >= 0 && numeros.size() < quantidade; i--) {
+            numeros.add(entradas.get(i).numero);
+        }
+        return numeros;
+    }
+
+    public synchronized List<Integer> numerosDoRestaurante(String email) {
+        List<Integer> numeros = new ArrayList<>();
+        for (Entrada entrada : ordenadasPorData(porRestaurante.get(email))) {
+            numeros.add(entrada.numero);
+        }
+        return numeros;
+    }
+
+    private static List<Entrada> ordenadasPorData(List<Entrada> entradas) {
+        if (entradas == null) {
+            return Collections.emptyList();
+        }
+        // a ordem de acrescimo ja e quase sempre a das datas; o sort estavel nao mexe nesse caso
+        entradas.sort((a, b) -> Long.compare(a.dataHora, b.dataHora));
+        return entradas;
+    }
+
+    /**
+     * le as linhas dos pedidos com esses numeros (na mesma ordem; numeros fora do segmento ficam de fora).
+     * abre os arquivos uma vez pro lote todo e descomprime cada bloco uma vez so
+     */
+    List<Lido> ler(List<Integer> numeros) throws IOException {
+        arquivos.readLock().lock();
+        try {
+            List<Entrada> achadas = new ArrayList<>();
+            boolean temTexto = false;
+            boolean temSelado = false;
+            synchronized (this) {
+                for (Integer numero : numeros) {
+                    Entrada entrada = porNumero.get(numero);
+                    if (entrada != null) {
+                        achadas.add(entrada);
+                        temTexto |= !entrada.selada();
+                        temSelado |= entrada.selada();
+                    }
+                }
+            }
+            List<Lido> lidos = new ArrayList<>(achadas.size());
+            if (achadas.isEmpty()) {
+                return lidos;
+            }
+            // acrescimos nao mexem no que ja foi gravado e a selagem espera a trava de leitura
+            FileChannel pedidos = null;
+            FileChannel itens = null;
+            FileChannel blocos = null;
+            try {
+                if (temTexto) {
+                    pedidos = FileChannel.open(arquivoPedidos.toPath(), StandardOpenOption.READ);
+                    itens = FileChannel.open(arquivoItens.toPath(), StandardOpenOption.READ);
+                }
+                if (temSelado) {
+                    blocos = FileChannel.open(selados.getArquivo().toPath(), StandardOpenOption.READ);
+                }
+                Map<Long, BlocosCompactados.Bloco> descomprimidos = new HashMap<>();
+                for (Entrada entrada : achadas) {
+                    if (!entrada.selada()) {
+                        lidos.add(new Lido(entrada.numero,
+                            new LeitorRegistros(lerTrecho(pedidos, entrada.posicaoPedido, entrada.tamanhoPedido)),
+                            new LeitorRegistros(lerTrecho(itens, entrada.posicaoItens, entrada.tamanhoItens))));
+                        continue;
+                    }
+                    BlocosCompactados.Bloco bloco = descomprimidos.get(entrada.bloco);
+                    if (bloco == null) {
+                        bloco = selados.lerBloco(blocos, entrada.bloco);
+                        descomprimidos.put(entrada.bloco, bloco);
+                    }
+                    ByteBuffer pedido = bloco.pedido(entrada.numero);
+                    if (pedido == null) {
+                        throw new IOException("Pedido " + entrada.numero + " não está no bloco " + entrada.bloco);
+                    }
+                    lidos.add(new Lido(entrada.numero, new LeitorRegistros(pedido),
+                                       new LeitorRegistros(bloco.itens(entrada.numero))));
+                }
+            } finally {
+                fechar(pedidos);
+                fechar(itens);
+                fechar(blocos);
+            }
+            return lidos;
+        } finally {
+            arquivos.readLock().unlock();
+        }
+    }
+
+    private static void fechar(FileChannel canal) throws IOException {
+        if (canal != null) {
+            canal.close();
+        }
+    }
+
+    private static ByteBuffer lerTrecho(FileChannel canal, long posicao, int tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new EOFException("Segmento de pedidos frios truncado");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
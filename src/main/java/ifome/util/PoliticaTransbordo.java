@@ -0,0 +1,12 @@
+package ifome.util;
+
+// o que fazer quando a fila de um assinante esta cheia na hora de publicar
+public enum PoliticaTransbordo {
+    // o evento que chegou e descartado; a fila fica com os mais antigos
+    DESCARTAR_NOVOS,
+    // sai o mais antigo da fila pra caber o novo (telas: so importa o estado mais recente)
+    DESCARTAR_ANTIGOS,
+    // quem publica espera abrir espaco, ate o limite da assinatura; passou disso, descarta o novo.
+    // o publicador pode estar com a trava do pedido ou do restaurante na mao, por isso o limite
+    ESPERAR
+}
@@ -0,0 +1,27 @@
+package ifome.util;
+
+import ifome.model.Produto;
+import ifome.model.Restaurante;
+
+// produto achado pela busca, com o restaurante dele e a pontuacao (maior = mais relevante)
+public class ProdutoEncontrado {
+
+    private final Restaurante restaurante;
+    private final Produto produto;
+    private final int relevancia;
+
+    ProdutoEncontrado(Restaurante restaurante, Produto produto, int relevancia) {
+        this.restaurante = restaurante;
+        this.produto = produto;
+        this.relevancia = relevancia;
+    }
+
+    public Restaurante getRestaurante() { return restaurante; }
+    public Produto getProduto() { return produto; }
+    public int getRelevancia() { return relevancia; }
+
+    @Override
+    public String toString() {
+        return produto.getNome() + " (" + restaurante.getNomeRestaurante() + ")";
+    }
+}
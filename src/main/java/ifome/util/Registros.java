@@ -0,0 +1,36 @@
+package ifome.util;
+
+/**
+ * cursor sobre os registros de um conjunto de dados, na ordem em que foram gravados.
+ * os campos seguem a ordem dos arquivos de texto (ex: pedido e
+ * numero;data;emailCliente;emailRestaurante;status;valor), entao os loaders do
+ * repositorio nao sabem de onde os registros vieram: arquivo, pedidos.bin ou banco
+ */
+public interface Registros {
+
+    // avanca pro proximo registro; false quando acabou
+    boolean proximoRegistro();
+
+    int quantidadeCampos();
+
+    // campo vazio ou ausente
+    boolean vazio(int campo);
+
+    String texto(int campo);
+
+    boolean textoIgual(int campo, String esperado);
+
+    int inteiro(int campo);
+
+    long longo(int campo);
+
+    double decimal(int campo);
+
+    boolean booleano(int campo);
+
+    // epoch millis
+    long dataHora(int campo);
+
+    // texto do registro atual, para mensagens de erro
+    String registroAtual();
+}
@@ -0,0 +1,90 @@
+package ifome.util;
+
+import java.util.List;
+
+/**
+ * varios Registros lidos um depois do outro como se fossem um so
+ * (ex: os segmentos mensais de pedidos, na ordem dos meses)
+ */
+final class RegistrosEncadeados implements Registros {
+
+    private final List<? extends Registros> partes;
+    private int indice;
+    private Registros atual;
+
+    RegistrosEncadeados(List<? extends Registros> partes) {
+        this.partes = partes;
+        this.indice = 0;
+        this.atual = null;
+    }
+
+    @Override
+    public boolean proximoRegistro() {
+        while (indice < partes.size()) {
+            if (partes.get(indice).proximoRegistro()) {
+                atual = partes.get(indice);
+                return true;
+            }
+            indice++;
+        }
+        atual = null;
+        return false;
+    }
+
+    private Registros atual() {
+        if (atual == null) {
+            throw new IllegalStateException("Nenhum registro atual");
+        }
+        return atual;
+    }
+
+    @Override
+    public int quantidadeCampos() {
+        return atual().quantidadeCampos();
+    }
+
+    @Override
+    public boolean vazio(int campo) {
+        return atual().vazio(campo);
+    }
+
+    @Override
+    public String texto(int campo) {
+        return atual().texto(campo);
+    }
+
+    @Override
+    public boolean textoIgual(int campo, String esperado) {
+        return atual().textoIgual(campo, esperado);
+    }
+
+    @Override
+    public int inteiro(int campo) {
+        return atual().inteiro(campo);
+    }
+
+    @Override
+    public long longo(int campo) {
+        return atual().longo(campo);
+    }
+
+    @Override
+    public double decimal(int campo) {
+        return atual().decimal(campo);
+    }
+
+    @Override
+    public boolean booleano(int campo) {
+        return atual().booleano(campo);
+    }
+
+    @Override
+    public long dataHora(int campo) {
+        return atual().dataHora(campo);
+    }
+
+    @Override
+    public String registroAtual() {
+        return atual == null ? "" : atual.registroAtual();
+    }
+}
@@ -0,0 +1,170 @@
+package ifome.util;
+
+/**
+ * expoe o pedidos.bin como os registros de pedidos.txt ou de itens_pedido.txt,
+ * com os campos na mesma ordem, pra carga nao precisar de um caminho proprio.
+ * os textos vem dos dicionarios do arquivo, entao status e emails repetidos
+ * continuam sendo a mesma String. cada instancia usa o seu leitor (cursores)
+ */
+final class RegistrosPedidosBinario implements Registros {
+
+    private static final int CAMPOS = 6;
+
+    private final LeitorPedidosBinario leitor;
+    private final boolean itens;
+    private boolean posicionado;
+    // itens do pedido atual que ainda nao foram lidos
+    private int itensRestantes;
+
+    private RegistrosPedidosBinario(LeitorPedidosBinario leitor, boolean itens) {
+        this.leitor = leitor;
+        this.itens = itens;
+    }
+
+    // numero;data;emailCliente;emailRestaurante;status;valor
+    static RegistrosPedidosBinario pedidos(LeitorPedidosBinario leitor) {
+        return new RegistrosPedidosBinario(leitor, false);
+    }
+
+    // numero;emailRestaurante;produto;quantidade;precoUnitario;observacoes
+    static RegistrosPedidosBinario itens(LeitorPedidosBinario leitor) {
+        return new RegistrosPedidosBinario(leitor, true);
+    }
+
+    @Override
+    public boolean proximoRegistro() {
+        if (!itens) {
+            posicionado = leitor.proximoPedido();
+            return posicionado;
+        }
+        // os itens estao na ordem dos pedidos: o cursor de pedidos da o numero e o restaurante
+        while (itensRestantes == 0) {
+            if (!leitor.proximoPedido()) {
+                posicionado = false;
+                return false;
+            }
+            itensRestantes = leitor.quantidadeItensDoPedido();
+        }
+        itensRestantes--;
+        posicionado = leitor.proximoItem();
+        return posicionado;
+    }
+
+    @Override
+    public int quantidadeCampos() {
+        return posicionado ? CAMPOS : 0;
+    }
+
+    @Override
+    public boolean vazio(int campo) {
+        if (campo >= quantidadeCampos()) {
+            return true;
+        }
+        String valor = textoOuNull(campo);
+        return valor != null && valor.isEmpty();
+    }
+
+    @Override
+    public String texto(int campo) {
+        String valor = textoOuNull(campo);
+        if (valor != null) {
+            return valor;
+        }
+        GravadorTexto gravador = new GravadorTexto();
+        if (!itens && campo == 1) {
+            gravador.dataHora(dataHora(1));
+        } else if (itens && campo == 4) {
+            gravador.decimal(decimal(4));
+        } else if (!itens && campo == 5) {
+            gravador.decimal(decimal(5));
+        } else {
+            gravador.inteiro(longo(campo));
+        }
+        return gravador.linha();
+    }
+
+    // campos que ja sao texto no arquivo; null nos numericos
+    private String textoOuNull(int campo) {
+        verificarCampo(campo);
+        if (itens) {
+            switch (campo) {
+                case 1: return leitor.emailRestaurante();
+                case 2: return leitor.produto();
+                case 5: return leitor.observacao();
+                default: return null;
+            }
+        }
+        switch (campo) {
+            case 2: return leitor.emailCliente();
+            case 3: return leitor.emailRestaurante();
+            case 4: return leitor.status();
+            default: return null;
+        }
+    }
+
+    @Override
+    public boolean textoIgual(int campo, String esperado) {
+        return texto(campo).equals(esperado);
+    }
+
+    @Override
+    public int inteiro(int campo) {
+        return (int) longo(campo);
+    }
+
+    @Override
+    public long longo(int campo) {
+        verificarCampo(campo);
+        if (campo == 0) {
+            return leitor.numero();
+        }
+        if (itens && campo == 3) {
+            return leitor.quantidade();
+        }
+        return Long.parseLong(texto(campo));
+    }
+
+    @Override
+    public double decimal(int campo) {
+        verificarCampo(campo);
+        if (!itens && campo == 5) {
+            return leitor.valorTotal();
+        }
+        if (itens && campo == 4) {
+            return leitor.precoUnitario();
+        }
+        return Double.parseDouble(texto(campo));
+    }
+
+    @Override
+    public boolean booleano(int campo) {
+        return Boolean.parseBoolean(texto(campo));
+    }
+
+    @Override
+    public long dataHora(int campo) {
+        verificarCampo(campo);
+        if (itens || campo != 1) {
+            throw new IllegalArgumentException("Campo " + campo + " não é data");
+        }
+        return leitor.epochSegundos() * 1000;
+    }
+
+    @Override
+    public String registroAtual() {
+        if (!posicionado) return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < CAMPOS; i++) {
+            if (i > 0) sb.append(';');
+            sb.append(LeitorRegistros.escapar(texto(i)));
+        }
+        return sb.toString();
+    }
+
+    private void verificarCampo(int campo) {
+        if (campo < 0 || campo >= quantidadeCampos()) {
+            throw new ArrayIndexOutOfBoundsException("Campo " + campo + " inexistente (registro com " +
+                                                     quantidadeCampos() + " campos)");
+        }
+    }
+}
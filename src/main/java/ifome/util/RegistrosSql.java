@@ -0,0 +1,141 @@
+package ifome.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * registros de uma tabela do ArmazenamentoSql, na ordem da coluna seq.
+ * os campos sao lidos direto do ResultSet; o statement e fechado quando as
+ * linhas acabam. NULL conta como campo vazio (ex: extra de uma sobremesa)
+ */
+final class RegistrosSql implements Registros {
+
+    private final ArmazenamentoSql.Tabela tabela;
+    private final Statement statement;
+    private final ResultSet linhas;
+    private boolean posicionado;
+
+    RegistrosSql(ArmazenamentoSql.Tabela tabela, Statement statement, ResultSet linhas) {
+        this.tabela = tabela;
+        this.statement = statement;
+        this.linhas = linhas;
+    }
+
+    private IllegalStateException erro(SQLException e) {
+        return new IllegalStateException("Erro ao ler " + tabela.nome + ": " + e.getMessage(), e);
+    }
+
+    @Override
+    public boolean proximoRegistro() {
+        try {
+            if (linhas.isClosed()) {
+                return false;
+            }
+            posicionado = linhas.next();
+            if (!posicionado) {
+                statement.close();
+            }
+            return posicionado;
+        } catch (SQLException e) {
+            throw erro(e);
+        }
+    }
+
+    @Override
+    public int quantidadeCampos() {
+        return posicionado ? tabela.colunas.length : 0;
+    }
+
+    private void verificarCampo(int campo) {
+        if (campo < 0 || campo >= quantidadeCampos()) {
+            throw new ArrayIndexOutOfBoundsException("Campo " + campo + " inexistente (registro com " +
+                                                     quantidadeCampos() + " campos)");
+        }
+    }
+
+    @Override
+    public boolean vazio(int campo) {
+        if (campo >= quantidadeCampos()) {
+            return true;
+        }
+        String valor = texto(campo);
+        return valor == null || valor.isEmpty();
+    }
+
+    @Override
+    public String texto(int campo) {
+        verificarCampo(campo);
+        try {
+            return linhas.getString(campo + 1);
+        } catch (SQLException e) {
+            throw erro(e);
+        }
+    }
+
+    @Override
+    public boolean textoIgual(int campo, String esperado) {
+        return esperado.equals(texto(campo));
+    }
+
+    @Override
+    public int inteiro(int campo) {
+        return Math.toIntExact(longo(campo));
+    }
+
+    @Override
+    public long longo(int campo) {
+        verificarCampo(campo);
+        if (tabela.tipos[campo] == ArmazenamentoSql.Tipo.TEXTO) {
+            return Long.parseLong(texto(campo));
+        }
+        try {
+            return linhas.getLong(campo + 1);
+        } catch (SQLException e) {
+            throw erro(e);
+        }
+    }
+
+    @Override
+    public double decimal(int campo) {
+        verificarCampo(campo);
+        if (tabela.tipos[campo] == ArmazenamentoSql.Tipo.TEXTO) {
+            return Double.parseDouble(texto(campo));
+        }
+        try {
+            return linhas.getDouble(campo + 1);
+        } catch (SQLException e) {
+            throw erro(e);
+        }
+    }
+
+    @Override
+    public boolean booleano(int campo) {
+        verificarCampo(campo);
+        if (tabela.tipos[campo] == ArmazenamentoSql.Tipo.TEXTO) {
+            return Boolean.parseBoolean(texto(campo));
+        }
+        try {
+            return linhas.getBoolean(campo + 1);
+        } catch (SQLException e) {
+            throw erro(e);
+        }
+    }
+
+    // datas sao gravadas em BIGINT, epoch millis
+    @Override
+    public long dataHora(int campo) {
+        return longo(campo);
+    }
+
+    @Override
+    public String registroAtual() {
+        if (!posicionado) return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tabela.colunas.length; i++) {
+            if (i > 0) sb.append(';');
+            sb.append(LeitorRegistros.escapar(texto(i)));
+        }
+        return sb.toString();
+    }
+}
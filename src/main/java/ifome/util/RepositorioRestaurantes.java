@@ -1,52 +1,196 @@
 package ifome.util;
 
+import ifome.exceptions.EnderecoForaRaioException;
+import ifome.exceptions.PagamentoRecusadoException;
 import ifome.model.*;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.text.ParseException;
 import java.util.Date;
 
 //repositorio restaurante, para os restaurantes presettados e mais ocnfiguaçõess
 public class RepositorioRestaurantes {
     
-    private static RepositorioRestaurantes instancia;
-    private List<Restaurante> restaurantes;
-    private List<Cliente> clientes;
-    private List<Pedido> pedidos;
+    private static volatile RepositorioRestaurantes instancia;
+    // getTodos* devolvem a foto imutavel da lista (sem copia enquanto nada muda)
+    private final ListaVersionada<Restaurante> restaurantes;
+    private final ListaVersionada<Cliente> clientes;
+    private final ListaVersionada<Pedido> pedidos;
     private List<Cupom> cupons;
+    // indices das buscas por chave; as listas continuam sendo a ordem oficial.
+    // mapas concorrentes: as buscas por email e numero nao pegam trava nenhuma
+    private final Map<String, Restaurante> restaurantesPorEmail;
+    private final Map<String, Cliente> clientesPorEmail;
+    private final Map<Integer, Pedido> pedidosPorNumero;
+    private final IndicePedidosRestaurante pedidosPorRestaurante;
+    private final IndiceTemporalPedidos pedidosPorData;
+    private final IndiceBusca busca;
+    private final IndiceSugestoes sugestoes;
+    // CEP -> coordenada (mapeada do ceps.bin) e area de entrega de cada restaurante
+    private final TabelaCeps ceps;
+    private final IndiceGeografico entregas;
+
+    // diretorio dos arquivos, pode ser trocado com -Difome.dados=<dir>
+    private final File diretorio;
+    private final DiarioAlteracoes diario;
+    private boolean modoDiario;
+    private CompactadorDiario compactador;
+    private AgendadorSalvamento agendador;
+    // eventos do ciclo de vida dos pedidos; ligado depois da carga, entao carregar nao publica nada
+    private volatile BarramentoPedidos barramento;
+    private AssinaturaPedidos assinaturaPersistencia;
+    private long descartesPersistenciaVistos;
+    // ouve todos os restaurantes e repassa pro barramento
+    private final OuvinteStatusPedido ouvinteEventos = new OuvinteStatusPedido() {
+        @Override
+        public void statusAlterado(Pedido pedido, StatusPedido anterior, StatusPedido novo) {
+            BarramentoPedidos b = barramento;
+            if (b != null) {
+                b.publicar(TipoEventoPedido.daEtapa(novo), pedido, anterior, novo);
+            }
+        }
+
+        @Override
+        public void pagamentoAprovado(Pedido pedido) {
+            publicarEvento(TipoEventoPedido.PAGO, pedido);
+        }
+
+        @Override
+        public void pedidoAvaliado(Pedido pedido) {
+            publicarEvento(TipoEventoPedido.AVALIADO, pedido);
+        }
+    };
+    // um snapshot por vez (tela e compactador podem pedir ao mesmo tempo)
+    private final Object travaSnapshot = new Object();
+    /**
+     * quem grava no diario segura a leitura; o corte do snapshot segura a escrita.
+     * assim cada mudanca fica inteira antes ou depois do lsn do corte, sem que as
+     * sessoes esperem umas pelas outras. ordem: travaCorte, restaurante, cliente;
+     * com a leitura na mao ninguem pega a trava do repositorio (this)
+     */
+    private final ReentrantReadWriteLock travaCorte = new ReentrantReadWriteLock();
+    // pedidos do mesmo restaurante (ou do mesmo cliente) entram em fila; os outros nao esperam
+    private final TravasParticionadas travasRestaurantes = new TravasParticionadas(TRAVAS_POR_CHAVE);
+    private final TravasParticionadas travasClientes = new TravasParticionadas(TRAVAS_POR_CHAVE);
+    private volatile long instanteUltimoSnapshot;
+    // conjuntos alterados desde o ultimo snapshot; so eles sao regravados
+    private final Set<ConjuntoDados> alterados;
+    private final EstatisticasSalvamento estatisticasSalvamento;
+    private Map<String, Long> temposCarregamento;
+    // onde os conjuntos ficam guardados (-Difome.armazenamento=texto|sql)
+    private final ArmazenamentoDados armazenamento;
+    // pedidos finalizados antigos ficam no disco e so sao montados quando alguem pede
+    private final PedidosFrios frios;
+    private boolean friosDisponiveis;
+    // -Difome.pedidos.diasFrio=<dias>, 0 desliga (o que ja esta frio continua legivel)
+    private final long idadeFriaMs;
+    // avaliacoes dos pedidos frios, pra continuarem no avaliacoes_pedidos
+    private final Map<Integer, Avaliacao> avaliacoesFrias;
+    // so durante a carga: pedidos que vao pro segmento frio, ja com itens e avaliacao
+    private Map<Integer, Pedido> aEsfriar;
+    private int esfriadosNaCarga;
+    private long leiturasFrias;
+    private long pedidosFriosLidos;
     
-    private static final String ARQUIVO_RESTAURANTES = "data/restaurantes.txt";
-    private static final String ARQUIVO_CLIENTES = "data/clientes.txt";
-    private static final String ARQUIVO_ENDERECOS = "data/enderecos.txt";
-    private static final String ARQUIVO_PEDIDOS = "data/pedidos.txt";
-    private static final String ARQUIVO_ITENS_PEDIDO = "data/itens_pedido.txt";
-    private static final String ARQUIVO_CARDAPIOS = "data/cardapios.txt";
-    private static final String ARQUIVO_CUPONS = "data/cupons.txt";
-    private static final String ARQUIVO_AVALIACOES = "data/avaliacoes.txt";
-    private static final String ARQUIVO_AVALIACOES_PEDIDOS = "data/avaliacoes_pedidos.txt";
-    private static final String ARQUIVO_CARTOES = "data/cartoes.txt";
-    private static final String ARQUIVO_CUPONS_USADOS = "data/cupons_usados.txt"; 
-    
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-    private RepositorioRestaurantes() {
-        this.restaurantes = new ArrayList<>();
-        this.clientes = new ArrayList<>();
-        this.pedidos = new ArrayList<>();
-        this.cupons = new ArrayList<>();
-        new File("data").mkdirs();
+    private static final String DIRETORIO_PADRAO = "data";
+    private static final int DIAS_FRIO_PADRAO = 90;
+    private static final String ARQUIVO_DIARIO = "diario.log";
+    private static final int TRAVAS_POR_CHAVE = 64;
+    private static final long ESPERA_EVENTOS_MS = 2_000;
+
+    // tipos de registro do diario
+    private static final String REG_PEDIDO = "PEDIDO";
+    private static final String REG_ITEM = "ITEM";
+    private static final String REG_STATUS = "STATUS";
+    private static final String REG_AVALIACAO = "AVALIACAO";
+    private static final String REG_AVALIACAO_PEDIDO = "AVALIACAO_PEDIDO";
+    private static final String REG_CARTAO = "CARTAO";
+    private static final String REG_CARTAO_REMOVIDO = "CARTAO_REMOVIDO";
+    private static final String REG_CUPOM_USADO = "CUPOM_USADO";
+
+    private RepositorioRestaurantes(String diretorioDados) {
+        this.restaurantes = new ListaVersionada<>();
+        this.clientes = new ListaVersionada<>();
+        this.pedidos = new ListaVersionada<>();
+        this.cupons = new CopyOnWriteArrayList<>();
+        this.restaurantesPorEmail = new ConcurrentHashMap<>();
+        this.clientesPorEmail = new ConcurrentHashMap<>();
+        this.pedidosPorNumero = new ConcurrentHashMap<>();
+        this.pedidosPorRestaurante = new IndicePedidosRestaurante();
+        this.pedidosPorData = new IndiceTemporalPedidos();
+        this.busca = new IndiceBusca();
+        this.sugestoes = new IndiceSugestoes();
+        this.diretorio = new File(diretorioDados);
+        this.diretorio.mkdirs();
+        this.ceps = TabelaCeps.comConfiguracaoPadrao(diretorio);
+        this.entregas = new IndiceGeografico(ceps);
+        this.diario = new DiarioAlteracoes(arquivo(ARQUIVO_DIARIO));
+        this.modoDiario = true;
+        this.instanteUltimoSnapshot = System.currentTimeMillis();
+        this.alterados = EnumSet.noneOf(ConjuntoDados.class);
+        this.estatisticasSalvamento = new EstatisticasSalvamento();
+        this.armazenamento = ArmazenamentoDados.comConfiguracaoPadrao(diretorio);
+        this.frios = PedidosFrios.comConfiguracaoPadrao(diretorio);
+        this.idadeFriaMs = Long.getLong("ifome.pedidos.diasFrio", DIAS_FRIO_PADRAO) * 24L * 60 * 60 * 1000;
+        this.avaliacoesFrias = new HashMap<>();
         carregarDados();
         inicializarCupons();
     }
 
     public static RepositorioRestaurantes getInstance() {
-        if (instancia == null) {
-            instancia = new RepositorioRestaurantes();
+        RepositorioRestaurantes atual = instancia;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (RepositorioRestaurantes.class) {
+            // duas sessoes abrindo ao mesmo tempo: so uma carrega, a outra pega a mesma instancia
+            if (instancia == null) {
+                RepositorioRestaurantes nova = new RepositorioRestaurantes(System.getProperty("ifome.dados", DIRETORIO_PADRAO));
+                nova.compactador = CompactadorDiario.comConfiguracaoPadrao(nova);
+                nova.compactador.iniciar();
+                nova.agendador = AgendadorSalvamento.comConfiguracaoPadrao(nova);
+                nova.conectarBarramento(BarramentoPedidos.comConfiguracaoPadrao());
+                instancia = nova;
+            }
+            return instancia;
         }
-        return instancia;
+    }
+
+    // descarta a instancia atual (usado nos testes para recarregar do disco)
+    public static synchronized void limparInstancia() {
+        if (instancia != null) {
+            if (instancia.barramento != null) {
+                instancia.barramento.encerrar();
+            }
+            if (instancia.agendador != null) {
+                instancia.agendador.cancelar();
+            }
+            if (instancia.compactador != null) {
+                instancia.compactador.encerrar();
+            }
+            try {
+                instancia.diario.fechar();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar diário: " + e.getMessage());
+            }
+            instancia.armazenamento.fechar();
+        }
+        instancia = null;
+    }
+
+    private File arquivo(String nome) {
+        return new File(diretorio, nome);
     }
 
     public void inicializarRestaurantes() {
@@ -97,70 +241,89 @@ public class RepositorioRestaurantes {
             "Temaki de salmao com cream cheese", 28.90, false));
         adicionarRestaurante(sushi);
 
-        salvarDados();
+        agendarSalvamento();
         System.out.println(">>> " + restaurantes.size() + " restaurantes carregados!");
     }
 
     //busca
 
-    public void adicionarRestaurante(Restaurante r) {
+    public synchronized void adicionarRestaurante(Restaurante r) {
         if (r == null) return;
-        if (!restaurantes.contains(r)) {
-            restaurantes.add(r);
+        Restaurante existente = r.getEmail() == null ? null : restaurantesPorEmail.get(r.getEmail());
+        // so cai na busca linear se ja tem outro restaurante com o mesmo email
+        if (existente != r && (existente == null || !restaurantes.contains(r))) {
+            incluirRestaurante(r);
+            marcarAlterado(ConjuntoDados.RESTAURANTES, ConjuntoDados.CARDAPIOS, ConjuntoDados.AVALIACOES,
+                           ConjuntoDados.ENDERECOS_RESTAURANTES);
         }
     }
 
-    public void adicionarCliente(Cliente c) {
+    public synchronized void adicionarCliente(Cliente c) {
         if (c == null) return;
-        if (!clientes.contains(c)) {
-            clientes.add(c);
+        Cliente existente = c.getEmail() == null ? null : clientesPorEmail.get(c.getEmail());
+        if (existente != c && (existente == null || !clientes.contains(c))) {
+            incluirCliente(c);
+            marcarAlterado(ConjuntoDados.CLIENTES, ConjuntoDados.ENDERECOS, 
+                           ConjuntoDados.CARTOES, ConjuntoDados.CUPONS_USADOS);
         }
     }
 
+    // as insercoes passam por aqui pra lista e indice nunca divergirem
+    private void incluirRestaurante(Restaurante r) {
+        restaurantes.add(r);
+        if (r.getEmail() != null) {
+            restaurantesPorEmail.putIfAbsent(r.getEmail(), r); // o primeiro cadastrado vence, igual a busca linear
+        }
+        busca.incluirRestaurante(r);
+        sugestoes.incluirRestaurante(r);
+        entregas.incluirRestaurante(r);
+        r.adicionarOuvinteStatusPedido(pedidosPorRestaurante);
+        if (barramento != null) {
+            r.adicionarOuvinteStatusPedido(ouvinteEventos);
+        }
+    }
+
+    private void incluirCliente(Cliente c) {
+        clientes.add(c);
+        if (c.getEmail() != null) {
+            clientesPorEmail.putIfAbsent(c.getEmail(), c);
+        }
+    }
+
+    private void incluirPedido(Pedido p) {
+        pedidos.add(p);
+        pedidosPorNumero.putIfAbsent(p.getNumeroPedido(), p);
+        pedidosPorRestaurante.incluir(p);
+        pedidosPorData.incluir(p);
+    }
+
     public Restaurante buscarRestaurantePorLogin(String email, String senha) {
-        for (Restaurante r : restaurantes) {
-            if (r.getEmail().equals(email) && r.login(email, senha)) {
-                return r;
-            }
+        Restaurante r = buscarRestaurantePorEmail(email);
+        if (r != null && r.login(email, senha)) {
+            return r;
         }
         return null;
     }
 
     public Cliente buscarClientePorLogin(String email, String senha) {
-        for (Cliente c : clientes) {
-            if (c.getEmail().equals(email) && c.login(email, senha)) {
-                return c;
-            }
+        Cliente c = buscarClientePorEmail(email);
+        if (c != null && c.login(email, senha)) {
+            return c;
         }
         return null;
     }
 
+    // mapa concorrente nao aceita chave null
     public Cliente buscarClientePorEmail(String email) {
-        for (Cliente c : clientes) {
-            if (c.getEmail().equals(email)) {
-                return c;
-            }
-        }
-        return null;
+        return email == null ? null : clientesPorEmail.get(email);
     }
 
     public Restaurante buscarRestaurantePorEmail(String email) {
-        for (Restaurante r : restaurantes) {
-            if (r.getEmail().equals(email)) {
-                return r;
-            }
-        }
-        return null;
+        return email == null ? null : restaurantesPorEmail.get(email);
     }
 
     public boolean emailJaExiste(String email) {
-        for (Restaurante r : restaurantes) {
-            if (r.getEmail().equals(email)) return true;
-        }
-        for (Cliente c : clientes) {
-            if (c.getEmail().equals(email)) return true;
-        }
-        return false;
+        return email != null && (restaurantesPorEmail.containsKey(email) || clientesPorEmail.containsKey(email));
     }
 
     public Restaurante obterPorIndice(int indice) {
@@ -171,15 +334,61 @@ public class RepositorioRestaurantes {
     }
 
     public List<Restaurante> getTodosRestaurantes() {
-        return new ArrayList<>(restaurantes);
+        return restaurantes.visao();
     }
 
     public List<Cliente> getTodosClientes() {
-        return new ArrayList<>(clientes);
+        return clientes.visao();
     }
 
     public List<Pedido> getTodosPedidos() {
-        return new ArrayList<>(pedidos);
+        return pedidos.visao();
+    }
+
+    /**
+     * pedidos em memoria do restaurante com a etapa em "status" (null = todas) e data
+     * em [inicio, fim) ms, do mais antigo pro mais recente. usa o indice por
+     * restaurante/status, o custo nao depende dos pedidos dos outros restaurantes
+     */
+    public List<Pedido> buscarPedidosDoRestaurante(Restaurante restaurante, Set<StatusPedido> status,
+                                                   long inicio, long fim) {
+        if (restaurante == null) {
+            return new ArrayList<>();
+        }
+        return pedidosPorRestaurante.buscar(restaurante.getEmail(), status, inicio, fim);
+    }
+
+    public List<Pedido> buscarPedidosDoRestaurante(Restaurante restaurante) {
+        return buscarPedidosDoRestaurante(restaurante, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public int getQuantidadePedidosDoRestaurante(Restaurante restaurante) {
+        return restaurante == null ? 0 : pedidosPorRestaurante.contar(restaurante.getEmail());
+    }
+
+    /**
+     * pedidos em memoria com data em [inicio, fim) ms, de todos os restaurantes, pelo
+     * indice temporal (nao percorre a lista). os frios nao entram
+     */
+    public List<Pedido> buscarPedidosPorPeriodo(long inicio, long fim, boolean maisRecentesPrimeiro) {
+        return pedidosPorData.buscar(inicio, fim, maisRecentesPrimeiro);
+    }
+
+    // ultimas "periodoMs" ate agora, do mais recente pro mais antigo
+    public List<Pedido> buscarPedidosRecentes(long periodoMs) {
+        long agora = System.currentTimeMillis();
+        return pedidosPorData.buscar(agora - periodoMs, Long.MAX_VALUE, true);
+    }
+
+    /**
+     * uma pagina de ate "tamanho" pedidos de [inicio, fim), continuando do cursor da
+     * pagina anterior (null = primeira). pedido novo no meio da paginacao nao faz
+     * repetir nem pular nenhum; o que entrar antes do cursor so aparece numa nova
+     * paginacao
+     */
+    public PaginaPedidos paginarPedidosPorPeriodo(long inicio, long fim, boolean maisRecentesPrimeiro,
+                                                  String cursor, int tamanho) {
+        return pedidosPorData.paginar(inicio, fim, maisRecentesPrimeiro, PaginaPedidos.lerCursor(cursor), tamanho);
     }
 
     public void exibirLista() {
@@ -201,441 +410,1422 @@ public class RepositorioRestaurantes {
         }
     }
 
+    /**
+     * restaurantes com todos os termos no nome (sem diferenciar acento e maiuscula),
+     * mais relevantes primeiro; termo vazio devolve todos. usa o indice de busca
+     */
     public List<Restaurante> buscarPorNome(String termo) {
-        List<Restaurante> resultado = new ArrayList<>();
-        String termoLower = termo.toLowerCase();
-        
-        for (Restaurante r : restaurantes) {
-            if (r.getNomeRestaurante().toLowerCase().contains(termoLower)) {
-                resultado.add(r);
+        return busca.buscarRestaurantes(termo, Integer.MAX_VALUE);
+    }
+
+    // produtos de todos os cardapios por nome, categoria e descricao, mais relevantes primeiro
+    public List<ProdutoEncontrado> buscarProdutos(String termo, int limite) {
+        return busca.buscarProdutos(termo, limite);
+    }
+
+    /**
+     * pratos de todos os restaurantes filtrados por texto, preco, disponibilidade,
+     * restaurante aberto, vegetariano/vegano e temperatura, pelos bitsets do indice
+     * de busca (sem percorrer os cardapios)
+     */
+    public List<ProdutoEncontrado> buscarPratos(FiltroPratos filtro, int limite) {
+        return busca.buscarPratos(filtro == null ? new FiltroPratos() : filtro, limite);
+    }
+
+    /**
+     * autocompletar: restaurantes e pratos com alguma palavra comecando pelo prefixo,
+     * mais pedidos primeiro (ate IndiceSugestoes.TOP_K)
+     */
+    public List<Sugestao> sugerir(String prefixo, int limite) {
+        return sugestoes.sugerir(prefixo, limite);
+    }
+
+    /**
+     * muda endereco e raio de entrega do restaurante (o indice de entregas e avisado
+     * pelo proprio restaurante) e marca o conjunto pra ser salvo
+     */
+    public synchronized void atualizarAreaEntrega(Restaurante restaurante, Endereco endereco, double raioKm) {
+        restaurante.setRaioEntregaKm(raioKm);
+        restaurante.setEndereco(endereco);
+        marcarAlterado(ConjuntoDados.ENDERECOS_RESTAURANTES);
+    }
+
+    // endereco novo do cliente: nao tem registro no diario, entao agenda o snapshot dos enderecos
+    public void adicionarEnderecoCliente(Cliente cliente, Endereco endereco) {
+        if (cliente == null || endereco == null) return;
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travasClientes.trava(cliente.getEmail())) {
+                cliente.adicionarEndereco(endereco);
+                marcarAlterado(ConjuntoDados.ENDERECOS);
             }
+        } finally {
+            travaCorte.readLock().unlock();
         }
+        agendarSalvamento(ConjuntoDados.ENDERECOS);
+    }
+
+    // coordenada do CEP pela tabela local, ou null
+    public Coordenada localizarCep(String cep) {
+        return ceps.localizar(cep);
+    }
+
+    /**
+     * restaurantes que entregam no endereco, do mais perto pro mais longe, e no fim
+     * os que nao tem localizacao (sem endereco ou CEP fora da tabela), que nao tem
+     * limite de entrega. CEP desconhecido: so esses ultimos
+     */
+    public List<Restaurante> buscarRestaurantesQueEntregam(Endereco endereco) {
+        Coordenada ponto = endereco == null ? null : ceps.localizar(endereco.getCep());
+        List<Restaurante> resultado = ponto == null ? new ArrayList<>() : entregas.entregamEm(ponto);
+        resultado.addAll(entregas.semLocalizacao());
         return resultado;
     }
 
+    /**
+     * conferencia do checkout: o endereco precisa estar no raio do restaurante.
+     * restaurante sem localizacao aceita qualquer endereco; com localizacao, um CEP
+     * que a tabela nao conhece e recusado porque nao da pra medir a distancia
+     */
+    public void verificarEntrega(Restaurante restaurante, Endereco endereco) throws EnderecoForaRaioException {
+        Coordenada origem = entregas.localizar(restaurante);
+        if (origem == null) {
+            return;
+        }
+        if (endereco == null) {
+            throw new EnderecoForaRaioException("Informe um endereço de entrega.");
+        }
+        Coordenada destino = ceps.localizar(endereco.getCep());
+        if (destino == null) {
+            throw new EnderecoForaRaioException("CEP " + endereco.getCep() + " fora da área atendida.");
+        }
+        if (!entregas.entrega(restaurante, destino)) {
+            throw new EnderecoForaRaioException(String.format(
+                "%s entrega até %.1f km e o endereço fica a %.1f km.",
+                restaurante.getNomeRestaurante(), restaurante.getRaioEntregaKm(), origem.distanciaKm(destino)));
+        }
+    }
+
+    // popularidade das sugestoes a partir dos pedidos carregados (ja com os itens) e dos frios
+    private void recontarSugestoes() {
+        Map<Restaurante, Integer> frios = new IdentityHashMap<>();
+        if (friosDisponiveis) {
+            for (Restaurante r : restaurantes) {
+                frios.put(r, this.frios.getQuantidadeDoRestaurante(r.getEmail()));
+            }
+        }
+        sugestoes.recontar(pedidos.visao(), frios);
+    }
+
     //presistencia e save
     //e dessa vez os cupons estão certos
 
     private void carregarDados() {
-        System.out.println(">>> Carregando dados do sistema...");
-        carregarRestaurantes();
-        carregarClientes();
-        carregarCardapios();
-        carregarEnderecos();
-        carregarPedidos();
-        carregarItensPedido();
-        carregarCupons();
-        carregarCartoes();
-        carregarAvaliacoes();
-        carregarAvaliacoesPedidos();
-        carregarCuponsUsados();
+        System.out.println(">>> Carregando dados do sistema (" + armazenamento.getNome() + ")...");
+        CarregadorParalelo carregador = new CarregadorParalelo();
+        try {
+            // pedidos e itens crescem com o historico; o backend diz se da pra ler em pedacos
+            Set<ConjuntoDados> emPartes = EnumSet.noneOf(ConjuntoDados.class);
+            for (ConjuntoDados conjunto : new ConjuntoDados[] { ConjuntoDados.PEDIDOS, ConjuntoDados.ITENS_PEDIDO }) {
+                if (armazenamento.lerEmPartes(conjunto)) {
+                    emPartes.add(conjunto);
+                }
+            }
+            Map<ConjuntoDados, Registros> lidos = carregador.lerConjuntos(armazenamento, emPartes);
+            // cada tarefa de uma etapa mexe em objetos diferentes (restaurantes x clientes)
+            carregador.executarEtapa("restaurantes, clientes, cupons",
+                () -> carregarRestaurantes(lidos.get(ConjuntoDados.RESTAURANTES)),
+                () -> carregarClientes(lidos.get(ConjuntoDados.CLIENTES)),
+                () -> carregarCupons(lidos.get(ConjuntoDados.CUPONS)),
+                this::abrirPedidosFrios);
+            if (friosDisponiveis && idadeFriaMs > 0) {
+                aEsfriar = new LinkedHashMap<>();
+            }
+            carregador.executarEtapa("cardapios, avaliacoes / enderecos, cartoes",
+                () -> {
+                    carregarCardapios(lidos.get(ConjuntoDados.CARDAPIOS));
+                    carregarAvaliacoes(lidos.get(ConjuntoDados.AVALIACOES));
+                    carregarEnderecosRestaurantes(lidos.get(ConjuntoDados.ENDERECOS_RESTAURANTES));
+                },
+                () -> {
+                    carregarEnderecos(lidos.get(ConjuntoDados.ENDERECOS));
+                    carregarCartoes(lidos.get(ConjuntoDados.CARTOES));
+                    carregarCuponsUsados(lidos.get(ConjuntoDados.CUPONS_USADOS));
+                });
+            // pedido liga cliente e restaurante, entao fica sozinho
+            if (emPartes.contains(ConjuntoDados.PEDIDOS)) {
+                carregarPedidosEmPartes(carregador);
+            } else {
+                carregador.executarEtapa("pedidos",
+                    () -> carregarPedidos(lidos.get(ConjuntoDados.PEDIDOS)));
+            }
+            if (emPartes.contains(ConjuntoDados.ITENS_PEDIDO)) {
+                List<ItensLidos> itens = lerItensEmPartes(carregador);
+                carregador.executarEtapa("itens, avaliacoes de pedidos",
+                    () -> vincularItens(itens),
+                    () -> carregarAvaliacoesPedidos(lidos.get(ConjuntoDados.AVALIACOES_PEDIDOS)));
+            } else {
+                carregador.executarEtapa("itens, avaliacoes de pedidos",
+                    () -> carregarItensPedido(lidos.get(ConjuntoDados.ITENS_PEDIDO)),
+                    () -> carregarAvaliacoesPedidos(lidos.get(ConjuntoDados.AVALIACOES_PEDIDOS)));
+            }
+            if (aEsfriar != null) {
+                carregador.executarEtapa("pedidos frios", this::esfriarPedidos);
+            }
+            carregador.executarEtapa("diario", this::reproduzirDiario);
+            carregador.executarEtapa("sugestoes", this::recontarSugestoes);
+            if (!pedidos.isEmpty()) {
+                marcarAlterado(armazenamento.conjuntosParaRegravar().toArray(new ConjuntoDados[0]));
+            }
+        } finally {
+            aEsfriar = null;
+            carregador.encerrar();
+        }
+        System.out.println(">>> " + getEstatisticasPedidos());
+        temposCarregamento = carregador.getTemposEtapas();
         System.out.println(">>> Dados carregados com sucesso!");
+        System.out.println(">>> Tempo de carga por etapa:\n" + carregador.resumo());
     }
 
-    private void carregarRestaurantes() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_RESTAURANTES), StandardCharsets.UTF_8))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 4) {
-                    Restaurante r = new Restaurante(dados[0], dados[1], dados[2], dados[3]);
-                    r.abrirRestaurante();
-                    restaurantes.add(r);
-                }
-            }
-            System.out.println(">>> " + restaurantes.size() + " restaurantes carregados");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de restaurantes não encontrado. Será criado ao salvar.");
+    private List<Registros> abrirEmPartes(ConjuntoDados conjunto, CarregadorParalelo carregador) {
+        try {
+            // alguns pedacos por thread equilibram arquivos com linhas de tamanhos diferentes
+            return armazenamento.abrirEmPartes(conjunto, carregador.getThreads() * 4);
         } catch (IOException e) {
-            System.err.println("Erro ao carregar restaurantes: " + e.getMessage());
+            System.err.println("Erro ao carregar " + conjunto.getArquivo() + ": " + e.getMessage());
+            return new ArrayList<>();
         }
     }
 
-    private void carregarClientes() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(ARQUIVO_CLIENTES), StandardCharsets.UTF_8))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 4) {
-                    clientes.add(new Cliente(dados[0], dados[1], dados[2], dados[3]));
-                }
-            }
-        } catch (IOException e) { System.out.println("Clientes: arquivo novo ou erro."); }
+    // resultado da leitura de um pedaco: pedidos ainda nao ligados ao cliente/restaurante
+    private static class PedidosLidos {
+        final List<Pedido> pedidos = new ArrayList<>();
+        boolean interrompido;
     }
-    
-    private void carregarCardapios() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_CARDAPIOS), StandardCharsets.UTF_8))) {
-            String linha;
-            int totalProdutos = 0;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 6) {
-                    String emailRestaurante = dados[0];
-                    String tipoProduto = dados[1];
-                    String nome = dados[2];
-                    String descricao = dados[3];
-                    double preco = Double.parseDouble(dados[4]);
-                    boolean disponivel = Boolean.parseBoolean(dados[5]);
-                    
-                    Restaurante restaurante = buscarRestaurantePorEmail(emailRestaurante);
-                    if (restaurante != null) {
-                        Produto produto = null;
-                        
-                        switch (tipoProduto) {
-                            case "Comida":
-                                boolean vegetariano = dados.length > 6 ? Boolean.parseBoolean(dados[6]) : false;
-                                produto = new Comida(nome, descricao, preco, vegetariano);
-                                break;
-                            case "Bebida":
-                                int volumeML = dados.length > 6 ? Integer.parseInt(dados[6]) : 350;
-                                produto = new Bebida(nome, descricao, preco, volumeML);
-                                break;
-                            case "Sobremesa":
-                                produto = new Sobremesa(nome, descricao, preco);
-                                break;
-                            case "Adicional":
-                                produto = new Adicional(nome, preco);
-                                break;
-                        }
-                        
-                        if (produto != null) {
-                            produto.setDisponibilidade(disponivel);
-                            restaurante.adicionarProdutoCardapio(produto);
-                            totalProdutos++;
+
+    private static class ItensLidos {
+        final List<Pedido> pedidos = new ArrayList<>();
+        final List<ItemPedido> itens = new ArrayList<>();
+    }
+
+    /**
+     * cada pedaco monta os Pedido nas threads da carga (so le os indices de cliente e
+     * restaurante, que nao mudam nessa etapa). ligar nas listas do cliente, fila do
+     * restaurante e indice do repositorio fica numa etapa so, na ordem do arquivo
+     */
+    private void carregarPedidosEmPartes(CarregadorParalelo carregador) {
+        List<PedidosLidos> partes = carregador.processarPartes("pedidos (leitura mapeada)",
+            abrirEmPartes(ConjuntoDados.PEDIDOS, carregador), leitor -> {
+                PedidosLidos lidos = new PedidosLidos();
+                try {
+                    while (leitor.proximoRegistro()) {
+                        Pedido p = lerLinhaPedido(leitor);
+                        if (p != null) {
+                            lidos.pedidos.add(p);
                         }
                     }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Erro ao carregar pedidos: " + e.getMessage());
+                    lidos.interrompido = true;
+                }
+                return lidos;
+            });
+
+        carregador.executarEtapa("pedidos", () -> {
+            int maiorId = 0;
+            for (PedidosLidos parte : partes) {
+                for (Pedido p : parte.pedidos) {
+                    vincularNaCarga(p);
+                    maiorId = Math.max(maiorId, p.getNumeroPedido());
+                }
+                // igual a leitura sequencial: linha invalida encerra a carga de pedidos
+                if (parte.interrompido) {
+                    break;
                 }
             }
-            System.out.println(">>> " + totalProdutos + " produtos carregados nos cardápios");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de cardápios não encontrado. Será criado ao salvar.");
-        } catch (IOException e) {
-            System.err.println("Erro ao carregar cardápios: " + e.getMessage());
-        }
-    }
-
-    private void carregarEnderecos() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_ENDERECOS), StandardCharsets.UTF_8))) {
-            String linha;
-            int totalEnderecos = 0;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 7) {
-                    String emailCliente = dados[0];
-                    Cliente cliente = buscarClientePorEmail(emailCliente);
-                    if (cliente != null) {
-                        Endereco end = new Endereco(dados[1], dados[2], dados[3], dados[4], dados[5], dados[6]);
-                        cliente.adicionarEndereco(end);
-                        totalEnderecos++;
+            if (maiorId > 0) {
+                Pedido.inicializarContador(maiorId);
+            }
+            System.out.println(">>> " + pedidos.size() + " pedidos carregados");
+        });
+    }
+
+    private List<ItensLidos> lerItensEmPartes(CarregadorParalelo carregador) {
+        return carregador.processarPartes("itens (leitura mapeada)",
+            abrirEmPartes(ConjuntoDados.ITENS_PEDIDO, carregador), leitor -> {
+                ItensLidos lidos = new ItensLidos();
+                while (leitor.proximoRegistro()) {
+                    if (leitor.quantidadeCampos() < 6) {
+                        continue;
+                    }
+                    Pedido pedido = pedidoNaCarga(leitor.inteiro(0));
+                    ItemPedido item = lerLinhaItemPedido(leitor, pedido);
+                    if (item != null) {
+                        lidos.pedidos.add(pedido);
+                        lidos.itens.add(item);
                     }
                 }
+                return lidos;
+            });
+    }
+
+    private void vincularItens(List<ItensLidos> partes) {
+        int totalItens = 0;
+        for (ItensLidos parte : partes) {
+            for (int i = 0; i < parte.itens.size(); i++) {
+                parte.pedidos.get(i).adicionarItem(parte.itens.get(i));
             }
-            System.out.println(">>> " + totalEnderecos + " endereços carregados");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de endereços não encontrado. Será criado ao salvar.");
-        } catch (IOException e) {
-            System.err.println("Erro ao carregar endereços: " + e.getMessage());
+            totalItens += parte.itens.size();
         }
+        System.out.println(">>> " + totalItens + " itens de pedido carregados");
     }
 
-    private void carregarPedidos() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_PEDIDOS), StandardCharsets.UTF_8))) {
-            String linha;
-            int maiorId = 0;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 6) {
-                    int numeroPedido = Integer.parseInt(dados[0]);
-                    if (numeroPedido > maiorId) {
-                        maiorId = numeroPedido;
-                    }
-                    
-                    Date dataHora = dateFormat.parse(dados[1]);
-                    String emailCliente = dados[2];
-                    String emailRestaurante = dados[3];
-                    String status = dados[4];
-                    double valorTotal = Double.parseDouble(dados[5]);
-                    
-                    Cliente cliente = buscarClientePorEmail(emailCliente);
-                    Restaurante restaurante = buscarRestaurantePorEmail(emailRestaurante);
+    private void carregarRestaurantes(Registros leitor) {
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() >= 4) {
+                Restaurante r = new Restaurante(leitor.texto(0), leitor.texto(1), leitor.texto(2), leitor.texto(3));
+                r.abrirRestaurante();
+                incluirRestaurante(r);
+            }
+        }
+        System.out.println(">>> " + restaurantes.size() + " restaurantes carregados");
+    }
+
+    private void carregarClientes(Registros leitor) {
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() >= 4) {
+                incluirCliente(new Cliente(leitor.texto(0), leitor.texto(1), leitor.texto(2), leitor.texto(3)));
+            }
+        }
+    }
+    
+    private void carregarCardapios(Registros leitor) {
+        int totalProdutos = 0;
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() >= 6) {
+                Restaurante restaurante = buscarRestaurantePorEmail(leitor.texto(0));
+                if (restaurante != null) {
+                    String nome = leitor.texto(2);
+                    String descricao = leitor.texto(3);
+                    double preco = leitor.decimal(4);
+                    boolean disponivel = leitor.booleano(5);
+                    boolean temExtra = !leitor.vazio(6);
+                    Produto produto = null;
                     
-                    if (cliente != null && restaurante != null) {
-                        Pedido p = new Pedido(numeroPedido, dataHora, status, valorTotal);
-                        p.setCliente(cliente);
-                        p.setRestaurante(restaurante);
-                        
-                        cliente.adicionarPedido(p);
-                        
-                        if (!status.equals("Entregue") && !status.equals("Cancelado")) {
-                            try {
-                                restaurante.aceitarPedido(p);
-                            } catch (Exception e) {
-                                //restaurante pode estar fechado
-                            }
+                    if (leitor.textoIgual(1, "Comida")) {
+                        boolean vegetariano = temExtra ? leitor.booleano(6) : false;
+                        Comida comida = new Comida(nome, descricao, preco, vegetariano);
+                        // arquivos antigos nao tem o campo do vegano
+                        if (!leitor.vazio(7) && leitor.booleano(7)) {
+                            comida.setVegano(true);
                         }
-                        
-                        pedidos.add(p);
+                        produto = comida;
+                    } else if (leitor.textoIgual(1, "Bebida")) {
+                        int volumeML = temExtra ? leitor.inteiro(6) : 350;
+                        produto = new Bebida(nome, descricao, preco, volumeML);
+                    } else if (leitor.textoIgual(1, "Sobremesa")) {
+                        produto = temExtra ? new Sobremesa(nome, descricao, preco, leitor.texto(6))
+                                           : new Sobremesa(nome, descricao, preco);
+                    } else if (leitor.textoIgual(1, "Adicional")) {
+                        produto = new Adicional(nome, preco);
+                    }
+                    
+                    if (produto != null) {
+                        produto.setDisponibilidade(disponivel);
+                        restaurante.adicionarProdutoCardapio(produto);
+                        totalProdutos++;
                     }
                 }
             }
-            
-            if (maiorId > 0) {
-                Pedido.inicializarContador(maiorId);
+        }
+        System.out.println(">>> " + totalProdutos + " produtos carregados nos cardápios");
+    }
+
+    private void carregarEnderecos(Registros leitor) {
+        int totalEnderecos = 0;
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() >= 7) {
+                Cliente cliente = buscarClientePorEmail(leitor.texto(0));
+                if (cliente != null) {
+                    Endereco end = new Endereco(leitor.texto(1), leitor.texto(2), leitor.texto(3), 
+                                                leitor.texto(4), leitor.texto(5), leitor.texto(6));
+                    cliente.adicionarEndereco(end);
+                    totalEnderecos++;
+                }
             }
-            
-            System.out.println(">>> " + pedidos.size() + " pedidos carregados");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de pedidos não encontrado. Será criado ao salvar.");
-        } catch (IOException | ParseException e) {
-            System.err.println("Erro ao carregar pedidos: " + e.getMessage());
         }
+        System.out.println(">>> " + totalEnderecos + " endereços carregados");
     }
 
-    private void carregarItensPedido() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_ITENS_PEDIDO), StandardCharsets.UTF_8))) {
-            String linha;
-            int totalItens = 0;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 6) {
-                    int numeroPedido = Integer.parseInt(dados[0]);
-                    String emailRestaurante = dados[1];
-                    String nomeProduto = dados[2];
-                    int quantidade = Integer.parseInt(dados[3]);
-                    double precoUnitario = Double.parseDouble(dados[4]);
-                    String observacoes = dados[5];
-                    
-                    Pedido pedido = buscarPedidoPorNumero(numeroPedido);
-                    Restaurante restaurante = buscarRestaurantePorEmail(emailRestaurante);
-                    
-                    if (pedido != null && restaurante != null) {
-                        Produto produto = restaurante.buscarProduto(nomeProduto);
-                        if (produto != null) {
-                            ItemPedido item = new ItemPedido(produto, quantidade, observacoes);
-                            pedido.adicionarItem(item);
-                            totalItens++;
-                        }
+    private void carregarEnderecosRestaurantes(Registros leitor) {
+        int total = 0;
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() >= 8) {
+                Restaurante restaurante = buscarRestaurantePorEmail(leitor.texto(0));
+                if (restaurante != null) {
+                    try {
+                        restaurante.setRaioEntregaKm(leitor.decimal(7));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Raio de entrega ignorado (" + restaurante.getEmail() + "): " + e.getMessage());
                     }
+                    restaurante.setEndereco(new Endereco(leitor.texto(1), leitor.texto(2), leitor.texto(3),
+                                                         leitor.texto(4), leitor.texto(5), leitor.texto(6)));
+                    total++;
                 }
             }
-            System.out.println(">>> " + totalItens + " itens de pedido carregados");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de itens de pedido não encontrado. Será criado ao salvar.");
+        }
+        System.out.println(">>> " + total + " endereços de restaurantes carregados");
+    }
+
+    private void carregarPedidos(Registros leitor) {
+        int maiorId = 0;
+        try {
+            while (leitor.proximoRegistro()) {
+                Pedido p = lerLinhaPedido(leitor);
+                if (p != null) {
+                    vincularNaCarga(p);
+                    maiorId = Math.max(maiorId, p.getNumeroPedido());
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erro ao carregar pedidos: " + e.getMessage());
+        }
+        
+        if (maiorId > 0) {
+            Pedido.inicializarContador(maiorId);
+        }
+        
+        System.out.println(">>> " + pedidos.size() + " pedidos carregados");
+    }
+
+    // numero;data;emailCliente;emailRestaurante;status;valor
+    private Pedido carregarLinhaPedido(Registros registro) {
+        Pedido p = lerLinhaPedido(registro);
+        if (p != null) {
+            vincularPedido(p);
+        }
+        return p;
+    }
+
+    // so monta o pedido; le os indices direto porque pode rodar nas threads da carga
+    private Pedido lerLinhaPedido(Registros registro) {
+        if (registro.quantidadeCampos() < 6) {
+            return null;
+        }
+        Cliente cliente = buscarClientePorEmail(registro.texto(2));
+        Restaurante restaurante = buscarRestaurantePorEmail(registro.texto(3));
+        
+        if (cliente == null || restaurante == null) {
+            return null;
+        }
+
+        int numeroPedido = registro.inteiro(0);
+        Date dataHora = new Date(registro.dataHora(1));
+        String status = registro.texto(4);
+        double valorTotal = registro.decimal(5);
+        if (StatusPedido.deTexto(status) == null) {
+            System.err.println("Pedido #" + numeroPedido + " ignorado: status desconhecido (" + status + ")");
+            return null;
+        }
+
+        Pedido p = new Pedido(numeroPedido, dataHora, status, valorTotal);
+        p.setCliente(cliente);
+        p.setRestaurante(restaurante);
+        return p;
+    }
+
+    /**
+     * carga do snapshot: pedido que ja esta no segmento frio (queda entre o acrescimo
+     * e o snapshot seguinte) fica de fora; finalizado antigo espera o fim da carga
+     * pra ir pro segmento junto com itens e avaliacao
+     */
+    private void vincularNaCarga(Pedido p) {
+        if (friosDisponiveis && frios.contem(p.getNumeroPedido())) {
+            marcarAlterado(ConjuntoDados.PEDIDOS, ConjuntoDados.ITENS_PEDIDO);
+            return;
+        }
+        if (aEsfriar != null && deveEsfriar(p)) {
+            aEsfriar.put(p.getNumeroPedido(), p);
+            return;
+        }
+        vincularPedido(p);
+    }
+
+    private boolean deveEsfriar(Pedido p) {
+        return p.getStatusPedido().isFinalizado()
+            && p.getDataHora().getTime() < System.currentTimeMillis() - idadeFriaMs;
+    }
+
+    // durante a carga os itens e avaliacoes tambem acham os pedidos que vao esfriar
+    private Pedido pedidoNaCarga(int numero) {
+        Pedido pedido = buscarPedidoPorNumero(numero);
+        if (pedido == null && aEsfriar != null) {
+            pedido = aEsfriar.get(numero);
+        }
+        return pedido;
+    }
+
+    private void vincularPedido(Pedido p) {
+        p.getCliente().adicionarPedido(p);
+        
+        if (!p.getStatusPedido().isFinalizado()) {
+            try {
+                p.getRestaurante().aceitarPedido(p);
+            } catch (Exception e) {
+                //restaurante pode estar fechado
+            }
+        }
+        
+        incluirPedido(p);
+    }
+
+    private void carregarItensPedido(Registros leitor) {
+        int totalItens = 0;
+        while (leitor.proximoRegistro()) {
+            if (carregarLinhaItemPedido(leitor)) {
+                totalItens++;
+            }
+        }
+        System.out.println(">>> " + totalItens + " itens de pedido carregados");
+    }
+
+    // numero;emailRestaurante;produto;quantidade;precoUnitario;observacoes
+    private boolean carregarLinhaItemPedido(Registros registro) {
+        if (registro.quantidadeCampos() < 6) {
+            return false;
+        }
+        Pedido pedido = pedidoNaCarga(registro.inteiro(0));
+        ItemPedido item = lerLinhaItemPedido(registro, pedido);
+        if (item == null) {
+            return false;
+        }
+        pedido.adicionarItem(item);
+        return true;
+    }
+
+    private ItemPedido lerLinhaItemPedido(Registros registro, Pedido pedido) {
+        if (pedido == null || registro.quantidadeCampos() < 6) {
+            return null;
+        }
+        Restaurante restaurante = buscarRestaurantePorEmail(registro.texto(1));
+        if (restaurante == null) {
+            return null;
+        }
+        Produto produto = restaurante.buscarProduto(registro.texto(2));
+        if (produto == null) {
+            return null;
+        }
+        return new ItemPedido(produto, registro.inteiro(3), registro.texto(5));
+    }
+
+    private void carregarCupons(Registros leitor) {
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() >= 3) {
+                Cupom cupom = new Cupom(leitor.texto(0), leitor.decimal(1), leitor.booleano(2));
+                cupons.add(cupom);
+            }
+        }
+        System.out.println(">>> " + cupons.size() + " cupons carregados");
+    }
+
+    private Pedido buscarPedidoPorNumero(int numeroPedido) {
+        return pedidosPorNumero.get(numeroPedido);
+    }
+
+    //pedidos frios
+
+    private void abrirPedidosFrios() {
+        try {
+            frios.abrir();
+            friosDisponiveis = true;
+            if (frios.getMaiorNumero() > 0) {
+                Pedido.inicializarContador(frios.getMaiorNumero());
+            }
         } catch (IOException e) {
-            System.err.println("Erro ao carregar itens de pedido: " + e.getMessage());
+            // sem o indice nada vai pro segmento; os arquivos ficam como estao
+            System.err.println("Erro ao abrir pedidos frios: " + e.getMessage());
+            friosDisponiveis = false;
         }
     }
 
-    private void carregarCupons() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_CUPONS), StandardCharsets.UTF_8))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 3) {
-                    String codigo = dados[0];
-                    double desconto = Double.parseDouble(dados[1]);
-                    boolean ehPercentual = Boolean.parseBoolean(dados[2]);
-                    
-                    Cupom cupom = new Cupom(codigo, desconto, ehPercentual);
-                    cupons.add(cupom);
+    /**
+     * acrescenta no segmento frio os pedidos separados na carga. os arquivos de pedidos
+     * e itens sao regravados no proximo snapshot sem eles; ate la, se cair, a carga
+     * seguinte acha os numeros no segmento e ignora as linhas repetidas
+     */
+    private void esfriarPedidos() {
+        List<Pedido> lista = new ArrayList<>(aEsfriar.values());
+        if (lista.isEmpty()) {
+            selarPedidosFrios();
+            return;
+        }
+        try {
+            frios.anexar(lista);
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar pedidos frios: " + e.getMessage() + ". Mantidos em memória.");
+            for (Pedido p : lista) {
+                vincularPedido(p);
+            }
+            return;
+        }
+        selarPedidosFrios();
+        synchronized (this) {
+            for (Pedido p : lista) {
+                List<Avaliacao> avaliacoes = p.getAvaliacoes();
+                if (!avaliacoes.isEmpty()) {
+                    avaliacoesFrias.put(p.getNumeroPedido(), avaliacoes.get(0));
                 }
             }
-            System.out.println(">>> " + cupons.size() + " cupons carregados");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de cupons não encontrado. Será criado ao salvar.");
+            esfriadosNaCarga = lista.size();
+        }
+        marcarAlterado(ConjuntoDados.PEDIDOS, ConjuntoDados.ITENS_PEDIDO);
+        System.out.println(">>> " + lista.size() + " pedidos finalizados movidos para o segmento frio");
+    }
+
+    // comprime o que acumulou nos .txt do segmento frio; se falhar, continua lido de la
+    private void selarPedidosFrios() {
+        if (!friosDisponiveis || !frios.precisaSelar()) {
+            return;
+        }
+        try {
+            frios.selar();
         } catch (IOException e) {
-            System.err.println("Erro ao carregar cupons: " + e.getMessage());
+            System.err.println("Erro ao selar pedidos frios: " + e.getMessage());
         }
     }
 
-    private Pedido buscarPedidoPorNumero(int numeroPedido) {
-        for (Pedido p : pedidos) {
-            if (p.getNumeroPedido() == numeroPedido) {
-                return p;
+    public int getQuantidadePedidosFrios(Cliente cliente) {
+        return cliente == null ? 0 : frios.getQuantidadeDoCliente(cliente.getEmail());
+    }
+
+    /**
+     * pedidos frios do cliente, do mais recente pro mais antigo (o historico em memoria
+     * ja tem os mais novos). cada chamada monta Pedido novos a partir do disco; eles nao
+     * entram no historico do cliente nem no repositorio
+     */
+    public List<Pedido> carregarPedidosFrios(Cliente cliente, int inicio, int quantidade) {
+        if (cliente == null) {
+            return new ArrayList<>();
+        }
+        return montarPedidosFrios(frios.numerosDoCliente(cliente.getEmail(), inicio, quantidade));
+    }
+
+    // todos os pedidos frios do restaurante, na ordem das datas (estatisticas)
+    public List<Pedido> carregarPedidosFrios(Restaurante restaurante) {
+        if (restaurante == null) {
+            return new ArrayList<>();
+        }
+        return montarPedidosFrios(frios.numerosDoRestaurante(restaurante.getEmail()));
+    }
+
+    private List<Pedido> montarPedidosFrios(List<Integer> numeros) {
+        List<Pedido> montados = new ArrayList<>();
+        if (numeros.isEmpty()) {
+            return montados;
+        }
+        List<PedidosFrios.Lido> lidos;
+        try {
+            lidos = frios.ler(numeros); // o I/O fica fora da trava do repositorio
+        } catch (IOException e) {
+            System.err.println("Erro ao ler pedidos frios: " + e.getMessage());
+            return montados;
+        }
+        synchronized (this) {
+            for (PedidosFrios.Lido lido : lidos) {
+                if (!lido.pedido.proximoRegistro()) {
+                    continue;
+                }
+                Pedido p = lerLinhaPedido(lido.pedido);
+                if (p == null) {
+                    continue; // cliente ou restaurante nao existe mais
+                }
+                while (lido.itens.proximoRegistro()) {
+                    ItemPedido item = lerLinhaItemPedido(lido.itens, p);
+                    if (item != null) {
+                        p.adicionarItem(item);
+                    }
+                }
+                Avaliacao avaliacao = avaliacoesFrias.get(p.getNumeroPedido());
+                if (avaliacao != null) {
+                    p.restaurarAvaliacao(avaliacao.getNota(), avaliacao.getComentario());
+                }
+                montados.add(p);
             }
+            leiturasFrias++;
+            pedidosFriosLidos += montados.size();
         }
-        return null;
+        return montados;
+    }
+
+    // divisao entre pedidos em memoria e no segmento frio
+    public synchronized EstatisticasPedidos getEstatisticasPedidos() {
+        return new EstatisticasPedidos(pedidos.size(), frios.getQuantidade(), frios.getQuantidadeSelada(),
+                                       frios.getTamanhoBytes(),
+                                       esfriadosNaCarga, leiturasFrias, pedidosFriosLidos);
     }
 
     //save
 
+    /**
+     * grava o snapshot e compacta o diario. so os conjuntos marcados como alterados
+     * sao regravados, os outros ficam como estao no armazenamento.
+     * o estado e copiado sob a trava do repositorio e gravado fora dela, entao pedidos
+     * novos continuam entrando no diario durante a gravacao; so os registros com lsn
+     * ate o corte sao descartados. se algum conjunto falhar o diario fica intacto
+     */
     public void salvarDados() {
-        System.out.println(">>> Salvando dados do sistema...");
-        salvarRestaurantes();
-        salvarClientes();
-        salvarCardapios();
-        salvarEnderecos();
-        salvarPedidos();
-        salvarItensPedido();
-        salvarCupons();
-        salvarCartoes();
-        salvarAvaliacoes();
-        salvarAvaliacoesPedidos();
-        salvarCuponsUsados(); // ✅ NOVO
-        System.out.println(">>> Dados salvos com sucesso!");
-    }
-
-    private void salvarRestaurantes() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_RESTAURANTES), StandardCharsets.UTF_8))) {
-            for (Restaurante r : restaurantes) {
-                bw.write(r.getEmail() + ";" + r.getSenha() + ";" + 
-                        r.getNomeRestaurante() + ";" + r.getCNPJ());
-                bw.newLine();
+        synchronized (travaSnapshot) {
+            System.out.println(">>> Salvando dados do sistema...");
+            EstadoCapturado estado = capturarEstado();
+            // o backend pode guardar conjuntos juntos (ex: pedidos e itens no pedidos.bin)
+            for (ConjuntoDados conjunto : estado.alterados.toArray(new ConjuntoDados[0])) {
+                estado.alterados.addAll(armazenamento.gravadosJuntos(conjunto));
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar restaurantes: " + e.getMessage());
+
+            // nada fica visivel antes do confirmar; se um conjunto falhar o snapshot inteiro e descartado
+            boolean ok = true;
+            int ignorados = 0;
+            long bytesEvitados = 0;
+            SnapshotArmazenamento snapshot = null;
+            try {
+                snapshot = armazenamento.iniciarSnapshot();
+            } catch (IOException e) {
+                System.err.println("Erro ao iniciar snapshot: " + e.getMessage());
+                ok = false;
+            }
+            for (ConjuntoDados conjunto : ConjuntoDados.values()) {
+                if (!ok) {
+                    break;
+                }
+                if (!estado.alterados.contains(conjunto)) {
+                    ignorados++;
+                    bytesEvitados += armazenamento.tamanho(conjunto);
+                    continue;
+                }
+                ok &= salvarConjunto(conjunto, estado, snapshot);
+            }
+
+            if (ok) {
+                try {
+                    // o lsn do corte vai junto: so marca o corte quando os dados ja estao gravados
+                    snapshot.confirmar(estado.lsn);
+                } catch (IOException e) {
+                    System.err.println("Erro ao confirmar snapshot: " + e.getMessage());
+                    ok = false;
+                }
+            } else if (snapshot != null) {
+                snapshot.descartar();
+            }
+            if (!ok) {
+                // tenta de novo no proximo salvamento
+                marcarAlterado(estado.alterados.toArray(new ConjuntoDados[0]));
+                System.err.println(">>> Snapshot incompleto, diário mantido.");
+                return;
+            }
+
+            long bytesGravados = 0;
+            for (ConjuntoDados conjunto : estado.alterados) {
+                bytesGravados += armazenamento.tamanho(conjunto);
+            }
+            int gravados = estado.alterados.size();
+            estatisticasSalvamento.registrarSalvamento(gravados, ignorados, bytesGravados, bytesEvitados);
+            System.out.println(">>> " + gravados + " conjuntos gravados, " + ignorados + 
+                             " sem alteração (" + bytesEvitados + " bytes evitados)");
+            try {
+                diario.descartarAte(estado.lsn);
+            } catch (IOException e) {
+                System.err.println("Erro ao compactar diário: " + e.getMessage());
+                return;
+            }
+            instanteUltimoSnapshot = System.currentTimeMillis();
+            System.out.println(">>> Dados salvos com sucesso!");
+        }
+    }
+
+    // marca e salva, para quem alterou o modelo direto (ex: cardapio)
+    public void salvarDados(ConjuntoDados... conjuntosAlterados) {
+        marcarAlterado(conjuntosAlterados);
+        salvarDados();
+    }
+
+    /**
+     * pede um salvamento sem bloquear quem chamou (ex: thread do JavaFX).
+     * a gravacao acontece na thread de I/O, junto com outros pedidos da mesma janela
+     */
+    public void agendarSalvamento(ConjuntoDados... conjuntosAlterados) {
+        if (agendador == null) {
+            salvarDados(conjuntosAlterados); // ainda no construtor
+            return;
+        }
+        agendador.solicitarSalvamento(conjuntosAlterados);
+    }
+
+    // grava o que estiver agendado e espera terminar (saida do app)
+    public void aguardarSalvamentos() {
+        if (barramento != null) {
+            // a persistencia marca o que mudou pelos eventos; eles entram antes do ultimo salvamento
+            barramento.aguardarEntregas(ESPERA_EVENTOS_MS);
+        }
+        if (agendador == null) {
+            salvarDados();
+            return;
+        }
+        agendador.flush();
+    }
+
+    public AgendadorSalvamento getAgendador() {
+        return agendador;
+    }
+
+    public BarramentoPedidos getBarramentoPedidos() {
+        return barramento;
+    }
+
+    // roda uma vez, no getInstance, antes de alguem ver o repositorio
+    private void conectarBarramento(BarramentoPedidos novo) {
+        barramento = novo;
+        for (Restaurante r : restaurantes) {
+            r.adicionarOuvinteStatusPedido(ouvinteEventos);
+        }
+        // com o diario ligado cada mudanca ja foi gravada e marcada na hora: nem entra na fila
+        assinaturaPersistencia = novo.assinar(this::persistirEventos, new OpcoesAssinatura()
+            .nome("persistencia").filtro(p -> !modoDiario).capacidade(1024).lote(256)
+            .politica(PoliticaTransbordo.DESCARTAR_ANTIGOS));
+    }
+
+    private void publicarEvento(TipoEventoPedido tipo, Pedido pedido) {
+        BarramentoPedidos b = barramento;
+        if (b != null) {
+            b.publicar(tipo, pedido);
         }
     }
 
-    private void salvarClientes() {
-        try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(ARQUIVO_CLIENTES), StandardCharsets.UTF_8))) {
-            for (Cliente c : clientes) {
-                bw.write(c.getEmail() + ";" + c.getSenha() + ";" + c.getNome() + ";" + c.getTelefone());
-                bw.newLine();
+    /**
+     * assinante da persistencia, com o diario desligado: cada lote vira um salvamento
+     * agendado so, que cobre tambem quem mudou o pedido direto no modelo
+     * (ex: Restaurante.recusarPedido). o diario nao passa por aqui: ele e gravado na
+     * hora, sob as travas, porque a posicao dele em relacao ao corte do snapshot nao
+     * pode depender de fila. se a fila transbordou, marca tudo dos pedidos: o
+     * salvamento grava o estado atual, entao nao precisa de cada evento perdido
+     */
+    private void persistirEventos(List<EventoPedido> lote) {
+        Set<ConjuntoDados> conjuntos = EnumSet.noneOf(ConjuntoDados.class);
+        long descartes = assinaturaPersistencia.getDescartados();
+        if (descartes != descartesPersistenciaVistos) {
+            descartesPersistenciaVistos = descartes;
+            conjuntos.add(ConjuntoDados.PEDIDOS);
+            conjuntos.add(ConjuntoDados.ITENS_PEDIDO);
+            conjuntos.add(ConjuntoDados.AVALIACOES_PEDIDOS);
+        }
+        for (EventoPedido evento : lote) {
+            if (!contemPedido(evento.getPedido())) {
+                continue; // pedido fora do repositorio nao e gravado
+            }
+            switch (evento.getTipo()) {
+                case CRIADO:
+                    conjuntos.add(ConjuntoDados.PEDIDOS);
+                    conjuntos.add(ConjuntoDados.ITENS_PEDIDO);
+                    break;
+                case AVALIADO:
+                    conjuntos.add(ConjuntoDados.AVALIACOES_PEDIDOS);
+                    break;
+                case PAGO:
+                    break; // o pagamento nao e gravado; a confirmacao que vem junto e
+                default:
+                    conjuntos.add(ConjuntoDados.PEDIDOS);
+            }
+        }
+        if (!conjuntos.isEmpty()) {
+            agendarSalvamento(conjuntos.toArray(new ConjuntoDados[0]));
+        }
+    }
+
+    // regrava todos os arquivos, usado na saida do app
+    public void salvarTudo() {
+        marcarAlterado(ConjuntoDados.values());
+        salvarDados();
+    }
+
+    // trava propria: e chamado com as travas de pedido na mao, que nao podem esperar pelo this
+    public void marcarAlterado(ConjuntoDados... conjuntos) {
+        synchronized (alterados) {
+            for (ConjuntoDados conjunto : conjuntos) {
+                alterados.add(conjunto);
             }
+        }
+    }
+
+    public boolean estaAlterado(ConjuntoDados conjunto) {
+        synchronized (alterados) {
+            return alterados.contains(conjunto);
+        }
+    }
+
+    // nanos de cada etapa da ultima carga, na ordem em que rodaram
+    public Map<String, Long> getTemposCarregamento() {
+        return temposCarregamento;
+    }
+
+    public EstatisticasSalvamento getEstatisticasSalvamento() {
+        return estatisticasSalvamento;
+    }
+
+    private boolean salvarConjunto(ConjuntoDados conjunto, EstadoCapturado estado, SnapshotArmazenamento snapshot) {
+        try {
+            GravadorRegistros gravador = snapshot.gravador(conjunto);
+            switch (conjunto) {
+                case RESTAURANTES: salvarRestaurantes(estado, gravador); break;
+                case CLIENTES: salvarClientes(estado, gravador); break;
+                case CARDAPIOS: salvarCardapios(estado, gravador); break;
+                case ENDERECOS: salvarEnderecos(estado, gravador); break;
+                case PEDIDOS: salvarPedidos(estado, gravador); break;
+                case ITENS_PEDIDO: salvarItensPedido(estado, gravador); break;
+                case CUPONS: salvarCupons(estado, gravador); break;
+                case CARTOES: salvarCartoes(estado, gravador); break;
+                case AVALIACOES: salvarAvaliacoes(estado, gravador); break;
+                case AVALIACOES_PEDIDOS: salvarAvaliacoesPedidos(estado, gravador); break;
+                case CUPONS_USADOS: salvarCuponsUsados(estado, gravador); break;
+                case ENDERECOS_RESTAURANTES: salvarEnderecosRestaurantes(estado, gravador); break;
+                default: return false;
+            }
+            return true;
         } catch (IOException e) {
-            System.err.println("Erro ao salvar restaurantes: " + e.getMessage());
+            System.err.println("Erro ao salvar " + conjunto.getArquivo() + ": " + e.getMessage());
+            return false;
         }
     }
 
-    private void salvarCardapios() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_CARDAPIOS), StandardCharsets.UTF_8))) {
-            for (Restaurante r : restaurantes) {
-                for (Produto p : r.getCardapio()) {
-                    StringBuilder sb = new StringBuilder();
-                    sb.append(r.getEmail()).append(";");
-                    sb.append(p.getCategoria()).append(";");
-                    sb.append(p.getNome()).append(";");
-                    sb.append(p.getDescricao()).append(";");
-                    sb.append(p.getPreco()).append(";");
-                    sb.append(p.isDisponivel());
-                    
-                    if (p instanceof Comida) {
-                        sb.append(";false");
-                    } else if (p instanceof Bebida) {
-                        sb.append(";350");
+    // fotos das colecoes no instante do corte, para gravar sem segurar a trava
+    private static class EstadoCapturado {
+        Set<ConjuntoDados> alterados;
+        List<Restaurante> restaurantes;
+        List<Cliente> clientes;
+        List<Pedido> pedidos;
+        List<Cupom> cupons;
+        Map<Restaurante, List<Avaliacao>> avaliacoesRestaurantes;
+        Map<Integer, Avaliacao> avaliacoesFrias;
+        long lsn;
+    }
+
+    private EstadoCapturado capturarEstado() {
+        travaCorte.writeLock().lock();
+        try {
+            synchronized (this) {
+                return capturarEstadoNoCorte();
+            }
+        } finally {
+            travaCorte.writeLock().unlock();
+        }
+    }
+
+    private EstadoCapturado capturarEstadoNoCorte() {
+        EstadoCapturado estado = new EstadoCapturado();
+        estado.restaurantes = restaurantes.visao();
+        estado.clientes = clientes.visao();
+        estado.pedidos = pedidos.visao();
+        estado.cupons = new ArrayList<>(cupons);
+        estado.avaliacoesRestaurantes = new IdentityHashMap<>();
+        for (Restaurante r : restaurantes) {
+            estado.avaliacoesRestaurantes.put(r, r.getAvaliacoes());
+        }
+        estado.avaliacoesFrias = new TreeMap<>(avaliacoesFrias);
+        estado.lsn = diario.getUltimoLsn();
+        // o que mudar daqui em diante marca de novo e entra no proximo snapshot
+        estado.alterados = EnumSet.noneOf(ConjuntoDados.class);
+        synchronized (alterados) {
+            estado.alterados.addAll(alterados);
+            alterados.clear();
+        }
+        return estado;
+    }
+
+    //diario: cada metodo abaixo grava so a mudanca, sem reescrever os arquivos
+
+    /**
+     * inclui o pedido e grava no diario de uma vez so: com a leitura do corte e a trava
+     * do restaurante na mao, o pedido entra nas listas, nos indices e no diario antes
+     * de qualquer mudanca de status dele e do lado certo do corte do snapshot.
+     * pedidos de restaurantes diferentes entram em paralelo
+     */
+    public void registrarNovoPedido(Pedido pedido) {
+        if (pedido == null) return;
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travaDoPedido(pedido)) {
+                // repetido nao grava de novo: os itens seriam reaplicados duas vezes
+                if (!incluirSeNovo(pedido)) {
+                    return;
+                }
+                if (modoDiario && pedido.getCliente() != null && pedido.getRestaurante() != null) {
+                    // pedido sem dono nao e persistido, igual ao salvarPedidos
+                    anexarNoDiario(REG_PEDIDO, formatarPedido(pedido));
+                    for (ItemPedido item : pedido.getItens()) {
+                        anexarNoDiario(REG_ITEM, formatarItemPedido(pedido, item));
                     }
-                    
-                    bw.write(sb.toString());
-                    bw.newLine();
                 }
+                // ainda com a trava do restaurante: sai antes de qualquer mudanca de etapa dele.
+                // sem o diario, o salvamento vem da assinatura da persistencia
+                publicarEvento(TipoEventoPedido.CRIADO, pedido);
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar cardápios: " + e.getMessage());
+        } finally {
+            travaCorte.readLock().unlock();
+        }
+    }
+
+    // para quem ja mudou o status no pedido (ex: Restaurante.aceitarPedido)
+    public void registrarStatusPedido(Pedido pedido) {
+        if (pedido == null) return;
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travaDoPedido(pedido)) {
+                gravarStatus(pedido);
+            }
+        } finally {
+            travaCorte.readLock().unlock();
         }
     }
 
-    private void salvarEnderecos() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_ENDERECOS), StandardCharsets.UTF_8))) {
-            for (Cliente c : clientes) {
-                for (Endereco end : c.getEnderecos()) {
-                    bw.write(c.getEmail() + ";" + end.getCep() + ";" + end.getRua() + ";" +
-                            end.getNumero() + ";" + end.getBairro() + ";" + 
-                            end.getCidade() + ";" + end.getEstado());
-                    bw.newLine();
+    /**
+     * muda o status e grava sob a trava do restaurante, entao duas sessoes mexendo
+     * nos pedidos do mesmo restaurante gravam no diario na mesma ordem em que o
+     * status mudou. false se a transicao foi recusada pelo pedido.
+     * sem o diario, o salvamento vem do evento da mudanca (persistirEventos)
+     */
+    public boolean alterarStatusPedido(Pedido pedido, StatusPedido novoStatus) {
+        if (pedido == null) return false;
+        boolean alterou;
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travaDoPedido(pedido)) {
+                alterou = pedido.atualizarStatus(novoStatus);
+                if (alterou) {
+                    gravarStatus(pedido);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar endereços: " + e.getMessage());
+        } finally {
+            travaCorte.readLock().unlock();
         }
+        return alterou;
     }
 
-    private void salvarPedidos() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_PEDIDOS), StandardCharsets.UTF_8))) {
-            for (Pedido p : pedidos) {
-                if (p.getCliente() != null && p.getRestaurante() != null) {
-                    bw.write(p.getNumeroPedido() + ";" +
-                            dateFormat.format(p.getDataHora()) + ";" +
-                            p.getCliente().getEmail() + ";" +
-                            p.getRestaurante().getEmail() + ";" +
-                            p.getStatus() + ";" +
-                            p.getValorTotal());
-                    bw.newLine();
+    /**
+     * cobra e confirma o pedido sob a trava do corte e a do restaurante, como o
+     * alterarStatusPedido: outra sessao nao cancela entre a cobranca e o confirmado.
+     * false (sem cobrar) se o pedido ja nao pode ser confirmado
+     */
+    public boolean confirmarPagamentoPedido(Pedido pedido)
+            throws PagamentoRecusadoException {
+        if (pedido == null) return false;
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travaDoPedido(pedido)) {
+                if (!pedido.getStatusPedido().podeIrPara(StatusPedido.CONFIRMADO)) {
+                    return false;
                 }
+                if (!pedido.processarPagamento()) {
+                    return false;
+                }
+                gravarStatus(pedido);
+                return true;
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar pedidos: " + e.getMessage());
-        }
-    }
-
-    private void salvarItensPedido() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_ITENS_PEDIDO), StandardCharsets.UTF_8))) {
-            for (Pedido p : pedidos) {
-                if (p.getRestaurante() != null) {
-                    for (ItemPedido item : p.getItens()) {
-                        bw.write(p.getNumeroPedido() + ";" +
-                                p.getRestaurante().getEmail() + ";" +
-                                item.getProduto().getNome() + ";" +
-                                item.getQuantidade() + ";" +
-                                item.getPrecoUnitario() + ";" +
-                                item.getObservacoes());
-                        bw.newLine();
-                    }
+        } finally {
+            travaCorte.readLock().unlock();
+        }
+    }
+
+    private void gravarStatus(Pedido pedido) {
+        // o indice ja foi avisado pelo restaurante; aqui cobre pedido de restaurante de fora do repositorio
+        pedidosPorRestaurante.atualizarStatus(pedido);
+        marcarAlterado(ConjuntoDados.PEDIDOS);
+        if (modoDiario) {
+            anexarNoDiario(REG_STATUS, new GravadorTexto().inteiro(pedido.getNumeroPedido())
+                    .texto(pedido.getStatus()).decimal(pedido.getValorTotal()).linha());
+        }
+    }
+
+    private Object travaDoPedido(Pedido pedido) {
+        Restaurante r = pedido.getRestaurante();
+        return travasRestaurantes.trava(r == null ? null : r.getEmail());
+    }
+
+    /**
+     * grava a avaliacao do pedido (so a primeira e persistida, igual ao snapshot).
+     * sob a trava do corte, senao ela poderia entrar no snapshot e ser reaplicada do diario
+     */
+    public void registrarAvaliacaoPedido(Pedido pedido) {
+        if (pedido == null || pedido.getAvaliacoes().isEmpty()) return;
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travaDoPedido(pedido)) {
+                marcarAlterado(ConjuntoDados.AVALIACOES_PEDIDOS);
+                // sem diario, o salvamento vem do evento da avaliacao
+                if (modoDiario) {
+                    anexarNoDiario(REG_AVALIACAO_PEDIDO,
+                                   formatarAvaliacaoPedido(pedido, pedido.getAvaliacoes().get(0)));
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar itens de pedido: " + e.getMessage());
+        } finally {
+            travaCorte.readLock().unlock();
         }
     }
 
-    private void salvarCupons() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_CUPONS), StandardCharsets.UTF_8))) {
-            for (Cupom c : cupons) {
-                bw.write(c.getCodigo() + ";" + c.getValorDesconto() + ";" + c.isPercentual());
-                bw.newLine();
+    /**
+     * avalia o restaurante e grava no diario sob a mesma trava do snapshot,
+     * senao a avaliacao poderia entrar no snapshot e tambem ser reaplicada do diario
+     */
+    public void avaliarRestaurante(Restaurante restaurante, int nota, String comentario) {
+        if (restaurante == null) return;
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travasRestaurantes.trava(restaurante.getEmail())) {
+                restaurante.avaliar(nota, comentario);
+                marcarAlterado(ConjuntoDados.AVALIACOES);
+                if (modoDiario) {
+                    List<Avaliacao> avaliacoes = restaurante.getAvaliacoes();
+                    anexarNoDiario(REG_AVALIACAO, formatarAvaliacao(restaurante, avaliacoes.get(avaliacoes.size() - 1)));
+                    return;
+                }
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar cupons: " + e.getMessage());
+        } finally {
+            travaCorte.readLock().unlock();
         }
+        agendarSalvamento();
     }
 
-    private void carregarCuponsUsados() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_CUPONS_USADOS), StandardCharsets.UTF_8))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 2) {
-                    String emailCliente = dados[0];
-                    String codigoCupom = dados[1];
-                    
-                    Cliente cliente = buscarClientePorEmail(emailCliente);
-                    if (cliente != null) {
-                        cliente.registrarUsoCupom(codigoCupom);
-                    }
+    public void registrarCartao(Cliente cliente, CartaoSalvo cartao) {
+        if (cliente == null || cartao == null) return;
+        gravarDoCliente(cliente, null, ConjuntoDados.CARTOES, REG_CARTAO, formatarCartao(cliente, cartao));
+    }
+
+    public void registrarRemocaoCartao(Cliente cliente, CartaoSalvo cartao) {
+        if (cliente == null || cartao == null) return;
+        gravarDoCliente(cliente, null, ConjuntoDados.CARTOES, REG_CARTAO_REMOVIDO, formatarCartao(cliente, cartao));
+    }
+
+    // marca o cupom no cliente tambem (se ainda nao estava), junto com a gravacao
+    public void registrarCupomUsado(Cliente cliente, String codigoCupom) {
+        if (cliente == null || codigoCupom == null) return;
+        gravarDoCliente(cliente, () -> cliente.registrarUsoCupom(codigoCupom), ConjuntoDados.CUPONS_USADOS,
+                        REG_CUPOM_USADO, new GravadorTexto().texto(cliente.getEmail())
+                                .texto(codigoCupom.toUpperCase()).linha());
+    }
+
+    /**
+     * sob a trava do cliente: as listas do cliente nao sao concorrentes, entao duas
+     * sessoes do mesmo cliente passam em fila e chegam ao diario na mesma ordem
+     */
+    private void gravarDoCliente(Cliente cliente, Runnable mudanca, ConjuntoDados conjunto, String tipo, String dados) {
+        travaCorte.readLock().lock();
+        try {
+            synchronized (travasClientes.trava(cliente.getEmail())) {
+                if (mudanca != null) {
+                    mudanca.run();
+                }
+                marcarAlterado(conjunto);
+                if (modoDiario) {
+                    anexarNoDiario(tipo, dados);
                 }
             }
-            System.out.println(">>> Histórico de uso de cupons carregado.");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de cupons usados não encontrado. Será criado ao salvar.");
+        } finally {
+            travaCorte.readLock().unlock();
+        }
+        if (!modoDiario) {
+            agendarSalvamento();
+        }
+    }
+
+    private void anexarNoDiario(String tipo, String dados) {
+        try {
+            diario.anexar(tipo, dados);
         } catch (IOException e) {
-            System.err.println("Erro ao carregar cupons usados: " + e.getMessage());
+            System.err.println("Erro ao gravar no diário: " + e.getMessage() + ". Salvando snapshot completo.");
+            // quem chama ja marcou o conjunto e segura a leitura do corte (e as vezes uma trava
+            // de restaurante ou cliente); o snapshot precisa da escrita, entao nunca sai daqui:
+            // vai pra thread de I/O, ou pro proximo salvamento se o agendador ainda nao existe
+            if (agendador != null) {
+                agendador.solicitarSalvamento();
+            }
         }
     }
 
-    private void salvarCuponsUsados() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_CUPONS_USADOS), StandardCharsets.UTF_8))) {
-            for (Cliente c : clientes) {
-                for (String codigo : c.getCuponsUsados()) {
-                    bw.write(c.getEmail() + ";" + codigo);
-                    bw.newLine();
+    /**
+     * reaplica o diario por cima do snapshot recem carregado.
+     * so entram os registros com lsn maior que o do snapshot.meta; mesmo assim a
+     * reproducao tolera registros que o snapshot ja contem (queda no meio da gravacao
+     * dos arquivos, antes do meta): pedido existente, status igual, avaliacao ja feita
+     */
+    private void reproduzirDiario() {
+        long lsnSnapshot = armazenamento.lerLsnSnapshot();
+        List<DiarioAlteracoes.Registro> registros;
+        try {
+            registros = diario.lerRegistros();
+        } catch (IOException e) {
+            System.err.println("Erro ao ler diário: " + e.getMessage());
+            return;
+        }
+        diario.garantirLsnMinimo(lsnSnapshot);
+        if (registros.isEmpty()) return;
+
+        Set<Integer> pedidosDoDiario = new HashSet<>();
+        int aplicados = 0;
+        for (DiarioAlteracoes.Registro registro : registros) {
+            if (registro.getLsn() <= lsnSnapshot) {
+                continue; // ja esta no snapshot
+            }
+            // mesmo sem aplicar, o arquivo do snapshot pode estar atras do diario
+            marcarAlterado(conjuntoDoRegistro(registro.getTipo()));
+            try {
+                if (aplicarRegistro(registro.getTipo(), registro.getDados(), pedidosDoDiario)) {
+                    aplicados++;
                 }
+            } catch (RuntimeException e) {
+                System.err.println("Registro do diário ignorado (" + registro.getTipo() + "): " + e.getMessage());
+            }
+        }
+        System.out.println(">>> " + aplicados + " de " + registros.size() + " registros do diário reaplicados");
+    }
+
+    private ConjuntoDados[] conjuntoDoRegistro(String tipo) {
+        switch (tipo) {
+            case REG_PEDIDO:
+            case REG_STATUS: return new ConjuntoDados[] { ConjuntoDados.PEDIDOS };
+            case REG_ITEM: return new ConjuntoDados[] { ConjuntoDados.ITENS_PEDIDO };
+            case REG_AVALIACAO: return new ConjuntoDados[] { ConjuntoDados.AVALIACOES };
+            case REG_AVALIACAO_PEDIDO: return new ConjuntoDados[] { ConjuntoDados.AVALIACOES_PEDIDOS };
+            case REG_CARTAO:
+            case REG_CARTAO_REMOVIDO: return new ConjuntoDados[] { ConjuntoDados.CARTOES };
+            case REG_CUPOM_USADO: return new ConjuntoDados[] { ConjuntoDados.CUPONS_USADOS };
+            default: return new ConjuntoDados[0];
+        }
+    }
+
+    private boolean aplicarRegistro(String tipo, String dados, Set<Integer> pedidosDoDiario) {
+        LeitorRegistros registro = LeitorRegistros.deTexto(dados);
+        if (!registro.proximoRegistro()) {
+            return false;
+        }
+        switch (tipo) {
+            case REG_PEDIDO: {
+                int numero = registro.inteiro(0);
+                if (buscarPedidoPorNumero(numero) != null || frios.contem(numero)) {
+                    return false;
+                }
+                Pedido p = carregarLinhaPedido(registro);
+                if (p == null) {
+                    return false;
+                }
+                Pedido.inicializarContador(p.getNumeroPedido());
+                pedidosDoDiario.add(p.getNumeroPedido());
+                return true;
+            }
+            case REG_ITEM:
+                // itens de pedido que ja estava no snapshot ja foram carregados
+                if (!pedidosDoDiario.contains(registro.inteiro(0))) {
+                    return false;
+                }
+                return carregarLinhaItemPedido(registro);
+            case REG_STATUS: {
+                Pedido p = buscarPedidoPorNumero(registro.inteiro(0));
+                if (p == null || registro.textoIgual(1, p.getStatus())) {
+                    return false;
+                }
+                StatusPedido novo = StatusPedido.deTexto(registro.texto(1));
+                if (novo == null) {
+                    System.err.println("Status inválido no diário ignorado: " + registro.texto(1));
+                    return false;
+                }
+                p.atualizarStatus(novo);
+                p.setValorTotal(registro.decimal(2));
+                pedidosPorRestaurante.atualizarStatus(p);
+                return true;
+            }
+            case REG_AVALIACAO_PEDIDO: {
+                int numero = registro.inteiro(0);
+                Pedido p = buscarPedidoPorNumero(numero);
+                if (p == null ? avaliacaoFria(numero) != null : !p.getAvaliacoes().isEmpty()) {
+                    return false;
+                }
+                return carregarLinhaAvaliacaoPedido(registro);
+            }
+            case REG_AVALIACAO:
+                return carregarLinhaAvaliacao(registro);
+            case REG_CARTAO:
+                return carregarLinhaCartao(registro, true);
+            case REG_CARTAO_REMOVIDO:
+                return carregarLinhaCartao(registro, false);
+            case REG_CUPOM_USADO:
+                return carregarLinhaCupomUsado(registro);
+            default:
+                System.err.println("Tipo de registro desconhecido no diário: " + tipo);
+                return false;
+        }
+    }
+
+    public void setModoDiario(boolean modoDiario) {
+        this.modoDiario = modoDiario;
+    }
+
+    public boolean isModoDiario() {
+        return modoDiario;
+    }
+
+    public long getTamanhoDiario() {
+        return diario.getTamanhoBytes();
+    }
+
+    public int getQuantidadeRegistrosDiario() {
+        return diario.getQuantidadeRegistros();
+    }
+
+    public long getInstanteUltimoSnapshot() {
+        return instanteUltimoSnapshot;
+    }
+
+    private void salvarRestaurantes(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Restaurante r : estado.restaurantes) {
+            gravador.texto(r.getEmail()).texto(r.getSenha()).texto(r.getNomeRestaurante()).texto(r.getCNPJ());
+            gravador.fimRegistro();
+        }
+    }
+
+    private void salvarClientes(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Cliente c : estado.clientes) {
+            gravador.texto(c.getEmail()).texto(c.getSenha()).texto(c.getNome()).texto(c.getTelefone());
+            gravador.fimRegistro();
+        }
+    }
+
+    private void salvarCardapios(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Restaurante r : estado.restaurantes) {
+            for (Produto p : r.getCardapio()) {
+                gravador.texto(r.getEmail())
+                        .texto(p.getCategoria())
+                        .texto(p.getNome())
+                        .texto(p.getDescricao())
+                        .decimal(p.getPreco())
+                        .booleano(p.isDisponivel());
+                
+                // extra de cada tipo; as facetas da busca saem daqui depois de recarregar
+                if (p instanceof Comida) {
+                    Comida comida = (Comida) p;
+                    gravador.booleano(comida.ehVegetariano()).booleano(comida.ehVegano());
+                } else if (p instanceof Bebida) {
+                    gravador.inteiro(((Bebida) p).getVolumeML());
+                } else if (p instanceof Sobremesa) {
+                    gravador.texto(((Sobremesa) p).getTemperatura());
+                }
+                
+                gravador.fimRegistro();
+            }
+        }
+    }
+
+    private void salvarEnderecos(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Cliente c : estado.clientes) {
+            for (Endereco end : c.getEnderecos()) {
+                gravador.texto(c.getEmail()).texto(end.getCep()).texto(end.getRua())
+                        .texto(end.getNumero()).texto(end.getBairro())
+                        .texto(end.getCidade()).texto(end.getEstado());
+                gravador.fimRegistro();
+            }
+        }
+    }
+
+    private void salvarEnderecosRestaurantes(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Restaurante r : estado.restaurantes) {
+            Endereco end = r.getEndereco();
+            if (end != null) {
+                gravador.texto(r.getEmail()).texto(end.getCep()).texto(end.getRua())
+                        .texto(end.getNumero()).texto(end.getBairro())
+                        .texto(end.getCidade()).texto(end.getEstado())
+                        .decimal(r.getRaioEntregaKm());
+                gravador.fimRegistro();
+            }
+        }
+    }
+
+    private void salvarPedidos(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Pedido p : estado.pedidos) {
+            if (p.getCliente() != null && p.getRestaurante() != null) {
+                camposPedido(gravador, p).fimRegistro();
+            }
+        }
+    }
+
+    // numero;data;emailCliente;emailRestaurante;status;valor
+    static <G extends GravadorRegistros> G camposPedido(G gravador, Pedido p) {
+        gravador.inteiro(p.getNumeroPedido())
+                .dataHora(p.getDataHora().getTime())
+                .texto(p.getCliente().getEmail())
+                .texto(p.getRestaurante().getEmail())
+                .texto(p.getStatus())
+                .decimal(p.getValorTotal());
+        return gravador;
+    }
+
+    // numero;emailRestaurante;produto;quantidade;precoUnitario;observacoes
+    static <G extends GravadorRegistros> G camposItemPedido(G gravador, Pedido p, ItemPedido item) {
+        gravador.inteiro(p.getNumeroPedido())
+                .texto(p.getRestaurante().getEmail())
+                .texto(item.getProduto().getNome())
+                .inteiro(item.getQuantidade())
+                .decimal(item.getPrecoUnitario())
+                .texto(item.getObservacoes());
+        return gravador;
+    }
+
+    // as linhas do diario usam os mesmos campos dos conjuntos
+    private String formatarPedido(Pedido p) {
+        return camposPedido(new GravadorTexto(), p).linha();
+    }
+
+    private String formatarItemPedido(Pedido p, ItemPedido item) {
+        return camposItemPedido(new GravadorTexto(), p, item).linha();
+    }
+
+    private void salvarItensPedido(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Pedido p : estado.pedidos) {
+            if (p.getRestaurante() != null) {
+                for (ItemPedido item : p.getItens()) {
+                    camposItemPedido(gravador, p, item).fimRegistro();
+                }
+            }
+        }
+    }
+
+    private void salvarCupons(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Cupom c : estado.cupons) {
+            gravador.texto(c.getCodigo()).decimal(c.getValorDesconto()).booleano(c.isPercentual());
+            gravador.fimRegistro();
+        }
+    }
+
+    private void carregarCuponsUsados(Registros leitor) {
+        while (leitor.proximoRegistro()) {
+            carregarLinhaCupomUsado(leitor);
+        }
+        System.out.println(">>> Histórico de uso de cupons carregado.");
+    }
+
+    // emailCliente;codigo
+    private boolean carregarLinhaCupomUsado(Registros registro) {
+        if (registro.quantidadeCampos() < 2) {
+            return false;
+        }
+        Cliente cliente = buscarClientePorEmail(registro.texto(0));
+        if (cliente == null) {
+            return false;
+        }
+        cliente.registrarUsoCupom(registro.texto(1));
+        return true;
+    }
+
+    private void salvarCuponsUsados(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Cliente c : estado.clientes) {
+            for (String codigo : c.getCuponsUsados()) {
+                gravador.texto(c.getEmail()).texto(codigo);
+                gravador.fimRegistro();
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar cupons usados: " + e.getMessage());
         }
     }
     
@@ -644,95 +1834,102 @@ public class RepositorioRestaurantes {
     // avaliações
     
     
-    private void carregarAvaliacoes() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_AVALIACOES), StandardCharsets.UTF_8))) {
-            String linha;
-            int totalAvaliacoes = 0;
-            while ((linha = br.readLine()) != null) {
-               
-                String[] dados = linha.split(";", -1);
-                if (dados.length >= 3) {
-                    String emailRestaurante = dados[0];
-                    int nota = Integer.parseInt(dados[1]);
-                    String comentario = dados[2];
-                    
-                    Restaurante restaurante = buscarRestaurantePorEmail(emailRestaurante);
-                    if (restaurante != null) {
-                        restaurante.avaliar(nota, comentario);
-                        totalAvaliacoes++;
-                    }
-                }
+    private void carregarAvaliacoes(Registros leitor) {
+        int totalAvaliacoes = 0;
+        while (leitor.proximoRegistro()) {
+            if (carregarLinhaAvaliacao(leitor)) {
+                totalAvaliacoes++;
             }
-            System.out.println(">>> " + totalAvaliacoes + " avaliações de restaurantes carregadas");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de avaliações não encontrado. Será criado ao salvar.");
-        } catch (IOException e) {
-            System.err.println("Erro ao carregar avaliações: " + e.getMessage());
         }
+        System.out.println(">>> " + totalAvaliacoes + " avaliações de restaurantes carregadas");
     }
 
-    private void salvarAvaliacoes() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_AVALIACOES), StandardCharsets.UTF_8))) {
-            for (Restaurante r : restaurantes) {
-                for (Avaliacao avaliacao : r.getAvaliacoes()) {
-                    bw.write(r.getEmail() + ";" +
-                            avaliacao.getNota() + ";" +
-                            avaliacao.getComentario());
-                    bw.newLine();
-                }
+    // emailRestaurante;nota;comentario
+    private boolean carregarLinhaAvaliacao(Registros registro) {
+        if (registro.quantidadeCampos() < 3) {
+            return false;
+        }
+        Restaurante restaurante = buscarRestaurantePorEmail(registro.texto(0));
+        if (restaurante == null) {
+            return false;
+        }
+        restaurante.avaliar(registro.inteiro(1), registro.texto(2));
+        return true;
+    }
+
+    private void salvarAvaliacoes(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Restaurante r : estado.restaurantes) {
+            for (Avaliacao avaliacao : estado.avaliacoesRestaurantes.get(r)) {
+                camposAvaliacao(gravador, r, avaliacao).fimRegistro();
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar avaliações: " + e.getMessage());
         }
     }
 
 
+    // emailRestaurante;nota;comentario
+    private static <G extends GravadorRegistros> G camposAvaliacao(G gravador, Restaurante r, Avaliacao avaliacao) {
+        gravador.texto(r.getEmail()).inteiro(avaliacao.getNota()).texto(avaliacao.getComentario());
+        return gravador;
+    }
+
+    // numeroPedido;nota;comentario
+    private static <G extends GravadorRegistros> G camposAvaliacaoPedido(G gravador, int numeroPedido, Avaliacao av) {
+        gravador.inteiro(numeroPedido).inteiro(av.getNota()).texto(av.getComentario());
+        return gravador;
+    }
+
+    private String formatarAvaliacao(Restaurante r, Avaliacao avaliacao) {
+        return camposAvaliacao(new GravadorTexto(), r, avaliacao).linha();
+    }
+
+    private String formatarAvaliacaoPedido(Pedido p, Avaliacao av) {
+        return camposAvaliacaoPedido(new GravadorTexto(), p.getNumeroPedido(), av).linha();
+    }
+
 //avaliação
-    private void carregarAvaliacoesPedidos() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_AVALIACOES_PEDIDOS), StandardCharsets.UTF_8))) {
-            String linha;
-            int totalAvaliacoesPedidos = 0;
-            while ((linha = br.readLine()) != null) {
-                
-                String[] dados = linha.split(";", -1);
-                if (dados.length >= 3) {
-                    int numeroPedido = Integer.parseInt(dados[0]);
-                    int nota = Integer.parseInt(dados[1]);
-                    String comentario = dados[2];
-                    
-                    Pedido pedido = buscarPedidoPorNumero(numeroPedido);
-                    if (pedido != null) {
-                        pedido.avaliar(nota, comentario);
-                        totalAvaliacoesPedidos++;
-                    }
-                }
+    private void carregarAvaliacoesPedidos(Registros leitor) {
+        int totalAvaliacoesPedidos = 0;
+        while (leitor.proximoRegistro()) {
+            if (carregarLinhaAvaliacaoPedido(leitor)) {
+                totalAvaliacoesPedidos++;
             }
-            System.out.println(">>> " + totalAvaliacoesPedidos + " avaliações de pedidos carregadas");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de avaliações de pedidos não encontrado. Será criado ao salvar.");
-        } catch (IOException e) {
-            System.err.println("Erro ao carregar avaliações de pedidos: " + e.getMessage());
         }
+        System.out.println(">>> " + totalAvaliacoesPedidos + " avaliações de pedidos carregadas");
     }
 
-   //salva as avaliaçoes
-    private void salvarAvaliacoesPedidos() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_AVALIACOES_PEDIDOS), StandardCharsets.UTF_8))) {
-            for (Pedido p : pedidos) {
-                if (!p.getAvaliacoes().isEmpty()) {
-                    Avaliacao av = p.getAvaliacoes().get(0);
-                    bw.write(p.getNumeroPedido() + ";" +
-                            av.getNota() + ";" +
-                            av.getComentario());
-                    bw.newLine();
-                }
+    // numeroPedido;nota;comentario
+    private boolean carregarLinhaAvaliacaoPedido(Registros registro) {
+        if (registro.quantidadeCampos() < 3) {
+            return false;
+        }
+        int numero = registro.inteiro(0);
+        Pedido pedido = pedidoNaCarga(numero);
+        if (pedido == null) {
+            if (!frios.contem(numero)) {
+                return false;
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar avaliações de pedidos: " + e.getMessage());
+            // pedido frio: a avaliacao fica guardada ate alguem montar o pedido
+            synchronized (this) {
+                avaliacoesFrias.putIfAbsent(numero, new Avaliacao(registro.inteiro(1), registro.texto(2)));
+            }
+            return true;
+        }
+        pedido.restaurarAvaliacao(registro.inteiro(1), registro.texto(2));
+        return true;
+    }
+
+    private synchronized Avaliacao avaliacaoFria(int numero) {
+        return avaliacoesFrias.get(numero);
+    }
+
+    private void salvarAvaliacoesPedidos(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Pedido p : estado.pedidos) {
+            if (!p.getAvaliacoes().isEmpty()) {
+                camposAvaliacaoPedido(gravador, p.getNumeroPedido(), p.getAvaliacoes().get(0)).fimRegistro();
+            }
+        }
+        for (Map.Entry<Integer, Avaliacao> fria : estado.avaliacoesFrias.entrySet()) {
+            camposAvaliacaoPedido(gravador, fria.getKey(), fria.getValue()).fimRegistro();
         }
     }
 //cupom
@@ -743,7 +1940,7 @@ public class RepositorioRestaurantes {
             cupons.add(Cupom.criarCupomPercentual("PRIMEIRACOMPRA", 20));
             cupons.add(Cupom.criarCupomFixo("ECONOMIZE5", 5.00));
             cupons.add(Cupom.criarCupomFixo("FRETE10", 10.00));
-            salvarCupons();
+            salvarDados(ConjuntoDados.CUPONS);
         }
     }
 
@@ -756,10 +1953,26 @@ public class RepositorioRestaurantes {
         return null;
     }
 
+    // mesmo caminho do registrarNovoPedido: vai pro diario sob a trava do corte
     public void adicionarPedido(Pedido pedido) {
-        if (pedido != null && !pedidos.contains(pedido)) {
-            pedidos.add(pedido);
+        registrarNovoPedido(pedido);
+    }
+
+    // com a trava do restaurante do pedido: a conferencia e a inclusao nao se separam
+    private boolean incluirSeNovo(Pedido pedido) {
+        if (contemPedido(pedido)) {
+            return false;
         }
+        incluirPedido(pedido);
+        sugestoes.registrarPedido(pedido);
+        marcarAlterado(ConjuntoDados.PEDIDOS, ConjuntoDados.ITENS_PEDIDO, ConjuntoDados.AVALIACOES_PEDIDOS);
+        return true;
+    }
+
+    public boolean contemPedido(Pedido pedido) {
+        if (pedido == null) return false;
+        Pedido existente = pedidosPorNumero.get(pedido.getNumeroPedido());
+        return existente == pedido || (existente != null && pedidos.contains(pedido));
     }
 
     public List<Cupom> getCuponsDisponiveis() {
@@ -785,61 +1998,87 @@ public class RepositorioRestaurantes {
         }
     }
 
-    private void carregarCartoes() {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(new FileInputStream(ARQUIVO_CARTOES), StandardCharsets.UTF_8))) {
-            String linha;
-            int totalCartoes = 0;
-            while ((linha = br.readLine()) != null) {
-                String[] dados = linha.split(";");
-                if (dados.length >= 6) {
-                    String emailCliente = dados[0];
-                    String numeroCompleto = dados[1];
-                    String nomeTitular = dados[2];
-                    String cvv = dados[3];
-                    String validade = dados[4];
-                    String apelido = dados[5];
-                    
-                    Cliente cliente = buscarClientePorEmail(emailCliente);
-                    if (cliente != null) {
-                        CartaoSalvo cartao = new CartaoSalvo(numeroCompleto, nomeTitular, cvv, validade, apelido);
-                        cliente.adicionarCartao(cartao);
-                        totalCartoes++;
-                    }
-                }
+    private void carregarCartoes(Registros leitor) {
+        int totalCartoes = 0;
+        while (leitor.proximoRegistro()) {
+            if (carregarLinhaCartao(leitor, true)) {
+                totalCartoes++;
             }
-            System.out.println(">>> " + totalCartoes + " cartões carregados");
-        } catch (FileNotFoundException e) {
-            System.out.println(">>> Arquivo de cartões não encontrado. Será criado ao salvar.");
-        } catch (IOException e) {
-            System.err.println("Erro ao carregar cartões: " + e.getMessage());
         }
+        System.out.println(">>> " + totalCartoes + " cartões carregados");
     }
 
-    private void salvarCartoes() {
-        try (BufferedWriter bw = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(ARQUIVO_CARTOES), StandardCharsets.UTF_8))) {
-            for (Cliente c : clientes) {
-                for (CartaoSalvo cartao : c.getCartoesSalvos()) {
-                    bw.write(c.getEmail() + ";" + 
-                            cartao.getNumeroCompleto() + ";" + 
-                            cartao.getNomeTitular() + ";" + 
-                            cartao.getCvv() + ";" + 
-                            cartao.getValidade() + ";" + 
-                            cartao.getApelido());
-                    bw.newLine();
-                }
+    // emailCliente;numero;titular;cvv;validade;apelido
+    private boolean carregarLinhaCartao(Registros registro, boolean adicionar) {
+        if (registro.quantidadeCampos() < 6) {
+            return false;
+        }
+        Cliente cliente = buscarClientePorEmail(registro.texto(0));
+        if (cliente == null) {
+            return false;
+        }
+        CartaoSalvo cartao = new CartaoSalvo(registro.texto(1), registro.texto(2), registro.texto(3), 
+                                             registro.texto(4), registro.texto(5));
+        if (adicionar) {
+            cliente.adicionarCartao(cartao);
+        } else {
+            cliente.removerCartao(cartao);
+        }
+        return true;
+    }
+
+    private void salvarCartoes(EstadoCapturado estado, GravadorRegistros gravador) throws IOException {
+        for (Cliente c : estado.clientes) {
+            for (CartaoSalvo cartao : c.getCartoesSalvos()) {
+                camposCartao(gravador, c, cartao).fimRegistro();
             }
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar cartões: " + e.getMessage());
         }
     }
 
+    // emailCliente;numero;titular;cvv;validade;apelido
+    private static <G extends GravadorRegistros> G camposCartao(G gravador, Cliente c, CartaoSalvo cartao) {
+        gravador.texto(c.getEmail())
+                .texto(cartao.getNumeroCompleto())
+                .texto(cartao.getNomeTitular())
+                .texto(cartao.getCvv())
+                .texto(cartao.getValidade())
+                .texto(cartao.getApelido());
+        return gravador;
+    }
+
+    private String formatarCartao(Cliente c, CartaoSalvo cartao) {
+        return camposCartao(new GravadorTexto(), c, cartao).linha();
+    }
+
     public void limparTodos() {
+        travaCorte.writeLock().lock();
+        try {
+            synchronized (this) {
+                limparColecoes();
+            }
+        } finally {
+            travaCorte.writeLock().unlock();
+        }
+    }
+
+    private void limparColecoes() {
+        for (Restaurante r : restaurantes) {
+            r.removerOuvinteStatusPedido(pedidosPorRestaurante);
+            r.removerOuvinteStatusPedido(ouvinteEventos);
+        }
         restaurantes.clear();
         clientes.clear();
         pedidos.clear();
         cupons.clear();
+        restaurantesPorEmail.clear();
+        clientesPorEmail.clear();
+        pedidosPorNumero.clear();
+        pedidosPorRestaurante.limpar();
+        pedidosPorData.limpar();
+        busca.limpar();
+        sugestoes.limpar();
+        entregas.limpar();
+        marcarAlterado(ConjuntoDados.values());
     }
 
     public int getQuantidadeRestaurantes() {
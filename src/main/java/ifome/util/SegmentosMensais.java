@@ -0,0 +1,397 @@
+package ifome.util;
+
+import ifome.model.StatusPedido;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * pedidos e itens_pedido particionados pelo mes da data do pedido, em <dados>/pedidos/:
+ * AAAA-MM.pedidos.txt e AAAA-MM.itens.txt (mesmo formato de linha dos conjuntos) e um
+ * manifesto.txt com mes;pedidos;itens;crcPedidos;crcItens;selado por segmento.
+ *
+ * no snapshot os registros sao separados por mes em memoria e so os arquivos cujo
+ * crc mudou vao pro lote; no dia a dia isso e o mes corrente, entao o custo de
+ * salvar nao cresce com o historico. um mes e selado quando ja passou e todos os
+ * pedidos dele estao finalizados (Entregue/Cancelado): o conteudo nao muda mais,
+ * so sai inteiro (pedidos frios). o manifesto vai por ultimo no lote e os arquivos
+ * que nao estao nele sao apagados depois do confirmar
+ */
+final class SegmentosMensais {
+
+    static final String DIRETORIO = "pedidos";
+    static final String ARQUIVO_MANIFESTO = "manifesto.txt";
+    private static final String SUFIXO_PEDIDOS = ".pedidos.txt";
+    private static final String SUFIXO_ITENS = ".itens.txt";
+
+    // uma linha do manifesto
+    static final class Segmento {
+        final String mes;
+        final int pedidos;
+        final int itens;
+        final long crcPedidos;
+        final long crcItens;
+        final boolean selado;
+
+        Segmento(String mes, int pedidos, int itens, long crcPedidos, long crcItens, boolean selado) {
+            this.mes = mes;
+            this.pedidos = pedidos;
+            this.itens = itens;
+            this.crcPedidos = crcPedidos;
+            this.crcItens = crcItens;
+            this.selado = selado;
+        }
+    }
+
+    private final File diretorio;
+    private final ZoneId fuso;
+    // da ultima gravacao
+    private int ultimosRegravados;
+    private int ultimosIntactos;
+
+    SegmentosMensais(File diretorioDados) {
+        this.diretorio = new File(diretorioDados, DIRETORIO);
+        this.fuso = ZoneId.systemDefault();
+    }
+
+    boolean existe() {
+        return manifesto().isFile();
+    }
+
+    private File manifesto() {
+        return new File(diretorio, ARQUIVO_MANIFESTO);
+    }
+
+    File arquivo(String mes, ConjuntoDados conjunto) {
+        return new File(diretorio, mes + (conjunto == ConjuntoDados.PEDIDOS ? SUFIXO_PEDIDOS : SUFIXO_ITENS));
+    }
+
+    // segmentos na ordem dos meses
+    Map<String, Segmento> lerManifesto() throws IOException {
+        Map<String, Segmento> segmentos = new LinkedHashMap<>();
+        if (!existe()) {
+            return segmentos;
+        }
+        LeitorRegistros leitor = new LeitorRegistros(ByteBuffer.wrap(Files.readAllBytes(manifesto().toPath())));
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() < 6) {
+                continue;
+            }
+            Segmento segmento = new Segmento(leitor.texto(0), leitor.inteiro(1), leitor.inteiro(2),
+                leitor.longo(3), leitor.longo(4), leitor.booleano(5));
+            segmentos.put(segmento.mes, segmento);
+        }
+        return segmentos;
+    }
+
+    // um leitor por segmento, na ordem dos meses
+    Registros abrir(ConjuntoDados conjunto) throws IOException {
+        List<LeitorRegistros> partes = new ArrayList<>();
+        for (String mes : lerManifesto().keySet()) {
+            File arquivo = arquivo(mes, conjunto);
+            partes.add(new LeitorRegistros(ByteBuffer.wrap(Files.readAllBytes(arquivo.toPath()))));
+        }
+        return new RegistrosEncadeados(partes);
+    }
+
+    // os pedacos de cada segmento sao proporcionais ao tamanho dele
+    List<Registros> abrirEmPartes(ConjuntoDados conjunto, int partes) throws IOException {
+        List<File> arquivos = new ArrayList<>();
+        long total = 0;
+        for (String mes : lerManifesto().keySet()) {
+            File arquivo = arquivo(mes, conjunto);
+            arquivos.add(arquivo);
+            total += arquivo.length();
+        }
+        List<Registros> leitores = new ArrayList<>();
+        for (File arquivo : arquivos) {
+            int doArquivo = (int) Math.max(1, Math.round((double) partes * arquivo.length() / Math.max(1, total)));
+            leitores.addAll(ArquivoMapeado.mapear(arquivo, doArquivo));
+        }
+        return leitores;
+    }
+
+    long tamanho(ConjuntoDados conjunto) {
+        long total = 0;
+        try {
+            for (String mes : lerManifesto().keySet()) {
+                total += arquivo(mes, conjunto).length();
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return total;
+    }
+
+    int getUltimosRegravados() {
+        return ultimosRegravados;
+    }
+
+    int getUltimosIntactos() {
+        return ultimosIntactos;
+    }
+
+    Coletor novoColetor() {
+        return new Coletor(fuso);
+    }
+
+    /**
+     * poe no lote so os arquivos de meses que mudaram, e o manifesto por ultimo.
+     * nada e trocado antes do lote.confirmar(); depois dele, concluir() apaga
+     * os segmentos que sairam do manifesto
+     */
+    void preparar(Coletor coletor, EscritaAtomica lote) throws IOException {
+        if (!coletor.recebeuPedidos || !coletor.recebeuItens) {
+            throw new IOException("Pedidos e itens precisam ser gravados juntos nos segmentos mensais");
+        }
+        coletor.distribuirItens();
+        Map<String, Segmento> antigos = lerManifesto();
+        diretorio.mkdirs();
+        String mesAtual = YearMonth.now(fuso).toString();
+
+        List<Segmento> novos = new ArrayList<>();
+        int regravados = 0;
+        int intactos = 0;
+        for (Map.Entry<String, Mes> entrada : coletor.meses.entrySet()) {
+            String mes = entrada.getKey();
+            Mes conteudo = entrada.getValue();
+            byte[] pedidos = conteudo.pedidos.toByteArray();
+            byte[] itens = conteudo.itens.toByteArray();
+            Segmento novo = new Segmento(mes, conteudo.quantidadePedidos, conteudo.quantidadeItens,
+                crc(pedidos), crc(itens), conteudo.finalizados && mes.compareTo(mesAtual) < 0);
+            Segmento antigo = antigos.get(mes);
+
+            boolean gravou = false;
+            if (antigo == null || antigo.crcPedidos != novo.crcPedidos || !arquivo(mes, ConjuntoDados.PEDIDOS).isFile()) {
+                gravar(lote, arquivo(mes, ConjuntoDados.PEDIDOS), pedidos);
+                gravou = true;
+            }
+            if (antigo == null || antigo.crcItens != novo.crcItens || !arquivo(mes, ConjuntoDados.ITENS_PEDIDO).isFile()) {
+                gravar(lote, arquivo(mes, ConjuntoDados.ITENS_PEDIDO), itens);
+                gravou = true;
+            }
+            if (gravou) {
+                regravados++;
+                if (antigo != null && antigo.selado) {
+                    System.out.println(">>> Segmento selado " + mes + " mudou e foi regravado");
+                }
+            } else {
+                intactos++;
+            }
+            novos.add(novo);
+        }
+
+        try (Writer escritor = new OutputStreamWriter(lote.criarTemporario(manifesto()), StandardCharsets.UTF_8)) {
+            GravadorTexto gravador = new GravadorTexto(escritor);
+            for (Segmento segmento : novos) {
+                gravador.texto(segmento.mes).inteiro(segmento.pedidos).inteiro(segmento.itens)
+                        .inteiro(segmento.crcPedidos).inteiro(segmento.crcItens).booleano(segmento.selado);
+                gravador.fimRegistro();
+            }
+        }
+        ultimosRegravados = regravados;
+        ultimosIntactos = intactos;
+    }
+
+    private static long crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static void gravar(EscritaAtomica lote, File destino, byte[] bytes) throws IOException {
+        try (OutputStream os = lote.criarTemporario(destino)) {
+            os.write(bytes);
+        }
+    }
+
+    // apaga os segmentos que nao estao no manifesto (meses que esfriaram inteiros, sobra de queda)
+    void concluir() throws IOException {
+        Map<String, Segmento> ativos = lerManifesto();
+        File[] arquivos = diretorio.listFiles();
+        if (arquivos == null) {
+            return;
+        }
+        for (File arquivo : arquivos) {
+            String nome = arquivo.getName();
+            String mes = nome.endsWith(SUFIXO_PEDIDOS) ? nome.substring(0, nome.length() - SUFIXO_PEDIDOS.length())
+                       : nome.endsWith(SUFIXO_ITENS) ? nome.substring(0, nome.length() - SUFIXO_ITENS.length())
+                       : null;
+            if (mes != null && !ativos.containsKey(mes)) {
+                Files.deleteIfExists(arquivo.toPath());
+            }
+        }
+    }
+
+    // pedidos voltaram pra outro formato: manifesto primeiro, pra nada mais ler os segmentos
+    void apagar() throws IOException {
+        Files.deleteIfExists(manifesto().toPath());
+        concluir();
+        Files.deleteIfExists(diretorio.toPath()); // so sai se ficou vazio
+    }
+
+    // conteudo de um mes durante o snapshot
+    private static final class Mes {
+        final ByteArrayOutputStream pedidos = new ByteArrayOutputStream();
+        final ByteArrayOutputStream itens = new ByteArrayOutputStream();
+        int quantidadePedidos;
+        int quantidadeItens;
+        boolean finalizados = true;
+    }
+
+    /**
+     * recebe os registros de pedidos e itens do snapshot e separa por mes.
+     * o item vai pro mes do pedido dele, entao os itens so sao distribuidos no fim;
+     * itens sem pedido sao descartados, como na carga
+     */
+    static final class Coletor {
+        private final ZoneId fuso;
+        private final Map<String, Mes> meses = new TreeMap<>();
+        private final Map<Integer, Mes> mesDoPedido = new HashMap<>();
+        private final List<Integer> numerosItens = new ArrayList<>();
+        private final List<byte[]> linhasItens = new ArrayList<>();
+        private boolean recebeuPedidos;
+        private boolean recebeuItens;
+        // o mes so e recalculado quando a data sai do mes anterior
+        private long inicioMes = Long.MAX_VALUE;
+        private long fimMes = Long.MIN_VALUE;
+        private Mes mesAnterior;
+
+        private Coletor(ZoneId fuso) {
+            this.fuso = fuso;
+        }
+
+        // numero;data;emailCliente;emailRestaurante;status;valor
+        GravadorRegistros pedidos() {
+            recebeuPedidos = true;
+            return new LinhaRoteada(linha -> {
+                Mes mes = mesDe(linha.dataHora);
+                mes.pedidos.write(linha.bytes, 0, linha.bytes.length);
+                mes.quantidadePedidos++;
+                StatusPedido status = StatusPedido.deTexto(linha.status);
+                mes.finalizados &= status != null && status.isFinalizado();
+                mesDoPedido.put(linha.numero, mes);
+            });
+        }
+
+        // numero;emailRestaurante;produto;quantidade;precoUnitario;observacoes
+        GravadorRegistros itens() {
+            recebeuItens = true;
+            return new LinhaRoteada(linha -> {
+                numerosItens.add(linha.numero);
+                linhasItens.add(linha.bytes);
+            });
+        }
+
+        private Mes mesDe(long dataHora) {
+            if (dataHora < inicioMes || dataHora >= fimMes) {
+                YearMonth mes = YearMonth.from(Instant.ofEpochMilli(dataHora).atZone(fuso));
+                inicioMes = mes.atDay(1).atStartOfDay(fuso).toInstant().toEpochMilli();
+                fimMes = mes.plusMonths(1).atDay(1).atStartOfDay(fuso).toInstant().toEpochMilli();
+                mesAnterior = meses.computeIfAbsent(mes.toString(), m -> new Mes());
+            }
+            return mesAnterior;
+        }
+
+        private void distribuirItens() {
+            for (int i = 0; i < linhasItens.size(); i++) {
+                Mes mes = mesDoPedido.get(numerosItens.get(i));
+                if (mes != null) {
+                    byte[] linha = linhasItens.get(i);
+                    mes.itens.write(linha, 0, linha.length);
+                    mes.quantidadeItens++;
+                }
+            }
+            numerosItens.clear();
+            linhasItens.clear();
+        }
+    }
+
+    // linha de texto pronta + os campos que decidem o mes (numero, data, status)
+    private static final class Linha {
+        int numero;
+        long dataHora;
+        String status;
+        byte[] bytes;
+    }
+
+    private static final class LinhaRoteada implements GravadorRegistros {
+        private final GravadorTexto texto = new GravadorTexto();
+        private final Consumer<Linha> destino;
+        private Linha atual = new Linha();
+        private int campo;
+
+        LinhaRoteada(Consumer<Linha> destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public GravadorRegistros texto(String valor) {
+            if (campo == 4) {
+                atual.status = valor;
+            }
+            campo++;
+            texto.texto(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros inteiro(long valor) {
+            if (campo == 0) {
+                atual.numero = (int) valor;
+            }
+            campo++;
+            texto.inteiro(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros decimal(double valor) {
+            campo++;
+            texto.decimal(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros booleano(boolean valor) {
+            campo++;
+            texto.booleano(valor);
+            return this;
+        }
+
+        @Override
+        public GravadorRegistros dataHora(long valor) {
+            if (campo == 1) {
+                atual.dataHora = valor;
+            }
+            campo++;
+            texto.dataHora(valor);
+            return this;
+        }
+
+        @Override
+        public void fimRegistro() {
+            atual.bytes = (texto.linha() + "\n").getBytes(StandardCharsets.UTF_8);
+            destino.accept(atual);
+            atual = new Linha();
+            campo = 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ifome.util;
+
+import java.io.IOException;
+
+/**
+ * um snapshot em andamento. cada conjunto alterado pede um gravador e escreve
+ * todos os seus registros; confirmar torna o lote inteiro visivel de uma vez
+ * junto com o lsn do corte, descartar deixa os dados anteriores intactos
+ */
+public interface SnapshotArmazenamento {
+
+    GravadorRegistros gravador(ConjuntoDados conjunto) throws IOException;
+
+    void confirmar(long lsn) throws IOException;
+
+    void descartar();
+}
@@ -0,0 +1,29 @@
+package ifome.util;
+
+import ifome.model.Restaurante;
+
+// sugestao do autocompletar: um restaurante ou o nome de um prato
+public class Sugestao {
+
+    private final String texto;
+    private final Restaurante restaurante;
+    private final long popularidade;
+
+    Sugestao(String texto, Restaurante restaurante, long popularidade) {
+        this.texto = texto;
+        this.restaurante = restaurante;
+        this.popularidade = popularidade;
+    }
+
+    public String getTexto() { return texto; }
+    // null quando a sugestao e um prato
+    public Restaurante getRestaurante() { return restaurante; }
+    public boolean isRestaurante() { return restaurante != null; }
+    // pedidos (restaurante) ou unidades pedidas (prato)
+    public long getPopularidade() { return popularidade; }
+
+    @Override
+    public String toString() {
+        return texto;
+    }
+}
@@ -0,0 +1,256 @@
+package ifome.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * CEP -> coordenada sem banco nem servico externo. a fonte e um texto
+ * "cep_inicio;cep_fim;latitude;longitude;nome" (uma faixa por linha, faixas sem
+ * sobreposicao, CEP exato = inicio igual ao fim). o ifome traz um ceps.csv com as
+ * faixas das capitais e grandes cidades; uma base completa entra com -Difome.ceps=<arquivo>.
+ *
+ * na primeira vez o texto vira o ceps.bin no diretorio de dados: faixas ordenadas
+ * em registros fixos de 16 bytes (inicio, fim, lat e lon em milionesimos de grau).
+ * esse arquivo e mapeado (FileChannel.map) e a busca e binaria direto nos bytes
+ * mapeados, sem montar nada no heap. o cabecalho guarda tamanho e data da fonte,
+ * entao trocar o csv refaz o .bin na proxima abertura
+ */
+public final class TabelaCeps {
+
+    static final String ARQUIVO = "ceps.bin";
+    static final String RECURSO_PADRAO = "/ifome/ceps.csv";
+
+    private static final int MAGICO = 0x43455031; // "CEP1"
+    private static final int TAMANHO_CABECALHO = 24; // magico, quantidade, tamanho e data da fonte
+    private static final int TAMANHO_FAIXA = 16;
+
+    private static final TabelaCeps VAZIA = new TabelaCeps(ByteBuffer.allocate(0), 0);
+
+    private final ByteBuffer faixas; // so as faixas, sem o cabecalho
+    private final int quantidade;
+
+    private TabelaCeps(ByteBuffer faixas, int quantidade) {
+        this.faixas = faixas;
+        this.quantidade = quantidade;
+    }
+
+    public static TabelaCeps vazia() {
+        return VAZIA;
+    }
+
+    /**
+     * tabela do diretorio de dados, refeita da fonte (-Difome.ceps ou o ceps.csv do
+     * ifome) se ela mudou. sem fonte ou com erro de leitura a tabela fica vazia e
+     * nenhum CEP e localizado
+     */
+    public static TabelaCeps comConfiguracaoPadrao(File diretorio) {
+        try {
+            String caminho = System.getProperty("ifome.ceps");
+            URL fonte = caminho != null ? new File(caminho).toURI().toURL()
+                                        : TabelaCeps.class.getResource(RECURSO_PADRAO);
+            if (fonte == null) {
+                System.err.println("Tabela de CEPs não encontrada (" + RECURSO_PADRAO + ")");
+                return vazia();
+            }
+            return abrir(fonte, new File(diretorio, ARQUIVO));
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir tabela de CEPs: " + e.getMessage());
+            return vazia();
+        }
+    }
+
+    // abre o binario, convertendo a fonte antes se o binario nao for dela
+    public static TabelaCeps abrir(URL fonte, File binario) throws IOException {
+        URLConnection conexao = fonte.openConnection();
+        long tamanhoFonte;
+        long dataFonte;
+        // tamanho e data ja abrem a fonte (arquivo ou entrada do jar), entao fecha sempre
+        try (Reader texto = new InputStreamReader(conexao.getInputStream(), StandardCharsets.UTF_8)) {
+            tamanhoFonte = conexao.getContentLengthLong();
+            dataFonte = conexao.getLastModified();
+            TabelaCeps tabela = mapear(binario, tamanhoFonte, dataFonte);
+            if (tabela != null) {
+                return tabela;
+            }
+            converter(texto, binario, tamanhoFonte, dataFonte);
+        }
+        TabelaCeps tabela = mapear(binario, tamanhoFonte, dataFonte);
+        if (tabela == null) {
+            throw new IOException("Arquivo " + binario.getName() + " inválido depois da conversão");
+        }
+        System.out.println(">>> Tabela de CEPs convertida: " + tabela.quantidade + " faixas");
+        return tabela;
+    }
+
+    /**
+     * grava o binario a partir do texto. linha com CEP ou coordenada invalida, ou que
+     * cai dentro de uma faixa anterior, e ignorada com aviso
+     */
+    static void converter(Reader texto, File binario, long tamanhoFonte, long dataFonte) throws IOException {
+        int[] inicios = new int[1024];
+        int[] fins = new int[1024];
+        int[] latitudes = new int[1024];
+        int[] longitudes = new int[1024];
+        int n = 0;
+        LeitorRegistros leitor = new LeitorRegistros(texto);
+        while (leitor.proximoRegistro()) {
+            if (leitor.quantidadeCampos() < 4) {
+                continue;
+            }
+            int inicio = numeroCep(leitor.texto(0));
+            if (inicio < 0) {
+                continue; // cabecalho
+            }
+            int fim = numeroCep(leitor.texto(1));
+            double latitude;
+            double longitude;
+            try {
+                latitude = leitor.decimal(2);
+                longitude = leitor.decimal(3);
+            } catch (NumberFormatException e) {
+                System.err.println("Faixa de CEP ignorada: " + leitor.registroAtual());
+                continue;
+            }
+            if (fim < inicio || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                System.err.println("Faixa de CEP ignorada: " + leitor.registroAtual());
+                continue;
+            }
+            if (n == inicios.length) {
+                inicios = Arrays.copyOf(inicios, n * 2);
+                fins = Arrays.copyOf(fins, n * 2);
+                latitudes = Arrays.copyOf(latitudes, n * 2);
+                longitudes = Arrays.copyOf(longitudes, n * 2);
+            }
+            inicios[n] = inicio;
+            fins[n] = fim;
+            latitudes[n] = (int) Math.round(latitude * 1e6);
+            longitudes[n] = (int) Math.round(longitude * 1e6);
+            n++;
+        }
+
+        // ordena pelo inicio (inicio * 2^32 + posicao cabe num long e leva a posicao junto)
+        long[] ordem = new long[n];
+        for (int i = 0; i < n; i++) {
+            ordem[i] = ((long) inicios[i] << 32) | i;
+        }
+        Arrays.sort(ordem);
+
+        int[] gravadas = new int[n];
+        int quantidade = 0;
+        int fimAnterior = -1;
+        for (long chave : ordem) {
+            int i = (int) chave;
+            if (inicios[i] <= fimAnterior) {
+                System.err.println("Faixa de CEP sobreposta ignorada: " + inicios[i] + "-" + fins[i]);
+                continue;
+            }
+            gravadas[quantidade++] = i;
+            fimAnterior = fins[i];
+        }
+
+        EscritaAtomica escrita = EscritaAtomica.comConfiguracaoPadrao();
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(escrita.criarTemporario(binario)))) {
+            saida.writeInt(MAGICO);
+            saida.writeInt(quantidade);
+            saida.writeLong(tamanhoFonte);
+            saida.writeLong(dataFonte);
+            for (int k = 0; k < quantidade; k++) {
+                int i = gravadas[k];
+                saida.writeInt(inicios[i]);
+                saida.writeInt(fins[i]);
+                saida.writeInt(latitudes[i]);
+                saida.writeInt(longitudes[i]);
+            }
+        } catch (IOException e) {
+            escrita.descartar();
+            throw e;
+        }
+        escrita.confirmar();
+    }
+
+    // null se o arquivo nao existe, esta truncado ou foi gerado de outra fonte
+    private static TabelaCeps mapear(File binario, long tamanhoFonte, long dataFonte) throws IOException {
+        if (!binario.isFile() || binario.length() < TAMANHO_CABECALHO) {
+            return null;
+        }
+        try (FileChannel canal = FileChannel.open(binario.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            canal.read(cabecalho, 0);
+            int quantidade = cabecalho.getInt(4);
+            if (cabecalho.getInt(0) != MAGICO || cabecalho.getLong(8) != tamanhoFonte
+                    || cabecalho.getLong(16) != dataFonte
+                    || canal.size() != TAMANHO_CABECALHO + (long) quantidade * TAMANHO_FAIXA) {
+                return null;
+            }
+            if (quantidade == 0) {
+                return new TabelaCeps(ByteBuffer.allocate(0), 0);
+            }
+            // o mapeamento continua valido depois que o canal fecha
+            ByteBuffer faixas = canal.map(FileChannel.MapMode.READ_ONLY, TAMANHO_CABECALHO,
+                                          (long) quantidade * TAMANHO_FAIXA);
+            return new TabelaCeps(faixas, quantidade);
+        }
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    // coordenada da faixa que contem o CEP (com ou sem hifen), ou null
+    public Coordenada localizar(String cep) {
+        int numero = numeroCep(cep);
+        if (numero < 0 || quantidade == 0) {
+            return null;
+        }
+        // ultima faixa com inicio <= numero
+        int baixo = 0;
+        int alto = quantidade - 1;
+        int achada = -1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (faixas.getInt(meio * TAMANHO_FAIXA) <= numero) {
+                achada = meio;
+                baixo = meio + 1;
+            } else {
+                alto = meio - 1;
+            }
+        }
+        if (achada < 0 || faixas.getInt(achada * TAMANHO_FAIXA + 4) < numero) {
+            return null;
+        }
+        int base = achada * TAMANHO_FAIXA;
+        return new Coordenada(faixas.getInt(base + 8) / 1e6, faixas.getInt(base + 12) / 1e6);
+    }
+
+    // os 8 digitos do CEP como numero, ou -1
+    static int numeroCep(String cep) {
+        if (cep == null) {
+            return -1;
+        }
+        int numero = 0;
+        int digitos = 0;
+        for (int i = 0; i < cep.length(); i++) {
+            char c = cep.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitos > 8) {
+                    return -1;
+                }
+                numero = numero * 10 + (c - '0');
+            } else if (c != '-' && c != '.' && c != ' ') {
+                return -1;
+            }
+        }
+        return digitos == 8 ? numero : -1;
+    }
+}
@@ -0,0 +1,34 @@
+package ifome.util;
+
+import ifome.model.StatusPedido;
+import java.util.EnumMap;
+import java.util.Map;
+
+// o que aconteceu com o pedido; as mudancas de etapa tem um tipo cada
+public enum TipoEventoPedido {
+    CRIADO,
+    PAGO,
+    CONFIRMADO,
+    PREPARANDO,
+    PRONTO,
+    EM_ENTREGA,
+    ENTREGUE,
+    CANCELADO,
+    AVALIADO;
+
+    private static final Map<StatusPedido, TipoEventoPedido> POR_ETAPA = new EnumMap<>(StatusPedido.class);
+
+    static {
+        POR_ETAPA.put(StatusPedido.CONFIRMADO, CONFIRMADO);
+        POR_ETAPA.put(StatusPedido.PREPARANDO, PREPARANDO);
+        POR_ETAPA.put(StatusPedido.PRONTO, PRONTO);
+        POR_ETAPA.put(StatusPedido.EM_ENTREGA, EM_ENTREGA);
+        POR_ETAPA.put(StatusPedido.ENTREGUE, ENTREGUE);
+        POR_ETAPA.put(StatusPedido.CANCELADO, CANCELADO);
+    }
+
+    // o evento de quem acabou de entrar na etapa; null pra pendente (ninguem volta pra ela)
+    public static TipoEventoPedido daEtapa(StatusPedido etapa) {
+        return etapa == null ? null : POR_ETAPA.get(etapa);
+    }
+}
@@ -0,0 +1,34 @@
+package ifome.util;
+
+/**
+ * um numero fixo de travas repartidas por chave (email do restaurante ou do cliente).
+ * duas chaves iguais caem sempre na mesma trava; chaves diferentes quase sempre em
+ * travas diferentes, entao sessoes de restaurantes e clientes distintos nao esperam
+ * umas pelas outras, e a memoria nao cresce com o numero de chaves.
+ * as travas sao monitores (synchronized), como o resto do repositorio
+ */
+final class TravasParticionadas {
+
+    private final Object[] travas;
+    private final int mascara;
+
+    // "quantidade" e arredondada pra cima ate uma potencia de 2
+    TravasParticionadas(int quantidade) {
+        int tamanho = quantidade <= 1 ? 1 : Integer.highestOneBit(quantidade - 1) << 1;
+        this.travas = new Object[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            travas[i] = new Object();
+        }
+        this.mascara = tamanho - 1;
+    }
+
+    Object trava(String chave) {
+        int h = chave == null ? 0 : chave.hashCode();
+        h ^= h >>> 16; // espalha os bits altos, igual ao HashMap
+        return travas[h & mascara];
+    }
+
+    int quantidade() {
+        return travas.length;
+    }
+}
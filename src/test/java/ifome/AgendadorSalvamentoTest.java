@@ -0,0 +1,84 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.AgendadorSalvamento;
+import ifome.util.ConjuntoDados;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Comparator;
+
+public class AgendadorSalvamentoTest {
+
+    private File diretorio;
+    private RepositorioRestaurantes repo;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-agendador").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testRajadaDeSolicitacoesViraUmSalvamento() {
+        // janela grande: nada roda sozinho antes do flush
+        AgendadorSalvamento agendador = new AgendadorSalvamento(repo, 60000);
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        repo.adicionarRestaurante(restaurante);
+        for (int i = 0; i < 20; i++) {
+            restaurante.adicionarProdutoCardapio(new Comida("Prato " + i, "desc", 10.0 + i, false));
+            agendador.solicitarSalvamento(ConjuntoDados.CARDAPIOS);
+        }
+        assertEquals(0, agendador.getSalvamentosRealizados());
+
+        agendador.flush();
+        assertEquals(1, agendador.getSalvamentosRealizados());
+        assertEquals(20, agendador.getSolicitacoes());
+        assertFalse(repo.estaAlterado(ConjuntoDados.CARDAPIOS));
+        assertTrue(new File(diretorio, ConjuntoDados.CARDAPIOS.getArquivo()).length() > 0);
+        agendador.encerrar();
+    }
+
+    @Test
+    public void testSalvamentoRodaSozinhoNoFimDaJanela() throws Exception {
+        AgendadorSalvamento agendador = new AgendadorSalvamento(repo, 10);
+        repo.adicionarCliente(new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999"));
+        agendador.solicitarSalvamento();
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (agendador.getSalvamentosRealizados() == 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, agendador.getSalvamentosRealizados());
+        assertTrue(new File(diretorio, ConjuntoDados.CLIENTES.getArquivo()).length() > 0);
+        agendador.encerrar();
+    }
+
+    @Test
+    public void testAguardarSalvamentosGravaAntesDeSair() {
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        repo.adicionarRestaurante(restaurante);
+        repo.agendarSalvamento();
+        repo.aguardarSalvamentos();
+
+        RepositorioRestaurantes.limparInstancia();
+        assertNotNull(RepositorioRestaurantes.getInstance().buscarRestaurantePorEmail("rest@email.com"));
+    }
+}
@@ -0,0 +1,127 @@
+package ifome;
+
+import ifome.exceptions.EnderecoForaRaioException;
+import ifome.model.*;
+import ifome.util.Coordenada;
+import ifome.util.RepositorioRestaurantes;
+import ifome.util.TabelaCeps;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+
+public class AreaEntregaTest {
+
+    // tres bairros de uma cidade ficticia, ~1 km entre o centro e a vila, ~10 km ate o distrito
+    private static final String CEPS =
+        "cep_inicio;cep_fim;latitude;longitude;nome\n" +
+        "10000-000;10000-999;-23.500000;-46.600000;Centro\n" +
+        "10001-000;10001-999;-23.509000;-46.600000;Vila\n" +
+        "10050-000;10059-999;-23.590000;-46.600000;Distrito\n";
+
+    private File diretorio;
+    private RepositorioRestaurantes repo;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-entrega").toFile();
+        File csv = new File(diretorio, "ceps.csv");
+        Files.write(csv.toPath(), CEPS.getBytes(StandardCharsets.UTF_8));
+        System.setProperty("ifome.dados", diretorio.getPath());
+        System.setProperty("ifome.ceps", csv.getPath());
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+        repo.limparTodos();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.ceps");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    private Restaurante restaurante(String nome, String cnpj, String cep, double raioKm) {
+        Restaurante r = new Restaurante(nome.replace(" ", "") + "@email.com", "123", nome, cnpj);
+        repo.adicionarRestaurante(r);
+        if (cep != null) {
+            repo.atualizarAreaEntrega(r, new Endereco(cep, "Rua A", "1"), raioKm);
+        }
+        return r;
+    }
+
+    @Test
+    public void testTabelaLocalizaPelaFaixa() throws Exception {
+        assertNotNull(repo.localizarCep("10000-500"));
+        assertEquals(-23.509, repo.localizarCep("10001123").getLatitude(), 1e-9);
+        assertNull(repo.localizarCep("10002-000")); // entre faixas
+        assertNull(repo.localizarCep("99999-999"));
+        assertNull(repo.localizarCep("123"));
+
+        // fonte alterada: o .bin e refeito na proxima abertura
+        File csv = new File(System.getProperty("ifome.ceps"));
+        Files.write(csv.toPath(), (CEPS + "20000-000;20000-999;-22.900000;-43.170000;Outra\n").getBytes(StandardCharsets.UTF_8));
+        csv.setLastModified(csv.lastModified() + 2000);
+        TabelaCeps tabela = TabelaCeps.comConfiguracaoPadrao(diretorio);
+        assertEquals(4, tabela.getQuantidade());
+        assertEquals(new Coordenada(-22.9, -43.17), tabela.localizar("20000-100"));
+    }
+
+    @Test
+    public void testRestaurantesQueEntregamPorDistancia() {
+        Restaurante vila = restaurante("Pizzaria da Vila", "11222333000181", "10001-000", 5);
+        Restaurante centro = restaurante("Lanches do Centro", "11222333000182", "10000-000", 5);
+        Restaurante distrito = restaurante("Sushi do Distrito", "11222333000183", "10050-000", 5);
+        Restaurante semEndereco = restaurante("Marmitaria Antiga", "11222333000184", null, 0);
+
+        List<Restaurante> entregam = repo.buscarRestaurantesQueEntregam(new Endereco("10000-100", "Rua B", "2"));
+        assertEquals(List.of(centro, vila, semEndereco), entregam);
+
+        // raio maior passa a alcancar o centro
+        repo.atualizarAreaEntrega(distrito, distrito.getEndereco(), 12);
+        entregam = repo.buscarRestaurantesQueEntregam(new Endereco("10000-100", "Rua B", "2"));
+        assertEquals(List.of(centro, vila, distrito, semEndereco), entregam);
+
+        // CEP fora da tabela: so quem nao tem limite
+        assertEquals(List.of(semEndereco), repo.buscarRestaurantesQueEntregam(new Endereco("99999-999", "Rua C", "3")));
+    }
+
+    @Test
+    public void testCheckoutForaDoRaio() throws Exception {
+        Restaurante centro = restaurante("Lanches do Centro", "11222333000182", "10000-000", 5);
+        Restaurante semEndereco = restaurante("Marmitaria Antiga", "11222333000184", null, 0);
+        Endereco vila = new Endereco("10001-200", "Rua B", "2");
+        Endereco distrito = new Endereco("10055-000", "Rua D", "4");
+
+        assertDoesNotThrow(() -> repo.verificarEntrega(centro, vila));
+        EnderecoForaRaioException e = assertThrows(EnderecoForaRaioException.class,
+            () -> repo.verificarEntrega(centro, distrito));
+        assertTrue(e.getMessage().contains("5,0 km") || e.getMessage().contains("5.0 km"));
+        assertThrows(EnderecoForaRaioException.class,
+            () -> repo.verificarEntrega(centro, new Endereco("99999-999", "Rua C", "3")));
+        assertDoesNotThrow(() -> repo.verificarEntrega(semEndereco, distrito));
+    }
+
+    @Test
+    public void testAreaDeEntregaSobreviveAoRecarregar() throws Exception {
+        Restaurante centro = restaurante("Lanches do Centro", "11222333000182", "10000-000", 12);
+        repo.salvarTudo();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        Restaurante lido = recarregado.buscarRestaurantePorEmail(centro.getEmail());
+        assertEquals("10000-000", lido.getEndereco().getCep());
+        assertEquals(12.0, lido.getRaioEntregaKm(), 1e-9);
+        assertDoesNotThrow(() -> recarregado.verificarEntrega(lido, new Endereco("10055-000", "Rua D", "4")));
+    }
+}
@@ -0,0 +1,275 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.ArmazenamentoDados;
+import ifome.util.ConjuntoDados;
+import ifome.util.FiltroPratos;
+import ifome.util.GravadorRegistros;
+import ifome.util.Registros;
+import ifome.util.RepositorioRestaurantes;
+import ifome.util.SnapshotArmazenamento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * contrato de um backend de armazenamento. cada backend tem uma subclasse que
+ * so escolhe o -Difome.armazenamento; os testes sao os mesmos pros dois
+ */
+public abstract class ArmazenamentoDadosTest {
+
+    protected File diretorio;
+
+    // valor de -Difome.armazenamento
+    protected abstract String tipoArmazenamento();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-armazenamento").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        System.setProperty("ifome.armazenamento", tipoArmazenamento());
+        RepositorioRestaurantes.limparInstancia();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.armazenamento");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    private ArmazenamentoDados abrir() {
+        return ArmazenamentoDados.comConfiguracaoPadrao(diretorio);
+    }
+
+    @Test
+    public void testSnapshotGravaELeRegistros() throws Exception {
+        ArmazenamentoDados armazenamento = abrir();
+        assertEquals(0, armazenamento.lerLsnSnapshot());
+        assertFalse(armazenamento.abrir(ConjuntoDados.CLIENTES).proximoRegistro());
+
+        SnapshotArmazenamento snapshot = armazenamento.iniciarSnapshot();
+        GravadorRegistros clientes = snapshot.gravador(ConjuntoDados.CLIENTES);
+        clientes.texto("a@email.com").texto("s;e\\nha").texto("José Açaí").texto("11");
+        clientes.fimRegistro();
+        clientes.texto("b@email.com").texto("1").texto("").texto("22");
+        clientes.fimRegistro();
+        GravadorRegistros pedidos = snapshot.gravador(ConjuntoDados.PEDIDOS);
+        pedidos.inteiro(42).dataHora(1_792_000_000_000L).texto("a@email.com").texto("r@email.com")
+               .texto("Em Entrega").decimal(45.9);
+        pedidos.fimRegistro();
+        GravadorRegistros itens = snapshot.gravador(ConjuntoDados.ITENS_PEDIDO);
+        itens.inteiro(42).texto("r@email.com").texto("Pizza").inteiro(2).decimal(20.5).texto("sem cebola");
+        itens.fimRegistro();
+        snapshot.confirmar(7);
+        armazenamento.fechar();
+
+        armazenamento = abrir();
+        try {
+            assertEquals(7, armazenamento.lerLsnSnapshot());
+            Registros lidos = armazenamento.abrir(ConjuntoDados.CLIENTES);
+            assertTrue(lidos.proximoRegistro());
+            assertEquals("a@email.com", lidos.texto(0));
+            assertEquals("s;e\\nha", lidos.texto(1));
+            assertEquals("José Açaí", lidos.texto(2));
+            assertTrue(lidos.textoIgual(3, "11"));
+            assertTrue(lidos.proximoRegistro());
+            assertTrue(lidos.vazio(2));
+            assertEquals(22, lidos.inteiro(3));
+            assertFalse(lidos.proximoRegistro());
+
+            Registros pedido = armazenamento.abrir(ConjuntoDados.PEDIDOS);
+            assertTrue(pedido.proximoRegistro());
+            assertEquals(42, pedido.inteiro(0));
+            assertEquals(1_792_000_000_000L, pedido.dataHora(1));
+            assertEquals("Em Entrega", pedido.texto(4));
+            assertEquals(45.9, pedido.decimal(5), 0.0);
+            assertFalse(pedido.proximoRegistro());
+
+            Registros item = armazenamento.abrir(ConjuntoDados.ITENS_PEDIDO);
+            assertTrue(item.proximoRegistro());
+            assertEquals(42, item.inteiro(0));
+            assertEquals("Pizza", item.texto(2));
+            assertEquals(2, item.inteiro(3));
+            assertEquals(20.5, item.decimal(4), 0.0);
+            assertFalse(item.proximoRegistro());
+        } finally {
+            armazenamento.fechar();
+        }
+    }
+
+    @Test
+    public void testDescartarMantemSnapshotAnterior() throws Exception {
+        ArmazenamentoDados armazenamento = abrir();
+        try {
+            SnapshotArmazenamento primeiro = armazenamento.iniciarSnapshot();
+            GravadorRegistros cupons = primeiro.gravador(ConjuntoDados.CUPONS);
+            cupons.texto("BEMVINDO10").decimal(10.0).booleano(true);
+            cupons.fimRegistro();
+            GravadorRegistros usados = primeiro.gravador(ConjuntoDados.CUPONS_USADOS);
+            usados.texto("a@email.com").texto("BEMVINDO10");
+            usados.fimRegistro();
+            primeiro.confirmar(3);
+
+            SnapshotArmazenamento segundo = armazenamento.iniciarSnapshot();
+            GravadorRegistros outros = segundo.gravador(ConjuntoDados.CUPONS);
+            outros.texto("FRETE10").decimal(10.0).booleano(false);
+            outros.fimRegistro();
+            segundo.descartar();
+
+            // so cupons no terceiro: cupons usados continua o do primeiro
+            SnapshotArmazenamento terceiro = armazenamento.iniciarSnapshot();
+            GravadorRegistros novos = terceiro.gravador(ConjuntoDados.CUPONS);
+            novos.texto("ECONOMIZE5").decimal(5.0).booleano(false);
+            novos.fimRegistro();
+            assertEquals(3, armazenamento.lerLsnSnapshot());
+            terceiro.confirmar(9);
+
+            assertEquals(9, armazenamento.lerLsnSnapshot());
+            Registros lidos = armazenamento.abrir(ConjuntoDados.CUPONS);
+            assertTrue(lidos.proximoRegistro());
+            assertEquals("ECONOMIZE5", lidos.texto(0));
+            assertEquals(5.0, lidos.decimal(1), 0.0);
+            assertFalse(lidos.booleano(2));
+            assertFalse(lidos.proximoRegistro());
+            Registros usadosLidos = armazenamento.abrir(ConjuntoDados.CUPONS_USADOS);
+            assertTrue(usadosLidos.proximoRegistro());
+            assertEquals("BEMVINDO10", usadosLidos.texto(1));
+        } finally {
+            armazenamento.fechar();
+        }
+    }
+
+    @Test
+    public void testRepositorioSalvaERecarregaTudo() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Conceição", "11999999999");
+        cliente.adicionarEndereco(new Endereco("01000000", "Rua A", "10", "Centro", "São Paulo", "SP"));
+        cliente.adicionarCartao(new CartaoSalvo("4111111111111111", "CLIENTE TESTE", "123", "12/30", "Pessoal"));
+        cliente.registrarUsoCupom("BEMVINDO10");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        restaurante.adicionarProdutoCardapio(new Bebida("Suco", "Laranja 500ml", 8.0, 500));
+        Produto pudim = new Sobremesa("Pudim", "De leite", 12.5);
+        pudim.setDisponibilidade(false);
+        restaurante.adicionarProdutoCardapio(pudim);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        repo.avaliarRestaurante(restaurante, 5, "Ótimo");
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(pizza, 2, "sem cebola; bem passada"));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        repo.adicionarPedido(pedido);
+        pedido.avaliar(4, "Chegou quente");
+        repo.salvarTudo();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+
+        Cliente c = recarregado.buscarClientePorEmail("cliente@email.com");
+        assertNotNull(c);
+        assertEquals("Cliente Conceição", c.getNome());
+        assertEquals("São Paulo", c.getEnderecos().get(0).getCidade());
+        assertEquals(1, c.getCartoesSalvos().size());
+        assertEquals("Pessoal", c.getCartoesSalvos().get(0).getApelido());
+        assertTrue(c.jaUsouCupom("BEMVINDO10"));
+
+        Restaurante r = recarregado.buscarRestaurantePorEmail("rest@email.com");
+        assertNotNull(r);
+        List<Produto> cardapio = r.getCardapio();
+        assertEquals(3, cardapio.size());
+        assertEquals("Comida", cardapio.get(0).getCategoria());
+        assertEquals("Bebida", cardapio.get(1).getCategoria());
+        assertEquals(12.5, cardapio.get(2).getPreco(), 0.0);
+        assertFalse(cardapio.get(2).isDisponivel());
+        assertEquals(1, r.getQuantidadeAvaliacoes());
+        assertEquals("Ótimo", r.getAvaliacoes().get(0).getComentario());
+
+        assertEquals(1, recarregado.getTodosPedidos().size());
+        Pedido p = recarregado.getTodosPedidos().get(0);
+        assertEquals(pedido.getNumeroPedido(), p.getNumeroPedido());
+        assertEquals(pedido.getDataHora().getTime() / 1000, p.getDataHora().getTime() / 1000);
+        assertEquals(pedido.getValorTotal(), p.getValorTotal(), 0.0);
+        assertEquals(1, p.getItens().size());
+        assertEquals("sem cebola; bem passada", p.getItens().get(0).getObservacoes());
+        assertEquals(4, p.getAvaliacoes().get(0).getNota());
+        assertSame(p, c.getHistoricoPedidos().get(0));
+        assertNotNull(recarregado.buscarCupom("FRETE10"));
+    }
+
+    @Test
+    public void testFacetasDoCardapioSobrevivemAoRecarregar() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        restaurante.adicionarProdutoCardapio(new Comida("Salada", "Folhas", 20.0, true));
+        Comida tofu = new Comida("Tofu", "Grelhado", 30.0, false);
+        tofu.setVegano(true);
+        restaurante.adicionarProdutoCardapio(tofu);
+        restaurante.adicionarProdutoCardapio(new Comida("Bife", "Acebolado", 40.0, false));
+        restaurante.adicionarProdutoCardapio(new Bebida("Suco", "Laranja", 8.0, 500));
+        restaurante.adicionarProdutoCardapio(new Sobremesa("Sorvete", "Creme", 10.0, "Gelada"));
+        repo.adicionarRestaurante(restaurante);
+        repo.salvarTudo();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        List<Produto> cardapio = recarregado.buscarRestaurantePorEmail("rest@email.com").getCardapio();
+        assertEquals(5, cardapio.size());
+        assertTrue(((Comida) cardapio.get(0)).ehVegetariano());
+        assertFalse(((Comida) cardapio.get(0)).ehVegano());
+        assertTrue(((Comida) cardapio.get(1)).ehVegano());
+        assertTrue(((Comida) cardapio.get(1)).ehVegetariano());
+        assertFalse(((Comida) cardapio.get(2)).ehVegetariano());
+        assertEquals(500, ((Bebida) cardapio.get(3)).getVolumeML());
+        assertEquals("Gelada", ((Sobremesa) cardapio.get(4)).getTemperatura());
+
+        assertEquals(2, recarregado.buscarPratos(new FiltroPratos().vegetarianos(), 10).size());
+        assertEquals(1, recarregado.buscarPratos(new FiltroPratos().veganos(), 10).size());
+        assertEquals(1, recarregado.buscarPratos(new FiltroPratos().temperatura("Gelada"), 10).size());
+    }
+
+    @Test
+    public void testDiarioReaplicadoPorCimaDoSnapshot() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        repo.salvarTudo();
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(pizza, 1, ""));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        repo.registrarNovoPedido(pedido);
+        assertTrue(repo.getQuantidadeRegistrosDiario() > 0);
+
+        // sem salvar: o pedido so existe no diario
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        assertEquals(1, recarregado.getTodosPedidos().size());
+        assertEquals(1, recarregado.getTodosPedidos().get(0).getItens().size());
+
+        recarregado.salvarDados();
+        assertEquals(0, recarregado.getQuantidadeRegistrosDiario());
+        RepositorioRestaurantes.limparInstancia();
+        assertEquals(1, RepositorioRestaurantes.getInstance().getTodosPedidos().size());
+    }
+}
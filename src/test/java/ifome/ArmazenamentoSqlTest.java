@@ -0,0 +1,10 @@
+package ifome;
+
+// contrato do ArmazenamentoDadosTest sobre o banco embutido (H2 em arquivo no diretorio do teste)
+public class ArmazenamentoSqlTest extends ArmazenamentoDadosTest {
+
+    @Override
+    protected String tipoArmazenamento() {
+        return "sql";
+    }
+}
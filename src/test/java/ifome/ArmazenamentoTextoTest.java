@@ -0,0 +1,10 @@
+package ifome;
+
+// contrato do ArmazenamentoDadosTest sobre os arquivos de texto
+public class ArmazenamentoTextoTest extends ArmazenamentoDadosTest {
+
+    @Override
+    protected String tipoArmazenamento() {
+        return "texto";
+    }
+}
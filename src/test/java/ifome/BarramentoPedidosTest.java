@@ -0,0 +1,281 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.AssinaturaPedidos;
+import ifome.util.BarramentoPedidos;
+import ifome.util.EventoPedido;
+import ifome.util.OpcoesAssinatura;
+import ifome.util.PoliticaTransbordo;
+import ifome.util.RepositorioRestaurantes;
+import ifome.util.TipoEventoPedido;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BarramentoPedidosTest {
+
+    private File diretorio;
+    private BarramentoPedidos barramento;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-eventos").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        System.setProperty("ifome.pedidos.formato", "texto");
+        RepositorioRestaurantes.limparInstancia();
+        barramento = new BarramentoPedidos(1);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        barramento.encerrar();
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.pedidos.formato");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testCicloDeVidaCompletoNaOrdem() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        List<EventoPedido> recebidos = new CopyOnWriteArrayList<>();
+        repo.getBarramentoPedidos().assinar(recebidos::addAll, new OpcoesAssinatura().doCliente(cliente));
+
+        Pedido pedido = novoPedido(cliente, restaurante, pizza);
+        cliente.adicionarPedido(pedido);
+        repo.registrarNovoPedido(pedido);
+        repo.registrarNovoPedido(pedido); // repetido nao publica de novo
+        pedido.setFormaPagamento(new Dinheiro(100.0));
+        assertDoesNotThrow(pedido::processarPagamento);
+        repo.alterarStatusPedido(pedido, StatusPedido.PREPARANDO);
+        repo.alterarStatusPedido(pedido, StatusPedido.PRONTO);
+        assertFalse(repo.alterarStatusPedido(pedido, StatusPedido.CANCELADO)); // recusada: sem evento
+        repo.alterarStatusPedido(pedido, StatusPedido.EM_ENTREGA);
+        repo.alterarStatusPedido(pedido, StatusPedido.ENTREGUE);
+        cliente.avaliarPedido(pedido, 5, "Otimo");
+
+        assertTrue(repo.getBarramentoPedidos().aguardarEntregas(5_000));
+        List<TipoEventoPedido> tipos = new ArrayList<>();
+        for (EventoPedido evento : recebidos) {
+            tipos.add(evento.getTipo());
+        }
+        assertEquals(List.of(TipoEventoPedido.CRIADO, TipoEventoPedido.PAGO, TipoEventoPedido.CONFIRMADO,
+                             TipoEventoPedido.PREPARANDO, TipoEventoPedido.PRONTO, TipoEventoPedido.EM_ENTREGA,
+                             TipoEventoPedido.ENTREGUE, TipoEventoPedido.AVALIADO), tipos);
+        assertEquals(StatusPedido.PRONTO, recebidos.get(5).getStatusAnterior());
+        assertEquals(StatusPedido.EM_ENTREGA, recebidos.get(5).getStatus());
+        for (int i = 1; i < recebidos.size(); i++) {
+            assertTrue(recebidos.get(i - 1).getSequencia() < recebidos.get(i).getSequencia());
+        }
+    }
+
+    @Test
+    public void testCargaNaoPublicaEventos() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        Pedido pedido = novoPedido(cliente, restaurante, pizza);
+        repo.registrarNovoPedido(pedido);
+        repo.salvarTudo();
+
+        // a carga aceita de novo os pedidos em aberto (Pendente -> Confirmado) sem avisar ninguem
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+        assertEquals(1, repo.getTodosPedidos().size());
+        assertEquals(0, repo.getBarramentoPedidos().getPublicados());
+    }
+
+    @Test
+    public void testSemDiarioMudancaDiretaNoModeloEhSalva() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        repo.salvarTudo();
+        repo.setModoDiario(false);
+
+        Pedido pedido = novoPedido(cliente, restaurante, pizza);
+        restaurante.adicionarNaFila(pedido);
+        repo.registrarNovoPedido(pedido);
+        repo.aguardarSalvamentos();
+        // recusado pelo restaurante sem passar pelo repositorio: so o evento sabe
+        assertDoesNotThrow(() -> restaurante.recusarPedido(pedido));
+        repo.aguardarSalvamentos();
+
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+        assertEquals(1, repo.getTodosPedidos().size());
+        assertEquals(StatusPedido.CANCELADO, repo.getTodosPedidos().get(0).getStatusPedido());
+    }
+
+    @Test
+    public void testFilaCheiaDescartaOsNovos() throws Exception {
+        Pedido pedido = new Pedido();
+        CountDownLatch entrou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Long> entregues = new CopyOnWriteArrayList<>();
+        AssinaturaPedidos assinatura = barramento.assinar(lote -> {
+            entrou.countDown();
+            aguardar(liberar);
+            lote.forEach(e -> entregues.add(e.getSequencia()));
+        }, new OpcoesAssinatura().capacidade(4).politica(PoliticaTransbordo.DESCARTAR_NOVOS));
+
+        barramento.publicar(TipoEventoPedido.CRIADO, pedido);
+        assertTrue(entrou.await(5, TimeUnit.SECONDS)); // o primeiro ja saiu da fila e o assinante travou
+        for (int i = 0; i < 10; i++) {
+            barramento.publicar(TipoEventoPedido.PAGO, pedido);
+        }
+        assertEquals(4, assinatura.getPendentes());
+        assertEquals(6, assinatura.getDescartados());
+        liberar.countDown();
+
+        assertTrue(barramento.aguardarEntregas(5_000));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), entregues);
+        assertEquals(11, assinatura.getRecebidos());
+        assertEquals(5, assinatura.getEntregues());
+    }
+
+    @Test
+    public void testFilaCheiaDescartaOsAntigos() throws Exception {
+        Pedido pedido = new Pedido();
+        CountDownLatch entrou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Long> entregues = new CopyOnWriteArrayList<>();
+        AssinaturaPedidos assinatura = barramento.assinar(lote -> {
+            entrou.countDown();
+            aguardar(liberar);
+            lote.forEach(e -> entregues.add(e.getSequencia()));
+        }, new OpcoesAssinatura().capacidade(4).politica(PoliticaTransbordo.DESCARTAR_ANTIGOS));
+
+        barramento.publicar(TipoEventoPedido.CRIADO, pedido);
+        assertTrue(entrou.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            barramento.publicar(TipoEventoPedido.PAGO, pedido);
+        }
+        assertEquals(6, assinatura.getDescartados());
+        liberar.countDown();
+
+        assertTrue(barramento.aguardarEntregas(5_000));
+        assertEquals(List.of(1L, 8L, 9L, 10L, 11L), entregues);
+    }
+
+    @Test
+    public void testEsperarDesisteNoLimite() throws Exception {
+        Pedido pedido = new Pedido();
+        CountDownLatch entrou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AssinaturaPedidos assinatura = barramento.assinar(lote -> {
+            entrou.countDown();
+            aguardar(liberar);
+        }, new OpcoesAssinatura().capacidade(1).politica(PoliticaTransbordo.ESPERAR).esperaMaxima(20));
+
+        barramento.publicar(TipoEventoPedido.CRIADO, pedido);
+        assertTrue(entrou.await(5, TimeUnit.SECONDS));
+        barramento.publicar(TipoEventoPedido.PAGO, pedido); // cabe
+        long inicio = System.nanoTime();
+        barramento.publicar(TipoEventoPedido.CONFIRMADO, pedido); // espera e desiste
+        assertTrue(System.nanoTime() - inicio >= TimeUnit.MILLISECONDS.toNanos(15));
+        assertEquals(1, assinatura.getDescartados());
+        liberar.countDown();
+
+        assertTrue(barramento.aguardarEntregas(5_000));
+        assertEquals(2, assinatura.getEntregues());
+    }
+
+    @Test
+    public void testLotesFiltroECancelamento() throws Exception {
+        Cliente ana = new Cliente("ana@email.com", "123", "Ana", "11999999999");
+        Cliente bia = new Cliente("bia@email.com", "123", "Bia", "11888888888");
+        List<List<EventoPedido>> lotes = new CopyOnWriteArrayList<>();
+        AssinaturaPedidos assinatura = barramento.assinar(lotes::add, new OpcoesAssinatura()
+            .doCliente(ana).tipos(TipoEventoPedido.CRIADO).lote(3).janela(200));
+
+        for (int i = 0; i < 7; i++) {
+            Pedido daAna = new Pedido();
+            daAna.setCliente(ana);
+            barramento.publicar(TipoEventoPedido.CRIADO, daAna);
+            barramento.publicar(TipoEventoPedido.PAGO, daAna); // tipo fora da assinatura
+            Pedido daBia = new Pedido();
+            daBia.setCliente(bia);
+            barramento.publicar(TipoEventoPedido.CRIADO, daBia);
+        }
+        assertTrue(barramento.aguardarEntregas(5_000));
+
+        int total = 0;
+        for (List<EventoPedido> lote : lotes) {
+            assertTrue(lote.size() <= 3);
+            for (EventoPedido evento : lote) {
+                assertSame(ana, evento.getPedido().getCliente());
+            }
+            total += lote.size();
+        }
+        assertEquals(7, total);
+        assertEquals(3, lotes.size()); // a janela juntou tudo: 3 + 3 + 1
+
+        assinatura.cancelar();
+        Pedido depois = new Pedido();
+        depois.setCliente(ana);
+        barramento.publicar(TipoEventoPedido.CRIADO, depois);
+        assertTrue(barramento.aguardarEntregas(5_000));
+        assertEquals(7, assinatura.getEntregues());
+        assertTrue(barramento.getAssinaturas().isEmpty());
+    }
+
+    @Test
+    public void testAssinanteComErroNaoParaAEntrega() {
+        List<EventoPedido> recebidos = new CopyOnWriteArrayList<>();
+        barramento.assinar(lote -> {
+            throw new IllegalStateException("tela fechada");
+        });
+        barramento.assinar(recebidos::addAll, new OpcoesAssinatura().lote(1));
+
+        barramento.publicar(TipoEventoPedido.CRIADO, new Pedido());
+        barramento.publicar(TipoEventoPedido.CRIADO, new Pedido());
+        assertTrue(barramento.aguardarEntregas(5_000));
+        assertEquals(2, recebidos.size());
+    }
+
+    private static Pedido novoPedido(Cliente cliente, Restaurante restaurante, Produto produto) {
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(produto, 1, ""));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        return pedido;
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.ArquivoMapeado;
+import ifome.util.LeitorRegistros;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class CargaMapeadaTest {
+
+    private File diretorio;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-mapeada").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.carga.mapeadaBytes");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testPedacosTerminamEmQuebraDeLinha() throws Exception {
+        StringBuilder conteudo = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            conteudo.append(i).append(";São Paulo ").append(i % 7).append(";x\\;y\n");
+        }
+        conteudo.append("1000;última;sem quebra");
+        File arquivo = new File(diretorio, "pedacos.txt");
+        Files.write(arquivo.toPath(), conteudo.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<LeitorRegistros> partes = ArquivoMapeado.mapear(arquivo, 7);
+        assertTrue(partes.size() > 1);
+        List<Integer> numeros = new ArrayList<>();
+        for (LeitorRegistros parte : partes) {
+            while (parte.proximoRegistro()) {
+                int numero = parte.inteiro(0);
+                numeros.add(numero);
+                if (numero < 1000) {
+                    assertEquals("São Paulo " + (numero % 7), parte.texto(1));
+                    assertEquals("x;y", parte.texto(2));
+                }
+            }
+        }
+        assertEquals(1001, numeros.size());
+        for (int i = 0; i < numeros.size(); i++) {
+            assertEquals(i, (int) numeros.get(i));
+        }
+    }
+
+    @Test
+    public void testAcessoresSobreBytes() {
+        byte[] bytes = "7;2026-10-16 12:00:00;Em preparação;45.5;TRUE;\r\n"
+            .getBytes(StandardCharsets.UTF_8);
+        LeitorRegistros r = new LeitorRegistros(ByteBuffer.wrap(bytes));
+        LeitorRegistros c = LeitorRegistros.deTexto(new String(bytes, StandardCharsets.UTF_8));
+        assertTrue(r.proximoRegistro());
+        assertTrue(c.proximoRegistro());
+        assertEquals(6, r.quantidadeCampos());
+        assertEquals(7, r.inteiro(0));
+        assertEquals(c.dataHora(1), r.dataHora(1));
+        assertEquals("Em preparação", r.texto(2));
+        assertTrue(r.textoIgual(2, "Em preparação"));
+        assertFalse(r.textoIgual(2, "Em preparacao"));
+        assertEquals(45.5, r.decimal(3), 0.0);
+        assertTrue(r.booleano(4));
+        assertTrue(r.vazio(5));
+        assertFalse(r.proximoRegistro());
+    }
+
+    @Test
+    public void testCargaMapeadaIgualACargaNormal() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        Produto suco = new Bebida("Suco", "Suco de laranja", 8.0, 300);
+        restaurante.adicionarProdutoCardapio(pizza);
+        restaurante.adicionarProdutoCardapio(suco);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        for (int i = 0; i < 50; i++) {
+            Pedido pedido = new Pedido();
+            pedido.setCliente(cliente);
+            pedido.setRestaurante(restaurante);
+            pedido.adicionarItem(new ItemPedido(pizza, 1 + i % 3, "sem cebola"));
+            pedido.adicionarItem(new ItemPedido(suco, 1, ""));
+            pedido.setValorTotal(pedido.calcularPrecoTotal());
+            repo.adicionarPedido(pedido);
+        }
+        repo.salvarDados();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes normal = RepositorioRestaurantes.getInstance();
+        int pedidosNormal = normal.getTodosPedidos().size();
+        int filaNormal = normal.buscarRestaurantePorEmail("rest@email.com").getFilaPedidos().size();
+        int itensNormal = contarItens(normal);
+
+        RepositorioRestaurantes.limparInstancia();
+        System.setProperty("ifome.carga.mapeadaBytes", "0");
+        RepositorioRestaurantes mapeado = RepositorioRestaurantes.getInstance();
+
+        assertEquals(50, pedidosNormal);
+        assertEquals(100, itensNormal);
+        assertEquals(pedidosNormal, mapeado.getTodosPedidos().size());
+        assertEquals(itensNormal, contarItens(mapeado));
+        assertEquals(filaNormal, mapeado.buscarRestaurantePorEmail("rest@email.com").getFilaPedidos().size());
+        assertEquals(50, mapeado.buscarClientePorEmail("cliente@email.com").getHistoricoPedidos().size());
+        assertTrue(mapeado.getTemposCarregamento().containsKey("pedidos (leitura mapeada)"));
+        assertTrue(mapeado.getTemposCarregamento().containsKey("itens (leitura mapeada)"));
+    }
+
+    private static int contarItens(RepositorioRestaurantes repo) {
+        int total = 0;
+        for (Pedido p : repo.getTodosPedidos()) {
+            total += p.getItens().size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,113 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.ArmazenamentoTexto;
+import ifome.util.CarregadorParalelo;
+import ifome.util.ConjuntoDados;
+import ifome.util.Registros;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Map;
+
+public class CarregadorParaleloTest {
+
+    private File diretorio;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-carga").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testLeituraSeparaCamposEIgnoraArquivoAusente() throws Exception {
+        Files.write(new File(diretorio, "clientes.txt").toPath(),
+            "a@email.com;1;A;11\nb@email.com;2;B;22\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(diretorio, "avaliacoes.txt").toPath(),
+            "rest@email.com;5;\n".getBytes(StandardCharsets.UTF_8));
+
+        CarregadorParalelo carregador = new CarregadorParalelo(2);
+        Map<ConjuntoDados, Registros> lidos = carregador.lerConjuntos(ArmazenamentoTexto.comConfiguracaoPadrao(diretorio));
+        carregador.encerrar();
+
+        Registros clientes = lidos.get(ConjuntoDados.CLIENTES);
+        assertTrue(clientes.proximoRegistro());
+        assertTrue(clientes.proximoRegistro());
+        assertEquals("B", clientes.texto(2));
+        assertFalse(clientes.proximoRegistro());
+        // comentario vazio continua sendo um campo
+        Registros avaliacoes = lidos.get(ConjuntoDados.AVALIACOES);
+        assertTrue(avaliacoes.proximoRegistro());
+        assertEquals(3, avaliacoes.quantidadeCampos());
+        assertFalse(lidos.get(ConjuntoDados.PEDIDOS).proximoRegistro());
+        assertEquals(ConjuntoDados.values().length, carregador.getTemposLeitura().size());
+    }
+
+    @Test
+    public void testErroNumaTarefaSobeParaQuemChamou() {
+        CarregadorParalelo carregador = new CarregadorParalelo(2);
+        try {
+            assertThrows(NumberFormatException.class, () -> carregador.executarEtapa("teste",
+                () -> { },
+                () -> Integer.parseInt("x")));
+        } finally {
+            carregador.encerrar();
+        }
+    }
+
+    @Test
+    public void testCargaMontaGrafoERegistraTempos() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        cliente.adicionarEndereco(new Endereco("01000000", "Rua A", "10", "Centro", "Sao Paulo", "SP"));
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        restaurante.avaliar(4, "bom");
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(pizza, 2, "sem cebola"));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        repo.registrarNovoPedido(pedido);
+        repo.salvarDados();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+
+        Cliente c = recarregado.buscarClientePorEmail("cliente@email.com");
+        Restaurante r = recarregado.buscarRestaurantePorEmail("rest@email.com");
+        assertEquals(1, c.getEnderecos().size());
+        assertEquals(1, r.getCardapio().size());
+        assertEquals(1, r.getQuantidadeAvaliacoes());
+        assertEquals(1, recarregado.getTodosPedidos().size());
+        assertEquals(1, recarregado.getTodosPedidos().get(0).getItens().size());
+
+        Map<String, Long> tempos = recarregado.getTemposCarregamento();
+        assertTrue(tempos.containsKey("leitura"));
+        assertTrue(tempos.containsKey("pedidos"));
+        assertTrue(tempos.containsKey("diario"));
+    }
+}
@@ -0,0 +1,207 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.CompactadorDiario;
+import ifome.util.DiarioAlteracoes;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+
+public class DiarioAlteracoesTest {
+
+    private File diretorio;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-diario").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testPedidoVaiParaDiarioSemReescreverArquivos() throws Exception {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        repo.salvarDados();
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(pizza, 2, "sem cebola"));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        repo.registrarNovoPedido(pedido);
+
+        pedido.atualizarStatus(StatusPedido.CONFIRMADO);
+        repo.registrarStatusPedido(pedido);
+
+        // o snapshot de pedidos continua vazio, so o diario cresceu
+        assertEquals(0, new File(diretorio, "pedidos.txt").length());
+        assertTrue(repo.getTamanhoDiario() > 0);
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+
+        Pedido restaurado = null;
+        for (Pedido p : recarregado.getTodosPedidos()) {
+            if (p.getNumeroPedido() == pedido.getNumeroPedido()) {
+                restaurado = p;
+            }
+        }
+        assertNotNull(restaurado);
+        assertEquals("Confirmado", restaurado.getStatus());
+        assertEquals(1, restaurado.getItens().size());
+        assertEquals(2, restaurado.getItens().get(0).getQuantidade());
+    }
+
+    @Test
+    public void testSalvarDadosZeraDiario() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        repo.adicionarCliente(cliente);
+        cliente.registrarUsoCupom("BEMVINDO10");
+        repo.registrarCupomUsado(cliente, "BEMVINDO10");
+        assertTrue(repo.getTamanhoDiario() > 0);
+
+        repo.salvarDados();
+        assertEquals(0, repo.getTamanhoDiario());
+
+        RepositorioRestaurantes.limparInstancia();
+        Cliente recarregado = RepositorioRestaurantes.getInstance().buscarClientePorEmail("cliente@email.com");
+        assertTrue(recarregado.jaUsouCupom("BEMVINDO10"));
+    }
+
+    @Test
+    public void testUltimaLinhaIncompletaEhIgnorada() throws Exception {
+        File arquivo = new File(diretorio, "teste.log");
+        DiarioAlteracoes diario = new DiarioAlteracoes(arquivo);
+        diario.anexar("STATUS", "1000;Confirmado;10.0");
+        diario.fechar();
+
+        try (FileOutputStream fos = new FileOutputStream(arquivo, true)) {
+            fos.write("STATUS;1000;Prep".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<DiarioAlteracoes.Registro> registros = new DiarioAlteracoes(arquivo).lerRegistros();
+        assertEquals(1, registros.size());
+        assertEquals(1, registros.get(0).getLsn());
+        assertEquals("STATUS", registros.get(0).getTipo());
+        assertEquals("1000;Confirmado;10.0", registros.get(0).getDados());
+    }
+
+    @Test
+    public void testAnexarDepoisDeLinhaIncompletaNaoColaNoLixo() throws Exception {
+        File arquivo = new File(diretorio, "teste.log");
+        DiarioAlteracoes diario = new DiarioAlteracoes(arquivo);
+        diario.anexar("STATUS", "1000;Confirmado;10.0");
+        diario.fechar();
+
+        try (FileOutputStream fos = new FileOutputStream(arquivo, true)) {
+            fos.write("2;STATUS;1000;Prep".getBytes(StandardCharsets.UTF_8));
+        }
+
+        DiarioAlteracoes reaberto = new DiarioAlteracoes(arquivo);
+        assertEquals(1, reaberto.lerRegistros().size());
+        long lsn = reaberto.anexar("STATUS", "1000;Entregue;10.0");
+        reaberto.fechar();
+
+        List<DiarioAlteracoes.Registro> registros = new DiarioAlteracoes(arquivo).lerRegistros();
+        assertEquals(2, registros.size());
+        assertEquals(2, lsn);
+        assertEquals(2, registros.get(1).getLsn());
+        assertEquals("1000;Entregue;10.0", registros.get(1).getDados());
+        assertEquals(arquivo.length(), reaberto.getTamanhoBytes());
+    }
+
+    @Test
+    public void testDescartarAteMantemRegistrosPosterioresAoCorte() throws Exception {
+        File arquivo = new File(diretorio, "teste.log");
+        DiarioAlteracoes diario = new DiarioAlteracoes(arquivo);
+        diario.anexar("CUPOM_USADO", "a@email.com;BEMVINDO10");
+        long corte = diario.anexar("CUPOM_USADO", "b@email.com;BEMVINDO10");
+        diario.anexar("CUPOM_USADO", "c@email.com;BEMVINDO10");
+
+        diario.descartarAte(corte);
+        long proximo = diario.anexar("CUPOM_USADO", "d@email.com;BEMVINDO10");
+
+        List<DiarioAlteracoes.Registro> registros = new DiarioAlteracoes(arquivo).lerRegistros();
+        assertEquals(2, registros.size());
+        assertEquals("c@email.com;BEMVINDO10", registros.get(0).getDados());
+        assertEquals(4, proximo);
+        assertEquals(2, diario.getQuantidadeRegistros());
+    }
+
+    @Test
+    public void testDescartarAteNaoPerdeRegistrosAnexadosDuranteACompactacao() throws Exception {
+        File arquivo = new File(diretorio, "teste.log");
+        DiarioAlteracoes diario = new DiarioAlteracoes(arquivo);
+        for (int i = 0; i < 500; i++) {
+            diario.anexar("CUPOM_USADO", "antes" + i + "@email.com;BEMVINDO10");
+        }
+        long corte = diario.getUltimoLsn();
+
+        Thread escritor = new Thread(() -> {
+            try {
+                for (int i = 0; i < 200; i++) {
+                    diario.anexar("CUPOM_USADO", "durante" + i + "@email.com;BEMVINDO10");
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        escritor.start();
+        diario.descartarAte(corte);
+        escritor.join();
+        diario.fechar();
+
+        List<DiarioAlteracoes.Registro> registros = new DiarioAlteracoes(arquivo).lerRegistros();
+        assertEquals(200, registros.size());
+        assertEquals(corte + 1, registros.get(0).getLsn());
+        assertEquals(corte + 200, registros.get(199).getLsn());
+        assertEquals(arquivo.length(), diario.getTamanhoBytes());
+    }
+
+    @Test
+    public void testCompactadorDisparaPorQuantidadeDeRegistros() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        repo.adicionarCliente(cliente);
+        repo.salvarDados();
+
+        CompactadorDiario compactador = new CompactadorDiario(repo, Long.MAX_VALUE, 2, Long.MAX_VALUE);
+        assertFalse(compactador.precisaCompactar());
+
+        repo.registrarCupomUsado(cliente, "BEMVINDO10");
+        assertFalse(compactador.precisaCompactar());
+        repo.registrarCupomUsado(cliente, "FRETE10");
+        assertTrue(compactador.precisaCompactar());
+
+        repo.salvarDados();
+        assertFalse(compactador.precisaCompactar());
+        assertEquals(0, repo.getQuantidadeRegistrosDiario());
+    }
+}
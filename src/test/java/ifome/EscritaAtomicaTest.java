@@ -0,0 +1,82 @@
+package ifome;
+
+import ifome.util.EscritaAtomica;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+
+public class EscritaAtomicaTest {
+
+    private File diretorio;
+    private File arquivo;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-escrita").toFile();
+        arquivo = new File(diretorio, "pedidos.txt");
+        Files.write(arquivo.toPath(), "antigo\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testOriginalIntactoAteConfirmar() throws Exception {
+        EscritaAtomica lote = new EscritaAtomica(true);
+        try (OutputStream os = lote.criarTemporario(arquivo)) {
+            os.write("novo\n".getBytes(StandardCharsets.UTF_8));
+        }
+        // simula queda antes do confirmar: o original continua inteiro
+        assertEquals("antigo\n", ler(arquivo));
+
+        lote.confirmar();
+        assertEquals("novo\n", ler(arquivo));
+        assertFalse(new File(diretorio, "pedidos.txt.tmp").exists());
+        assertEquals(0, lote.getQuantidadePendentes());
+    }
+
+    @Test
+    public void testDescartarApagaTemporariosSemTocarNoOriginal() throws Exception {
+        EscritaAtomica lote = new EscritaAtomica(false);
+        try (OutputStream os = lote.criarTemporario(arquivo)) {
+            os.write("pela metade".getBytes(StandardCharsets.UTF_8));
+        }
+        lote.descartar();
+
+        assertEquals("antigo\n", ler(arquivo));
+        assertFalse(new File(diretorio, "pedidos.txt.tmp").exists());
+    }
+
+    @Test
+    public void testLoteTrocaTodosOsArquivos() throws Exception {
+        File outro = new File(diretorio, "itens_pedido.txt");
+        EscritaAtomica lote = new EscritaAtomica(true);
+        try (OutputStream os = lote.criarTemporario(arquivo)) {
+            os.write("a\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try (OutputStream os = lote.criarTemporario(outro)) {
+            os.write("b\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(2, lote.getQuantidadePendentes());
+        lote.confirmar();
+
+        assertEquals("a\n", ler(arquivo));
+        assertEquals("b\n", ler(outro));
+    }
+
+    private String ler(File f) throws Exception {
+        return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+package ifome;
+
+import ifome.model.Pedido;
+import ifome.util.FilaPedidos;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class FilaPedidosTest {
+
+    @Test
+    public void testOrdemDeChegadaERetirada() {
+        FilaPedidos fila = new FilaPedidos();
+        Pedido a = new Pedido();
+        Pedido b = new Pedido();
+        Pedido c = new Pedido();
+
+        assertTrue(fila.adicionar(a));
+        assertTrue(fila.adicionar(b));
+        assertTrue(fila.adicionar(c));
+        assertFalse(fila.adicionar(b));
+        assertEquals(List.of(a, b, c), fila.visao());
+
+        assertSame(a, fila.primeiro());
+        assertSame(a, fila.retirarPrimeiro());
+        assertSame(b, fila.primeiro());
+        assertEquals(2, fila.tamanho());
+        assertFalse(fila.contem(a));
+    }
+
+    @Test
+    public void testRemoverDoMeioEVoltar() {
+        FilaPedidos fila = new FilaPedidos();
+        Pedido a = new Pedido();
+        Pedido b = new Pedido();
+        fila.adicionar(a);
+        fila.adicionar(b);
+
+        assertTrue(fila.remover(a));
+        assertFalse(fila.remover(a));
+        assertSame(b, fila.primeiro());
+        assertTrue(fila.contemNumero(b.getNumeroPedido()));
+        assertFalse(fila.contemNumero(a.getNumeroPedido()));
+
+        // volta pro fim; a entrada antiga continua morta
+        assertTrue(fila.adicionar(a));
+        assertEquals(List.of(b, a), fila.visao());
+        assertSame(b, fila.retirarPrimeiro());
+        assertSame(a, fila.retirarPrimeiro());
+        assertNull(fila.retirarPrimeiro());
+        assertTrue(fila.estaVazia());
+    }
+
+    @Test
+    public void testOutroObjetoComMesmoNumeroNaoRemove() {
+        FilaPedidos fila = new FilaPedidos();
+        Pedido original = new Pedido();
+        Pedido copia = new Pedido(original.getNumeroPedido(), original.getDataHora(), "Pendente", 0);
+        fila.adicionar(original);
+
+        assertFalse(fila.adicionar(copia)); // o numero ja esta na fila
+        assertFalse(fila.contem(copia));
+        assertFalse(fila.remover(copia));
+        assertSame(original, fila.buscarPorNumero(original.getNumeroPedido()));
+    }
+
+    @Test
+    public void testVisaoReaproveitadaAteMudar() {
+        FilaPedidos fila = new FilaPedidos();
+        fila.adicionar(new Pedido());
+        List<Pedido> visao = fila.visao();
+
+        assertSame(visao, fila.visao());
+        assertThrows(UnsupportedOperationException.class, () -> visao.add(new Pedido()));
+        fila.adicionar(new Pedido());
+        assertEquals(1, visao.size()); // a foto antiga nao muda
+        assertEquals(2, fila.visao().size());
+    }
+
+    @Test
+    public void testMuitasRemocoesNaoAcumulamMortas() {
+        FilaPedidos fila = new FilaPedidos();
+        Pedido fica = new Pedido();
+        fila.adicionar(fica);
+        for (int i = 0; i < 10_000; i++) {
+            Pedido p = new Pedido();
+            fila.adicionar(p);
+            fila.remover(p);
+        }
+        assertEquals(List.of(fica), fila.visao());
+        assertSame(fica, fila.retirarPrimeiro());
+        assertTrue(fila.estaVazia());
+    }
+
+    @Test
+    public void testClientesETerminaisAoMesmoTempo() throws Exception {
+        FilaPedidos fila = new FilaPedidos();
+        int clientes = 6;
+        int porCliente = 2_000;
+        ConcurrentLinkedQueue<Pedido> retirados = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Pedido> cancelados = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(clientes + 2);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int c = 0; c < clientes; c++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < porCliente; i++) {
+                    Pedido p = new Pedido();
+                    assertTrue(fila.adicionar(p));
+                    if (i % 5 == 0 && fila.remover(p)) {
+                        cancelados.add(p);
+                    }
+                }
+                return null;
+            }));
+        }
+        // dois terminais da cozinha tirando pedidos enquanto eles chegam
+        List<Future<?>> terminais = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            terminais.add(executor.submit(() -> {
+                largada.await();
+                int vazias = 0;
+                while (vazias < 1_000) {
+                    Pedido p = fila.retirarPrimeiro();
+                    if (p == null) {
+                        vazias++;
+                        Thread.yield();
+                    } else {
+                        retirados.add(p);
+                    }
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        for (Future<?> terminal : terminais) {
+            terminal.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Set<Integer> vistos = new HashSet<>();
+        for (Pedido p : retirados) {
+            assertTrue(vistos.add(p.getNumeroPedido()), "retirado duas vezes: " + p.getNumeroPedido());
+        }
+        for (Pedido p : cancelados) {
+            assertTrue(vistos.add(p.getNumeroPedido()), "cancelado e retirado: " + p.getNumeroPedido());
+        }
+        for (Pedido p : fila.visao()) {
+            assertTrue(vistos.add(p.getNumeroPedido()));
+        }
+        assertEquals(clientes * porCliente, vistos.size());
+    }
+}
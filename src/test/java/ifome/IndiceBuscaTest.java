@@ -0,0 +1,147 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.FiltroPratos;
+import ifome.util.ProdutoEncontrado;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+
+public class IndiceBuscaTest {
+
+    private File diretorio;
+    private RepositorioRestaurantes repo;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-busca").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+        repo.limparTodos();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    private Restaurante restaurante(String nome, String cnpj) {
+        Restaurante r = new Restaurante(nome.replace(" ", "") + "@email.com", "123", nome, cnpj);
+        repo.adicionarRestaurante(r);
+        return r;
+    }
+
+    @Test
+    public void testNomeSemAcentoEMaisRelevantePrimeiro() {
+        Restaurante acaiteria = restaurante("Açaiteria Central", "11222333000181");
+        Restaurante acai = restaurante("Casa do Açaí", "11222333000182");
+        restaurante("Pizzaria Bella", "11222333000183");
+
+        List<Restaurante> achados = repo.buscarPorNome("acai");
+        assertEquals(2, achados.size());
+        assertSame(acai, achados.get(0)); // palavra inteira antes de comeco de palavra
+        assertSame(acaiteria, achados.get(1));
+
+        assertEquals(1, repo.buscarPorNome("AÇAÍ casa").size());
+        assertEquals(1, repo.buscarPorNome("zzar").size()); // meio da palavra tambem vale
+        assertEquals(2, repo.buscarPorNome("ca").size());
+        assertTrue(repo.buscarPorNome("sushi").isEmpty());
+        assertEquals(3, repo.buscarPorNome("").size());
+    }
+
+    @Test
+    public void testProdutosAtualizadosPeloCardapio() {
+        Restaurante r = restaurante("Restaurante Teste", "11222333000181");
+        Produto feijoada = new Comida("Feijoada Completa", "Com couve e farofa", 50.0, false);
+        Produto salada = new Comida("Salada", "Alface e feijão fradinho", 20.0, true);
+        r.adicionarProdutoCardapio(feijoada);
+        r.adicionarProdutoCardapio(salada);
+
+        List<ProdutoEncontrado> achados = repo.buscarProdutos("feijao", 10);
+        assertEquals(1, achados.size()); // "feijoada" nao contem "feijao"
+        assertSame(salada, achados.get(0).getProduto());
+        achados = repo.buscarProdutos("feij", 10);
+        assertEquals(2, achados.size());
+        assertSame(feijoada, achados.get(0).getProduto()); // nome pesa mais que descricao
+        assertSame(r, achados.get(0).getRestaurante());
+        assertTrue(achados.get(0).getRelevancia() > achados.get(1).getRelevancia());
+
+        r.removerProdutoCardapio(feijoada);
+        assertEquals(1, repo.buscarProdutos("feij", 10).size());
+        r.adicionarProdutoCardapio(new Bebida("Caldo de Feijão", "Quente", 15.0, 300));
+        assertEquals(2, repo.buscarProdutos("feijao", 10).size());
+        assertEquals(1, repo.buscarProdutos("feijao", 1).size());
+
+        Produto novaSalada = new Comida("Salada", "So folhas", 20.0, true);
+        r.atualizarProdutoCardapio(novaSalada);
+        assertEquals(1, repo.buscarProdutos("feijao", 10).size());
+        assertEquals(1, repo.buscarProdutos("folhas", 10).size());
+    }
+
+    @Test
+    public void testNomeAlteradoELimparTodos() {
+        Restaurante r = restaurante("Cantina Italiana", "11222333000181");
+        r.setNomeRestaurante("Cantina Paulista");
+        assertTrue(repo.buscarPorNome("italiana").isEmpty());
+        assertEquals(1, repo.buscarPorNome("paulista").size());
+
+        repo.limparTodos();
+        r.adicionarProdutoCardapio(new Comida("Lasanha", "Bolonhesa", 40.0, false));
+        assertTrue(repo.buscarPorNome("cantina").isEmpty());
+        assertTrue(repo.buscarProdutos("lasanha", 10).isEmpty());
+    }
+
+    @Test
+    public void testPratosFiltradosPorFacetas() {
+        Restaurante aberto = restaurante("Cantina Aberta", "11222333000181");
+        Restaurante fechado = restaurante("Cantina Fechada", "11222333000182");
+        Comida pizzaVeg = new Comida("Pizza de Brócolis", "Vegetariana", 42.0, true);
+        Comida pizzaCara = new Comida("Pizza Especial", "Com brocolis", 70.0, true);
+        Comida pizzaCalabresa = new Comida("Pizza Calabresa", "Linguiça", 40.0, false);
+        Comida pizzaVegana = new Comida("Pizza Vegana", "Sem queijo", 45.0, true);
+        pizzaVegana.setVegano(true);
+        aberto.adicionarProdutoCardapio(pizzaVeg);
+        aberto.adicionarProdutoCardapio(pizzaCara);
+        aberto.adicionarProdutoCardapio(pizzaCalabresa);
+        aberto.adicionarProdutoCardapio(new Sobremesa("Sorvete", "Creme", 15.0, "Gelada"));
+        aberto.adicionarProdutoCardapio(new Sobremesa("Petit Gateau", "Chocolate", 25.0, "Quente"));
+        fechado.adicionarProdutoCardapio(pizzaVegana);
+        fechado.fecharRestaurante();
+
+        List<ProdutoEncontrado> achados = repo.buscarPratos(
+            new FiltroPratos().texto("pizza").precoAte(50).abertos().vegetarianos().disponiveis(), 10);
+        assertEquals(1, achados.size());
+        assertSame(pizzaVeg, achados.get(0).getProduto());
+
+        // sem texto: todas as pizzas ate 50, mais barata primeiro
+        achados = repo.buscarPratos(new FiltroPratos().precoAte(50).precoDesde(30), 10);
+        assertEquals(3, achados.size());
+        assertSame(pizzaCalabresa, achados.get(0).getProduto());
+        assertEquals(1, repo.buscarPratos(new FiltroPratos().veganos(), 10).size());
+        assertEquals(1, repo.buscarPratos(new FiltroPratos().temperatura("Gelada"), 10).size());
+
+        fechado.abrirRestaurante();
+        assertEquals(1, repo.buscarPratos(new FiltroPratos().veganos().abertos(), 10).size());
+        aberto.alterarDisponibilidadeProduto(pizzaVeg, false);
+        assertTrue(repo.buscarPratos(new FiltroPratos().texto("brocolis").disponiveis().precoAte(50), 10).isEmpty());
+        aberto.removerProdutoCardapio(pizzaCara);
+        assertTrue(repo.buscarPratos(new FiltroPratos().texto("especial"), 10).isEmpty());
+
+        // mudanca direta no produto, sem avisar o restaurante: a conferencia final pega
+        pizzaCalabresa.setPreco(60.0);
+        assertTrue(repo.buscarPratos(new FiltroPratos().texto("calabresa").precoAte(50), 10).isEmpty());
+    }
+}
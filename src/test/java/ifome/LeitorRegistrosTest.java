@@ -0,0 +1,160 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.LeitorRegistros;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+
+public class LeitorRegistrosTest {
+
+    private File diretorio;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-leitor").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testCamposPrimitivos() {
+        LeitorRegistros r = LeitorRegistros.deTexto("42;-7;19.90;true;FALSE;abc;9876543210123");
+        assertTrue(r.proximoRegistro());
+        assertEquals(7, r.quantidadeCampos());
+        assertEquals(42, r.inteiro(0));
+        assertEquals(-7, r.inteiro(1));
+        assertEquals(19.90, r.decimal(2), 0.0);
+        assertTrue(r.booleano(3));
+        assertFalse(r.booleano(4));
+        assertEquals("abc", r.texto(5));
+        assertTrue(r.textoIgual(5, "abc"));
+        assertFalse(r.textoIgual(5, "ab"));
+        assertEquals(9876543210123L, r.longo(6));
+        assertFalse(r.proximoRegistro());
+    }
+
+    @Test
+    public void testDecimaisIguaisAoParseDouble() {
+        String[] valores = { "0", "0.1", "45.0", "80.00", "1234.5678", "-3.25", "0.30000000000000004", "1e3" };
+        for (String valor : valores) {
+            LeitorRegistros r = LeitorRegistros.deTexto(valor);
+            assertTrue(r.proximoRegistro());
+            assertEquals(Double.parseDouble(valor), r.decimal(0), 0.0, valor);
+        }
+    }
+
+    @Test
+    public void testNumeroInvalidoLancaExcecao() {
+        LeitorRegistros r = LeitorRegistros.deTexto("12a;");
+        assertTrue(r.proximoRegistro());
+        assertThrows(NumberFormatException.class, () -> r.inteiro(0));
+        assertThrows(NumberFormatException.class, () -> r.inteiro(1));
+    }
+
+    @Test
+    public void testDataIgualAoSimpleDateFormat() throws Exception {
+        SimpleDateFormat formato = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String[] datas = { "2026-10-16 12:00:00", "2000-02-29 23:59:59", "1999-12-31 00:00:01", "2026-03-08 02:30:00" };
+        for (String data : datas) {
+            LeitorRegistros r = LeitorRegistros.deTexto("1;" + data);
+            assertTrue(r.proximoRegistro());
+            assertEquals(formato.parse(data).getTime(), r.dataHora(1), data);
+        }
+    }
+
+    @Test
+    public void testEscapeIdaEVolta() {
+        String original = "molho; queijo \\ extra";
+        String gravado = LeitorRegistros.escapar(original);
+        LeitorRegistros r = LeitorRegistros.deTexto("a;" + gravado + ";b");
+        assertTrue(r.proximoRegistro());
+        assertEquals(3, r.quantidadeCampos());
+        assertEquals(original, r.texto(1));
+        assertTrue(r.textoIgual(1, original));
+        assertEquals("b", r.texto(2));
+        assertEquals("linha um linha dois", LeitorRegistros.escapar("linha um\nlinha dois"));
+    }
+
+    @Test
+    public void testCampoVazioNoFimLinhasVaziasECrlf() {
+        LeitorRegistros r = LeitorRegistros.deTexto("1;2;\r\n\n\n3;4;5\r\nultima");
+        assertTrue(r.proximoRegistro());
+        assertEquals(3, r.quantidadeCampos());
+        assertTrue(r.vazio(2));
+        assertEquals("", r.texto(2));
+        assertTrue(r.proximoRegistro());
+        assertEquals("5", r.texto(2));
+        assertTrue(r.proximoRegistro());
+        assertEquals("ultima", r.texto(0));
+        assertFalse(r.proximoRegistro());
+    }
+
+    @Test
+    public void testLinhasMaioresQueOBlocoDoReader() {
+        StringBuilder longo = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            longo.append((char) ('a' + i % 26));
+        }
+        StringBuilder conteudo = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            conteudo.append(i).append(';').append(longo).append('\n');
+        }
+        LeitorRegistros r = new LeitorRegistros(new StringReader(conteudo.toString()));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(r.proximoRegistro());
+            assertEquals(i, r.inteiro(0));
+            assertEquals(longo.toString(), r.texto(1));
+        }
+        assertFalse(r.proximoRegistro());
+    }
+
+    @Test
+    public void testTextoComSeparadorSobreviveAoRecarregar() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Mussarela; tomate; oregano", 45.0, true);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        // observacao vazia: antes a linha era descartada na carga
+        pedido.adicionarItem(new ItemPedido(pizza, 2, ""));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        repo.adicionarPedido(pedido);
+        repo.salvarDados();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        Restaurante r = recarregado.buscarRestaurantePorEmail("rest@email.com");
+        Produto p = r.buscarProduto("Pizza");
+        assertEquals("Mussarela; tomate; oregano", p.getDescricao());
+        assertEquals(45.0, p.getPreco(), 0.0);
+
+        Pedido carregado = recarregado.getTodosPedidos().get(0);
+        assertEquals(1, carregado.getItens().size());
+        assertEquals(pedido.getDataHora().getTime() / 1000, carregado.getDataHora().getTime() / 1000);
+    }
+}
@@ -0,0 +1,61 @@
+package ifome;
+
+import ifome.util.ListaVersionada;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+import java.util.List;
+
+public class ListaVersionadaTest {
+
+    @Test
+    public void testVisaoReaproveitadaAteAlterar() {
+        ListaVersionada<String> lista = new ListaVersionada<>(List.of("a", "b"));
+        List<String> visao = lista.visao();
+        long versao = lista.getVersao();
+
+        assertSame(visao, lista.visao());
+        lista.add("c");
+        assertNotSame(visao, lista.visao());
+        assertEquals(versao + 1, lista.getVersao());
+        assertEquals(List.of("a", "b", "c"), lista.visao());
+    }
+
+    @Test
+    public void testVisaoImutavelENaoVeEscritasDepois() {
+        ListaVersionada<String> lista = new ListaVersionada<>(List.of("a", "b"));
+        List<String> visao = lista.visao();
+
+        assertThrows(UnsupportedOperationException.class, () -> visao.add("x"));
+        assertThrows(UnsupportedOperationException.class, () -> visao.remove(0));
+        lista.remove("a");
+        lista.add("z");
+        assertEquals(List.of("a", "b"), visao);
+        assertEquals(List.of("b", "z"), lista.visao());
+    }
+
+    @Test
+    public void testIteradorPercorreAFoto() {
+        ListaVersionada<Integer> lista = new ListaVersionada<>(List.of(1, 2, 3));
+        Iterator<Integer> it = lista.iterator();
+        lista.clear();
+
+        int soma = 0;
+        while (it.hasNext()) {
+            soma += it.next();
+        }
+        assertEquals(6, soma);
+        assertTrue(lista.isEmpty());
+    }
+
+    @Test
+    public void testRemocaoSemEfeitoNaoMudaVersao() {
+        ListaVersionada<String> lista = new ListaVersionada<>(List.of("a"));
+        long versao = lista.getVersao();
+
+        assertFalse(lista.remove("x"));
+        assertFalse(lista.removeIf(s -> s.startsWith("x")));
+        assertEquals(versao, lista.getVersao());
+    }
+}
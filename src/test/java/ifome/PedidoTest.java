@@ -30,32 +30,66 @@ public class PedidoTest {
 
     @Test
     public void testAtualizarStatusValido() {
-        pedido.atualizarStatus("Confirmado");
+        pedido.atualizarStatus(StatusPedido.CONFIRMADO);
         assertEquals("Confirmado", pedido.getStatus());
         
-        pedido.atualizarStatus("Preparando");
+        pedido.atualizarStatus(StatusPedido.PREPARANDO);
         assertEquals("Preparando", pedido.getStatus());
         
-        pedido.atualizarStatus("Pronto");
+        pedido.atualizarStatus(StatusPedido.PRONTO);
         assertEquals("Pronto", pedido.getStatus());
         
-        pedido.atualizarStatus("Em Entrega");
+        pedido.atualizarStatus(StatusPedido.EM_ENTREGA);
         assertEquals("Em Entrega", pedido.getStatus());
         
-        pedido.atualizarStatus("Entregue");
+        pedido.atualizarStatus(StatusPedido.ENTREGUE);
         assertEquals("Entregue", pedido.getStatus());
     }
 
     @Test
     public void testTransicaoInvalidaDeStatus() {
-        pedido.atualizarStatus("Confirmado");
-        pedido.atualizarStatus("Preparando");
+        pedido.atualizarStatus(StatusPedido.CONFIRMADO);
+        pedido.atualizarStatus(StatusPedido.PREPARANDO);
         
    
-        pedido.atualizarStatus("Confirmado");
+        pedido.atualizarStatus(StatusPedido.CONFIRMADO);
         assertEquals("Preparando", pedido.getStatus()); 
     }
 
+    @Test
+    public void testTabelaDeTransicoes() {
+        assertEquals(java.util.List.of(StatusPedido.PREPARANDO, StatusPedido.CANCELADO),
+                     StatusPedido.CONFIRMADO.getProximos());
+        assertFalse(StatusPedido.PRONTO.podeIrPara(StatusPedido.CANCELADO));
+        assertFalse(StatusPedido.PENDENTE.podeIrPara(StatusPedido.PENDENTE));
+        assertTrue(StatusPedido.ENTREGUE.getProximos().isEmpty());
+        assertTrue(StatusPedido.CANCELADO.isFinalizado());
+
+        // o texto e o dos arquivos
+        assertSame(StatusPedido.EM_ENTREGA, StatusPedido.deTexto("Em Entrega"));
+        assertEquals("Em Entrega", StatusPedido.EM_ENTREGA.getTexto());
+        assertNull(StatusPedido.deTexto("EM_ENTREGA"));
+        assertThrows(IllegalArgumentException.class,
+            () -> new Pedido(1, new java.util.Date(), "Despachado", 10.0));
+    }
+
+    @Test
+    public void testOuvintesDoRestauranteAvisadosNaTransicao() {
+        java.util.List<String> avisos = new java.util.ArrayList<>();
+        OuvinteStatusPedido ouvinte = (p, anterior, novo) -> avisos.add(p.getNumeroPedido() + ":" + anterior + ">" + novo);
+        restaurante.adicionarOuvinteStatusPedido(ouvinte);
+
+        assertTrue(pedido.atualizarStatus(StatusPedido.CONFIRMADO));
+        assertFalse(pedido.atualizarStatus(StatusPedido.ENTREGUE)); // recusada, ninguem e avisado
+        pedido.atualizarStatus(StatusPedido.PREPARANDO);
+        restaurante.removerOuvinteStatusPedido(ouvinte);
+        pedido.atualizarStatus(StatusPedido.CANCELADO);
+
+        int n = pedido.getNumeroPedido();
+        assertEquals(java.util.List.of(n + ":Pendente>Confirmado", n + ":Confirmado>Preparando"), avisos);
+        assertSame(StatusPedido.CANCELADO, pedido.getStatusPedido());
+    }
+
     @Test
     public void testCalcularTotalComItens() {
         Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
@@ -70,7 +104,7 @@ public class PedidoTest {
 
     @Test
     public void testAvaliarPedido() {
-        pedido.atualizarStatus("Entregue");
+        pedido.atualizarStatus(StatusPedido.ENTREGUE);
         
         boolean resultado = pedido.avaliar(5, "Excelente!");
         
@@ -0,0 +1,185 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.ConversorPedidosBinario;
+import ifome.util.GravadorPedidosBinario;
+import ifome.util.LeitorPedidosBinario;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class PedidosBinarioTest {
+
+    private File diretorio;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-binario").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.pedidos.formato");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    private static byte[] gravar(GravadorPedidosBinario gravador) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        gravador.gravar(saida);
+        return saida.toByteArray();
+    }
+
+    @Test
+    public void testGravarELer() throws Exception {
+        GravadorPedidosBinario gravador = new GravadorPedidosBinario();
+        gravador.adicionarPedido(1001, 1_792_000_000L, "cliente@email.com", "rest@email.com", "Entregue", 45.5);
+        gravador.adicionarItem("Pizza", 2, 20.0, "sem cebola");
+        gravador.adicionarItem("Açaí", 1, 5.5, "");
+        gravador.adicionarPedido(1002, 1_792_000_060L, "outro@email.com", "rest@email.com", "Em preparação", 8.0);
+        gravador.adicionarPedido(1003, 1_792_000_120L, "cliente@email.com", "rest@email.com", "Entregue", 20.0);
+        gravador.adicionarItem("Pizza", 1, 20.0, "sem cebola");
+
+        LeitorPedidosBinario leitor = new LeitorPedidosBinario(ByteBuffer.wrap(gravar(gravador)));
+        assertEquals(3, leitor.getQuantidadePedidos());
+        assertEquals(3, leitor.getQuantidadeItens());
+
+        assertTrue(leitor.proximoPedido());
+        assertEquals(1001, leitor.numero());
+        assertEquals(1_792_000_000L, leitor.epochSegundos());
+        assertEquals("cliente@email.com", leitor.emailCliente());
+        assertEquals("rest@email.com", leitor.emailRestaurante());
+        assertEquals("Entregue", leitor.status());
+        assertEquals(45.5, leitor.valorTotal(), 0.0);
+        assertEquals(2, leitor.quantidadeItensDoPedido());
+        assertTrue(leitor.proximoPedido());
+        assertEquals("Em preparação", leitor.status());
+        assertEquals(0, leitor.quantidadeItensDoPedido());
+        assertTrue(leitor.proximoPedido());
+        // mesma entrada do dicionario, mesma String
+        String primeiro = leitor.emailCliente();
+        assertEquals(1, leitor.quantidadeItensDoPedido());
+        assertFalse(leitor.proximoPedido());
+
+        assertTrue(leitor.proximoItem());
+        assertEquals("Pizza", leitor.produto());
+        assertEquals(2, leitor.quantidade());
+        assertEquals("sem cebola", leitor.observacao());
+        assertTrue(leitor.proximoItem());
+        assertEquals("Açaí", leitor.produto());
+        assertEquals(5.5, leitor.precoUnitario(), 0.0);
+        assertEquals("", leitor.observacao());
+        assertTrue(leitor.proximoItem());
+        assertFalse(leitor.proximoItem());
+
+        LeitorPedidosBinario outro = new LeitorPedidosBinario(ByteBuffer.wrap(gravar(gravador)));
+        outro.proximoPedido();
+        assertEquals(primeiro, outro.emailCliente());
+    }
+
+    @Test
+    public void testArquivoInvalidoOuTruncado() throws Exception {
+        GravadorPedidosBinario gravador = new GravadorPedidosBinario();
+        gravador.adicionarPedido(1, 0, "a", "b", "Pendente", 1.0);
+        gravador.adicionarItem("x", 1, 1.0, "");
+        byte[] bytes = gravar(gravador);
+
+        byte[] truncado = Arrays.copyOf(bytes, bytes.length - 3);
+        assertThrows(IOException.class, () -> new LeitorPedidosBinario(ByteBuffer.wrap(truncado)));
+        byte[] semMagico = bytes.clone();
+        semMagico[0] = 'X';
+        assertThrows(IOException.class, () -> new LeitorPedidosBinario(ByteBuffer.wrap(semMagico)));
+        byte[] outraVersao = bytes.clone();
+        outraVersao[5] = 9;
+        assertThrows(IOException.class, () -> new LeitorPedidosBinario(ByteBuffer.wrap(outraVersao)));
+    }
+
+    private Pedido criarBase() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(pizza, 2, "sem cebola; bem passada"));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        repo.adicionarPedido(pedido);
+        repo.salvarDados();
+        return pedido;
+    }
+
+    private void conferirRecarga(Pedido original) {
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        assertEquals(1, recarregado.getTodosPedidos().size());
+        Pedido p = recarregado.getTodosPedidos().get(0);
+        assertEquals(original.getNumeroPedido(), p.getNumeroPedido());
+        assertEquals(original.getDataHora().getTime() / 1000, p.getDataHora().getTime() / 1000);
+        assertEquals(original.getValorTotal(), p.getValorTotal(), 0.0);
+        assertEquals(1, p.getItens().size());
+        assertEquals("sem cebola; bem passada", p.getItens().get(0).getObservacoes());
+        assertSame(p, recarregado.buscarClientePorEmail("cliente@email.com").getHistoricoPedidos().get(0));
+    }
+
+    @Test
+    public void testRepositorioNoFormatoBinario() {
+        System.setProperty("ifome.pedidos.formato", "binario");
+        Pedido pedido = criarBase();
+
+        assertTrue(new File(diretorio, "pedidos.bin").isFile());
+        assertFalse(new File(diretorio, "pedidos.txt").exists());
+        assertFalse(new File(diretorio, "itens_pedido.txt").exists());
+        conferirRecarga(pedido);
+    }
+
+    @Test
+    public void testConversorDeTextoParaBinario() throws Exception {
+        System.setProperty("ifome.pedidos.formato", "texto");
+        Pedido pedido = criarBase();
+        assertTrue(new File(diretorio, "pedidos.txt").isFile());
+        RepositorioRestaurantes.limparInstancia();
+
+        ConversorPedidosBinario.main(new String[] { diretorio.getPath() });
+        assertTrue(new File(diretorio, "pedidos.bin").isFile());
+
+        // o texto fica pra tras; prova que a carga veio do binario
+        try (FileOutputStream apagar = new FileOutputStream(new File(diretorio, "pedidos.txt"))) {
+            apagar.getChannel().truncate(0);
+        }
+        System.setProperty("ifome.pedidos.formato", "binario");
+        conferirRecarga(pedido);
+    }
+
+    @Test
+    public void testTrocarParaBinarioConverteNoProximoSalvamento() {
+        Pedido pedido = criarBase();
+        RepositorioRestaurantes.limparInstancia();
+
+        System.setProperty("ifome.pedidos.formato", "binario");
+        RepositorioRestaurantes.getInstance().salvarDados();
+        assertTrue(new File(diretorio, "pedidos.bin").isFile());
+        conferirRecarga(pedido);
+    }
+}
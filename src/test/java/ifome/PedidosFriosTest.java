@@ -0,0 +1,189 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.ConjuntoDados;
+import ifome.util.EstatisticasPedidos;
+import ifome.util.PedidosFrios;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+public class PedidosFriosTest {
+
+    private static final long DIA_MS = 24L * 60 * 60 * 1000;
+
+    private File diretorio;
+    private Cliente cliente;
+    private Restaurante restaurante;
+    private Produto pizza;
+    private int antigo;
+    private int recente;
+    private int antigoEmAndamento;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-frios").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        System.setProperty("ifome.fsync", "false");
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+
+        cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        long agora = System.currentTimeMillis();
+        Pedido p1 = criarPedido(repo, agora - 200 * DIA_MS, "Entregue");
+        p1.avaliar(4, "chegou frio; mas bom");
+        antigo = p1.getNumeroPedido();
+        recente = criarPedido(repo, agora - DIA_MS, "Entregue").getNumeroPedido();
+        antigoEmAndamento = criarPedido(repo, agora - 200 * DIA_MS, "Em Entrega").getNumeroPedido();
+        repo.salvarTudo();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.fsync");
+        System.clearProperty("ifome.pedidos.diasFrio");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    private Pedido criarPedido(RepositorioRestaurantes repo, long dataHora, String status) {
+        Pedido pedido = new Pedido();
+        Pedido comData = new Pedido(pedido.getNumeroPedido(), new Date(dataHora), status, 90.0);
+        comData.setCliente(cliente);
+        comData.setRestaurante(restaurante);
+        comData.adicionarItem(new ItemPedido(pizza, 2, "sem cebola"));
+        cliente.adicionarPedido(comData);
+        repo.adicionarPedido(comData);
+        return comData;
+    }
+
+    private RepositorioRestaurantes recarregar() {
+        RepositorioRestaurantes.limparInstancia();
+        return RepositorioRestaurantes.getInstance();
+    }
+
+    private static int[] numeros(List<Pedido> pedidos) {
+        return pedidos.stream().mapToInt(Pedido::getNumeroPedido).sorted().toArray();
+    }
+
+    @Test
+    public void testFinalizadoAntigoSaiDaMemoria() {
+        RepositorioRestaurantes repo = recarregar();
+
+        assertArrayEquals(new int[] { recente, antigoEmAndamento }, numeros(repo.getTodosPedidos()));
+        Cliente recarregado = repo.buscarClientePorEmail("cliente@email.com");
+        assertArrayEquals(new int[] { recente, antigoEmAndamento }, numeros(recarregado.getHistoricoPedidos()));
+        assertEquals(1, repo.getQuantidadePedidosFrios(recarregado));
+
+        EstatisticasPedidos estatisticas = repo.getEstatisticasPedidos();
+        assertEquals(2, estatisticas.getPedidosQuentes());
+        assertEquals(1, estatisticas.getPedidosFrios());
+        assertEquals(1, estatisticas.getEsfriadosNaCarga());
+        assertTrue(estatisticas.getBytesFrios() > 0);
+        assertTrue(repo.estaAlterado(ConjuntoDados.PEDIDOS));
+    }
+
+    @Test
+    public void testPedidoFrioMontadoSobDemanda() {
+        RepositorioRestaurantes repo = recarregar();
+        Cliente recarregado = repo.buscarClientePorEmail("cliente@email.com");
+
+        List<Pedido> antigos = repo.carregarPedidosFrios(recarregado, 0, 10);
+        assertEquals(1, antigos.size());
+        Pedido p = antigos.get(0);
+        assertEquals(antigo, p.getNumeroPedido());
+        assertEquals("Entregue", p.getStatus());
+        assertSame(recarregado, p.getCliente());
+        assertEquals(1, p.getItens().size());
+        assertEquals("sem cebola", p.getItens().get(0).getObservacoes());
+        assertEquals("chegou frio; mas bom", p.getAvaliacoes().get(0).getComentario());
+        assertTrue(repo.carregarPedidosFrios(recarregado, 1, 10).isEmpty());
+
+        Restaurante r = repo.buscarRestaurantePorEmail("rest@email.com");
+        assertArrayEquals(new int[] { antigo }, numeros(repo.carregarPedidosFrios(r)));
+        assertEquals(2, repo.getEstatisticasPedidos().getLeiturasFrias());
+        assertEquals(2, repo.getEstatisticasPedidos().getPedidosFriosLidos());
+    }
+
+    @Test
+    public void testSnapshotSemOsFriosMantemAvaliacao() throws Exception {
+        recarregar().salvarDados();
+        File[] segmentos = new File(diretorio, "pedidos").listFiles((d, nome) -> nome.endsWith(".pedidos.txt"));
+        assertTrue(segmentos.length > 0);
+        for (File segmento : segmentos) {
+            String pedidos = new String(Files.readAllBytes(segmento.toPath()), StandardCharsets.UTF_8);
+            assertFalse(pedidos.startsWith(antigo + ";") || pedidos.contains("\n" + antigo + ";"));
+        }
+
+        RepositorioRestaurantes repo = recarregar();
+        assertEquals(0, repo.getEstatisticasPedidos().getEsfriadosNaCarga());
+        assertEquals(1, repo.getEstatisticasPedidos().getPedidosFrios());
+        Pedido p = repo.carregarPedidosFrios(repo.buscarClientePorEmail("cliente@email.com"), 0, 1).get(0);
+        assertEquals(4, p.getAvaliacoes().get(0).getNota());
+    }
+
+    @Test
+    public void testQuedaAntesDoSnapshotNaoDuplica() {
+        recarregar(); // esfria, mas nao salva
+        RepositorioRestaurantes repo = recarregar();
+
+        assertEquals(2, repo.getTodosPedidos().size());
+        assertEquals(1, repo.getEstatisticasPedidos().getPedidosFrios());
+        assertEquals(0, repo.getEstatisticasPedidos().getEsfriadosNaCarga());
+    }
+
+    @Test
+    public void testIdadeZeroDesligaOEsfriamento() {
+        System.setProperty("ifome.pedidos.diasFrio", "0");
+        RepositorioRestaurantes repo = recarregar();
+
+        assertEquals(3, repo.getTodosPedidos().size());
+        assertEquals(0, repo.getEstatisticasPedidos().getPedidosFrios());
+    }
+
+    @Test
+    public void testAcrescimoInterrompidoECortadoNaAbertura() throws Exception {
+        recarregar();
+        RepositorioRestaurantes.limparInstancia();
+        File indice = new File(diretorio, "pedidos_frios.idx");
+        File dados = new File(diretorio, "pedidos_frios.txt");
+        long tamanhoIndice = indice.length();
+        long tamanhoDados = dados.length();
+        // linha gravada sem a entrada no indice, e entrada pela metade
+        try (FileOutputStream out = new FileOutputStream(dados, true)) {
+            out.write("999;2020-01-01 10:00:00;x;y;Entregue;1.0\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try (FileOutputStream out = new FileOutputStream(indice, true)) {
+            out.write(Arrays.copyOf(new byte[] { 0, 0, 3, (byte) 0xe7 }, 11));
+        }
+
+        PedidosFrios frios = new PedidosFrios(diretorio, false);
+        frios.abrir();
+        assertEquals(1, frios.getQuantidade());
+        assertTrue(frios.contem(antigo));
+        assertFalse(frios.contem(999));
+        assertEquals(tamanhoIndice, indice.length());
+        assertEquals(tamanhoDados, dados.length());
+    }
+}
@@ -0,0 +1,224 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.EstatisticasPedidos;
+import ifome.util.PedidosFrios;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+public class PedidosSeladosTest {
+
+    private static final long DIA_MS = 24L * 60 * 60 * 1000;
+
+    private File diretorio;
+    private Cliente cliente;
+    private Restaurante restaurante;
+    private Produto pizza;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-selados").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        System.setProperty("ifome.fsync", "false");
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+
+        cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        repo.salvarTudo();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.fsync");
+        System.clearProperty("ifome.pedidos.selarBytes");
+        System.clearProperty("ifome.pedidos.blocoBytes");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    // pedidos entregues ha 200 dias, salvos; esfriam na proxima carga
+    private void criarPedidosAntigos(int quantidade) {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Cliente c = repo.buscarClientePorEmail("cliente@email.com");
+        Restaurante r = repo.buscarRestaurantePorEmail("rest@email.com");
+        Produto produto = r.getCardapio().get(0);
+        for (int i = 0; i < quantidade; i++) {
+            Pedido pedido = new Pedido();
+            Pedido comData = new Pedido(pedido.getNumeroPedido(),
+                new Date(System.currentTimeMillis() - (200 + i) * DIA_MS), "Entregue", 90.0);
+            comData.setCliente(c);
+            comData.setRestaurante(r);
+            comData.adicionarItem(new ItemPedido(produto, 2, "sem cebola " + i));
+            comData.adicionarItem(new ItemPedido(produto, 1, ""));
+            c.adicionarPedido(comData);
+            repo.adicionarPedido(comData);
+        }
+        repo.salvarTudo();
+    }
+
+    private RepositorioRestaurantes recarregar() {
+        RepositorioRestaurantes.limparInstancia();
+        return RepositorioRestaurantes.getInstance();
+    }
+
+    private File arquivo(String nome) {
+        return new File(diretorio, nome);
+    }
+
+    @Test
+    public void testSelagemComprimeELeSobDemanda() {
+        System.setProperty("ifome.pedidos.selarBytes", "0");
+        criarPedidosAntigos(50);
+        RepositorioRestaurantes repo = recarregar();
+
+        EstatisticasPedidos estatisticas = repo.getEstatisticasPedidos();
+        assertEquals(50, estatisticas.getPedidosFrios());
+        assertEquals(50, estatisticas.getPedidosSelados());
+        assertEquals(0, arquivo("pedidos_frios.txt").length());
+        assertEquals(0, arquivo("itens_pedido_frios.txt").length());
+        assertTrue(arquivo("pedidos_frios.arq").length() > 0);
+
+        List<Pedido> antigos = repo.carregarPedidosFrios(repo.buscarClientePorEmail("cliente@email.com"), 0, 5);
+        assertEquals(5, antigos.size());
+        assertEquals("sem cebola 0", antigos.get(0).getItens().get(0).getObservacoes());
+        assertEquals(2, antigos.get(0).getItens().size());
+        assertEquals("Entregue", antigos.get(0).getStatus());
+        assertEquals(50, repo.carregarPedidosFrios(repo.buscarRestaurantePorEmail("rest@email.com")).size());
+
+        // continua selado depois de reabrir
+        repo = recarregar();
+        assertEquals(50, repo.getEstatisticasPedidos().getPedidosSelados());
+        assertEquals("sem cebola 49", repo.carregarPedidosFrios(
+            repo.buscarClientePorEmail("cliente@email.com"), 49, 1).get(0).getItens().get(0).getObservacoes());
+    }
+
+    @Test
+    public void testSeladoOcupaMenosQueOTexto() {
+        System.setProperty("ifome.pedidos.selarBytes", String.valueOf(Long.MAX_VALUE));
+        criarPedidosAntigos(200);
+        long bytesTexto = recarregar().getEstatisticasPedidos().getBytesFrios();
+
+        System.setProperty("ifome.pedidos.selarBytes", "0");
+        RepositorioRestaurantes repo = recarregar();
+        assertEquals(200, repo.getEstatisticasPedidos().getPedidosSelados());
+        assertTrue(repo.getEstatisticasPedidos().getBytesFrios() < bytesTexto / 2);
+    }
+
+    @Test
+    public void testBlocosPequenosETextoNovoJuntos() {
+        System.setProperty("ifome.pedidos.selarBytes", "0");
+        System.setProperty("ifome.pedidos.blocoBytes", "1"); // um pedido por bloco
+        criarPedidosAntigos(3);
+        recarregar();
+
+        // os proximos ficam nos .txt
+        System.setProperty("ifome.pedidos.selarBytes", String.valueOf(Long.MAX_VALUE));
+        criarPedidosAntigos(2);
+        RepositorioRestaurantes repo = recarregar();
+
+        assertEquals(5, repo.getEstatisticasPedidos().getPedidosFrios());
+        assertEquals(3, repo.getEstatisticasPedidos().getPedidosSelados());
+        assertTrue(arquivo("pedidos_frios.txt").length() > 0);
+        List<Pedido> todos = repo.carregarPedidosFrios(repo.buscarRestaurantePorEmail("rest@email.com"));
+        assertEquals(5, todos.size());
+        for (Pedido p : todos) {
+            assertEquals(2, p.getItens().size());
+        }
+    }
+
+    @Test
+    public void testBlocoSemIndiceECortadoNaAbertura() throws Exception {
+        System.setProperty("ifome.pedidos.selarBytes", "0");
+        criarPedidosAntigos(3);
+        recarregar();
+        RepositorioRestaurantes.limparInstancia();
+        File selados = arquivo("pedidos_frios.arq");
+        long tamanho = selados.length();
+        // bloco gravado sem o .idx ter sido trocado
+        try (FileOutputStream out = new FileOutputStream(selados, true)) {
+            out.write(new byte[] { 0, 0, 0, 1, 0, 0, 0, 9 });
+        }
+
+        PedidosFrios frios = new PedidosFrios(diretorio, false);
+        frios.abrir();
+        assertEquals(3, frios.getQuantidadeSelada());
+        assertEquals(tamanho, selados.length());
+    }
+
+    @Test
+    public void testBlocoCorrompidoNaoViraPedido() throws Exception {
+        System.setProperty("ifome.pedidos.selarBytes", "0");
+        criarPedidosAntigos(3);
+        recarregar();
+        RepositorioRestaurantes.limparInstancia();
+        File selados = arquivo("pedidos_frios.arq");
+        try (RandomAccessFile arquivo = new RandomAccessFile(selados, "rw")) {
+            long ultimo = arquivo.length() - 1;
+            arquivo.seek(ultimo);
+            int b = arquivo.read();
+            arquivo.seek(ultimo);
+            arquivo.write(b ^ 0xff);
+        }
+
+        RepositorioRestaurantes repo = recarregar();
+        assertEquals(3, repo.getEstatisticasPedidos().getPedidosFrios());
+        assertTrue(repo.carregarPedidosFrios(repo.buscarRestaurantePorEmail("rest@email.com")).isEmpty());
+    }
+
+    @Test
+    public void testIndiceDaVersaoAnteriorEConvertido() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        byte[] pedido = "7;2020-01-01 10:00:00;cliente@email.com;rest@email.com;Entregue;90.0\n"
+            .getBytes(StandardCharsets.UTF_8);
+        byte[] itens = "7;rest@email.com;Pizza;2;45.0;sem cebola\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(arquivo("pedidos_frios.txt").toPath(), pedido);
+        Files.write(arquivo("itens_pedido_frios.txt").toPath(), itens);
+        try (DataOutputStream indice = new DataOutputStream(new FileOutputStream(arquivo("pedidos_frios.idx")))) {
+            indice.writeInt(0x49465046);
+            indice.writeShort(1);
+            indice.writeInt(7);
+            indice.writeLong(new Date().getTime());
+            indice.writeLong(0);
+            indice.writeInt(pedido.length);
+            indice.writeLong(0);
+            indice.writeInt(itens.length);
+            indice.writeUTF("cliente@email.com");
+            indice.writeUTF("rest@email.com");
+        }
+
+        System.setProperty("ifome.pedidos.selarBytes", "0");
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        assertEquals(1, repo.getEstatisticasPedidos().getPedidosSelados());
+        List<Pedido> lidos = repo.carregarPedidosFrios(repo.buscarRestaurantePorEmail("rest@email.com"));
+        assertEquals(1, lidos.size());
+        assertEquals(7, lidos.get(0).getNumeroPedido());
+        assertEquals("sem cebola", lidos.get(0).getItens().get(0).getObservacoes());
+
+        // e a conversao ficou no disco
+        PedidosFrios frios = new PedidosFrios(diretorio, false);
+        frios.abrir();
+        assertEquals(1, frios.getQuantidadeSelada());
+    }
+}
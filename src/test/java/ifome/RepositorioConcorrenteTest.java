@@ -0,0 +1,227 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RepositorioConcorrenteTest {
+
+    private static final int THREADS = 8;
+    private static final int PEDIDOS_POR_THREAD = 150;
+    private static final StatusPedido[] ETAPAS = {
+        StatusPedido.CONFIRMADO, StatusPedido.PREPARANDO, StatusPedido.PRONTO,
+        StatusPedido.EM_ENTREGA, StatusPedido.ENTREGUE };
+
+    private File diretorio;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-concorrente").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testPedidosEStatusEmParaleloComSnapshots() throws Exception {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        repo.limparTodos();
+        List<Restaurante> restaurantes = new ArrayList<>();
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Restaurante r = new Restaurante("rest" + i + "@email.com", "123", "Restaurante " + i, "1122233300018" + i);
+            Produto p = new Comida("Prato " + i, "Prato da casa", 20.0 + i, false);
+            r.adicionarProdutoCardapio(p);
+            repo.adicionarRestaurante(r);
+            restaurantes.add(r);
+            produtos.add(p);
+        }
+        List<Cliente> clientes = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Cliente c = new Cliente("cliente" + i + "@email.com", "123", "Cliente " + i, "1199999999" + i);
+            repo.adicionarCliente(c);
+            clientes.add(c);
+        }
+        repo.salvarDados();
+
+        ConcurrentLinkedQueue<Pedido> feitos = new ConcurrentLinkedQueue<>();
+        AtomicBoolean terminou = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Cliente cliente = clientes.get(t);
+            int semente = t;
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < PEDIDOS_POR_THREAD; i++) {
+                    int k = (semente + i) % restaurantes.size();
+                    Pedido pedido = new Pedido();
+                    pedido.setCliente(cliente);
+                    pedido.setRestaurante(restaurantes.get(k));
+                    pedido.adicionarItem(new ItemPedido(produtos.get(k), 1 + i % 3, ""));
+                    pedido.setValorTotal(pedido.calcularPrecoTotal());
+                    cliente.adicionarPedido(pedido);
+                    repo.registrarNovoPedido(pedido);
+                    repo.registrarNovoPedido(pedido); // repetido: nao duplica
+                    // pelo menos confirmado: na carga o restaurante aceita de novo os pendentes
+                    for (int etapa = 0; etapa <= i % ETAPAS.length; etapa++) {
+                        assertTrue(repo.alterarStatusPedido(pedido, ETAPAS[etapa]));
+                    }
+                    feitos.add(pedido);
+                }
+                return null;
+            }));
+        }
+        // snapshots cortando o diario enquanto os pedidos entram
+        Future<?> salvamentos = executor.submit(() -> {
+            while (!terminou.get()) {
+                repo.salvarDados();
+            }
+            return null;
+        });
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        terminou.set(true);
+        salvamentos.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        int total = THREADS * PEDIDOS_POR_THREAD;
+        assertEquals(total, feitos.size());
+        assertEquals(total, repo.getTodosPedidos().size());
+        Set<Integer> numeros = new HashSet<>();
+        for (Pedido p : feitos) {
+            assertTrue(numeros.add(p.getNumeroPedido()), "numero repetido: " + p.getNumeroPedido());
+            assertTrue(repo.contemPedido(p));
+        }
+
+        // o indice por restaurante/status bate com o status dos proprios pedidos
+        Map<String, Integer> esperado = contarPorRestauranteEStatus(feitos);
+        for (Restaurante r : restaurantes) {
+            int doRestaurante = 0;
+            for (StatusPedido status : EnumSet.range(StatusPedido.CONFIRMADO, StatusPedido.ENTREGUE)) {
+                int achados = repo.buscarPedidosDoRestaurante(r, EnumSet.of(status), Long.MIN_VALUE, Long.MAX_VALUE).size();
+                assertEquals((int) esperado.getOrDefault(r.getEmail() + ";" + status.getTexto(), 0), achados,
+                             r.getEmail() + " " + status);
+                doRestaurante += achados;
+            }
+            assertEquals(doRestaurante, repo.getQuantidadePedidosDoRestaurante(r));
+        }
+
+        // snapshot + diario reproduzem o mesmo estado, nada perdido nem repetido no corte
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        assertEquals(total, recarregado.getTodosPedidos().size());
+        assertEquals(esperado, contarPorRestauranteEStatus(recarregado.getTodosPedidos()));
+        for (Pedido p : recarregado.getTodosPedidos()) {
+            assertEquals(1, p.getItens().size(), "pedido #" + p.getNumeroPedido());
+        }
+    }
+
+    @Test
+    public void testInstanciaUnicaComAcessoConcorrente() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<RepositorioRestaurantes>> instancias = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            instancias.add(executor.submit(() -> {
+                largada.await();
+                return RepositorioRestaurantes.getInstance();
+            }));
+        }
+        largada.countDown();
+        RepositorioRestaurantes primeira = instancias.get(0).get(60, TimeUnit.SECONDS);
+        for (Future<RepositorioRestaurantes> instancia : instancias) {
+            assertSame(primeira, instancia.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testConfirmarPagamentoNaoCobraPedidoCancelado() throws Exception {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        repo.limparTodos();
+        Restaurante r = new Restaurante("rest@email.com", "123", "Restaurante", "11222333000181");
+        Produto prato = new Comida("Prato", "Prato da casa", 20.0, false);
+        r.adicionarProdutoCardapio(prato);
+        repo.adicionarRestaurante(r);
+        Cliente c = new Cliente("cliente@email.com", "123", "Cliente", "11999999999");
+        repo.adicionarCliente(c);
+        repo.salvarDados();
+
+        Pedido cancelado = novoPedido(c, r, prato);
+        assertTrue(repo.alterarStatusPedido(cancelado, StatusPedido.CANCELADO));
+        Dinheiro pagamento = new Dinheiro(100.0);
+        cancelado.setFormaPagamento(pagamento);
+        assertFalse(repo.confirmarPagamentoPedido(cancelado));
+        assertFalse(pagamento.isPagamentoProcessado());
+        assertEquals(StatusPedido.CANCELADO, cancelado.getStatusPedido());
+
+        Pedido pendente = novoPedido(c, r, prato);
+        pendente.setFormaPagamento(new Dinheiro(100.0));
+        assertTrue(repo.confirmarPagamentoPedido(pendente));
+
+        // o confirmado foi pro diario junto com a cobranca
+        RepositorioRestaurantes.limparInstancia();
+        Pedido recarregado = null;
+        for (Pedido p : RepositorioRestaurantes.getInstance().getTodosPedidos()) {
+            if (p.getNumeroPedido() == pendente.getNumeroPedido()) {
+                recarregado = p;
+            }
+        }
+        assertNotNull(recarregado);
+        assertEquals(StatusPedido.CONFIRMADO, recarregado.getStatusPedido());
+    }
+
+    private static Pedido novoPedido(Cliente cliente, Restaurante restaurante, Produto produto) {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(produto, 1, ""));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        cliente.adicionarPedido(pedido);
+        repo.registrarNovoPedido(pedido);
+        return pedido;
+    }
+
+    private static Map<String, Integer> contarPorRestauranteEStatus(Iterable<Pedido> pedidos) {
+        Map<String, Integer> contagem = new HashMap<>();
+        for (Pedido p : pedidos) {
+            contagem.merge(p.getRestaurante().getEmail() + ";" + p.getStatus(), 1, Integer::sum);
+        }
+        return contagem;
+    }
+}
@@ -0,0 +1,213 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.PaginaPedidos;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+
+public class RepositorioIndicesTest {
+
+    private File diretorio;
+    private RepositorioRestaurantes repo;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-indices").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testBuscasPorEmailELogin() {
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "456", "Restaurante Teste", "11222333000181");
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        assertSame(cliente, repo.buscarClientePorEmail("cliente@email.com"));
+        assertSame(restaurante, repo.buscarRestaurantePorEmail("rest@email.com"));
+        assertTrue(repo.emailJaExiste("cliente@email.com"));
+        assertTrue(repo.emailJaExiste("rest@email.com"));
+        assertFalse(repo.emailJaExiste("outro@email.com"));
+
+        assertSame(cliente, repo.buscarClientePorLogin("cliente@email.com", "123"));
+        assertNull(repo.buscarClientePorLogin("cliente@email.com", "errada"));
+        assertSame(restaurante, repo.buscarRestaurantePorLogin("rest@email.com", "456"));
+        assertNull(repo.buscarRestaurantePorLogin("cliente@email.com", "123"));
+    }
+
+    @Test
+    public void testAdicionarDuasVezesNaoDuplica() {
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        repo.adicionarCliente(cliente);
+        repo.adicionarCliente(cliente);
+        assertEquals(1, repo.getQuantidadeClientes());
+
+        Pedido pedido = new Pedido();
+        repo.adicionarPedido(pedido);
+        repo.adicionarPedido(pedido);
+        assertEquals(1, repo.getTodosPedidos().size());
+        assertTrue(repo.contemPedido(pedido));
+        assertFalse(repo.contemPedido(new Pedido()));
+    }
+
+    @Test
+    public void testLimparTodosLimpaIndices() {
+        repo.adicionarCliente(new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999"));
+        repo.limparTodos();
+
+        assertNull(repo.buscarClientePorEmail("cliente@email.com"));
+        assertFalse(repo.emailJaExiste("cliente@email.com"));
+    }
+
+    @Test
+    public void testIndicesMontadosNoCarregamento() {
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        Restaurante restaurante = new Restaurante("rest@email.com", "456", "Restaurante Teste", "11222333000181");
+        Produto pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(pizza, 3, "sem cebola"));
+        repo.adicionarPedido(pedido);
+        repo.salvarDados();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        assertNotNull(recarregado.buscarClientePorLogin("cliente@email.com", "123"));
+        assertEquals(1, recarregado.getTodosPedidos().size());
+        // os itens so chegam no pedido certo se a busca por numero achou ele
+        assertEquals(3, recarregado.getTodosPedidos().get(0).getItens().get(0).getQuantidade());
+        assertEquals(1, recarregado.buscarPedidosDoRestaurante(
+            recarregado.buscarRestaurantePorEmail("rest@email.com")).size());
+    }
+
+    private Pedido criarPedido(Restaurante restaurante, long dataHora, String status) {
+        Pedido pedido = new Pedido(new Pedido().getNumeroPedido(), new Date(dataHora), status, 50.0);
+        pedido.setRestaurante(restaurante);
+        repo.adicionarPedido(pedido);
+        return pedido;
+    }
+
+    private static int[] numeros(List<Pedido> pedidos) {
+        return pedidos.stream().mapToInt(Pedido::getNumeroPedido).toArray();
+    }
+
+    @Test
+    public void testPedidosDoRestaurantePorStatusEPeriodo() {
+        Restaurante restaurante = new Restaurante("rest@email.com", "456", "Restaurante Teste", "11222333000181");
+        Restaurante outro = new Restaurante("outro@email.com", "456", "Outro Restaurante", "11222333000182");
+        repo.adicionarRestaurante(restaurante);
+        repo.adicionarRestaurante(outro);
+        Pedido p3 = criarPedido(restaurante, 3000, "Pendente");
+        Pedido p1 = criarPedido(restaurante, 1000, "Pendente");
+        Pedido p2 = criarPedido(restaurante, 2000, "Entregue");
+        criarPedido(outro, 1500, "Pendente");
+
+        assertArrayEquals(new int[] { p1.getNumeroPedido(), p2.getNumeroPedido(), p3.getNumeroPedido() },
+            numeros(repo.buscarPedidosDoRestaurante(restaurante)));
+        assertArrayEquals(new int[] { p1.getNumeroPedido(), p3.getNumeroPedido() },
+            numeros(repo.buscarPedidosDoRestaurante(restaurante, EnumSet.of(StatusPedido.PENDENTE), 0, Long.MAX_VALUE)));
+        assertArrayEquals(new int[] { p1.getNumeroPedido(), p2.getNumeroPedido() },
+            numeros(repo.buscarPedidosDoRestaurante(restaurante, EnumSet.of(StatusPedido.PENDENTE, StatusPedido.ENTREGUE), 1000, 3000)));
+        assertEquals(3, repo.getQuantidadePedidosDoRestaurante(restaurante));
+
+        p1.atualizarStatus(StatusPedido.CONFIRMADO);
+        repo.registrarStatusPedido(p1);
+        assertArrayEquals(new int[] { p3.getNumeroPedido() },
+            numeros(repo.buscarPedidosDoRestaurante(restaurante, EnumSet.of(StatusPedido.PENDENTE), 0, Long.MAX_VALUE)));
+        assertArrayEquals(new int[] { p1.getNumeroPedido() },
+            numeros(repo.buscarPedidosDoRestaurante(restaurante, EnumSet.of(StatusPedido.CONFIRMADO), 0, Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testStatusMudadoSemAvisarNaoApareceNoGrupoAntigo() {
+        Restaurante restaurante = new Restaurante("rest@email.com", "456", "Restaurante Teste", "11222333000181");
+        repo.adicionarRestaurante(restaurante);
+        Pedido pedido = criarPedido(restaurante, 1000, "Pendente");
+
+        pedido.atualizarStatus(StatusPedido.CONFIRMADO); // sem registrarStatusPedido
+        assertTrue(repo.buscarPedidosDoRestaurante(restaurante, EnumSet.of(StatusPedido.PENDENTE), 0, Long.MAX_VALUE).isEmpty());
+        assertEquals(1, repo.buscarPedidosDoRestaurante(restaurante, EnumSet.of(StatusPedido.CONFIRMADO), 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testPedidosPorPeriodoNasDuasOrdens() {
+        Restaurante restaurante = new Restaurante("rest@email.com", "456", "Restaurante Teste", "11222333000181");
+        Restaurante outro = new Restaurante("outro@email.com", "456", "Outro Restaurante", "11222333000182");
+        repo.adicionarRestaurante(restaurante);
+        repo.adicionarRestaurante(outro);
+        Pedido p3 = criarPedido(restaurante, 3000, "Pendente");
+        Pedido p1 = criarPedido(outro, 1000, "Entregue");
+        Pedido p2 = criarPedido(restaurante, 2000, "Pendente");
+        Pedido agora = criarPedido(outro, System.currentTimeMillis() - 1000, "Pendente");
+
+        assertArrayEquals(new int[] { p1.getNumeroPedido(), p2.getNumeroPedido() },
+            numeros(repo.buscarPedidosPorPeriodo(1000, 3000, false)));
+        assertArrayEquals(new int[] { p3.getNumeroPedido(), p2.getNumeroPedido(), p1.getNumeroPedido() },
+            numeros(repo.buscarPedidosPorPeriodo(0, 10_000, true)));
+        assertTrue(repo.buscarPedidosPorPeriodo(3000, 3000, false).isEmpty());
+        assertArrayEquals(new int[] { agora.getNumeroPedido() },
+            numeros(repo.buscarPedidosRecentes(24L * 60 * 60 * 1000)));
+
+        repo.limparTodos();
+        assertTrue(repo.buscarPedidosPorPeriodo(0, Long.MAX_VALUE, false).isEmpty());
+    }
+
+    @Test
+    public void testPaginacaoPorCursor() {
+        Restaurante restaurante = new Restaurante("rest@email.com", "456", "Restaurante Teste", "11222333000181");
+        repo.adicionarRestaurante(restaurante);
+        Pedido a = criarPedido(restaurante, 1000, "Pendente");
+        Pedido b = criarPedido(restaurante, 1000, "Pendente"); // mesmo milissegundo, desempata pelo numero
+        Pedido c = criarPedido(restaurante, 2000, "Pendente");
+        Pedido d = criarPedido(restaurante, 3000, "Pendente");
+        Pedido e = criarPedido(restaurante, 4000, "Pendente");
+
+        PaginaPedidos primeira = repo.paginarPedidosPorPeriodo(0, 5000, true, null, 2);
+        assertArrayEquals(new int[] { e.getNumeroPedido(), d.getNumeroPedido() }, numeros(primeira.getPedidos()));
+        assertTrue(primeira.temProxima());
+
+        // pedido novo no topo nao muda a continuacao
+        criarPedido(restaurante, 4500, "Pendente");
+        PaginaPedidos segunda = repo.paginarPedidosPorPeriodo(0, 5000, true, primeira.getProximoCursor(), 2);
+        assertArrayEquals(new int[] { c.getNumeroPedido(), b.getNumeroPedido() }, numeros(segunda.getPedidos()));
+        PaginaPedidos terceira = repo.paginarPedidosPorPeriodo(0, 5000, true, segunda.getProximoCursor(), 2);
+        assertArrayEquals(new int[] { a.getNumeroPedido() }, numeros(terceira.getPedidos()));
+        assertFalse(terceira.temProxima());
+
+        PaginaPedidos crescente = repo.paginarPedidosPorPeriodo(1000, 3000, false, null, 2);
+        assertArrayEquals(new int[] { a.getNumeroPedido(), b.getNumeroPedido() }, numeros(crescente.getPedidos()));
+        crescente = repo.paginarPedidosPorPeriodo(1000, 3000, false, crescente.getProximoCursor(), 2);
+        assertArrayEquals(new int[] { c.getNumeroPedido() }, numeros(crescente.getPedidos()));
+        assertNull(crescente.getProximoCursor());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> repo.paginarPedidosPorPeriodo(0, 5000, true, "lixo", 2));
+    }
+}
@@ -62,4 +62,44 @@ public class RestauranteTest {
         assertEquals(2, restaurante.getQuantidadeAvaliacoes());
         assertEquals(4.5, restaurante.calcularMediaAvaliacoes(), 0.1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCardapioSemCopiaEnquantoNaoMuda() {
+        restaurante.adicionarProdutoCardapio(produto);
+        java.util.List<Produto> antes = restaurante.getCardapio();
+
+        assertSame(antes, restaurante.getCardapio());
+        assertThrows(UnsupportedOperationException.class, () -> antes.add(produto));
+
+        restaurante.adicionarProdutoCardapio(new Bebida("Suco", "Suco de laranja", 8.0, 500));
+        assertEquals(1, antes.size()); // a foto antiga nao muda
+        assertEquals(2, restaurante.getCardapio().size());
+    }
+
+    @Test
+    public void testAdicionarNaFilaMantemStatus() {
+        Pedido pedido = new Pedido();
+
+        assertTrue(restaurante.adicionarNaFila(pedido));
+        assertFalse(restaurante.adicionarNaFila(pedido));
+        assertEquals("Pendente", pedido.getStatus());
+        assertEquals(1, restaurante.getFilaPedidos().size());
+
+        assertTrue(restaurante.removerDaFila(pedido));
+        assertTrue(restaurante.getFilaPedidos().isEmpty());
+    }
+
+    @Test
+    public void testBuscarProdutoSemDiferenciarMaiusculas() {
+        Produto pizzaBebida = new Bebida("Pizza", "Shake de pizza", 12.0, 300); // mesmo nome, outra categoria
+        restaurante.adicionarProdutoCardapio(produto);
+        restaurante.adicionarProdutoCardapio(pizzaBebida);
+
+        assertSame(produto, restaurante.buscarProduto("pIZZA"));
+        assertNull(restaurante.buscarProduto("Lasanha"));
+        restaurante.removerProdutoCardapio(produto);
+        assertSame(pizzaBebida, restaurante.buscarProduto("pizza"));
+        restaurante.removerProdutoCardapio(pizzaBebida);
+        assertNull(restaurante.buscarProduto("pizza"));
+    }
+}
@@ -0,0 +1,110 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.ConjuntoDados;
+import ifome.util.EstatisticasSalvamento;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Comparator;
+
+public class SalvamentoIncrementalTest {
+
+    private File diretorio;
+    private RepositorioRestaurantes repo;
+    private Cliente cliente;
+    private Restaurante restaurante;
+    private Produto pizza;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-incremental").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        // um arquivo por conjunto; os segmentos mensais tem teste proprio
+        System.setProperty("ifome.pedidos.formato", "texto");
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+
+        cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        repo.salvarTudo();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.pedidos.formato");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    @Test
+    public void testMudancaDeStatusSoRegravaPedidos() throws Exception {
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(pizza, 1, ""));
+        pedido.setValorTotal(pedido.calcularPrecoTotal());
+        repo.registrarNovoPedido(pedido);
+        repo.salvarDados();
+
+        File restaurantes = new File(diretorio, ConjuntoDados.RESTAURANTES.getArquivo());
+        File pedidos = new File(diretorio, ConjuntoDados.PEDIDOS.getArquivo());
+        assertTrue(restaurantes.setLastModified(1000L));
+        assertTrue(pedidos.setLastModified(1000L));
+
+        pedido.atualizarStatus(StatusPedido.CONFIRMADO);
+        repo.registrarStatusPedido(pedido);
+        assertTrue(repo.estaAlterado(ConjuntoDados.PEDIDOS));
+        assertFalse(repo.estaAlterado(ConjuntoDados.RESTAURANTES));
+        repo.salvarDados();
+
+        assertEquals(1000L, restaurantes.lastModified());
+        assertNotEquals(1000L, pedidos.lastModified());
+        assertFalse(repo.estaAlterado(ConjuntoDados.PEDIDOS));
+
+        EstatisticasSalvamento estatisticas = repo.getEstatisticasSalvamento();
+        assertEquals(1, estatisticas.getUltimosArquivosGravados());
+        assertTrue(estatisticas.getUltimosBytesEvitados() > 0);
+    }
+
+    @Test
+    public void testSalvarSemAlteracoesNaoGravaNada() {
+        repo.salvarDados();
+        assertEquals(0, repo.getEstatisticasSalvamento().getUltimosArquivosGravados());
+    }
+
+    @Test
+    public void testConjuntoMarcadoNaMaoEhGravado() {
+        restaurante.adicionarProdutoCardapio(new Bebida("Suco", "Suco de laranja", 8.0, 500));
+        repo.salvarDados(ConjuntoDados.CARDAPIOS);
+
+        RepositorioRestaurantes.limparInstancia();
+        Restaurante recarregado = RepositorioRestaurantes.getInstance().buscarRestaurantePorEmail("rest@email.com");
+        assertEquals(2, recarregado.getCardapio().size());
+    }
+
+    @Test
+    public void testDiarioReaplicadoMarcaConjuntoComoAlterado() {
+        cliente.registrarUsoCupom("BEMVINDO10");
+        repo.registrarCupomUsado(cliente, "BEMVINDO10");
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        // o arquivo de cupons usados ficou atras do diario e precisa ir no proximo snapshot
+        assertTrue(recarregado.estaAlterado(ConjuntoDados.CUPONS_USADOS));
+        assertFalse(recarregado.estaAlterado(ConjuntoDados.CARDAPIOS));
+    }
+}
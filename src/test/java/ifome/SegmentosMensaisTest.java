@@ -0,0 +1,202 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.RepositorioRestaurantes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+public class SegmentosMensaisTest {
+
+    private File diretorio;
+    private File segmentos;
+    private Cliente cliente;
+    private Restaurante restaurante;
+    private Produto pizza;
+    private String mesAtual;
+    private String mesPassado;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-mensal").toFile();
+        segmentos = new File(diretorio, "pedidos");
+        System.setProperty("ifome.dados", diretorio.getPath());
+        System.setProperty("ifome.fsync", "false");
+        System.setProperty("ifome.pedidos.diasFrio", "0");
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+
+        cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        restaurante = new Restaurante("rest@email.com", "123", "Restaurante Teste", "11222333000181");
+        pizza = new Comida("Pizza", "Pizza grande", 45.0, false);
+        restaurante.adicionarProdutoCardapio(pizza);
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+
+        YearMonth agora = YearMonth.now();
+        mesAtual = agora.toString();
+        mesPassado = agora.minusMonths(2).toString();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        System.clearProperty("ifome.fsync");
+        System.clearProperty("ifome.pedidos.diasFrio");
+        System.clearProperty("ifome.pedidos.formato");
+        System.clearProperty("ifome.carga.mapeadaBytes");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    private Pedido criarPedido(RepositorioRestaurantes repo, YearMonth mes, String status) {
+        long dataHora = mes.atDay(1).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Pedido pedido = new Pedido();
+        Pedido comData = new Pedido(pedido.getNumeroPedido(), new Date(dataHora), status, 90.0);
+        comData.setCliente(cliente);
+        comData.setRestaurante(restaurante);
+        comData.adicionarItem(new ItemPedido(pizza, 2, "sem cebola"));
+        cliente.adicionarPedido(comData);
+        repo.adicionarPedido(comData);
+        return comData;
+    }
+
+    private RepositorioRestaurantes recarregar() {
+        RepositorioRestaurantes.limparInstancia();
+        return RepositorioRestaurantes.getInstance();
+    }
+
+    private File segmento(String mes, String tipo) {
+        return new File(segmentos, mes + "." + tipo + ".txt");
+    }
+
+    private String manifesto() throws Exception {
+        return new String(Files.readAllBytes(new File(segmentos, "manifesto.txt").toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static int[] numeros(List<Pedido> pedidos) {
+        return pedidos.stream().mapToInt(Pedido::getNumeroPedido).sorted().toArray();
+    }
+
+    @Test
+    public void testUmSegmentoPorMes() throws Exception {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        Pedido antigo = criarPedido(repo, YearMonth.parse(mesPassado), "Entregue");
+        Pedido atual = criarPedido(repo, YearMonth.parse(mesAtual), "Pendente");
+        repo.salvarTudo();
+
+        assertTrue(segmento(mesPassado, "pedidos").isFile());
+        assertTrue(segmento(mesPassado, "itens").isFile());
+        assertTrue(segmento(mesAtual, "pedidos").isFile());
+        assertFalse(new File(diretorio, "pedidos.txt").exists());
+        String segmentoAntigo = new String(Files.readAllBytes(segmento(mesPassado, "pedidos").toPath()), StandardCharsets.UTF_8);
+        assertTrue(segmentoAntigo.startsWith(antigo.getNumeroPedido() + ";"));
+        assertFalse(segmentoAntigo.contains("\n" + atual.getNumeroPedido() + ";"));
+
+        // mes que ja passou com tudo finalizado e selado; o corrente nunca
+        String manifesto = manifesto();
+        assertTrue(manifesto.contains(mesPassado + ";1;1;"));
+        assertTrue(manifesto.contains("\n" + mesAtual + ";1;1;"));
+        assertTrue(manifesto.startsWith(mesPassado) && manifesto.split("\n")[0].endsWith(";true"));
+        assertTrue(manifesto.split("\n")[1].endsWith(";false"));
+
+        RepositorioRestaurantes recarregado = recarregar();
+        assertArrayEquals(new int[] { antigo.getNumeroPedido(), atual.getNumeroPedido() },
+            numeros(recarregado.getTodosPedidos()));
+        Pedido lido = recarregado.buscarClientePorEmail("cliente@email.com").getHistoricoPedidos().get(0);
+        assertEquals(1, lido.getItens().size());
+        assertEquals("sem cebola", lido.getItens().get(0).getObservacoes());
+    }
+
+    @Test
+    public void testMudancaNoMesCorrenteNaoRegravaOsOutros() throws Exception {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        criarPedido(repo, YearMonth.parse(mesPassado), "Entregue");
+        Pedido atual = criarPedido(repo, YearMonth.parse(mesAtual), "Pendente");
+        repo.salvarTudo();
+
+        File antigoPedidos = segmento(mesPassado, "pedidos");
+        File antigoItens = segmento(mesPassado, "itens");
+        File atualPedidos = segmento(mesAtual, "pedidos");
+        assertTrue(antigoPedidos.setLastModified(1000L));
+        assertTrue(antigoItens.setLastModified(1000L));
+        assertTrue(atualPedidos.setLastModified(1000L));
+
+        atual.atualizarStatus(StatusPedido.CONFIRMADO);
+        repo.registrarStatusPedido(atual);
+        repo.salvarDados();
+
+        assertEquals(1000L, antigoPedidos.lastModified());
+        assertEquals(1000L, antigoItens.lastModified());
+        assertNotEquals(1000L, atualPedidos.lastModified());
+        assertEquals("Confirmado", recarregar().getTodosPedidos().stream()
+            .filter(p -> p.getNumeroPedido() == atual.getNumeroPedido()).findFirst().get().getStatus());
+    }
+
+    @Test
+    public void testMesPassadoComPedidoEmAbertoNaoSela() throws Exception {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        criarPedido(repo, YearMonth.parse(mesPassado), "Entregue");
+        criarPedido(repo, YearMonth.parse(mesPassado), "Em Entrega");
+        repo.salvarTudo();
+
+        assertTrue(manifesto().startsWith(mesPassado + ";2;2;"));
+        assertTrue(manifesto().trim().endsWith(";false"));
+    }
+
+    @Test
+    public void testTextoAntigoMigraNoProximoSalvamento() throws Exception {
+        System.setProperty("ifome.pedidos.formato", "texto");
+        RepositorioRestaurantes repo = recarregar();
+        repo.adicionarCliente(cliente);
+        repo.adicionarRestaurante(restaurante);
+        Pedido pedido = criarPedido(repo, YearMonth.parse(mesAtual), "Pendente");
+        repo.salvarTudo();
+        assertTrue(new File(diretorio, "pedidos.txt").isFile());
+        assertFalse(segmentos.exists());
+
+        System.clearProperty("ifome.pedidos.formato");
+        recarregar().salvarDados();
+
+        assertTrue(segmento(mesAtual, "pedidos").isFile());
+        assertFalse(new File(diretorio, "pedidos.txt").exists());
+        assertFalse(new File(diretorio, "itens_pedido.txt").exists());
+        assertArrayEquals(new int[] { pedido.getNumeroPedido() }, numeros(recarregar().getTodosPedidos()));
+
+        // e de volta pro texto
+        System.setProperty("ifome.pedidos.formato", "texto");
+        recarregar().salvarDados();
+        assertTrue(new File(diretorio, "pedidos.txt").isFile());
+        assertFalse(new File(segmentos, "manifesto.txt").exists());
+        assertArrayEquals(new int[] { pedido.getNumeroPedido() }, numeros(recarregar().getTodosPedidos()));
+    }
+
+    @Test
+    public void testLeituraMapeadaDosSegmentos() {
+        RepositorioRestaurantes repo = RepositorioRestaurantes.getInstance();
+        for (int i = 0; i < 30; i++) {
+            criarPedido(repo, YearMonth.parse(i % 2 == 0 ? mesPassado : mesAtual), "Entregue");
+        }
+        repo.salvarTudo();
+        int[] esperados = numeros(repo.getTodosPedidos());
+
+        System.setProperty("ifome.carga.mapeadaBytes", "0");
+        RepositorioRestaurantes mapeado = recarregar();
+        assertArrayEquals(esperados, numeros(mapeado.getTodosPedidos()));
+        assertEquals(30, mapeado.buscarClientePorEmail("cliente@email.com").getHistoricoPedidos().stream()
+            .mapToInt(p -> p.getItens().size()).sum());
+    }
+}
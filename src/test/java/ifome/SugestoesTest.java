@@ -0,0 +1,123 @@
+package ifome;
+
+import ifome.model.*;
+import ifome.util.RepositorioRestaurantes;
+import ifome.util.Sugestao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SugestoesTest {
+
+    private File diretorio;
+    private RepositorioRestaurantes repo;
+    private Restaurante pizzaria;
+    private Restaurante cantina;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        diretorio = Files.createTempDirectory("ifome-sugestoes").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+        RepositorioRestaurantes.limparInstancia();
+        repo = RepositorioRestaurantes.getInstance();
+        repo.limparTodos();
+
+        pizzaria = new Restaurante("pizzaria@email.com", "123", "Pizzaria Bella", "11222333000181");
+        cantina = new Restaurante("cantina@email.com", "123", "Cantina da Pizza", "11222333000182");
+        pizzaria.adicionarProdutoCardapio(new Comida("Pizza Margherita", "Molho e queijo", 45.0, true));
+        cantina.adicionarProdutoCardapio(new Comida("Pizza Margherita", "Molho e queijo", 40.0, true));
+        cantina.adicionarProdutoCardapio(new Comida("Lasanha", "Bolonhesa", 40.0, false));
+        repo.adicionarRestaurante(pizzaria);
+        repo.adicionarRestaurante(cantina);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        RepositorioRestaurantes.limparInstancia();
+        System.clearProperty("ifome.dados");
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+
+    private static List<String> textos(List<Sugestao> sugestoes) {
+        return sugestoes.stream().map(Sugestao::getTexto).collect(Collectors.toList());
+    }
+
+    private void pedir(Restaurante restaurante, String produto, int quantidade) {
+        Pedido pedido = new Pedido();
+        pedido.setRestaurante(restaurante);
+        pedido.adicionarItem(new ItemPedido(restaurante.buscarProduto(produto), quantidade, ""));
+        repo.adicionarPedido(pedido);
+    }
+
+    @Test
+    public void testPrefixoDeQualquerPalavraSemAcento() {
+        assertEquals(List.of("Pizza Margherita"), textos(repo.sugerir("MARG", 10)));
+        assertEquals(3, repo.sugerir("pizz", 10).size()); // prato aparece uma vez so
+        assertEquals(List.of("Cantina da Pizza"), textos(repo.sugerir("cantína", 10)));
+        assertTrue(repo.sugerir("sushi", 10).isEmpty());
+        assertTrue(repo.sugerir("", 10).isEmpty());
+        assertEquals(1, repo.sugerir("pizz", 1).size());
+    }
+
+    @Test
+    public void testOrdenadoPelosPedidos() {
+        pedir(cantina, "Pizza Margherita", 1);
+        assertEquals("Cantina da Pizza", repo.sugerir("pizz", 10).get(0).getTexto());
+
+        pedir(pizzaria, "Pizza Margherita", 2);
+        pedir(pizzaria, "Pizza Margherita", 1);
+        List<Sugestao> sugestoes = repo.sugerir("pizz", 10);
+        assertEquals("Pizza Margherita", sugestoes.get(0).getTexto());
+        assertEquals(4, sugestoes.get(0).getPopularidade());
+        assertFalse(sugestoes.get(0).isRestaurante());
+        assertSame(pizzaria, sugestoes.get(1).getRestaurante());
+    }
+
+    @Test
+    public void testCardapioENomeAtualizamSemRefazerTudo() {
+        cantina.removerProdutoCardapio(cantina.buscarProduto("Lasanha"));
+        assertTrue(repo.sugerir("lasa", 10).isEmpty());
+
+        // ainda esta no cardapio da pizzaria
+        cantina.removerProdutoCardapio(cantina.buscarProduto("Pizza Margherita"));
+        assertEquals(1, repo.sugerir("marg", 10).size());
+        pizzaria.removerProdutoCardapio(pizzaria.buscarProduto("Pizza Margherita"));
+        assertTrue(repo.sugerir("marg", 10).isEmpty());
+
+        pizzaria.adicionarProdutoCardapio(new Bebida("Guaraná", "Lata", 6.0, 350));
+        assertEquals(List.of("Guaraná"), textos(repo.sugerir("guar", 10)));
+
+        pizzaria.setNomeRestaurante("Forno Bella");
+        assertEquals(List.of("Forno Bella"), textos(repo.sugerir("bel", 10)));
+        assertTrue(repo.sugerir("pizzaria", 10).isEmpty());
+    }
+
+    @Test
+    public void testPopularidadeRecontadaNaCarga() {
+        Cliente cliente = new Cliente("cliente@email.com", "123", "Cliente Teste", "11999999999");
+        repo.adicionarCliente(cliente);
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(pizzaria);
+        pedido.adicionarItem(new ItemPedido(pizzaria.buscarProduto("Pizza Margherita"), 5, ""));
+        cliente.adicionarPedido(pedido);
+        repo.adicionarPedido(pedido);
+        repo.salvarTudo();
+
+        RepositorioRestaurantes.limparInstancia();
+        RepositorioRestaurantes recarregado = RepositorioRestaurantes.getInstance();
+        List<Sugestao> sugestoes = recarregado.sugerir("pizz", 10);
+        assertEquals("Pizza Margherita", sugestoes.get(0).getTexto());
+        assertEquals(5, sugestoes.get(0).getPopularidade());
+    }
+}
@@ -0,0 +1,180 @@
+package ifome.benchmark;
+
+import ifome.model.Bebida;
+import ifome.model.Comida;
+import ifome.model.Produto;
+import ifome.model.Restaurante;
+import ifome.util.FiltroPratos;
+import ifome.util.RepositorioRestaurantes;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * busca de restaurantes por nome e de produtos por nome/descricao: varredura com
+ * toLowerCase().contains (como era o buscarPorNome) x indice de trigramas do
+ * repositorio. cardapios sinteticos com 20 produtos por restaurante. mede tambem o
+ * autocompletar com os 3 primeiros caracteres de cada consulta (uma tecla) e a busca
+ * de pratos com filtro ("pizza ate R$50, aberto, vegetariano"): lacos aninhados nos
+ * cardapios x bitsets por faceta
+ *
+ * rodar com: gradle benchmark -PbenchmarkClasse=ifome.benchmark.BenchmarkBusca
+ * argumentos opcionais: [restaurantes] [buscas]
+ */
+public class BenchmarkBusca {
+
+    private static final int PRODUTOS_POR_RESTAURANTE = 20;
+    private static final String[] TIPOS = { "Pizzaria", "Hamburgueria", "Açaí", "Cantina", "Sushi", "Churrascaria",
+        "Padaria", "Lanchonete", "Doceria", "Pastelaria" };
+    private static final String[] PRATOS = { "Pizza", "Feijoada", "Lasanha", "Temaki", "Pastel", "Coxinha", "Brigadeiro",
+        "Hambúrguer", "Picanha", "Moqueca", "Tapioca", "Esfiha", "Açaí", "Parmegiana", "Strogonoff" };
+    private static final String[] DETALHES = { "calabresa", "frango", "queijo", "catupiry", "salmão", "carne seca",
+        "chocolate", "banana", "palmito", "camarão", "bacon", "cebola", "tomate", "manjericão" };
+    private static final String[] CONSULTAS = { "pizza", "acai", "feijoada", "frango catupiry", "camarao",
+        "pastel queijo", "churrascaria", "cantina", "salmao", "chocolate banana" };
+
+    public static void main(String[] args) throws Exception {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int buscas = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        System.setProperty("ifome.compactacao.segundos", String.valueOf(Long.MAX_VALUE / 1000));
+        File diretorio = Files.createTempDirectory("ifome-bench-busca").toFile();
+        System.setProperty("ifome.dados", diretorio.getPath());
+
+        PrintStream saida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RepositorioRestaurantes repo;
+        try {
+            RepositorioRestaurantes.limparInstancia();
+            repo = RepositorioRestaurantes.getInstance();
+            repo.limparTodos();
+            gerar(repo, quantidade);
+        } finally {
+            System.setOut(saida);
+        }
+        List<Restaurante> todos = repo.getTodosRestaurantes();
+
+        try {
+            long[] varreduraNome = medir(buscas, c -> varrerNomes(todos, c));
+            long[] indiceNome = medir(buscas, c -> repo.buscarPorNome(c).size());
+            long[] varreduraProduto = medir(buscas, c -> varrerProdutos(todos, c));
+            long[] indiceProduto = medir(buscas, c -> repo.buscarProdutos(c, 20).size());
+            long[] sugestao = medir(buscas, c -> repo.sugerir(c.substring(0, 3), 10).size());
+            long[] varreduraFiltro = medir(buscas, c -> varrerComFiltro(todos, c));
+            long[] facetas = medir(buscas, c -> repo.buscarPratos(filtro(c), 20).size());
+
+            System.out.printf("%d restaurantes, %d produtos%n", todos.size(), todos.size() * PRODUTOS_POR_RESTAURANTE);
+            System.out.printf("%-22s %18s %16s%n", "busca", "mediana (us)", "p99 (us)");
+            imprimir("nome, varredura", varreduraNome);
+            imprimir("nome, indice", indiceNome);
+            imprimir("produto, varredura", varreduraProduto);
+            imprimir("produto, indice", indiceProduto);
+            imprimir("sugestao (3 letras)", sugestao);
+            imprimir("filtro, varredura", varreduraFiltro);
+            imprimir("filtro, facetas", facetas);
+        } finally {
+            RepositorioRestaurantes.limparInstancia();
+            System.clearProperty("ifome.dados");
+            BenchmarkCarregamento.apagar(diretorio);
+        }
+    }
+
+    private static void gerar(RepositorioRestaurantes repo, int quantidade) {
+        Random random = new Random(42);
+        for (int r = 0; r < quantidade; r++) {
+            Restaurante restaurante = new Restaurante("rest" + r + "@email.com", "123",
+                TIPOS[random.nextInt(TIPOS.length)] + " " + PRATOS[random.nextInt(PRATOS.length)] + " " + r,
+                String.format("%014d", r));
+            for (int p = 0; p < PRODUTOS_POR_RESTAURANTE; p++) {
+                String nome = PRATOS[random.nextInt(PRATOS.length)] + " de " + DETALHES[random.nextInt(DETALHES.length)] + " " + p;
+                String descricao = "Com " + DETALHES[random.nextInt(DETALHES.length)] + " e " + DETALHES[random.nextInt(DETALHES.length)];
+                Produto produto = p % 5 == 0 ? new Bebida(nome, descricao, 8.0, 350)
+                    : new Comida(nome, descricao, 10 + random.nextInt(80), random.nextInt(3) == 0);
+                restaurante.adicionarProdutoCardapio(produto);
+            }
+            if (random.nextInt(10) < 3) {
+                restaurante.fecharRestaurante();
+            }
+            repo.adicionarRestaurante(restaurante);
+        }
+    }
+
+    private static int varrerNomes(List<Restaurante> todos, String consulta) {
+        int achados = 0;
+        String termo = consulta.toLowerCase();
+        for (Restaurante r : todos) {
+            if (r.getNomeRestaurante().toLowerCase().contains(termo)) {
+                achados++;
+            }
+        }
+        return achados;
+    }
+
+    private static int varrerProdutos(List<Restaurante> todos, String consulta) {
+        int achados = 0;
+        String termo = consulta.toLowerCase(Locale.ROOT);
+        for (Restaurante r : todos) {
+            for (Produto p : r.getCardapio()) {
+                if (p.getNome().toLowerCase(Locale.ROOT).contains(termo)
+                        || p.getDescricao().toLowerCase(Locale.ROOT).contains(termo)) {
+                    achados++;
+                }
+            }
+        }
+        return achados;
+    }
+
+    private static FiltroPratos filtro(String consulta) {
+        return new FiltroPratos().texto(consulta).precoAte(50).abertos().vegetarianos().disponiveis();
+    }
+
+    // o que a tela faria sem o indice: cada cardapio, cada produto
+    private static int varrerComFiltro(List<Restaurante> todos, String consulta) {
+        int achados = 0;
+        String termo = consulta.toLowerCase(Locale.ROOT);
+        for (Restaurante r : todos) {
+            if (!r.estaAberto()) {
+                continue;
+            }
+            for (Produto p : r.getCardapio()) {
+                if (p instanceof Comida && ((Comida) p).ehVegetariano() && p.isDisponivel() && p.getPreco() <= 50
+                        && p.getNome().toLowerCase(Locale.ROOT).contains(termo)) {
+                    achados++;
+                }
+            }
+        }
+        return achados;
+    }
+
+    private interface Busca {
+        int executar(String consulta);
+    }
+
+    // {mediana, p99} em nanos
+    private static long[] medir(int buscas, Busca busca) {
+        long soma = 0;
+        for (int i = 0; i < buscas / 10; i++) { // aquecimento
+            soma += busca.executar(CONSULTAS[i % CONSULTAS.length]);
+        }
+        long[] tempos = new long[buscas];
+        for (int i = 0; i < buscas; i++) {
+            long inicio = System.nanoTime();
+            soma += busca.executar(CONSULTAS[i % CONSULTAS.length]);
+            tempos[i] = System.nanoTime() - inicio;
+        }
+        if (soma < 0) {
+            System.out.println(soma);
+        }
+        Arrays.sort(tempos);
+        return new long[] { tempos[buscas / 2], tempos[(int) (buscas * 0.99)] };
+    }
+
+    private static void imprimir(String nome, long[] tempos) {
+        System.out.printf("%-22s %18.1f %16.1f%n", nome, tempos[0] / 1e3, tempos[1] / 1e3);
+    }
+}
@@ -0,0 +1,146 @@
+package ifome.benchmark;
+
+import ifome.util.RepositorioRestaurantes;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * tempo de carregamento do repositorio em funcao da quantidade de itens de pedido.
+ * gera bases sinteticas de 1/8, 1/4, 1/2 e 1x o total (padrao 1.000.000 de itens,
+ * 4 itens por pedido) e mede getInstance(). com os indices por email e por numero
+ * o tempo por item deve ficar estavel; com busca linear ele cresce junto com a base.
+ * a varredura roda duas vezes: lendo tudo pro heap e com pedidos/itens mapeados
+ * em pedacos (ifome.carga.mapeadaBytes=0).
+ *
+ * rodar com: gradle benchmark -PbenchmarkClasse=ifome.benchmark.BenchmarkCarregamento
+ * argumento opcional: [total de itens]
+ */
+public class BenchmarkCarregamento {
+
+    private static final int ITENS_POR_PEDIDO = 4;
+    private static final int RESTAURANTES = 500;
+    private static final int CLIENTES = 20000;
+    private static final String[] PRODUTOS = { "Pizza", "Burger", "Sushi", "Refri", "Suco" };
+    private static Map<String, Long> ultimosTempos;
+
+    public static void main(String[] args) throws Exception {
+        int totalItens = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.setProperty("ifome.compactacao.segundos", String.valueOf(Long.MAX_VALUE / 1000));
+
+        // limite padrao: tudo lido pro heap; 0: pedidos/itens sempre mapeados
+        for (String limite : new String[] { null, "0" }) {
+            if (limite != null) {
+                System.setProperty("ifome.carga.mapeadaBytes", limite);
+                System.out.println(">>> pedidos/itens mapeados em pedacos");
+            }
+            try {
+                varrer(totalItens);
+            } finally {
+                System.clearProperty("ifome.carga.mapeadaBytes");
+            }
+        }
+    }
+
+    private static void varrer(int totalItens) throws IOException {
+        // aquecimento com uma base pequena
+        medir(totalItens / 16);
+        medir(totalItens / 16);
+
+        System.out.printf("%12s %12s %12s %14s%n", "itens", "pedidos", "tempo (ms)", "ns por item");
+        for (int divisor = 8; divisor >= 1; divisor /= 2) {
+            int itens = totalItens / divisor;
+            long nanos = medir(itens);
+            System.out.printf("%12d %12d %12.1f %14.1f%n",
+                itens, itens / ITENS_POR_PEDIDO, nanos / 1e6, (double) nanos / itens);
+        }
+
+        System.out.println(">>> etapas da maior carga:");
+        imprimirEtapas();
+    }
+
+    private static void imprimirEtapas() {
+        for (Map.Entry<String, Long> etapa : ultimosTempos.entrySet()) {
+            System.out.printf("    %-45s %8.1f ms%n", etapa.getKey(), etapa.getValue() / 1e6);
+        }
+    }
+
+    // gera a base, carrega e devolve o tempo de carga em nanos
+    static long medir(int itens) throws IOException {
+        File diretorio = Files.createTempDirectory("ifome-bench-carga").toFile();
+        try {
+            gerarBase(diretorio, itens / ITENS_POR_PEDIDO);
+            System.setProperty("ifome.dados", diretorio.getPath());
+            RepositorioRestaurantes.limparInstancia();
+
+            java.io.PrintStream saida = System.out;
+            System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+            long inicio = System.nanoTime();
+            RepositorioRestaurantes repo;
+            try {
+                repo = RepositorioRestaurantes.getInstance();
+            } finally {
+                System.setOut(saida);
+            }
+            long nanos = System.nanoTime() - inicio;
+            ultimosTempos = repo.getTemposCarregamento();
+            RepositorioRestaurantes.limparInstancia();
+            return nanos;
+        } finally {
+            System.clearProperty("ifome.dados");
+            apagar(diretorio);
+        }
+    }
+
+    static void gerarBase(File diretorio, int pedidos) throws IOException {
+        try (BufferedWriter rest = escritor(diretorio, "restaurantes.txt");
+             BufferedWriter card = escritor(diretorio, "cardapios.txt")) {
+            for (int r = 0; r < RESTAURANTES; r++) {
+                rest.write("rest" + r + "@email.com;123;Restaurante " + r + ";" + (10000000000000L + r));
+                rest.newLine();
+                for (String produto : PRODUTOS) {
+                    card.write("rest" + r + "@email.com;Comida;" + produto + ";desc;20.0;true;false");
+                    card.newLine();
+                }
+            }
+        }
+        try (BufferedWriter cli = escritor(diretorio, "clientes.txt")) {
+            for (int c = 0; c < CLIENTES; c++) {
+                cli.write("cliente" + c + "@email.com;123;Cliente " + c + ";11999999999");
+                cli.newLine();
+            }
+        }
+        try (BufferedWriter ped = escritor(diretorio, "pedidos.txt");
+             BufferedWriter itens = escritor(diretorio, "itens_pedido.txt")) {
+            for (int p = 1; p <= pedidos; p++) {
+                String emailRestaurante = "rest" + (p % RESTAURANTES) + "@email.com";
+                ped.write(p + ";2026-10-16 12:00:00;cliente" + (p % CLIENTES) + "@email.com;" +
+                          emailRestaurante + ";Entregue;80.0");
+                ped.newLine();
+                for (int i = 0; i < ITENS_POR_PEDIDO; i++) {
+                    itens.write(p + ";" + emailRestaurante + ";" + PRODUTOS[i] + ";1;20.0;sem cebola");
+                    itens.newLine();
+                }
+            }
+        }
+    }
+
+    private static BufferedWriter escritor(File diretorio, String nome) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(new File(diretorio, nome)), StandardCharsets.UTF_8));
+    }
+
+    static void apagar(File diretorio) throws IOException {
+        Files.walk(diretorio.toPath())
+            .sorted(Comparator.reverseOrder())
+            .map(java.nio.file.Path::toFile)
+            .forEach(File::delete);
+    }
+}
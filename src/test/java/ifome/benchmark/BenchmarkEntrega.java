@@ -0,0 +1,170 @@
+package ifome.benchmark;
+
+import ifome.exceptions.EnderecoForaRaioException;
+import ifome.model.Endereco;
+import ifome.model.Restaurante;
+import ifome.util.Coordenada;
+import ifome.util.RepositorioRestaurantes;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * area de entrega com restaurantes espalhados numa regiao de ~110 x 110 km e uma
+ * tabela sintetica de CEPs (uma faixa por quadra de ~550 m). compara "quem entrega
+ * neste endereco" varrendo todos os restaurantes (com as coordenadas ja calculadas)
+ * com a grade do repositorio, e mede a conferencia do checkout e a busca do CEP no
+ * ceps.bin mapeado. raios de 3 a 10 km
+ *
+ * rodar com: gradle benchmark -PbenchmarkClasse=ifome.benchmark.BenchmarkEntrega
+ * argumentos opcionais: [restaurantes] [consultas]
+ */
+public class BenchmarkEntrega {
+
+    private static final int QUADRAS_POR_LADO = 200;
+    private static final double LADO_QUADRA = 0.005; // graus
+    private static final double LATITUDE_BASE = -24.0;
+    private static final double LONGITUDE_BASE = -47.0;
+
+    public static void main(String[] args) throws Exception {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int consultas = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        System.setProperty("ifome.compactacao.segundos", String.valueOf(Long.MAX_VALUE / 1000));
+        File diretorio = Files.createTempDirectory("ifome-bench-entrega").toFile();
+        File csv = new File(diretorio, "ceps.csv");
+        gerarCeps(csv);
+        System.setProperty("ifome.dados", diretorio.getPath());
+        System.setProperty("ifome.ceps", csv.getPath());
+
+        Random random = new Random(42);
+        PrintStream saida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RepositorioRestaurantes repo;
+        long inicioCarga = System.nanoTime();
+        long msTabela;
+        try {
+            RepositorioRestaurantes.limparInstancia();
+            repo = RepositorioRestaurantes.getInstance();
+            msTabela = (System.nanoTime() - inicioCarga) / 1_000_000;
+            repo.limparTodos();
+            for (int r = 0; r < quantidade; r++) {
+                Restaurante restaurante = new Restaurante("rest" + r + "@email.com", "123", "Restaurante " + r,
+                                                          String.format("%014d", r));
+                repo.adicionarRestaurante(restaurante);
+                repo.atualizarAreaEntrega(restaurante, new Endereco(cepAleatorio(random), "Rua " + r, "1"),
+                                          3 + random.nextInt(8));
+            }
+        } finally {
+            System.setOut(saida);
+        }
+        long msCarga = (System.nanoTime() - inicioCarga) / 1_000_000;
+
+        try {
+            List<Restaurante> todos = repo.getTodosRestaurantes();
+            Coordenada[] coordenadas = new Coordenada[todos.size()];
+            for (int i = 0; i < coordenadas.length; i++) {
+                coordenadas[i] = repo.localizarCep(todos.get(i).getEndereco().getCep());
+            }
+            Endereco[] enderecos = new Endereco[consultas];
+            for (int i = 0; i < consultas; i++) {
+                enderecos[i] = new Endereco(cepAleatorio(random), "Rua do Cliente", "10");
+            }
+            Restaurante[] escolhidos = new Restaurante[consultas];
+            for (int i = 0; i < consultas; i++) {
+                escolhidos[i] = todos.get(random.nextInt(todos.size()));
+            }
+
+            RepositorioRestaurantes r = repo;
+            long[] varredura = medir(consultas, i -> varrer(todos, coordenadas, r.localizarCep(enderecos[i].getCep())));
+            long[] grade = medir(consultas, i -> r.buscarRestaurantesQueEntregam(enderecos[i]).size());
+            long[] checkout = medir(consultas, i -> {
+                try {
+                    r.verificarEntrega(escolhidos[i], enderecos[i]);
+                    return 1;
+                } catch (EnderecoForaRaioException e) {
+                    return 0;
+                }
+            });
+            long[] cep = medir(consultas, i -> r.localizarCep(enderecos[i].getCep()) != null ? 1 : 0);
+
+            int media = 0;
+            for (int i = 0; i < Math.min(consultas, 500); i++) {
+                media += r.buscarRestaurantesQueEntregam(enderecos[i]).size();
+            }
+            System.out.printf("%d restaurantes, %d faixas de CEP (tabela em %d ms, carga em %d ms), ~%d entregam por endereco%n",
+                todos.size(), QUADRAS_POR_LADO * QUADRAS_POR_LADO, msTabela, msCarga, media / Math.min(consultas, 500));
+            System.out.printf("%-26s %18s %16s%n", "consulta", "mediana (us)", "p99 (us)");
+            imprimir("quem entrega, varredura", varredura);
+            imprimir("quem entrega, grade", grade);
+            imprimir("checkout (raio)", checkout);
+            imprimir("cep -> coordenada", cep);
+        } finally {
+            RepositorioRestaurantes.limparInstancia();
+            System.clearProperty("ifome.dados");
+            System.clearProperty("ifome.ceps");
+            BenchmarkCarregamento.apagar(diretorio);
+        }
+    }
+
+    // uma faixa de 1000 CEPs por quadra, a partir do 10000-000
+    private static void gerarCeps(File csv) throws Exception {
+        try (PrintWriter saida = new PrintWriter(csv, "UTF-8")) {
+            saida.println("cep_inicio;cep_fim;latitude;longitude;nome");
+            for (int q = 0; q < QUADRAS_POR_LADO * QUADRAS_POR_LADO; q++) {
+                int prefixo = 10_000 + q;
+                double latitude = LATITUDE_BASE + (q / QUADRAS_POR_LADO + 0.5) * LADO_QUADRA;
+                double longitude = LONGITUDE_BASE + (q % QUADRAS_POR_LADO + 0.5) * LADO_QUADRA;
+                saida.printf(Locale.ROOT, "%05d-000;%05d-999;%.6f;%.6f;Quadra %d%n", prefixo, prefixo, latitude, longitude, q);
+            }
+        }
+    }
+
+    private static String cepAleatorio(Random random) {
+        return String.format("%05d-%03d", 10_000 + random.nextInt(QUADRAS_POR_LADO * QUADRAS_POR_LADO), random.nextInt(1000));
+    }
+
+    // o que daria pra fazer sem a grade: distancia ate cada restaurante
+    private static int varrer(List<Restaurante> todos, Coordenada[] coordenadas, Coordenada ponto) {
+        int achados = 0;
+        for (int i = 0; i < coordenadas.length; i++) {
+            if (coordenadas[i].distanciaKm(ponto) <= todos.get(i).getRaioEntregaKm()) {
+                achados++;
+            }
+        }
+        return achados;
+    }
+
+    private interface Consulta {
+        int executar(int indice);
+    }
+
+    // {mediana, p99} em nanos
+    private static long[] medir(int consultas, Consulta consulta) {
+        long soma = 0;
+        for (int i = 0; i < consultas / 10; i++) { // aquecimento
+            soma += consulta.executar(i);
+        }
+        long[] tempos = new long[consultas];
+        for (int i = 0; i < consultas; i++) {
+            long inicio = System.nanoTime();
+            soma += consulta.executar(i);
+            tempos[i] = System.nanoTime() - inicio;
+        }
+        if (soma < 0) {
+            System.out.println(soma);
+        }
+        Arrays.sort(tempos);
+        return new long[] { tempos[consultas / 2], tempos[(int) (consultas * 0.99)] };
+    }
+
+    private static void imprimir(String nome, long[] tempos) {
+        System.out.printf("%-26s %18.1f %16.1f%n", nome, tempos[0] / 1e3, tempos[1] / 1e3);
+    }
+}
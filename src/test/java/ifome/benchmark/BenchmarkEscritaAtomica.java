@@ -0,0 +1,114 @@
+package ifome.benchmark;
+
+import ifome.util.EscritaAtomica;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * compara a latencia de um ciclo de salvamento (11 arquivos, como o repositorio):
+ *  - direto: FileOutputStream truncando o arquivo original (caminho antigo)
+ *  - atomico com fsync por arquivo: temp + fsync + rename, um de cada vez
+ *  - atomico em lote: EscritaAtomica (fsyncs juntos + um fsync de diretorio)
+ *
+ * rodar com: gradle benchmark -PbenchmarkClasse=ifome.benchmark.BenchmarkEscritaAtomica
+ * argumentos opcionais: [linhas por arquivo] [repeticoes]
+ */
+public class BenchmarkEscritaAtomica {
+
+    private static final int ARQUIVOS = 11;
+
+    public static void main(String[] args) throws Exception {
+        int linhas = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int repeticoes = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        File diretorio = Files.createTempDirectory("ifome-bench-escrita").toFile();
+        try {
+            // aquecimento
+            for (int i = 0; i < 5; i++) {
+                cicloDireto(diretorio, linhas);
+                cicloAtomicoPorArquivo(diretorio, linhas);
+                cicloAtomicoEmLote(diretorio, linhas);
+            }
+
+            long[] direto = new long[repeticoes];
+            long[] porArquivo = new long[repeticoes];
+            long[] emLote = new long[repeticoes];
+            for (int i = 0; i < repeticoes; i++) {
+                direto[i] = cicloDireto(diretorio, linhas);
+                porArquivo[i] = cicloAtomicoPorArquivo(diretorio, linhas);
+                emLote[i] = cicloAtomicoEmLote(diretorio, linhas);
+            }
+
+            System.out.println(">>> " + ARQUIVOS + " arquivos x " + linhas + " linhas, " + repeticoes + " repeticoes");
+            imprimir("direto (sem fsync, trunca)", direto);
+            imprimir("atomico, fsync por arquivo", porArquivo);
+            imprimir("atomico, fsync em lote", emLote);
+        } finally {
+            Files.walk(diretorio.toPath())
+                .sorted(Comparator.reverseOrder())
+                .map(java.nio.file.Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+
+    private static long cicloDireto(File diretorio, int linhas) throws IOException {
+        long inicio = System.nanoTime();
+        for (int a = 0; a < ARQUIVOS; a++) {
+            try (OutputStream os = new FileOutputStream(new File(diretorio, "arquivo" + a + ".txt"))) {
+                escrever(os, linhas);
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static long cicloAtomicoPorArquivo(File diretorio, int linhas) throws IOException {
+        long inicio = System.nanoTime();
+        for (int a = 0; a < ARQUIVOS; a++) {
+            EscritaAtomica escrita = new EscritaAtomica(true);
+            try (OutputStream os = escrita.criarTemporario(new File(diretorio, "arquivo" + a + ".txt"))) {
+                escrever(os, linhas);
+            }
+            escrita.confirmar();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static long cicloAtomicoEmLote(File diretorio, int linhas) throws IOException {
+        long inicio = System.nanoTime();
+        EscritaAtomica lote = new EscritaAtomica(true);
+        for (int a = 0; a < ARQUIVOS; a++) {
+            try (OutputStream os = lote.criarTemporario(new File(diretorio, "arquivo" + a + ".txt"))) {
+                escrever(os, linhas);
+            }
+        }
+        lote.confirmar();
+        return System.nanoTime() - inicio;
+    }
+
+    private static void escrever(OutputStream os, int linhas) throws IOException {
+        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        for (int i = 0; i < linhas; i++) {
+            bw.write(i + ";cliente" + i + "@email.com;rest@email.com;Confirmado;45.9;16/10/2026 12:00:00");
+            bw.newLine();
+        }
+        bw.flush();
+    }
+
+    static void imprimir(String nome, long[] amostrasNanos) {
+        long[] ordenadas = amostrasNanos.clone();
+        Arrays.sort(ordenadas);
+        double mediana = ordenadas[ordenadas.length / 2] / 1e6;
+        double p90 = ordenadas[(int) (ordenadas.length * 0.9)] / 1e6;
+        double media = Arrays.stream(ordenadas).average().orElse(0) / 1e6;
+        System.out.printf("%-30s mediana %8.3f ms | p90 %8.3f ms | media %8.3f ms%n", nome, mediana, p90, media);
+    }
+}
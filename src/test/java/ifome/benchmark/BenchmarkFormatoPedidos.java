@@ -0,0 +1,98 @@
+package ifome.benchmark;
+
+import ifome.util.ConversorPedidosBinario;
+import ifome.util.RepositorioRestaurantes;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * tamanho em disco e tempo de carga de pedidos/itens em texto x pedidos.bin.
+ * gera a mesma base sintetica do BenchmarkCarregamento, carrega em texto, converte
+ * com o ConversorPedidosBinario e carrega de novo com -Difome.pedidos.formato=binario.
+ * o tempo de pedidos+itens e a soma das etapas de leitura, pedidos e itens
+ *
+ * rodar com: gradle benchmark -PbenchmarkClasse=ifome.benchmark.BenchmarkFormatoPedidos
+ * argumentos opcionais: [total de itens] [repeticoes]
+ */
+public class BenchmarkFormatoPedidos {
+
+    public static void main(String[] args) throws Exception {
+        int totalItens = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int repeticoes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        System.setProperty("ifome.compactacao.segundos", String.valueOf(Long.MAX_VALUE / 1000));
+
+        File diretorio = Files.createTempDirectory("ifome-bench-formato").toFile();
+        try {
+            BenchmarkCarregamento.gerarBase(diretorio, totalItens / 4);
+            System.setProperty("ifome.dados", diretorio.getPath());
+            long bytesTexto = new File(diretorio, "pedidos.txt").length() + new File(diretorio, "itens_pedido.txt").length();
+
+            long[] texto = medir(repeticoes);
+
+            silenciar(() -> ConversorPedidosBinario.main(new String[] { diretorio.getPath() }));
+            long bytesBinario = new File(diretorio, "pedidos.bin").length();
+            System.setProperty("ifome.pedidos.formato", "binario");
+            long[] binario = medir(repeticoes);
+            System.clearProperty("ifome.pedidos.formato");
+
+            System.out.printf("%-10s %14s %16s %18s%n", "formato", "bytes", "carga total (ms)", "pedidos+itens (ms)");
+            System.out.printf("%-10s %14d %16.1f %18.1f%n", "texto", bytesTexto, texto[0] / 1e6, texto[1] / 1e6);
+            System.out.printf("%-10s %14d %16.1f %18.1f%n", "binario", bytesBinario, binario[0] / 1e6, binario[1] / 1e6);
+            System.out.printf(">>> %.1fx menor, pedidos+itens %.1fx mais rapido%n",
+                (double) bytesTexto / bytesBinario, (double) texto[1] / binario[1]);
+        } finally {
+            System.clearProperty("ifome.dados");
+            BenchmarkCarregamento.apagar(diretorio);
+        }
+    }
+
+    interface Tarefa {
+        void executar() throws Exception;
+    }
+
+    private static void silenciar(Tarefa tarefa) throws Exception {
+        PrintStream saida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            tarefa.executar();
+        } finally {
+            System.setOut(saida);
+        }
+    }
+
+    // medianas de {carga total, leitura + pedidos + itens} em nanos; a primeira rodada e aquecimento
+    private static long[] medir(int repeticoes) throws Exception {
+        long[] totais = new long[repeticoes];
+        long[] pedidos = new long[repeticoes];
+        for (int i = -1; i < repeticoes; i++) {
+            RepositorioRestaurantes.limparInstancia();
+            long[] tempo = new long[1];
+            RepositorioRestaurantes[] repo = new RepositorioRestaurantes[1];
+            silenciar(() -> {
+                long inicio = System.nanoTime();
+                repo[0] = RepositorioRestaurantes.getInstance();
+                tempo[0] = System.nanoTime() - inicio;
+            });
+            if (i >= 0) {
+                totais[i] = tempo[0];
+                long soma = 0;
+                for (Map.Entry<String, Long> etapa : repo[0].getTemposCarregamento().entrySet()) {
+                    String nome = etapa.getKey();
+                    if (nome.startsWith("leitura") || nome.startsWith("pedidos") || nome.startsWith("itens")) {
+                        soma += etapa.getValue();
+                    }
+                }
+                pedidos[i] = soma;
+            }
+        }
+        RepositorioRestaurantes.limparInstancia();
+        Arrays.sort(totais);
+        Arrays.sort(pedidos);
+        return new long[] { totais[repeticoes / 2], pedidos[repeticoes / 2] };
+    }
+}
@@ -0,0 +1,146 @@
+package ifome.benchmark;
+
+import ifome.util.LeitorRegistros;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * compara o parse antigo (readLine + split(";") + parseInt/parseDouble + SimpleDateFormat)
+ * com o LeitorRegistros sobre o mesmo conteudo de pedidos e itens em memoria.
+ * mede so o parse, sem montar objetos do modelo; o checksum impede que o JIT jogue
+ * o trabalho fora. imprime tempo mediano, registros/s e coletas de GC durante a medicao.
+ *
+ * rodar com: gradle benchmark -PbenchmarkClasse=ifome.benchmark.BenchmarkLeitorRegistros
+ * argumentos opcionais: [pedidos] [repeticoes]
+ */
+public class BenchmarkLeitorRegistros {
+
+    private static final int ITENS_POR_PEDIDO = 4;
+
+    public static void main(String[] args) throws Exception {
+        int pedidos = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        int repeticoes = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+
+        char[] textoPedidos = gerarPedidos(pedidos).toCharArray();
+        char[] textoItens = gerarItens(pedidos).toCharArray();
+        int registros = pedidos * (1 + ITENS_POR_PEDIDO);
+
+        // aquecimento
+        for (int i = 0; i < 3; i++) {
+            comSplit(textoPedidos, textoItens);
+            comLeitor(textoPedidos, textoItens);
+        }
+
+        System.out.printf("%-22s %12s %14s %10s%n", "parser", "mediana (ms)", "registros/s", "coletas GC");
+        medir("split + SimpleDate", repeticoes, registros, () -> comSplit(textoPedidos, textoItens));
+        medir("LeitorRegistros", repeticoes, registros, () -> comLeitor(textoPedidos, textoItens));
+    }
+
+    interface Parse {
+        long executar() throws Exception;
+    }
+
+    private static void medir(String nome, int repeticoes, int registros, Parse parse) throws Exception {
+        long[] tempos = new long[repeticoes];
+        long coletasAntes = coletas();
+        long checksum = 0;
+        for (int i = 0; i < repeticoes; i++) {
+            long inicio = System.nanoTime();
+            checksum += parse.executar();
+            tempos[i] = System.nanoTime() - inicio;
+        }
+        long coletas = coletas() - coletasAntes;
+        Arrays.sort(tempos);
+        long mediana = tempos[repeticoes / 2];
+        System.out.printf("%-22s %12.1f %14.0f %10d   (checksum %d)%n",
+            nome, mediana / 1e6, registros / (mediana / 1e9), coletas, checksum);
+    }
+
+    private static long coletas() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    // do jeito que os loaders faziam antes
+    private static long comSplit(char[] pedidos, char[] itens) throws ParseException {
+        SimpleDateFormat formato = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long soma = 0;
+        for (String linha : linhas(pedidos)) {
+            String[] dados = linha.split(";");
+            soma += Integer.parseInt(dados[0]);
+            soma += formato.parse(dados[1]).getTime() / 1000;
+            soma += dados[2].length() + dados[4].length();
+            soma += (long) Double.parseDouble(dados[5]);
+        }
+        for (String linha : linhas(itens)) {
+            String[] dados = linha.split(";");
+            soma += Integer.parseInt(dados[0]);
+            soma += Integer.parseInt(dados[3]);
+            soma += (long) Double.parseDouble(dados[4]);
+            soma += dados[2].length();
+        }
+        return soma;
+    }
+
+    private static long comLeitor(char[] pedidos, char[] itens) {
+        long soma = 0;
+        LeitorRegistros r = new LeitorRegistros(pedidos, pedidos.length);
+        while (r.proximoRegistro()) {
+            soma += r.inteiro(0);
+            soma += r.dataHora(1) / 1000;
+            soma += r.texto(2).length() + r.texto(4).length();
+            soma += (long) r.decimal(5);
+        }
+        r = new LeitorRegistros(itens, itens.length);
+        while (r.proximoRegistro()) {
+            soma += r.inteiro(0);
+            soma += r.inteiro(3);
+            soma += (long) r.decimal(4);
+            soma += r.texto(2).length();
+        }
+        return soma;
+    }
+
+    private static List<String> linhas(char[] conteudo) {
+        List<String> linhas = new ArrayList<>();
+        int inicio = 0;
+        for (int i = 0; i < conteudo.length; i++) {
+            if (conteudo[i] == '\n') {
+                linhas.add(new String(conteudo, inicio, i - inicio));
+                inicio = i + 1;
+            }
+        }
+        return linhas;
+    }
+
+    private static String gerarPedidos(int pedidos) {
+        StringBuilder sb = new StringBuilder(pedidos * 80);
+        for (int p = 1; p <= pedidos; p++) {
+            sb.append(p).append(";2026-10-").append(10 + p % 7).append(' ')
+              .append(10 + p % 12).append(":").append(10 + p % 50).append(":00;cliente")
+              .append(p % 20000).append("@email.com;rest").append(p % 500)
+              .append("@email.com;Entregue;").append(40 + p % 60).append(".5\n");
+        }
+        return sb.toString();
+    }
+
+    private static String gerarItens(int pedidos) {
+        StringBuilder sb = new StringBuilder(pedidos * ITENS_POR_PEDIDO * 60);
+        for (int p = 1; p <= pedidos; p++) {
+            for (int i = 0; i < ITENS_POR_PEDIDO; i++) {
+                sb.append(p).append(";rest").append(p % 500).append("@email.com;Produto ")
+                  .append(i).append(';').append(1 + i).append(";20.0;sem cebola\n");
+            }
+        }
+        return sb.toString();
+    }
+}
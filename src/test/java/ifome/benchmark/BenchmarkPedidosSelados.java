@@ -0,0 +1,90 @@
+package ifome.benchmark;
+
+import ifome.model.Cliente;
+import ifome.util.RepositorioRestaurantes;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * tamanho em disco e tempo de busca aleatoria no segmento frio com os pedidos nos
+ * .txt x selados em blocos comprimidos. gera a base do BenchmarkCarregamento com
+ * datas antigas (tudo esfria na primeira carga) e mede carregarPedidosFrios de
+ * clientes sorteados, 5 pedidos por busca
+ *
+ * rodar com: gradle benchmark -PbenchmarkClasse=ifome.benchmark.BenchmarkPedidosSelados
+ * argumentos opcionais: [pedidos] [buscas]
+ */
+public class BenchmarkPedidosSelados {
+
+    private static final int CLIENTES = 20000;
+
+    public static void main(String[] args) throws Exception {
+        int pedidos = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        int buscas = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        System.setProperty("ifome.compactacao.segundos", String.valueOf(Long.MAX_VALUE / 1000));
+        System.setProperty("ifome.fsync", "false");
+
+        File diretorio = Files.createTempDirectory("ifome-bench-selados").toFile();
+        try {
+            BenchmarkCarregamento.gerarBase(diretorio, pedidos);
+            File arquivoPedidos = new File(diretorio, "pedidos.txt");
+            String texto = new String(Files.readAllBytes(arquivoPedidos.toPath()), StandardCharsets.UTF_8);
+            Files.write(arquivoPedidos.toPath(), texto.replace(";2026-10-16 ", ";2023-10-16 ").getBytes(StandardCharsets.UTF_8));
+            System.setProperty("ifome.dados", diretorio.getPath());
+
+            System.setProperty("ifome.pedidos.selarBytes", String.valueOf(Long.MAX_VALUE));
+            long[] emTexto = medir(buscas);
+            System.setProperty("ifome.pedidos.selarBytes", "0");
+            long[] selados = medir(buscas);
+
+            System.out.printf("%-8s %14s %18s %16s%n", "frios", "bytes", "busca mediana (us)", "busca p99 (us)");
+            System.out.printf("%-8s %14d %18.1f %16.1f%n", "texto", emTexto[0], emTexto[1] / 1e3, emTexto[2] / 1e3);
+            System.out.printf("%-8s %14d %18.1f %16.1f%n", "selados", selados[0], selados[1] / 1e3, selados[2] / 1e3);
+            System.out.printf(">>> %.1fx menor em disco%n", (double) emTexto[0] / selados[0]);
+        } finally {
+            System.clearProperty("ifome.dados");
+            System.clearProperty("ifome.fsync");
+            System.clearProperty("ifome.pedidos.selarBytes");
+            BenchmarkCarregamento.apagar(diretorio);
+        }
+    }
+
+    // {bytes do segmento frio, mediana e p99 das buscas em nanos}
+    private static long[] medir(int buscas) {
+        RepositorioRestaurantes.limparInstancia();
+        PrintStream saida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RepositorioRestaurantes repo;
+        try {
+            repo = RepositorioRestaurantes.getInstance();
+        } finally {
+            System.setOut(saida);
+        }
+
+        Random random = new Random(42);
+        Cliente[] clientes = new Cliente[CLIENTES];
+        for (int c = 0; c < CLIENTES; c++) {
+            clientes[c] = repo.buscarClientePorEmail("cliente" + c + "@email.com");
+        }
+        for (int i = 0; i < buscas / 10; i++) { // aquecimento
+            repo.carregarPedidosFrios(clientes[random.nextInt(CLIENTES)], 0, 5);
+        }
+        long[] tempos = new long[buscas];
+        for (int i = 0; i < buscas; i++) {
+            Cliente cliente = clientes[random.nextInt(CLIENTES)];
+            long inicio = System.nanoTime();
+            repo.carregarPedidosFrios(cliente, 0, 5);
+            tempos[i] = System.nanoTime() - inicio;
+        }
+        long bytes = repo.getEstatisticasPedidos().getBytesFrios();
+        RepositorioRestaurantes.limparInstancia();
+        Arrays.sort(tempos);
+        return new long[] { bytes, tempos[buscas / 2], tempos[(int) (buscas * 0.99)] };
+    }
+}